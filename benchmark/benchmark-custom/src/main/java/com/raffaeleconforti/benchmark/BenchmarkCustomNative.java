@@ -184,6 +184,10 @@ public class BenchmarkCustomNative {
 
     }
 
+    int getK() {
+        return K;
+    }
+
     public void stop() {
         this.executor.shutdownNow();
     }
@@ -231,6 +235,27 @@ public class BenchmarkCustomNative {
         }
     }
 
+    /**
+     * Same measures as {@link #runPN}, computed directly on a state machine instead of on its Petri net.
+     */
+    public void runDFA(DFAConformance conformance, BPMNDiagram bpmn, XLog log, String minerName, DatasetName logName, ResultsMap results) {
+        try {
+            logMessage("computing soundness");
+            long runtime = System.currentTimeMillis();
+            boolean isSound = conformance.isSound();
+            runtime = System.currentTimeMillis() - runtime;
+            results.addResult(minerName, logName, SOUNDNESS_KEY, isSound ? "sound" : "unsound", runtime);
+
+            if (isSound) {
+                logMessage("log is sound, computing performance on full data");
+                computeComplexity(bpmn, minerName, logName, true, results);
+                this.computeAutomatonPerformance(conformance, log, minerName, logName, results);
+            }
+        } catch (InterruptedException e) {
+            logMessage("ERROR - metrics were interrupted, stopping execution");
+        }
+    }
+
     public void runPerformance(UIPluginContext ctx, MiningAlgorithm miner, MiningSettings settings, XLog log, String minerName, DatasetName logName, ResultsMap results) {
         try {
             PetrinetWithMarking minerResult = mineLog(ctx, miner, settings, log, minerName, logName, results);
@@ -507,6 +532,68 @@ public class BenchmarkCustomNative {
         }
     }
 
+    private void computeAutomatonPerformance(DFAConformance conformance, XLog log, String minerName, DatasetName
+            logName, ResultsMap results) throws InterruptedException {
+        results.addResult(minerName, logName, "_performanceType", "automaton-based");
+
+        Future<DFAConformance.Result> resultFuture = null;
+        DFAConformance.Result result;
+        long time;
+        try {
+            logMessage("computing fitness and precision");
+            time = System.currentTimeMillis();
+            resultFuture = this.executor.submit(() -> conformance.compute(log));
+            result = resultFuture.get(2 * metricTimeout, TimeUnit.MILLISECONDS);
+            time = System.currentTimeMillis() - time;
+        } catch (TimeoutException ex) {
+            logMessage("ERROR - fitness timeout, skipping others");
+            results.addIfMissing(minerName, logName, FITNESS_KEY, VALUE_TIMEOUT);
+            results.addIfMissing(minerName, logName, PRECISION_KEY, VALUE_TIMEOUT);
+            return;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            results.addIfMissing(minerName, logName, FITNESS_KEY, VALUE_ERROR);
+            results.addIfMissing(minerName, logName, PRECISION_KEY, VALUE_ERROR);
+            logMessage("ERROR - exception in performance, returning");
+            return;
+        } finally {
+            if (resultFuture != null) {
+                resultFuture.cancel(true);
+            }
+        }
+
+        results.addResult(minerName, logName, "debug-log-size", log.size());
+        if (!result.reliable) {
+            // No run of the machine reaches a terminating state, so no trace can be aligned
+            results.addIfMissing(minerName, logName, CONFORMANCE_UNIQUE_KEY, "ERROR-UNRELIABLE");
+            results.addIfMissing(minerName, logName, CONFORMANCE_TOTAL_KEY, "ERROR-UNRELIABLE");
+            results.addIfMissing(minerName, logName, CONFORMANCE_UNIQUE_FRAC_KEY, "ERROR-UNRELIABLE");
+            results.addIfMissing(minerName, logName, CONFORMANCE_TOTAL_FRAC_KEY, "ERROR-UNRELIABLE");
+            results.addIfMissing(minerName, logName, PRECISION_KEY, "ERROR-UNRELIABLE");
+            return;
+        }
+
+        results.addResult(minerName, logName, FITNESS_KEY, result.fitness, time);
+        results.addResult(minerName, logName, PERFORMANCE_UNIQUE_SIZE, result.uniqueTraces);
+        results.addResult(minerName, logName, PERFORMANCE_TOTAL_SIZE, result.totalTraces);
+        results.addResult(minerName, logName, CONFORMANCE_UNIQUE_KEY, result.uniquePerfect);
+        results.addResult(minerName, logName, CONFORMANCE_TOTAL_KEY, result.totalPerfect);
+        results.addResult(minerName, logName, CONFORMANCE_UNIQUE_FRAC_KEY,
+                (double) result.uniquePerfect / (double) result.uniqueTraces);
+        results.addResult(minerName, logName, CONFORMANCE_TOTAL_FRAC_KEY,
+                (double) result.totalPerfect / (double) result.totalTraces);
+        results.addResult(minerName, logName, "debug-replay-size", result.totalTraces);
+        results.addResult(minerName, logName, "debug-replay-correct", "OK");
+        results.addResult(minerName, logName, PRECISION_KEY, result.precision, time);
+
+        if (result.fitness < 0.001 && result.precision < 0.001) {
+            results.addResult(minerName, logName, F_SCORE_KEY, "ERROR - VALUE");
+        } else {
+            results.addResult(minerName, logName, F_SCORE_KEY,
+                    (2 * (result.fitness * result.precision) / (result.fitness + result.precision)));
+        }
+    }
+
     private int getFitness(String minerName, DatasetName logName, ResultsMap results, PNRepResult pnRepResult, long fitnessTime) {
         if (pnRepResult == null) {
             results.addResult(minerName, logName, FITNESS_KEY, "ERROR-NULL");
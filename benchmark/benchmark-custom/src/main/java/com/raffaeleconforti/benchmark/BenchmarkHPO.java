@@ -1,9 +1,6 @@
 package com.raffaeleconforti.benchmark;
 
 import com.raffaeleconforti.context.FakePluginContext;
-import com.raffaeleconforti.wrappers.MiningAlgorithm;
-import com.raffaeleconforti.wrappers.impl.SplitMinerWrapper;
-import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.model.XLog;
 import org.processmining.contexts.uitopia.UIPluginContext;
 
@@ -19,20 +16,18 @@ public class BenchmarkHPO {
         XLog log = loadLog(logFile);
         DatasetName logName = new DatasetName("cptc_18_reversed");
 
-        for (double eps = 0.0D; eps <= 1.0D; eps += 0.1D) {
-            for (double eta = 0.0D; eta <= 1.0D; eta += 0.1D) {
-                MiningSettings settings = new MiningSettings();
-
-                settings.setParam("etaSM", eta);
-                settings.setParam("epsilonSM", eps);
-                MiningAlgorithm miner = new SplitMinerWrapper();
-
-                BenchmarkCustomNative b = new BenchmarkCustomNative(HOUR_MS, HOUR_MS, 5, 6);
-                String minerName = String.format("SM_e=%.1f_n=%.1f", eps, eta);
-                b.runPerformance(ctx, miner, settings, log, minerName, logName, results);
+        double[] epsilons = new double[11];
+        double[] etas = new double[11];
+        for (int i = 0; i < 11; i++) {
+            epsilons[i] = i / 10.0D;
+            etas[i] = i / 10.0D;
+        }
 
-                b.stop();
-            }
+        BenchmarkCustomNative b = new BenchmarkCustomNative(HOUR_MS, HOUR_MS, 5, 6);
+        try {
+            new SplitMinerSweep(b, epsilons, etas).run(ctx, log, logName, results);
+        } finally {
+            b.stop();
         }
 
         results.writeJSON(String.format("./results/%s/%s_cptc_18_reversed.json", "SM_hpo", currentTime()));
@@ -214,48 +214,11 @@ public class Common {
     }
 }
 
-class TreeNode {
-    private final String label;
-    public Map<String, TreeNode> children;
-    private int countFinal;
-
-    public TreeNode(String label) {
-        this.label = label;
-        this.countFinal = 0;
-        this.children = new HashMap<>();
-    }
-
-    public TreeNode getChild(String label) {
-        if (this.children.containsKey(label)) {
-            return this.children.get(label);
-        }
-        TreeNode child = new TreeNode(label);
-        this.children.put(label, child);
-        return child;
-    }
-
-    public boolean isFinal() {
-        return this.countFinal > 0;
-    }
-
-    public Collection<TreeNode> children() {
-        return this.children.values();
-    }
-
-    public void addFinal() {
-        this.countFinal += 1;
-    }
-
-    public String getLabel() {
-        return this.label;
-    }
-}
-
 class QueueItem<T> {
-    public TreeNode node;
+    public int node;
     public T reachedFrom;
 
-    public QueueItem(TreeNode node, T reachedFrom) {
+    public QueueItem(int node, T reachedFrom) {
         this.node = node;
         this.reachedFrom = reachedFrom;
     }
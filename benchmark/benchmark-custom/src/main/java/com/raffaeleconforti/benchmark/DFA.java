@@ -1,29 +1,74 @@
 package com.raffaeleconforti.benchmark;
 
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.io.File;
-import java.util.List;
-import java.util.Map;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
 
 /**
  * Datastructures and helper methods to load the state machines produced by flexfringe.
+ *
+ * The machine is kept in primitive arrays, with the labels of the edges interned in a table. The JSON file is read
+ * with a streaming parser which skips everything the evaluation does not use, such as the traces of each node; the
+ * data payload of a node is only located in the file, and read when {@link DFANode#getData()} is called, provided the
+ * file still has the size and modification time it had when parsed. A compact binary form of each machine is cached
+ * in the directory given by the system property {@value #CACHE_DIRECTORY_PROPERTY}, by default in the temporary
+ * directory, keyed by the canonical path, the size and the modification time of the JSON file, so that later
+ * evaluations of the same machine neither read nor parse it again.
  */
 class DFA {
-    @JsonProperty("nodes")
+    public static final String CACHE_DIRECTORY_PROPERTY = "dfa.cache";
+
+    private static final int MAGIC = 0x44464143;
+    private static final int VERSION = 2;
+
+    private final File file;
+    // Size and modification time of the file when parsed, which the byte ranges of the data payloads refer to
+    private final long fileSize;
+    private final long fileModified;
+
+    private final int[] nodeIds;
+    private final String[] nodeLabels;
+    private final int[] nodeSizes;
+    private final boolean[] nodeSinks;
+    private final int[] nodeFinals;
+    // Byte range of the data payload of each node in the file
+    private final long[] dataStarts;
+    private final long[] dataEnds;
+
+    private final String[] labels;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int[] edgeLabels;
+    private final int[] edgeCounts;
+
     private List<DFANode> nodes;
-    @JsonProperty("edges")
     private List<DFAEdge> edges;
 
-    public DFA(List<DFANode> nodes, List<DFAEdge> edges) {
-        this.nodes = nodes;
-        this.edges = edges;
-    }
-
-    public DFA() {
+    private DFA(File file, long fileSize, long fileModified, int[] nodeIds, String[] nodeLabels, int[] nodeSizes, boolean[] nodeSinks, int[] nodeFinals,
+                long[] dataStarts, long[] dataEnds, String[] labels, int[] edgeSources, int[] edgeTargets,
+                int[] edgeLabels, int[] edgeCounts) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.fileModified = fileModified;
+        this.nodeIds = nodeIds;
+        this.nodeLabels = nodeLabels;
+        this.nodeSizes = nodeSizes;
+        this.nodeSinks = nodeSinks;
+        this.nodeFinals = nodeFinals;
+        this.dataStarts = dataStarts;
+        this.dataEnds = dataEnds;
+        this.labels = labels;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeLabels = edgeLabels;
+        this.edgeCounts = edgeCounts;
     }
 
     public static DFA loadJSON(String filename) {
@@ -32,44 +77,418 @@ class DFA {
     }
 
     public static DFA loadJSON(File machineFile) {
-        ObjectMapper mapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
         try {
-            return mapper.readValue(machineFile, DFA.class);
+            String path = machineFile.getCanonicalPath();
+            long size = machineFile.length();
+            long modified = machineFile.lastModified();
+            File cacheFile = getCacheFile(path, size, modified);
+
+            if (cacheFile != null && cacheFile.isFile()) {
+                try {
+                    return readCache(machineFile, cacheFile, path, size, modified);
+                } catch (IOException e) {
+                    Common.logMessage("WARN - ignoring unreadable DFA cache " + cacheFile + ": " + e.getMessage());
+                }
+            }
+
+            DFA dfa = parse(machineFile, size, modified);
+            // Not cached if the file changed while parsed, as the offsets may then belong to neither version
+            if (cacheFile != null && machineFile.length() == size && machineFile.lastModified() == modified) {
+                try {
+                    dfa.writeCache(cacheFile, path);
+                } catch (IOException e) {
+                    Common.logMessage("WARN - cannot write DFA cache " + cacheFile + ": " + e.getMessage());
+                }
+            }
+            return dfa;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    private static File getCacheFile(String path, long size, long modified) throws Exception {
+        File directory = new File(System.getProperty(CACHE_DIRECTORY_PROPERTY, new File(System.getProperty("java.io.tmpdir"), "dfa-cache").getPath()));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        byte[] key = (path + '\0' + size + '\0' + modified).getBytes(StandardCharsets.UTF_8);
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(key)) {
+            sb.append(String.format("%02x", b));
+        }
+        return new File(directory, sb + ".dfa");
+    }
 
-    public List<DFANode> getNodes() {
-        return nodes;
+    private static DFA parse(File file, long size, long modified) throws IOException {
+        Builder builder = new Builder();
+        try (JsonParser parser = new JsonFactory().createParser(file)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("nodes") && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        parseNode(parser, builder);
+                    }
+                } else if (field.equals("edges") && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        parseEdge(parser, builder);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return builder.build(file, size, modified);
+    }
+
+    private static void parseNode(JsonParser parser, Builder builder) throws IOException {
+        int id = 0;
+        String label = null;
+        int size = 0;
+        boolean sink = false;
+        int totalFinal = 0;
+        long dataStart = -1;
+        long dataEnd = -1;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = intValue(parser);
+                    break;
+                case "label":
+                    label = parser.getValueAsString();
+                    break;
+                case "size":
+                    size = intValue(parser);
+                    break;
+                case "issink":
+                    sink = value == JsonToken.VALUE_TRUE || (value != JsonToken.VALUE_FALSE && intValue(parser) != 0);
+                    break;
+                case "data":
+                    if (value != JsonToken.START_OBJECT) break;
+                    dataStart = parser.getTokenLocation().getByteOffset();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String dataField = parser.getCurrentName();
+                        parser.nextToken();
+                        if (dataField.equals("total_final")) {
+                            totalFinal = intValue(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    dataEnd = parser.getCurrentLocation().getByteOffset();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        builder.addNode(id, label, size, sink, totalFinal, dataStart, dataEnd);
+    }
+
+    private static void parseEdge(JsonParser parser, Builder builder) throws IOException {
+        int source = 0;
+        int target = 0;
+        String label = null;
+        int count = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "source":
+                    source = intValue(parser);
+                    break;
+                case "target":
+                    target = intValue(parser);
+                    break;
+                case "name":
+                    label = parser.getValueAsString();
+                    break;
+                case "appearances":
+                    count = intValue(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        builder.addEdge(source, target, label, count);
+    }
+
+    /**
+     * flexfringe writes some numbers as strings, e.g. "21 ".
+     */
+    private static int intValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return Integer.parseInt(parser.getText().trim());
+        }
+        return parser.getValueAsInt();
+    }
+
+    private static void expect(JsonToken token, JsonToken expected) throws IOException {
+        if (token != expected) {
+            throw new IOException("Expected " + expected + ", found " + token);
+        }
+    }
+
+    private void writeCache(File cacheFile, String path) throws IOException {
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(path);
+            output.writeLong(fileSize);
+            output.writeLong(fileModified);
+
+            output.writeInt(nodeIds.length);
+            for (int i = 0; i < nodeIds.length; i++) {
+                output.writeInt(nodeIds[i]);
+                output.writeBoolean(nodeLabels[i] != null);
+                if (nodeLabels[i] != null) output.writeUTF(nodeLabels[i]);
+                output.writeInt(nodeSizes[i]);
+                output.writeBoolean(nodeSinks[i]);
+                output.writeInt(nodeFinals[i]);
+                output.writeLong(dataStarts[i]);
+                output.writeLong(dataEnds[i]);
+            }
+
+            output.writeInt(labels.length);
+            for (String label : labels) {
+                output.writeBoolean(label != null);
+                if (label != null) output.writeUTF(label);
+            }
+
+            output.writeInt(edgeSources.length);
+            for (int i = 0; i < edgeSources.length; i++) {
+                output.writeInt(edgeSources[i]);
+                output.writeInt(edgeTargets[i]);
+                output.writeInt(edgeLabels[i]);
+                output.writeInt(edgeCounts[i]);
+            }
+        }
+        // Renamed once complete, so that a concurrent or interrupted evaluation never reads a partial cache
+        if (!tmp.renameTo(cacheFile)) {
+            tmp.delete();
+        }
+    }
+
+    private static DFA readCache(File file, File cacheFile, String path, long size, long modified) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("incompatible format");
+            }
+            if (!input.readUTF().equals(path) || input.readLong() != size || input.readLong() != modified) {
+                throw new IOException("cache of another version of the file");
+            }
+
+            int nodeCount = input.readInt();
+            int[] nodeIds = new int[nodeCount];
+            String[] nodeLabels = new String[nodeCount];
+            int[] nodeSizes = new int[nodeCount];
+            boolean[] nodeSinks = new boolean[nodeCount];
+            int[] nodeFinals = new int[nodeCount];
+            long[] dataStarts = new long[nodeCount];
+            long[] dataEnds = new long[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodeIds[i] = input.readInt();
+                nodeLabels[i] = input.readBoolean() ? input.readUTF() : null;
+                nodeSizes[i] = input.readInt();
+                nodeSinks[i] = input.readBoolean();
+                nodeFinals[i] = input.readInt();
+                dataStarts[i] = input.readLong();
+                dataEnds[i] = input.readLong();
+                if (dataStarts[i] >= 0 && (dataEnds[i] <= dataStarts[i] || dataEnds[i] > size)) {
+                    throw new IOException("data of node " + nodeIds[i] + " outside of the file");
+                }
+            }
+
+            String[] labels = new String[input.readInt()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = input.readBoolean() ? input.readUTF() : null;
+            }
+
+            int edgeCount = input.readInt();
+            int[] edgeSources = new int[edgeCount];
+            int[] edgeTargets = new int[edgeCount];
+            int[] edgeLabels = new int[edgeCount];
+            int[] edgeCounts = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                edgeSources[i] = input.readInt();
+                edgeTargets[i] = input.readInt();
+                edgeLabels[i] = input.readInt();
+                edgeCounts[i] = input.readInt();
+            }
+
+            return new DFA(file, size, modified, nodeIds, nodeLabels, nodeSizes, nodeSinks, nodeFinals, dataStarts, dataEnds,
+                    labels, edgeSources, edgeTargets, edgeLabels, edgeCounts);
+        }
+    }
+
+    /**
+     * Reads the data payload of a node from the file.
+     *
+     * @throws IllegalStateException if the file changed since it was parsed, so that the payload may have moved.
+     * @throws UncheckedIOException  if the file cannot be read, or the bytes of the payload are not a JSON object.
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> loadData(int node) {
+        if (dataStarts[node] < 0) {
+            return Collections.emptyMap();
+        }
+
+        byte[] bytes = new byte[(int) (dataEnds[node] - dataStarts[node])];
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            if (input.length() != fileSize || file.lastModified() != fileModified) {
+                throw new IllegalStateException("The machine file " + file + " changed since it was loaded");
+            }
+            input.seek(dataStarts[node]);
+            input.readFully(bytes);
+            if (bytes[0] != '{' || bytes[bytes.length - 1] != '}') {
+                throw new IOException("no JSON object at the data of node " + nodeIds[node]);
+            }
+            return new ObjectMapper().readValue(bytes, Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the data of node " + nodeIds[node] + " from " + file, e);
+        }
+    }
+
+    int getNodeCount() {
+        return nodeIds.length;
+    }
+
+    int getNodeId(int node) {
+        return nodeIds[node];
+    }
+
+    boolean isTerminating(int node) {
+        return nodeSinks[node] || nodeFinals[node] > 0;
+    }
+
+    int getEdgeCount() {
+        return edgeSources.length;
+    }
+
+    int getEdgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * @return the index of the label of the edge in {@link #getLabels()}.
+     */
+    int getEdgeLabel(int edge) {
+        return edgeLabels[edge];
+    }
+
+    String[] getLabels() {
+        return labels;
     }
 
-    public void setNodes(List<DFANode> nodes) {
-        this.nodes = nodes;
+    public List<DFANode> getNodes() {
+        if (nodes == null) {
+            List<DFANode> list = new ArrayList<>(nodeIds.length);
+            for (int i = 0; i < nodeIds.length; i++) {
+                list.add(new DFANode(this, i, nodeIds[i], nodeLabels[i], nodeSizes[i], nodeSinks[i], nodeFinals[i]));
+            }
+            nodes = Collections.unmodifiableList(list);
+        }
+        return nodes;
     }
 
     public List<DFAEdge> getEdges() {
+        if (edges == null) {
+            List<DFAEdge> list = new ArrayList<>(edgeSources.length);
+            for (int i = 0; i < edgeSources.length; i++) {
+                list.add(new DFAEdge(edgeSources[i], edgeTargets[i], labels[edgeLabels[i]], edgeCounts[i]));
+            }
+            edges = Collections.unmodifiableList(list);
+        }
         return edges;
     }
 
-    public void setEdges(List<DFAEdge> edges) {
-        this.edges = edges;
+    private static class Builder {
+        private int[] nodeIds = new int[16];
+        private String[] nodeLabels = new String[16];
+        private int[] nodeSizes = new int[16];
+        private boolean[] nodeSinks = new boolean[16];
+        private int[] nodeFinals = new int[16];
+        private long[] dataStarts = new long[16];
+        private long[] dataEnds = new long[16];
+        private int nodeCount = 0;
+
+        private final Map<String, Integer> labelIndex = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private int[] edgeLabels = new int[16];
+        private int[] edgeCounts = new int[16];
+        private int edgeCount = 0;
+
+        private void addNode(int id, String label, int size, boolean sink, int totalFinal, long dataStart, long dataEnd) {
+            if (nodeCount == nodeIds.length) {
+                int capacity = nodeCount * 2;
+                nodeIds = Arrays.copyOf(nodeIds, capacity);
+                nodeLabels = Arrays.copyOf(nodeLabels, capacity);
+                nodeSizes = Arrays.copyOf(nodeSizes, capacity);
+                nodeSinks = Arrays.copyOf(nodeSinks, capacity);
+                nodeFinals = Arrays.copyOf(nodeFinals, capacity);
+                dataStarts = Arrays.copyOf(dataStarts, capacity);
+                dataEnds = Arrays.copyOf(dataEnds, capacity);
+            }
+            nodeIds[nodeCount] = id;
+            nodeLabels[nodeCount] = label;
+            nodeSizes[nodeCount] = size;
+            nodeSinks[nodeCount] = sink;
+            nodeFinals[nodeCount] = totalFinal;
+            dataStarts[nodeCount] = dataStart;
+            dataEnds[nodeCount] = dataEnd;
+            nodeCount++;
+        }
+
+        private void addEdge(int source, int target, String label, int count) {
+            if (edgeCount == edgeSources.length) {
+                int capacity = edgeCount * 2;
+                edgeSources = Arrays.copyOf(edgeSources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeLabels = Arrays.copyOf(edgeLabels, capacity);
+                edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+            }
+            Integer index = labelIndex.get(label);
+            if (index == null) {
+                index = labels.size();
+                labelIndex.put(label, index);
+                labels.add(label);
+            }
+            edgeSources[edgeCount] = source;
+            edgeTargets[edgeCount] = target;
+            edgeLabels[edgeCount] = index;
+            edgeCounts[edgeCount] = count;
+            edgeCount++;
+        }
+
+        private DFA build(File file, long size, long modified) {
+            return new DFA(file, size, modified, Arrays.copyOf(nodeIds, nodeCount), Arrays.copyOf(nodeLabels, nodeCount),
+                    Arrays.copyOf(nodeSizes, nodeCount), Arrays.copyOf(nodeSinks, nodeCount),
+                    Arrays.copyOf(nodeFinals, nodeCount), Arrays.copyOf(dataStarts, nodeCount),
+                    Arrays.copyOf(dataEnds, nodeCount), labels.toArray(new String[0]),
+                    Arrays.copyOf(edgeSources, edgeCount), Arrays.copyOf(edgeTargets, edgeCount),
+                    Arrays.copyOf(edgeLabels, edgeCount), Arrays.copyOf(edgeCounts, edgeCount));
+        }
     }
 }
 
 class DFAEdge {
-    @JsonProperty("source")
-    private int src;
-    @JsonProperty("target")
-    private int dst;
-    @JsonProperty("name")
-    private String label;
-    @JsonProperty("appearances")
-    private int count;
+    private final int src;
+    private final int dst;
+    private final String label;
+    private final int count;
 
     public DFAEdge(int src, int dst, String label, int count) {
         this.src = src;
@@ -78,64 +497,42 @@ class DFAEdge {
         this.count = count;
     }
 
-    public DFAEdge() {
-    }
-
     public int getSrc() {
         return src;
     }
 
-    public void setSrc(int src) {
-        this.src = src;
-    }
-
     public int getDst() {
         return dst;
     }
 
-    public void setDst(int dst) {
-        this.dst = dst;
-    }
-
     public String getLabel() {
         return label;
     }
 
-    public void setLabel(String label) {
-        this.label = label;
-    }
-
     public int getCount() {
         return count;
     }
-
-    public void setCount(int count) {
-        this.count = count;
-    }
 }
 
 
 class DFANode {
-    @JsonProperty("id")
-    private int id;
-    @JsonProperty("label")
-    private String label;
-    @JsonProperty("size")
-    private int size;
-    @JsonProperty("issink")
-    private boolean isSink;
-    @JsonProperty("data")
+    private final DFA dfa;
+    private final int index;
+    private final int id;
+    private final String label;
+    private final int size;
+    private final boolean isSink;
+    private final int nTerminate;
     private Map<String, Object> data;
 
-
-    public DFANode(int id, String label, int size, Map<String, Object> data) {
+    DFANode(DFA dfa, int index, int id, String label, int size, boolean isSink, int nTerminate) {
+        this.dfa = dfa;
+        this.index = index;
         this.id = id;
         this.label = label;
         this.size = size;
-        this.data = data;
-    }
-
-    public DFANode() {
+        this.isSink = isSink;
+        this.nTerminate = nTerminate;
     }
 
     public boolean isTerminating() {
@@ -146,35 +543,25 @@ class DFANode {
         return id;
     }
 
-    public void setId(int id) {
-        this.id = id;
-    }
-
     public String getLabel() {
         return label;
     }
 
-    public void setLabel(String label) {
-        this.label = label;
-    }
-
     public int getSize() {
         return size;
     }
 
-    public void setSize(int size) {
-        this.size = size;
-    }
-
     public int getnTerminate() {
-        return (Integer) data.getOrDefault("total_final", 0);
+        return nTerminate;
     }
 
+    /**
+     * @return the data payload of the node, read from the machine file on the first call.
+     */
     public Map<String, Object> getData() {
+        if (data == null) {
+            data = dfa.loadData(index);
+        }
         return data;
     }
-
-    public void setData(Map<String, Object> data) {
-        this.data = data;
-    }
 }
@@ -0,0 +1,343 @@
+package com.raffaeleconforti.benchmark;
+
+import org.deckfour.xes.model.XLog;
+
+import java.util.*;
+
+/**
+ * Alignment-based fitness and escaping-edges precision of a flexfringe state machine, computed on the automaton
+ * itself rather than on the Petri net of {@link SMToPNConverter#dfaToPN}.
+ *
+ * The semantics are those of that net: a silent move enters the initial state 0, every edge of the machine is a
+ * visible move between two states, and a silent move leaves every terminating state for the end. An optimal alignment
+ * of a trace is a shortest path in the product of the trace and the automaton, where synchronous moves cost 0 and
+ * moves on log or on model cost 1, and the fitness of the trace is 1 - cost / (length of the trace + length of the
+ * shortest run of the machine), as for the cost-based replay. The precision walks the prefix tree of the aligned runs
+ * alongside the automaton: at every prefix the moves the automaton allows but no run takes are escaping, weighted by
+ * the number of traces reaching the prefix.
+ */
+class DFAConformance {
+
+    private static final int LOG_MOVE = -1;
+    private static final int END_MOVE = -2;
+
+    private final int initialState;
+    private final boolean[] terminating;
+    private final int[][] outEdges;
+    private final int[] edgeTargets;
+    private final int[] edgeLabels;
+    private final Map<String, Integer> labels = new HashMap<>();
+
+    private final int shortestRun;
+
+    DFAConformance(DFA dfa) {
+        Map<Integer, Integer> states = new HashMap<>();
+        for (int n = 0; n < dfa.getNodeCount(); n++) {
+            getState(states, dfa.getNodeId(n));
+        }
+        for (int e = 0; e < dfa.getEdgeCount(); e++) {
+            getState(states, dfa.getEdgeSource(e));
+            getState(states, dfa.getEdgeTarget(e));
+        }
+        initialState = getState(states, 0);
+
+        terminating = new boolean[states.size()];
+        for (int n = 0; n < dfa.getNodeCount(); n++) {
+            terminating[states.get(dfa.getNodeId(n))] = dfa.isTerminating(n);
+        }
+
+        String[] dfaLabels = dfa.getLabels();
+        for (int l = 0; l < dfaLabels.length; l++) {
+            labels.put(dfaLabels[l], l);
+        }
+
+        int edgeCount = dfa.getEdgeCount();
+        edgeTargets = new int[edgeCount];
+        edgeLabels = new int[edgeCount];
+        int[] outDegrees = new int[states.size()];
+        int[] edgeSources = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeSources[e] = states.get(dfa.getEdgeSource(e));
+            edgeTargets[e] = states.get(dfa.getEdgeTarget(e));
+            edgeLabels[e] = dfa.getEdgeLabel(e);
+            outDegrees[edgeSources[e]]++;
+        }
+        outEdges = new int[states.size()][];
+        for (int s = 0; s < outEdges.length; s++) {
+            outEdges[s] = new int[outDegrees[s]];
+            outDegrees[s] = 0;
+        }
+        for (int e = 0; e < edgeSources.length; e++) {
+            outEdges[edgeSources[e]][outDegrees[edgeSources[e]]++] = e;
+        }
+
+        shortestRun = computeShortestRun();
+    }
+
+    private static int getState(Map<Integer, Integer> states, int id) {
+        Integer state = states.get(id);
+        if (state == null) {
+            state = states.size();
+            states.put(id, state);
+        }
+        return state;
+    }
+
+    /**
+     * @return the number of visible moves of the shortest run from the initial state to a terminating one, -1 if no
+     * terminating state is reachable.
+     */
+    private int computeShortestRun() {
+        int[] distances = new int[terminating.length];
+        Arrays.fill(distances, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        distances[initialState] = 0;
+        queue.add(initialState);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (terminating[state]) return distances[state];
+            for (int e : outEdges[state]) {
+                if (distances[edgeTargets[e]] < 0) {
+                    distances[edgeTargets[e]] = distances[state] + 1;
+                    queue.add(edgeTargets[e]);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A state machine net is sound if every transition can fire, i.e. every edge and every exit of a terminating
+     * state leaves a reachable state, and the end can be reached from every reachable state.
+     */
+    boolean isSound() {
+        boolean[] reachable = new boolean[terminating.length];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reachable[initialState] = true;
+        queue.add(initialState);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e : outEdges[state]) {
+                if (!reachable[edgeTargets[e]]) {
+                    reachable[edgeTargets[e]] = true;
+                    queue.add(edgeTargets[e]);
+                }
+            }
+        }
+
+        List<List<Integer>> inEdges = new ArrayList<>(terminating.length);
+        for (int s = 0; s < terminating.length; s++) {
+            inEdges.add(new ArrayList<>());
+        }
+        for (int s = 0; s < outEdges.length; s++) {
+            for (int e : outEdges[s]) {
+                inEdges.get(edgeTargets[e]).add(s);
+            }
+        }
+        boolean[] completing = new boolean[terminating.length];
+        for (int s = 0; s < terminating.length; s++) {
+            if (terminating[s]) {
+                completing[s] = true;
+                queue.add(s);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (int source : inEdges.get(queue.poll())) {
+                if (!completing[source]) {
+                    completing[source] = true;
+                    queue.add(source);
+                }
+            }
+        }
+
+        for (int s = 0; s < terminating.length; s++) {
+            if (reachable[s] && !completing[s]) return false;
+            if (!reachable[s] && (terminating[s] || outEdges[s].length > 0)) return false;
+        }
+        return true;
+    }
+
+    Result compute(XLog log) {
+        return compute(Common.toTraces(log));
+    }
+
+    Result compute(List<List<String>> traces) {
+        Map<List<String>, Integer> variants = new LinkedHashMap<>();
+        for (List<String> trace : traces) {
+            variants.merge(new ArrayList<>(trace), 1, Integer::sum);
+        }
+
+        Result result = new Result();
+        result.uniqueTraces = variants.size();
+        result.totalTraces = traces.size();
+        if (shortestRun < 0) {
+            return result;
+        }
+
+        PrefixNode root = new PrefixNode(initialState);
+        double fitnessSum = 0;
+        for (Map.Entry<List<String>, Integer> variant : variants.entrySet()) {
+            List<String> trace = variant.getKey();
+            int count = variant.getValue();
+
+            Alignment alignment = align(encode(trace));
+            double fitness = trace.size() + shortestRun == 0 ? 1 : 1 - (double) alignment.cost / (trace.size() + shortestRun);
+            fitnessSum += fitness * count;
+            if (fitness >= 0.999) {
+                result.uniquePerfect++;
+                result.totalPerfect += count;
+            }
+
+            root.weight += count;
+            PrefixNode node = root;
+            for (int move : alignment.moves) {
+                if (move == LOG_MOVE) continue;
+                node = node.child(move, move == END_MOVE ? -1 : edgeTargets[move]);
+                node.weight += count;
+            }
+        }
+        result.reliable = true;
+        result.fitness = result.totalTraces == 0 ? 1 : fitnessSum / result.totalTraces;
+
+        // The silent move entering the initial state is the only one allowed at the start, and always taken
+        long[] totals = new long[]{root.weight, 0};
+        walk(root, totals);
+        result.precision = totals[0] == 0 ? 1 : 1 - (double) totals[1] / totals[0];
+        return result;
+    }
+
+    private int[] encode(List<String> trace) {
+        int[] events = new int[trace.size()];
+        for (int i = 0; i < events.length; i++) {
+            Integer label = labels.get(trace.get(i));
+            events[i] = label == null ? -1 : label;
+        }
+        return events;
+    }
+
+    /**
+     * Finds an optimal alignment with a 0-1 breadth-first search of the product of the trace and the automaton, whose
+     * nodes are the pairs (number of events aligned, state).
+     */
+    private Alignment align(int[] events) {
+        int states = terminating.length;
+        int size = (events.length + 1) * states;
+        int[] distances = new int[size];
+        int[] previous = new int[size];
+        int[] moveTo = new int[size];
+        boolean[] settled = new boolean[size];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        distances[initialState] = 0;
+        previous[initialState] = -1;
+        deque.add(initialState);
+
+        int goal = -1;
+        while (!deque.isEmpty()) {
+            int node = deque.pollFirst();
+            if (settled[node]) continue;
+            settled[node] = true;
+
+            int position = node / states;
+            int state = node % states;
+            if (position == events.length && terminating[state]) {
+                goal = node;
+                break;
+            }
+
+            int distance = distances[node];
+            for (int e : outEdges[state]) {
+                if (position < events.length && edgeLabels[e] == events[position]) {
+                    relax(deque, distances, previous, moveTo, node, (position + 1) * states + edgeTargets[e], e, distance);
+                }
+                relax(deque, distances, previous, moveTo, node, position * states + edgeTargets[e], e, distance + 1);
+            }
+            if (position < events.length) {
+                relax(deque, distances, previous, moveTo, node, (position + 1) * states + state, LOG_MOVE, distance + 1);
+            }
+        }
+
+        int length = 0;
+        for (int node = goal; previous[node] >= 0; node = previous[node]) {
+            length++;
+        }
+        int[] moves = new int[length + 1];
+        moves[length] = END_MOVE;
+        int node = goal;
+        for (int i = length - 1; i >= 0; i--) {
+            moves[i] = moveTo[node];
+            node = previous[node];
+        }
+        return new Alignment(distances[goal], moves);
+    }
+
+    private static void relax(ArrayDeque<Integer> deque, int[] distances, int[] previous, int[] moveTo, int from, int to,
+                              int move, int candidate) {
+        if (candidate < distances[to]) {
+            boolean free = candidate == distances[from];
+            distances[to] = candidate;
+            previous[to] = from;
+            moveTo[to] = move;
+            if (free) deque.addFirst(to);
+            else deque.addLast(to);
+        }
+    }
+
+    /**
+     * Sums, over the prefixes of the aligned runs, the moves the automaton allows and the escaping ones, both weighted
+     * by the number of traces reaching the prefix.
+     */
+    private void walk(PrefixNode node, long[] totals) {
+        int allowed = node.state < 0 ? 0 : outEdges[node.state].length + (terminating[node.state] ? 1 : 0);
+        int reflected = node.children == null ? 0 : node.children.size();
+        totals[0] += node.weight * allowed;
+        totals[1] += node.weight * (allowed - reflected);
+
+        if (node.children != null) {
+            for (PrefixNode child : node.children.values()) {
+                walk(child, totals);
+            }
+        }
+    }
+
+    private static class PrefixNode {
+        private final int state;
+        private long weight;
+        private Map<Integer, PrefixNode> children;
+
+        private PrefixNode(int state) {
+            this.state = state;
+        }
+
+        private PrefixNode child(int move, int target) {
+            if (children == null) children = new HashMap<>();
+            PrefixNode child = children.get(move);
+            if (child == null) {
+                child = new PrefixNode(target);
+                children.put(move, child);
+            }
+            return child;
+        }
+    }
+
+    private static class Alignment {
+        private final int cost;
+        private final int[] moves;
+
+        private Alignment(int cost, int[] moves) {
+            this.cost = cost;
+            this.moves = moves;
+        }
+    }
+
+    static class Result {
+        boolean reliable;
+        double fitness;
+        double precision;
+        int uniqueTraces;
+        int totalTraces;
+        int uniquePerfect;
+        int totalPerfect;
+    }
+}
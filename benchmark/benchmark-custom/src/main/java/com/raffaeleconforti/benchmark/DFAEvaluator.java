@@ -16,6 +16,9 @@ import static com.raffaeleconforti.benchmark.Common.*;
 import static com.raffaeleconforti.benchmark.SMToPNConverter.*;
 
 public class DFAEvaluator {
+    public static final String CONFORMANCE_AUTOMATON = "automaton";
+    public static final String CONFORMANCE_PETRINET = "petrinet";
+    public static final String CONFORMANCE_BOTH = "both";
 
     public DFAEvaluator() {
     }
@@ -50,12 +53,14 @@ public class DFAEvaluator {
         // Miner name
         // Miner directory
         // Dataset directory
+        // Conformance engine: automaton (default), petrinet, or both to validate the automaton against the net
 
         String machineDir = "";
         String logDir = "";
 
         long metricTimeout = HOUR_MS;
         int fitnessThreads = 1;
+        String conformance = CONFORMANCE_AUTOMATON;
 
 
         int argIdx = 0;
@@ -85,6 +90,10 @@ public class DFAEvaluator {
                 fitnessThreads = Integer.parseInt(args[argIdx + 1]);
                 argIdx += 2;
             }
+            if (argIdx < args.length && args[argIdx].equalsIgnoreCase("-conformance")) {
+                conformance = args[argIdx + 1].toLowerCase(Locale.ROOT);
+                argIdx += 2;
+            }
         }
 
         setupResultsDir("state_machines");
@@ -110,12 +119,12 @@ public class DFAEvaluator {
 
             for (File machine : machineList) {
                 String machineName = machine.getName();
-                evalMachines(machine, machineName, datasetDirectory, metricTimeout, fitnessThreads);
+                evalMachines(machine, machineName, datasetDirectory, metricTimeout, fitnessThreads, conformance);
             }
         }
     }
 
-    private static void evalMachines(File machineDir, String machineName, String logDir, long metricTimeout, int fitnessThreads) {
+    private static void evalMachines(File machineDir, String machineName, String logDir, long metricTimeout, int fitnessThreads, String conformance) {
         String datasetName = new File(logDir).getParentFile().getName();
         DatasetName logName = new DatasetName(datasetName);
 
@@ -161,10 +170,10 @@ public class DFAEvaluator {
         ResultsMap results = new ResultsMap();
         BenchmarkCustomNative b = new BenchmarkCustomNative(-1, metricTimeout, k, fitnessThreads);
 
-        evalMachine(fullFile, machineName, logDir, logName, b, results);
+        evalMachine(fullFile, machineName, logDir, logName, b, results, conformance);
 
         for (int i = 0; i < crossValFiles.length; i++) {
-            evalMachine(crossValFiles[i], String.format("%s-%d", machineName, i), logDir, logName, b, results);
+            evalMachine(crossValFiles[i], String.format("%s-%d", machineName, i), logDir, logName, b, results, conformance);
         }
 
         if (k > 0) {
@@ -175,7 +184,7 @@ public class DFAEvaluator {
         results.writeJSON(pathnameJSON);
     }
 
-    private static void evalMachine(File machineFile, String machineName, String logDir, DatasetName logName, BenchmarkCustomNative b, ResultsMap results) {
+    private static void evalMachine(File machineFile, String machineName, String logDir, DatasetName logName, BenchmarkCustomNative b, ResultsMap results, String conformance) {
         assert machineFile.getName().endsWith(".json");
         String fileName = machineFile.getName().split("\\.")[0];
 
@@ -185,13 +194,48 @@ public class DFAEvaluator {
             logMessage("ERR - dfa is null");
             return;
         }
-        PetrinetWithMarking net = dfaToPN(ctx, machine);
         BPMNDiagram bpmn = dfaToBPMNMerged(ctx, machine);
 
 //        String bpmnPath = String.format("./results/models/%s-%s.bpmn", machineName, logName);
 //        exportBPMN(bpmn, bpmnPath);
 
         XLog evalLog = loadLog(Paths.get(logDir, fileName + ".txt").toString());
+        if (conformance.equals(CONFORMANCE_AUTOMATON)) {
+            b.runDFA(new DFAConformance(machine), bpmn, evalLog, machineName, logName, results);
+            return;
+        }
+
+        PetrinetWithMarking net = dfaToPN(ctx, machine);
         b.runPN(ctx, net, bpmn, evalLog, machineName, logName, results);
+
+        if (conformance.equals(CONFORMANCE_BOTH)) {
+            ResultsMap automatonResults = new ResultsMap();
+            b.runDFA(new DFAConformance(machine), bpmn, evalLog, machineName, logName, automatonResults);
+            validate(machineName, logName, results, automatonResults);
+        }
+    }
+
+    /**
+     * Records the measures of the automaton next to those of the Petri net, with their difference when both are
+     * numbers.
+     */
+    private static void validate(String machineName, DatasetName logName, ResultsMap results, ResultsMap automatonResults) {
+        for (String key : new String[]{BenchmarkCustomNative.SOUNDNESS_KEY, BenchmarkCustomNative.FITNESS_KEY,
+                BenchmarkCustomNative.PRECISION_KEY, BenchmarkCustomNative.CONFORMANCE_TOTAL_KEY}) {
+            String netValue = results.getResult(machineName, logName, key);
+            String automatonValue = automatonResults.getResult(machineName, logName, key);
+            results.addResult(machineName, logName, "automaton-" + key, automatonValue);
+            try {
+                double delta = Double.parseDouble(automatonValue) - Double.parseDouble(netValue);
+                results.addResult(machineName, logName, "automaton-" + key + "-delta", delta);
+                if (Math.abs(delta) > 1e-6) {
+                    logMessage(String.format("WARN - %s of %s differs between automaton and net: %s vs %s", key, machineName, automatonValue, netValue));
+                }
+            } catch (NumberFormatException e) {
+                if (!netValue.equals(automatonValue)) {
+                    logMessage(String.format("WARN - %s of %s differs between automaton and net: %s vs %s", key, machineName, automatonValue, netValue));
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
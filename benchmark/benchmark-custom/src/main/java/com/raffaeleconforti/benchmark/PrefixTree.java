@@ -0,0 +1,243 @@
+package com.raffaeleconforti.benchmark;
+
+import java.util.*;
+
+/**
+ * Prefix tree of a multiset of traces, which traces can be added to and removed from, e.g. to replace the traces of a
+ * training fold by those of the next one.
+ *
+ * The nodes are indices in arrays, the root being {@link #ROOT}, and the labels are interned. The children of a node are
+ * kept in an array sorted by label, next to the array of their labels. Each node counts the traces ending in it and the
+ * traces of its subtree; a node whose subtree has no trace left is removed and its index reused.
+ */
+class PrefixTree {
+
+    static final int ROOT = 0;
+
+    private static final int[] NO_CHILDREN = new int[0];
+
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+
+    // Occurrences of each trace held, and while the traces are replaced, in the new traces
+    private final Map<List<String>, int[]> variants = new HashMap<>();
+
+    private int[] nodeLabels = new int[16];
+    private int[] finals = new int[16];
+    private int[] counts = new int[16];
+    private int[][] childLabels = new int[16][];
+    private int[][] children = new int[16][];
+    private int[] childCounts = new int[16];
+    private int size;
+
+    private int[] freeNodes = new int[16];
+    private int freeCount;
+
+    PrefixTree() {
+        size = 1;
+        initNode(ROOT, -1);
+    }
+
+    /**
+     * Adds count occurrences of a trace, which must not be modified afterwards.
+     */
+    void add(List<String> trace, int count) {
+        variants.computeIfAbsent(trace, k -> new int[2])[0] += count;
+        addPath(trace, count);
+    }
+
+    /**
+     * Removes count occurrences of a trace.
+     *
+     * @throws IllegalArgumentException if the tree has fewer occurrences of the trace.
+     */
+    void remove(List<String> trace, int count) {
+        int[] occurrences = variants.get(trace);
+        if (occurrences == null || occurrences[0] < count) {
+            throw new IllegalArgumentException("Trace in the tree fewer than " + count + " times: " + trace);
+        }
+        occurrences[0] -= count;
+        if (occurrences[0] == 0) {
+            variants.remove(trace);
+        }
+        removePath(trace, count);
+    }
+
+    /**
+     * Replaces the traces of the tree, by adding and removing the occurrences of each trace which differ; the traces
+     * must not be modified afterwards.
+     */
+    void setTraces(Collection<List<String>> traces) {
+        for (List<String> trace : traces) {
+            variants.computeIfAbsent(trace, k -> new int[2])[1]++;
+        }
+
+        Iterator<Map.Entry<List<String>, int[]>> iterator = variants.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<List<String>, int[]> entry = iterator.next();
+            int[] occurrences = entry.getValue();
+            int difference = occurrences[1] - occurrences[0];
+            if (difference < 0) {
+                removePath(entry.getKey(), -difference);
+            } else if (difference > 0) {
+                addPath(entry.getKey(), difference);
+            }
+            occurrences[0] = occurrences[1];
+            occurrences[1] = 0;
+            if (occurrences[0] == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void addPath(List<String> trace, int count) {
+        int node = ROOT;
+        counts[node] += count;
+        for (String event : trace) {
+            int label = intern(event);
+            int position = findChild(node, label);
+            node = position >= 0 ? children[node][position] : newChild(node, label, -position - 1);
+            counts[node] += count;
+        }
+        finals[node] += count;
+    }
+
+    private void removePath(List<String> trace, int count) {
+        int[] path = new int[trace.size() + 1];
+        path[0] = ROOT;
+        int i = 0;
+        for (String event : trace) {
+            int child = children[path[i]][findChild(path[i], labelIndex.get(event))];
+            path[++i] = child;
+        }
+
+        finals[path[i]] -= count;
+        for (i = 0; i < path.length; i++) {
+            int node = path[i];
+            counts[node] -= count;
+            if (counts[node] == 0 && node != ROOT) {
+                // The rest of the path only holds the removed traces
+                unlink(path[i - 1], node);
+                for (int j = i; j < path.length; j++) {
+                    free(path[j]);
+                }
+                return;
+            }
+        }
+    }
+
+    String getLabel(int node) {
+        return labels.get(nodeLabels[node]);
+    }
+
+    boolean isFinal(int node) {
+        return finals[node] > 0;
+    }
+
+    /**
+     * @return the number of traces ending in the node.
+     */
+    int getFinalCount(int node) {
+        return finals[node];
+    }
+
+    /**
+     * @return the number of traces of the subtree of the node.
+     */
+    int getCount(int node) {
+        return counts[node];
+    }
+
+    int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    /**
+     * @return the i-th child of the node, in the order of the labels.
+     */
+    int getChild(int node, int i) {
+        return children[node][i];
+    }
+
+    /**
+     * @return the number of nodes, including the root.
+     */
+    int getNodeCount() {
+        return size - freeCount;
+    }
+
+    private int intern(String event) {
+        Integer label = labelIndex.get(event);
+        if (label == null) {
+            label = labels.size();
+            labelIndex.put(event, label);
+            labels.add(event);
+        }
+        return label;
+    }
+
+    /**
+     * @return the position of the child with the label, or -(insertion point) - 1 if none.
+     */
+    private int findChild(int node, int label) {
+        return Arrays.binarySearch(childLabels[node], 0, childCounts[node], label);
+    }
+
+    private int newChild(int parent, int label, int position) {
+        int node;
+        if (freeCount > 0) {
+            node = freeNodes[--freeCount];
+        } else {
+            if (size == nodeLabels.length) grow();
+            node = size++;
+        }
+        initNode(node, label);
+
+        int count = childCounts[parent];
+        if (count == childLabels[parent].length) {
+            int capacity = Math.max(2, count * 2);
+            childLabels[parent] = Arrays.copyOf(childLabels[parent], capacity);
+            children[parent] = Arrays.copyOf(children[parent], capacity);
+        }
+        System.arraycopy(childLabels[parent], position, childLabels[parent], position + 1, count - position);
+        System.arraycopy(children[parent], position, children[parent], position + 1, count - position);
+        childLabels[parent][position] = label;
+        children[parent][position] = node;
+        childCounts[parent]++;
+        return node;
+    }
+
+    private void unlink(int parent, int node) {
+        int position = findChild(parent, nodeLabels[node]);
+        int count = --childCounts[parent];
+        System.arraycopy(childLabels[parent], position + 1, childLabels[parent], position, count - position);
+        System.arraycopy(children[parent], position + 1, children[parent], position, count - position);
+    }
+
+    private void free(int node) {
+        childLabels[node] = NO_CHILDREN;
+        children[node] = NO_CHILDREN;
+        childCounts[node] = 0;
+        if (freeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+        freeNodes[freeCount++] = node;
+    }
+
+    private void initNode(int node, int label) {
+        nodeLabels[node] = label;
+        finals[node] = 0;
+        counts[node] = 0;
+        childLabels[node] = NO_CHILDREN;
+        children[node] = NO_CHILDREN;
+        childCounts[node] = 0;
+    }
+
+    private void grow() {
+        int capacity = nodeLabels.length * 2;
+        nodeLabels = Arrays.copyOf(nodeLabels, capacity);
+        finals = Arrays.copyOf(finals, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        childLabels = Arrays.copyOf(childLabels, capacity);
+        children = Arrays.copyOf(children, capacity);
+        childCounts = Arrays.copyOf(childCounts, capacity);
+    }
+}
@@ -35,24 +35,33 @@ import static com.raffaeleconforti.benchmark.Common.*;
         returnTypes = {PetrinetWithMarking.class})
 public class PrefixTreeMiner implements MiningAlgorithm {
 
+    // Traces of the last mined log, replaced by the ones of the next log. The models are emitted from the tree itself
+    // on every request: a cached plan per subtree would hold the same labels, finals and children as the tree's arrays,
+    // and replaying it would create the same places, transitions and arcs as walking them.
+    private PrefixTree tree = new PrefixTree();
+
     public PrefixTreeMiner() {
     }
 
-    private TreeNode toTree(List<List<String>> traces) {
-        TreeNode root = new TreeNode("root");
-
-        for (List<String> trace : traces) {
-            TreeNode currentNode = root;
-            for (String event : trace) {
-                currentNode = currentNode.getChild(event);
-            }
-            currentNode.addFinal();
+    /**
+     * Updates the tree to the traces, which in a cross validation differ from the ones of the previous fold in the
+     * traces of two folds only.
+     */
+    private void updateTree(List<List<String>> traces) {
+        if (tree == null) {
+            tree = new PrefixTree();
+        }
+        try {
+            tree.setTraces(traces);
+        } catch (RuntimeException e) {
+            // The tree is left halfway between the two logs, it is rebuilt for the next log
+            tree = null;
+            throw e;
         }
-        return root;
     }
 
-    private PetrinetWithMarking treeToPN(final PluginContext context, List<List<String>> traces) {
-        TreeNode root = toTree(traces);
+    private synchronized PetrinetWithMarking treeToPN(final PluginContext context, List<List<String>> traces) {
+        updateTree(traces);
 
         // Each node is a place, each edge is a transition
         Petrinet res = new PetrinetImpl("net_from_tree");
@@ -61,8 +70,9 @@ public class PrefixTreeMiner implements MiningAlgorithm {
         Place start = res.addPlace("start");
         Place end = res.addPlace("end");
 
-        for (TreeNode child : root.children()) {
-            Transition t = res.addTransition(child.getLabel());
+        for (int i = 0; i < tree.getChildCount(PrefixTree.ROOT); i++) {
+            int child = tree.getChild(PrefixTree.ROOT, i);
+            Transition t = res.addTransition(tree.getLabel(child));
             res.addArc(start, t);
             nodeQueue.add(new QueueItem<>(child, t));
         }
@@ -71,12 +81,13 @@ public class PrefixTreeMiner implements MiningAlgorithm {
             QueueItem<Transition> entry = nodeQueue.poll();
             Place p = res.addPlace(String.format("place_%d", res.getPlaces().size()));
             res.addArc(entry.reachedFrom, p);
-            if (entry.node.isFinal()) {
+            if (tree.isFinal(entry.node)) {
                 addTau(res, p, end);
             }
 
-            for (TreeNode child : entry.node.children()) {
-                Transition t = res.addTransition(child.getLabel());
+            for (int i = 0; i < tree.getChildCount(entry.node); i++) {
+                int child = tree.getChild(entry.node, i);
+                Transition t = res.addTransition(tree.getLabel(child));
                 res.addArc(p, t);
                 nodeQueue.add(new QueueItem<>(child, t));
             }
@@ -85,8 +96,8 @@ public class PrefixTreeMiner implements MiningAlgorithm {
         return markNet(context, res, start, end);
     }
 
-    final BPMNDiagram treeToBPMN(PluginContext context, List<List<String>> traces) {
-        TreeNode root = toTree(traces);
+    final synchronized BPMNDiagram treeToBPMN(PluginContext context, List<List<String>> traces) {
+        updateTree(traces);
 
         BPMNDiagram res = BPMNDiagramFactory.newBPMNDiagram("bpmn_from_tree");
         Event start = res.addEvent("start", Event.EventType.START, Event.EventTrigger.NONE, Event.EventUse.CATCH, true, null);
@@ -104,8 +115,8 @@ public class PrefixTreeMiner implements MiningAlgorithm {
         Gateway endXOR = res.addGateway("XOR_JOIN_FINAL", Gateway.GatewayType.DATABASED);
         res.addFlow(endXOR, end, "");
 
-        for (TreeNode child : root.children()) {
-            queue.add(new QueueItem<>(child, rootXOR));
+        for (int i = 0; i < tree.getChildCount(PrefixTree.ROOT); i++) {
+            queue.add(new QueueItem<>(tree.getChild(PrefixTree.ROOT, i), rootXOR));
         }
 
         while (!queue.isEmpty()) {
@@ -113,33 +124,33 @@ public class PrefixTreeMiner implements MiningAlgorithm {
             if (entry == null) {
                 break;
             }
-            TreeNode node = entry.node;
+            int node = entry.node;
+            int childCount = tree.getChildCount(node);
 
-            Activity a = res.addActivity(node.getLabel(), false, false, false, false, false);
+            Activity a = res.addActivity(tree.getLabel(node), false, false, false, false, false);
             res.addFlow(entry.reachedFrom, a, "");
-            if (node.children.isEmpty()) {
+            if (childCount == 0) {
                 res.addFlow(a, endXOR, "");
                 continue;
             }
-            if (node.isFinal()) {
+            if (tree.isFinal(node)) {
                 Gateway xor = res.addGateway("XOR_split", Gateway.GatewayType.DATABASED);
                 res.addFlow(a, xor, "");
                 res.addFlow(xor, endXOR, "");
-                for (TreeNode child : node.children()) {
-                    queue.add(new QueueItem<>(child, xor));
+                for (int i = 0; i < childCount; i++) {
+                    queue.add(new QueueItem<>(tree.getChild(node, i), xor));
                 }
-            } else if (node.children.size() == 1) {
-                queue.add(new QueueItem<>(node.children().iterator().next(), a));
+            } else if (childCount == 1) {
+                queue.add(new QueueItem<>(tree.getChild(node, 0), a));
             } else {
                 Gateway xor = res.addGateway("XOR_split", Gateway.GatewayType.DATABASED);
                 res.addFlow(a, xor, "");
-                for (TreeNode child : node.children()) {
-                    queue.add(new QueueItem<>(child, xor));
+                for (int i = 0; i < childCount; i++) {
+                    queue.add(new QueueItem<>(tree.getChild(node, i), xor));
                 }
             }
         }
 
-
         return res;
     }
 
@@ -61,6 +61,31 @@ public class ResultsMap {
         }
     }
 
+    /**
+     * Adds to a miner the measures of another miner on the dataset, e.g. for a configuration known to produce the
+     * same model; the timings are not copied, as the miner was not run.
+     */
+    public void copyResults(String fromMiner, String toMiner, DatasetName dataset) {
+        Map<String, Map<String, Serializable>> logMap = results.get(dataset.toString());
+        if (logMap == null || !logMap.containsKey(fromMiner)) {
+            return;
+        }
+
+        for (Map.Entry<String, Serializable> entry : new HashMap<>(logMap.get(fromMiner)).entrySet()) {
+            if (!isTiming(entry.getKey())) {
+                addResult(toMiner, dataset, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return true for the keys of the mining times, e.g. mining-time and mining-time-bpmn, and of the times of the
+     * measures, added as measure-time, and their suffixed duplicates.
+     */
+    public static boolean isTiming(String measure) {
+        return measure.startsWith("mining-time") || measure.endsWith("-time") || measure.matches(".*-time_\\d+");
+    }
+
     public String getResult(String miner, DatasetName dataset, String measure) {
         try {
             Serializable res = results.get(dataset.toString()).get(miner).get(measure);
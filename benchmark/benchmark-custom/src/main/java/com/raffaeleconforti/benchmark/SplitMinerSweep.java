@@ -0,0 +1,260 @@
+package com.raffaeleconforti.benchmark;
+
+import au.edu.qut.processmining.log.LogParser;
+import au.edu.qut.processmining.log.SimpleLog;
+import au.edu.qut.processmining.miners.splitminer.dfgp.DirectlyFollowGraphPlus;
+import au.edu.qut.processmining.miners.splitminer.ui.dfgp.DFGPUIResult;
+import com.raffaeleconforti.measurements.impl.XFoldAlignmentBasedFMeasure;
+import com.raffaeleconforti.wrappers.MiningAlgorithm;
+import com.raffaeleconforti.wrappers.impl.SplitMinerWrapper;
+import com.raffaeleconforti.wrappers.settings.MiningSettings;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XLog;
+import org.processmining.contexts.uitopia.UIPluginContext;
+import org.processmining.models.graphbased.directed.bpmn.BPMNDiagram;
+import org.processmining.models.graphbased.directed.bpmn.elements.Flow;
+
+import java.util.*;
+
+import static com.raffaeleconforti.benchmark.Common.logMessage;
+
+/**
+ * Evaluation of Split Miner over an epsilon x eta grid, which only mines and evaluates the points whose filtered
+ * directly-follows graph differs from the graphs of the points already evaluated.
+ *
+ * Split Miner derives its model from the directly-follows graph of the log, once the concurrent pairs of activities
+ * (given by epsilon) are removed and the infrequent edges (given by eta) are filtered out. The log is parsed once, and
+ * the balance |ab - ba| / (ab + ba) of every pair of activities following each other in both orders is computed once:
+ * two epsilons admitting the same pairs give the same graph for every eta, so only the first epsilon of each such class
+ * is explored. Within a class the filtered graph of each eta is built on the shared parsed log, and a point whose
+ * graph and concurrency relation equal those of an evaluated point gets its measures copied, without its timings.
+ *
+ * Each distinct point is evaluated as by {@link BenchmarkCustomNative#runPerformance}, i.e. its soundness and its
+ * fitness and precision on the full log, the graphs being compared on the full log. The k-fold evaluation is opt-in
+ * ({@link #setKFold}); it compares the graphs of each fold on the log of the fold.
+ */
+public class SplitMinerSweep {
+
+    public static final String SAME_GRAPH_AS_KEY = "sweep-same-graph-as";
+
+    private static final XEventClassifier xEventClassifier = new XEventNameClassifier();
+
+    private final BenchmarkCustomNative benchmark;
+    private final double[] epsilons;
+    private final double[] etas;
+    private boolean kFold = false;
+
+    private int evaluatedPoints;
+    private int skippedPoints;
+
+    public SplitMinerSweep(BenchmarkCustomNative benchmark, double[] epsilons, double[] etas) {
+        this.benchmark = benchmark;
+        this.epsilons = epsilons;
+        this.etas = etas;
+    }
+
+    /**
+     * Also evaluates the points on the folds of the log, and adds their k-fold averages.
+     */
+    public void setKFold(boolean kFold) {
+        this.kFold = kFold;
+    }
+
+    public static String pointName(double epsilon, double eta) {
+        return String.format("SM_e=%.1f_n=%.1f", epsilon, eta);
+    }
+
+    public void run(UIPluginContext ctx, XLog log, DatasetName logName, ResultsMap results) {
+        MiningAlgorithm miner = new SplitMinerWrapper();
+
+        logMessage("Start sweeping the full log");
+        evaluatedPoints = 0;
+        skippedPoints = 0;
+        try {
+            sweep(log, -1, new PointEvaluation() {
+                @Override
+                public void evaluate(String pointName, MiningSettings settings) {
+                    benchmark.runPerformance(ctx, miner, settings, log, pointName, logName, results);
+                }
+            }, logName, results);
+        } catch (InterruptedException e) {
+            logMessage("ERROR - got InterruptedException, stopping execution");
+            return;
+        }
+        logMessage(String.format("Finished sweep on log %s, evaluated %d points, skipped %d with a known graph",
+                logName, evaluatedPoints, skippedPoints));
+
+        if (!kFold) return;
+
+        evaluatedPoints = 0;
+        skippedPoints = 0;
+        Map<XLog, XLog> crossValidationLogs = XFoldAlignmentBasedFMeasure.getCrossValidationLogs(log, benchmark.getK());
+        int i = -1;
+        for (XLog miningLog : crossValidationLogs.keySet()) {
+            i++;
+            final int fold = i;
+            final XLog evalLog = crossValidationLogs.get(miningLog);
+            logMessage(String.format("Start sweeping fold %d", fold));
+            try {
+                sweep(miningLog, fold, new PointEvaluation() {
+                    @Override
+                    public void evaluate(String foldMinerName, MiningSettings settings) throws InterruptedException {
+                        benchmark.evalLog(foldMinerName, miningLog, evalLog, miner, settings, logName, results, false);
+                    }
+                }, logName, results);
+            } catch (InterruptedException e) {
+                logMessage("ERROR - got InterruptedException, stopping execution");
+                return;
+            }
+        }
+
+        for (double epsilon : epsilons) {
+            for (double eta : etas) {
+                benchmark.extractCrossVal(results, logName, pointName(epsilon, eta));
+            }
+        }
+        logMessage(String.format("Finished k-fold sweep on log %s, evaluated %d fold points, skipped %d with a known graph",
+                logName, evaluatedPoints, skippedPoints));
+    }
+
+    private interface PointEvaluation {
+        void evaluate(String pointName, MiningSettings settings) throws InterruptedException;
+    }
+
+    /**
+     * Evaluates the points of the grid on a log, the full log if the fold is negative.
+     */
+    private void sweep(XLog log, int fold, PointEvaluation evaluation, DatasetName logName, ResultsMap results)
+            throws InterruptedException {
+        SimpleLog simpleLog = LogParser.getSimpleLog(log, xEventClassifier);
+        double[] balances = getBalances(simpleLog);
+
+        // Class of admitted concurrent pairs -> first epsilon of the class
+        Map<Integer, Double> epsilonClasses = new HashMap<>();
+        // Filtered graph -> point evaluated on it
+        Map<String, String> evaluatedGraphs = new HashMap<>();
+
+        for (double epsilon : epsilons) {
+            Integer epsilonClass = countBelow(balances, epsilon);
+            Double representative = epsilonClasses.get(epsilonClass);
+            if (representative == null) {
+                epsilonClasses.put(epsilonClass, epsilon);
+            }
+
+            for (double eta : etas) {
+                String name = name(pointName(epsilon, eta), fold);
+                String sameAs;
+                String graph = null;
+                if (representative != null) {
+                    sameAs = name(pointName(representative, eta), fold);
+                } else {
+                    graph = getFilteredGraph(simpleLog, epsilon, eta);
+                    sameAs = evaluatedGraphs.get(graph);
+                }
+
+                if (sameAs != null) {
+                    logMessage(String.format("%s has the same graph as %s, copying its measures", name, sameAs));
+                    results.copyResults(sameAs, name, logName);
+                    results.addResult(name, logName, SAME_GRAPH_AS_KEY, sameAs);
+                    skippedPoints++;
+                    continue;
+                }
+
+                MiningSettings settings = new MiningSettings();
+                settings.setParam("etaSM", eta);
+                settings.setParam("epsilonSM", epsilon);
+                evaluation.evaluate(name, settings);
+                evaluatedGraphs.put(graph, name);
+                evaluatedPoints++;
+            }
+        }
+    }
+
+    private String name(String pointName, int fold) {
+        return fold < 0 ? pointName : benchmark.foldMinerName(pointName, fold);
+    }
+
+    /**
+     * @return the sorted balances |ab - ba| / (ab + ba) of the pairs of distinct activities a and b directly
+     * following each other in both orders, which Split Miner compares to epsilon to detect concurrency.
+     */
+    static double[] getBalances(SimpleLog simpleLog) {
+        Map<Long, Integer> frequencies = new HashMap<>();
+        for (Map.Entry<String, Integer> trace : simpleLog.getTraces().entrySet()) {
+            StringTokenizer tokenizer = new StringTokenizer(trace.getKey(), "::");
+            if (!tokenizer.hasMoreTokens()) continue;
+            int previous = Integer.parseInt(tokenizer.nextToken());
+            while (tokenizer.hasMoreTokens()) {
+                int next = Integer.parseInt(tokenizer.nextToken());
+                frequencies.merge(pair(previous, next), trace.getValue(), Integer::sum);
+                previous = next;
+            }
+        }
+
+        List<Double> balances = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : frequencies.entrySet()) {
+            int source = (int) (entry.getKey() >>> 32);
+            int target = (int) (long) entry.getKey();
+            // Each pair is counted once, from its smaller code
+            if (source >= target) continue;
+            Integer reverse = frequencies.get(pair(target, source));
+            if (reverse == null) continue;
+            int forward = entry.getValue();
+            balances.add(Math.abs((double) (forward - reverse) / (double) (forward + reverse)));
+        }
+
+        double[] sorted = new double[balances.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = balances.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long pair(int source, int target) {
+        return ((long) source << 32) | (target & 0xffffffffL);
+    }
+
+    /**
+     * @return the number of balances strictly below epsilon, i.e. of pairs Split Miner may consider concurrent.
+     */
+    static int countBelow(double[] balances, double epsilon) {
+        int low = 0;
+        int high = balances.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (balances[mid] < epsilon) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return the edges of the directly-follows graph Split Miner builds for the parameters, and its concurrency
+     * relation, in a canonical order.
+     */
+    private static String getFilteredGraph(SimpleLog simpleLog, double epsilon, double eta) {
+        DirectlyFollowGraphPlus dfgp = new DirectlyFollowGraphPlus(simpleLog, eta, epsilon, DFGPUIResult.FilterType.WTH, true);
+        dfgp.buildDFGP();
+
+        BPMNDiagram diagram = dfgp.convertIntoBPMNDiagram();
+        List<String> edges = new ArrayList<>();
+        for (Flow flow : diagram.getFlows()) {
+            edges.add(flow.getSource().getLabel() + "->" + flow.getTarget().getLabel());
+        }
+        Collections.sort(edges);
+
+        List<Integer> codes = new ArrayList<>(simpleLog.getEvents().keySet());
+        Collections.sort(codes);
+        StringBuilder sb = new StringBuilder(String.join(",", edges)).append('|');
+        for (int i = 0; i < codes.size(); i++) {
+            for (int j = i + 1; j < codes.size(); j++) {
+                if (dfgp.areConcurrent(codes.get(i), codes.get(j))) {
+                    sb.append(codes.get(i)).append('/').append(codes.get(j)).append(',');
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -11,6 +11,7 @@ import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
 import com.raffaeleconforti.measurements.impl.*;
+import com.raffaeleconforti.wrappers.InterruptingMiningAlgorithm;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import com.raffaeleconforti.wrappers.StructuredMinerAlgorithmWrapperHM52;
@@ -144,6 +145,7 @@ public class Benchmark {
 
             String miningAlgorithmName = miningAlgorithm.getAcronym();
             String measurementAlgorithmName = "NULL";
+            InterruptingMiningAlgorithm interruptingMiningAlgorithm = new InterruptingMiningAlgorithm(miningAlgorithm, MAX_TIME);
             System.out.println("DEBUG - mining with algorithm: " + miningAlgorithmName);
 
             /* creating the directory for the results*/
@@ -162,67 +164,68 @@ public class Benchmark {
                     eTime = System.currentTimeMillis();
                     logCloner = new LogCloner(new XFactoryNaiveImpl());
                     XLog miningLog = logCloner.cloneLog(log);
-                    PetrinetWithMarking petrinetWithMarking = miningAlgorithm.minePetrinet(fakePluginContext, miningLog, false, null, xEventClassifier);
+                    PetrinetWithMarking petrinetWithMarking = interruptingMiningAlgorithm.minePetrinet(fakePluginContext, miningLog, false, null, xEventClassifier);
                     eTime = System.currentTimeMillis() - eTime;
-                    measures.get(miningAlgorithmName).get(logName).put("mining-time", Long.toString(eTime));
-                    System.out.println("DEBUG - mining time: " + eTime + "ms");
+                    if (petrinetWithMarking == null) {
+                        System.out.println("ERROR - mining: " + miningAlgorithmName + " : " + logName + " (no model within " + MAX_TIME + "ms)");
+                        measures.get(miningAlgorithmName).remove(logName);
+                    } else {
+                        measures.get(miningAlgorithmName).get(logName).put("mining-time", Long.toString(eTime));
+                        System.out.println("DEBUG - mining time: " + eTime + "ms");
 
-//                    String pnPath = "./results/" + miningAlgorithmName + "/" + logName + "_" + Long.toString(System.currentTimeMillis()) + ".pnml";
-//                    exportPetrinet(fakePluginContext, petrinetWithMarking, pnPath);
+//                        String pnPath = "./results/" + miningAlgorithmName + "/" + logName + "_" + Long.toString(System.currentTimeMillis()) + ".pnml";
+//                        exportPetrinet(fakePluginContext, petrinetWithMarking, pnPath);
 
-//                    String bpmnpath = "./results/" + miningAlgorithmName + "/" + logName + "_" + Long.toString(System.currentTimeMillis()) + ".bpmn";
-//                    BPMNDiagram bpmnModel = PetriNetToBPMNConverter.convert(petrinetWithMarking.getPetrinet(), petrinetWithMarking.getInitialMarking(), petrinetWithMarking.getFinalMarking(), false);
-//                    exportBPMN(bpmnModel, bpmnpath);
+//                        String bpmnpath = "./results/" + miningAlgorithmName + "/" + logName + "_" + Long.toString(System.currentTimeMillis()) + ".bpmn";
+//                        BPMNDiagram bpmnModel = PetriNetToBPMNConverter.convert(petrinetWithMarking.getPetrinet(), petrinetWithMarking.getInitialMarking(), petrinetWithMarking.getFinalMarking(), false);
+//                        exportBPMN(bpmnModel, bpmnpath);
 
 
-                    Measure measure;
-                    // computing metrics on the output petrinet
-                    for (MeasurementAlgorithm measurementAlgorithm : measurementAlgorithms) {
-                        measurementAlgorithmName = measurementAlgorithm.getAcronym();
+                        Measure measure;
+                        // computing metrics on the output petrinet
+                        for (MeasurementAlgorithm measurementAlgorithm : measurementAlgorithms) {
+                            measurementAlgorithmName = measurementAlgorithm.getAcronym();
 
-                        try {
-                            XLog measuringLog = logCloner.cloneLog(log);
-                            eTime = System.currentTimeMillis();
-                            if (measurementAlgorithm instanceof BPMNComplexity) {
-                                BPMNDiagram diagram = miningAlgorithm.mineBPMNDiagram(fakePluginContext, miningLog, false, null, xEventClassifier);
+                            try {
+                                XLog measuringLog = logCloner.cloneLog(log);
                                 eTime = System.currentTimeMillis();
-                                measure = ((BPMNComplexity) measurementAlgorithm).computeMeasurementBPMN(diagram);
-                            } else
-                                measure = measurementAlgorithm.computeMeasurement(fakePluginContext, xEventClassifier, petrinetWithMarking, miningAlgorithm, measuringLog);
-
-                            eTime = System.currentTimeMillis() - eTime;
-                            if (measurementAlgorithm.isMultimetrics()) {
-                                for (String metric : measure.getMetrics()) {
-                                    measures.get(miningAlgorithmName).get(logName).put(metric, measure.getMetricValue(metric));
-                                    System.out.println("DEBUG - " + metric + " : " + measure.getMetricValue(metric));
+                                if (measurementAlgorithm instanceof BPMNComplexity) {
+                                    BPMNDiagram diagram = interruptingMiningAlgorithm.mineBPMNDiagram(fakePluginContext, miningLog, false, null, xEventClassifier);
+                                    eTime = System.currentTimeMillis();
+                                    measure = ((BPMNComplexity) measurementAlgorithm).computeMeasurementBPMN(diagram);
+                                } else
+                                    measure = measurementAlgorithm.computeMeasurement(fakePluginContext, xEventClassifier, petrinetWithMarking, miningAlgorithm, measuringLog);
+
+                                eTime = System.currentTimeMillis() - eTime;
+                                if (measurementAlgorithm.isMultimetrics()) {
+                                    for (String metric : measure.getMetrics()) {
+                                        measures.get(miningAlgorithmName).get(logName).put(metric, measure.getMetricValue(metric));
+                                        System.out.println("DEBUG - " + metric + " : " + measure.getMetricValue(metric));
+                                    }
+                                } else {
+                                    measures.get(miningAlgorithmName).get(logName).put(measurementAlgorithmName, String.format("%.2f", measure.getValue()));
+                                    System.out.println("DEBUG - " + measurementAlgorithmName + " : " + measure.getValue());
                                 }
-                            } else {
-                                measures.get(miningAlgorithmName).get(logName).put(measurementAlgorithmName, String.format("%.2f", measure.getValue()));
-                                System.out.println("DEBUG - " + measurementAlgorithmName + " : " + measure.getValue());
-                            }
 
-//                            if( execTime > MAX_TIME)
-                            measures.get(miningAlgorithmName).get(logName).put(measurementAlgorithmName + "-time", Long.toString(eTime));
-                        } catch (Error e) {
-                            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-                            e.printStackTrace();
-                            measures.get(miningAlgorithmName).get(logName).put(measurementAlgorithmName, "-ERR");
-                            System.out.println("ERROR - measuring: " + miningAlgorithmName + " : " + logName + " : " + measurementAlgorithmName);
-                        } catch (Exception e) {
-                            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-                            System.out.println("ERROR - mining: " + miningAlgorithmName + " - " + measurementAlgorithmName);
-//                            e.printStackTrace();
-                            measures.get(miningAlgorithmName).remove(logName);
+//                                if( execTime > MAX_TIME)
+                                measures.get(miningAlgorithmName).get(logName).put(measurementAlgorithmName + "-time", Long.toString(eTime));
+                            } catch (Error e) {
+                                e.printStackTrace();
+                                measures.get(miningAlgorithmName).get(logName).put(measurementAlgorithmName, "-ERR");
+                                System.out.println("ERROR - measuring: " + miningAlgorithmName + " : " + logName + " : " + measurementAlgorithmName);
+                            } catch (Exception e) {
+                                System.out.println("ERROR - mining: " + miningAlgorithmName + " - " + measurementAlgorithmName);
+//                                e.printStackTrace();
+                                measures.get(miningAlgorithmName).remove(logName);
+                            }
                         }
                     }
 
                 } catch (Error e) {
-                    System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
                     System.out.println("ERROR - mining: " + miningAlgorithmName + " - " + measurementAlgorithmName);
                     e.printStackTrace();
                     measures.get(miningAlgorithmName).remove(logName);
                 } catch (Exception e) {
-                    System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
                     System.out.println("ERROR - mining: " + miningAlgorithmName + " - " + measurementAlgorithmName);
                     e.printStackTrace();
                     measures.get(miningAlgorithmName).remove(logName);
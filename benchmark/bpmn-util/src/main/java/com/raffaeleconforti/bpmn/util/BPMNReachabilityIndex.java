@@ -0,0 +1,362 @@
+package com.raffaeleconforti.bpmn.util;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import org.processmining.models.graphbased.directed.bpmn.BPMNDiagram;
+import org.processmining.models.graphbased.directed.bpmn.BPMNNode;
+import org.processmining.models.graphbased.directed.bpmn.elements.Flow;
+
+import java.util.*;
+
+/**
+ * Reachability between the nodes of a diagram, answering path queries which exclude some flows without searching
+ * the whole diagram again.
+ *
+ * Nodes and flows are numbered and the flows indexed by source and target. The graph is condensed into its strongly
+ * connected components, and each component keeps the set of components reachable from it. Without exclusions a
+ * query is a lookup in these sets. With exclusions the search only follows nodes from which the target is reachable,
+ * and succeeds as soon as it reaches a node none of whose paths to the target takes an excluded flow. Answers are
+ * cached by source, target and set of excluded flows.
+ *
+ * Flows removed from the diagram after the index is built must be removed from the index too, and are then excluded
+ * from every query; flows added to the diagram are not seen by the index. The index is not thread safe.
+ */
+public class BPMNReachabilityIndex {
+
+    // Beyond this number of components the sets of reachable components are not built, and searches are not pruned
+    private static final int MAX_CLOSURE_COMPONENTS = 1 << 13;
+    private static final int CACHE_CAPACITY = 1 << 16;
+
+    private final Map<BPMNNode, Integer> nodeIds = new UnifiedMap<>();
+    private final Map<Flow, Integer> flowIds = new UnifiedMap<>();
+    private final Flow[] flows;
+    private final int[] sources;
+    private final int[] targets;
+
+    private final int[] outgoingOffsets;
+    private final int[] outgoing;
+    private final int[] incomingOffsets;
+    private final int[] incoming;
+
+    private final int[] components;
+    private final long[][] closure;
+
+    private final boolean[] removed;
+    private final IntArrayList removedFlows = new IntArrayList();
+    private final int[] outgoingCounts;
+    private final int[] incomingCounts;
+
+    private final int[] stamps;
+    private int stamp = 0;
+
+    private final Map<PathQuery, Boolean> cache = new LinkedHashMap<PathQuery, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PathQuery, Boolean> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    public BPMNReachabilityIndex(BPMNDiagram diagram) {
+        for (BPMNNode node : diagram.getNodes()) {
+            getNodeId(node);
+        }
+        flows = diagram.getFlows().toArray(new Flow[0]);
+        sources = new int[flows.length];
+        targets = new int[flows.length];
+        for (int f = 0; f < flows.length; f++) {
+            flowIds.put(flows[f], f);
+            sources[f] = getNodeId(flows[f].getSource());
+            targets[f] = getNodeId(flows[f].getTarget());
+        }
+
+        int size = nodeIds.size();
+        outgoingCounts = new int[size];
+        incomingCounts = new int[size];
+        for (int f = 0; f < flows.length; f++) {
+            outgoingCounts[sources[f]]++;
+            incomingCounts[targets[f]]++;
+        }
+        outgoingOffsets = offsets(outgoingCounts);
+        incomingOffsets = offsets(incomingCounts);
+        outgoing = new int[flows.length];
+        incoming = new int[flows.length];
+        int[] outgoingNext = outgoingOffsets.clone();
+        int[] incomingNext = incomingOffsets.clone();
+        for (int f = 0; f < flows.length; f++) {
+            outgoing[outgoingNext[sources[f]]++] = f;
+            incoming[incomingNext[targets[f]]++] = f;
+        }
+
+        removed = new boolean[flows.length];
+        stamps = new int[size];
+        components = new int[size];
+        closure = buildClosure(computeComponents());
+    }
+
+    private int getNodeId(BPMNNode node) {
+        Integer id;
+        if ((id = nodeIds.get(node)) == null) {
+            id = nodeIds.size();
+            nodeIds.put(node, id);
+        }
+        return id;
+    }
+
+    private static int[] offsets(int[] counts) {
+        int[] offsets = new int[counts.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        return offsets;
+    }
+
+    /**
+     * Iterative Tarjan: components are numbered in the order they are completed, so a component is numbered after
+     * all the components reachable from it.
+     *
+     * @return the number of components.
+     */
+    private int computeComponents() {
+        int size = components.length;
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(index, -1);
+
+        IntArrayList stack = new IntArrayList();
+        int[] callStack = new int[size];
+        int[] nextFlow = new int[size];
+        int counter = 0;
+        int count = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1) continue;
+
+            int depth = 0;
+            callStack[depth] = root;
+            nextFlow[root] = outgoingOffsets[root];
+            index[root] = lowLink[root] = counter++;
+            stack.add(root);
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int node = callStack[depth];
+                if (nextFlow[node] < outgoingOffsets[node + 1]) {
+                    int next = targets[outgoing[nextFlow[node]++]];
+                    if (index[next] == -1) {
+                        index[next] = lowLink[next] = counter++;
+                        stack.add(next);
+                        onStack[next] = true;
+                        nextFlow[next] = outgoingOffsets[next];
+                        callStack[++depth] = next;
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                } else {
+                    if (lowLink[node] == index[node]) {
+                        int member;
+                        do {
+                            member = stack.removeAtIndex(stack.size() - 1);
+                            onStack[member] = false;
+                            components[member] = count;
+                        } while (member != node);
+                        count++;
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = callStack[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private long[][] buildClosure(int count) {
+        if (count > MAX_CLOSURE_COMPONENTS) return null;
+
+        List<IntArrayList> members = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            members.add(new IntArrayList());
+        }
+        for (int node = 0; node < components.length; node++) {
+            members.get(components[node]).add(node);
+        }
+
+        int words = (count + 63) >>> 6;
+        long[][] closure = new long[count][];
+        for (int c = 0; c < count; c++) {
+            long[] reachable = new long[words];
+            reachable[c >>> 6] |= 1L << c;
+            IntArrayList nodes = members.get(c);
+            for (int i = 0; i < nodes.size(); i++) {
+                int node = nodes.get(i);
+                for (int j = outgoingOffsets[node]; j < outgoingOffsets[node + 1]; j++) {
+                    int successor = components[targets[outgoing[j]]];
+                    if (successor != c) {
+                        long[] successorReachable = closure[successor];
+                        for (int w = 0; w < words; w++) {
+                            reachable[w] |= successorReachable[w];
+                        }
+                    }
+                }
+            }
+            closure[c] = reachable;
+        }
+        return closure;
+    }
+
+    /**
+     * @return true if the target can be reached from the source; a node is always reachable from itself.
+     */
+    public boolean isReachable(BPMNNode source, BPMNNode target) {
+        return isReachable(source, target, Collections.<Flow>emptyList());
+    }
+
+    /**
+     * @return true if the target can be reached from the source without taking any of the excluded flows, nor any
+     * flow removed from the index.
+     */
+    public boolean isReachable(BPMNNode source, BPMNNode target, Collection<Flow> excludedFlows) {
+        Integer s = nodeIds.get(source);
+        Integer t = nodeIds.get(target);
+        if (s == null || t == null) return false;
+        if (s.equals(t)) return true;
+        if (!reaches(s, t)) return false;
+
+        IntHashSet excluded = new IntHashSet();
+        for (Flow flow : excludedFlows) {
+            Integer f;
+            if ((f = flowIds.get(flow)) != null && !removed[f]) {
+                excluded.add(f);
+            }
+        }
+        if (excluded.isEmpty() && removedFlows.isEmpty() && closure != null) return true;
+
+        PathQuery query = new PathQuery(s, t, excluded.toSortedArray());
+        Boolean reachable;
+        if ((reachable = cache.get(query)) == null) {
+            for (int i = 0; i < removedFlows.size(); i++) {
+                excluded.add(removedFlows.get(i));
+            }
+            reachable = search(s, t, excluded);
+            cache.put(query, reachable);
+        }
+        return reachable;
+    }
+
+    private boolean search(int source, int target, IntHashSet excluded) {
+        int[] excludedFlows = excluded.toArray();
+        stamp++;
+        IntArrayList toVisit = new IntArrayList();
+        toVisit.add(source);
+        stamps[source] = stamp;
+        while (!toVisit.isEmpty()) {
+            int node = toVisit.removeAtIndex(toVisit.size() - 1);
+            if (isUnaffected(node, target, excludedFlows)) return true;
+
+            for (int i = outgoingOffsets[node]; i < outgoingOffsets[node + 1]; i++) {
+                int f = outgoing[i];
+                if (excluded.contains(f)) continue;
+
+                int next = targets[f];
+                if (next == target) return true;
+                if (stamps[next] != stamp && reaches(next, target)) {
+                    stamps[next] = stamp;
+                    toVisit.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if none of the paths from the node to the target takes an excluded flow.
+     */
+    private boolean isUnaffected(int node, int target, int[] excludedFlows) {
+        if (closure == null) return false;
+        for (int f : excludedFlows) {
+            if (reaches(node, sources[f]) && reaches(targets[f], target)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the target is reachable from the source in the diagram the index was built on; without the
+     * sets of reachable components every node is assumed to be.
+     */
+    private boolean reaches(int source, int target) {
+        if (closure == null) return true;
+        int c = components[target];
+        return (closure[components[source]][c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * Excludes the flow, removed from the diagram, from all the queries that follow.
+     */
+    public void removeFlow(Flow flow) {
+        Integer f;
+        if ((f = flowIds.get(flow)) == null || removed[f]) return;
+
+        removed[f] = true;
+        removedFlows.add(f);
+        outgoingCounts[sources[f]]--;
+        incomingCounts[targets[f]]--;
+        cache.clear();
+    }
+
+    /**
+     * @return the flows entering the node which have not been removed.
+     */
+    public List<Flow> getIncoming(BPMNNode node) {
+        Integer n = nodeIds.get(node);
+        if (n == null) return Collections.emptyList();
+
+        List<Flow> list = new ArrayList<>(incomingCounts[n]);
+        for (int i = incomingOffsets[n]; i < incomingOffsets[n + 1]; i++) {
+            if (!removed[incoming[i]]) list.add(flows[incoming[i]]);
+        }
+        return list;
+    }
+
+    public int countOutgoing(BPMNNode node) {
+        Integer n = nodeIds.get(node);
+        return n == null ? 0 : outgoingCounts[n];
+    }
+
+    public int countIncoming(BPMNNode node) {
+        Integer n = nodeIds.get(node);
+        return n == null ? 0 : incomingCounts[n];
+    }
+
+    private static class PathQuery {
+
+        private final int source;
+        private final int target;
+        private final int[] excluded;
+        private final int hash;
+
+        private PathQuery(int source, int target, int[] excluded) {
+            this.source = source;
+            this.target = target;
+            this.excluded = excluded;
+            this.hash = 31 * (31 * source + target) + Arrays.hashCode(excluded);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PathQuery)) return false;
+            PathQuery that = (PathQuery) o;
+            return source == that.source && target == that.target && Arrays.equals(excluded, that.excluded);
+        }
+    }
+
+}
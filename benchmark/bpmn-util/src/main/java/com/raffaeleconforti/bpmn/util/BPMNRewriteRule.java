@@ -0,0 +1,37 @@
+package com.raffaeleconforti.bpmn.util;
+
+import org.processmining.models.graphbased.directed.bpmn.BPMNNode;
+
+/**
+ * Local rewrite of a {@link BPMNRewriter}, applied to one node of the type the rule declares.
+ *
+ * A rule only reads the flows around the node through the rewriter and only changes the diagram through it, so
+ * that the rewriter knows which nodes to submit again to the rules. Applying a rule must return false whenever the
+ * diagram is left unchanged, otherwise the rewriting does not terminate.
+ */
+public abstract class BPMNRewriteRule<T extends BPMNNode> {
+
+    private final Class<T> nodeType;
+
+    protected BPMNRewriteRule(Class<T> nodeType) {
+        this.nodeType = nodeType;
+    }
+
+    public Class<T> getNodeType() {
+        return nodeType;
+    }
+
+    public boolean matches(BPMNNode node) {
+        return nodeType.isInstance(node);
+    }
+
+    /**
+     * @return true if the diagram has been changed.
+     */
+    public abstract boolean apply(BPMNRewriter rewriter, T node);
+
+    boolean rewrite(BPMNRewriter rewriter, BPMNNode node) {
+        return apply(rewriter, nodeType.cast(node));
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.raffaeleconforti.bpmn.util;
+
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+import org.processmining.models.graphbased.directed.bpmn.BPMNDiagram;
+import org.processmining.models.graphbased.directed.bpmn.BPMNNode;
+import org.processmining.models.graphbased.directed.bpmn.elements.*;
+
+import java.util.*;
+
+/**
+ * Rewrites a diagram with a list of {@link BPMNRewriteRule}s until none of them applies.
+ *
+ * Each rule has a worklist of the nodes of its type to visit, initially all the nodes of the diagram. Whenever a
+ * flow is added or removed both its ends are put back in the worklists of the rules matching them, so rules are only
+ * applied again around the last changes. Rules take turns in the order of the list, each one emptying its worklist,
+ * as the passes of a simplification loop would, and the incoming and outgoing flows of the nodes are kept up to date
+ * along the rewriting rather than searched in the whole diagram.
+ */
+public class BPMNRewriter {
+
+    private final BPMNDiagram diagram;
+    private final List<BPMNRewriteRule<?>> rules;
+    private final List<Set<BPMNNode>> worklists;
+
+    private final Map<BPMNNode, List<Flow>> incoming = new UnifiedMap<>();
+    private final Map<BPMNNode, List<Flow>> outgoing = new UnifiedMap<>();
+    private final Set<BPMNNode> removed = new UnifiedSet<>();
+
+    public BPMNRewriter(BPMNDiagram diagram, List<BPMNRewriteRule<?>> rules) {
+        this.diagram = diagram;
+        this.rules = rules;
+        this.worklists = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            worklists.add(new LinkedHashSet<BPMNNode>());
+        }
+
+        for (Flow f : diagram.getFlows()) {
+            getFlows(outgoing, f.getSource()).add(f);
+            getFlows(incoming, f.getTarget()).add(f);
+        }
+    }
+
+    /**
+     * @return true if any rule has changed the diagram.
+     */
+    public boolean rewrite() {
+        for (BPMNNode node : diagram.getNodes()) {
+            touch(node);
+        }
+
+        boolean changed = false;
+        boolean pending = true;
+        while (pending) {
+            pending = false;
+            for (int i = 0; i < rules.size(); i++) {
+                Set<BPMNNode> worklist = worklists.get(i);
+                while (!worklist.isEmpty()) {
+                    Iterator<BPMNNode> iterator = worklist.iterator();
+                    BPMNNode node = iterator.next();
+                    iterator.remove();
+                    if (!removed.contains(node) && rules.get(i).rewrite(this, node)) {
+                        changed = true;
+                    }
+                }
+            }
+            for (Set<BPMNNode> worklist : worklists) {
+                pending |= !worklist.isEmpty();
+            }
+        }
+        return changed;
+    }
+
+    public BPMNDiagram getDiagram() {
+        return diagram;
+    }
+
+    /**
+     * @return the flows entering the node, which must not be modified; copy them to change the diagram while iterating.
+     */
+    public List<Flow> getIncoming(BPMNNode node) {
+        List<Flow> flows = incoming.get(node);
+        return flows == null ? Collections.<Flow>emptyList() : Collections.unmodifiableList(flows);
+    }
+
+    /**
+     * @return the flows leaving the node, which must not be modified; copy them to change the diagram while iterating.
+     */
+    public List<Flow> getOutgoing(BPMNNode node) {
+        List<Flow> flows = outgoing.get(node);
+        return flows == null ? Collections.<Flow>emptyList() : Collections.unmodifiableList(flows);
+    }
+
+    public Flow addFlow(BPMNNode source, BPMNNode target) {
+        Flow flow = diagram.addFlow(source, target, "");
+        getFlows(outgoing, source).add(flow);
+        getFlows(incoming, target).add(flow);
+        touch(source);
+        touch(target);
+        return flow;
+    }
+
+    public void removeFlow(Flow flow) {
+        diagram.removeEdge(flow);
+        getFlows(outgoing, flow.getSource()).remove(flow);
+        getFlows(incoming, flow.getTarget()).remove(flow);
+        touch(flow.getSource());
+        touch(flow.getTarget());
+    }
+
+    /**
+     * Removes the node and its flows; the nodes it was connected to are visited again.
+     */
+    public void removeNode(BPMNNode node) {
+        if (!removed.add(node)) return;
+
+        for (Flow flow : new ArrayList<>(getIncoming(node))) {
+            removeFlow(flow);
+        }
+        for (Flow flow : new ArrayList<>(getOutgoing(node))) {
+            removeFlow(flow);
+        }
+        incoming.remove(node);
+        outgoing.remove(node);
+
+        if (node instanceof Gateway) {
+            diagram.removeGateway((Gateway) node);
+        } else if (node instanceof Event) {
+            diagram.removeEvent((Event) node);
+        } else if (node instanceof SubProcess) {
+            diagram.removeSubProcess((SubProcess) node);
+        } else if (node instanceof Activity) {
+            diagram.removeActivity((Activity) node);
+        } else {
+            diagram.removeNode(node);
+        }
+    }
+
+    /**
+     * @return true if the target can be reached from the source without taking the excluded flow.
+     */
+    public boolean isReachable(BPMNNode source, BPMNNode target, Flow excluded) {
+        if (source.equals(target)) return true;
+
+        Set<BPMNNode> visited = new UnifiedSet<>();
+        Deque<BPMNNode> toVisit = new ArrayDeque<>();
+        visited.add(source);
+        toVisit.add(source);
+        while (!toVisit.isEmpty()) {
+            for (Flow f : getOutgoing(toVisit.removeFirst())) {
+                if (f != excluded && visited.add(f.getTarget())) {
+                    if (f.getTarget().equals(target)) return true;
+                    toVisit.add(f.getTarget());
+                }
+            }
+        }
+        return false;
+    }
+
+    private void touch(BPMNNode node) {
+        if (removed.contains(node)) return;
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).matches(node)) {
+                worklists.get(i).add(node);
+            }
+        }
+    }
+
+    private static List<Flow> getFlows(Map<BPMNNode, List<Flow>> flows, BPMNNode node) {
+        List<Flow> list;
+        if ((list = flows.get(node)) == null) {
+            list = new ArrayList<>();
+            flows.put(node, list);
+        }
+        return list;
+    }
+
+}
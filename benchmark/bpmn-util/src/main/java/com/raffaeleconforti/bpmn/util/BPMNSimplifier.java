@@ -17,45 +17,291 @@ import java.util.*;
  */
 public class BPMNSimplifier {
 
+    /**
+     * Removes from the diagram the flows between start and end events, the artificial and empty activities, the
+     * looped XOR gateways, the flows of AND gateways bypassing a path to the same join, the gateways with less than
+     * three flows, the duplicate flows and the sub-processes of a single element, until none of them is left.
+     */
     public static BPMNDiagram simplify(BPMNDiagram diagram) {
-        int oldSize = 0;
-        int size = diagram.getActivities().size() + diagram.getEvents().size() + diagram.getGateways().size() + diagram.getFlows().size();
-        while (oldSize != size) {
-            oldSize = size;
-            BPMNSimplifier.removeConnectedStartEndEvent(diagram);
-            BPMNSimplifier.removeHTMLfromAllActivitiesProcess(diagram);
-            BPMNSimplifier.insertStartAndEndEventsIfMissing(diagram);
-            BPMNSimplifier.removeArtificialNodes(diagram);
-            BPMNSimplifier.removeLoopedXOR(diagram);
-//            BPMNSimplifier.replaceShortLoopsWithSelfLoops(diagram);
-            BPMNSimplifier.fixANDGateway(diagram);
+        prepare(diagram);
+        int subProcesses;
+        do {
+            new BPMNRewriter(diagram, simplifyRules()).rewrite();
+            subProcesses = diagram.getSubProcesses().size();
             BPMNSimplifier.removeUselessSubProcesses(diagram);
-            BPMNSimplifier.removeGatewaysUseless(diagram, diagram.getGateways());
-            BPMNSimplifier.removeDuplicateArcs(diagram);
-            BPMNSimplifier.removeEmptyActivities(diagram);
-            size = diagram.getActivities().size() + diagram.getEvents().size() + diagram.getGateways().size() + diagram.getFlows().size();
-        }
+        } while (diagram.getSubProcesses().size() != subProcesses);
         return diagram;
 
     }
 
     public static BPMNDiagram basicSimplification(BPMNDiagram diagram) {
-        int oldSize = 0;
-        int size = diagram.getActivities().size() + diagram.getEvents().size() + diagram.getGateways().size() + diagram.getFlows().size();
-        while (oldSize != size) {
-            oldSize = size;
-            BPMNSimplifier.removeConnectedStartEndEvent(diagram);
-            BPMNSimplifier.removeHTMLfromAllActivitiesProcess(diagram);
-            BPMNSimplifier.insertStartAndEndEventsIfMissing(diagram);
-            BPMNSimplifier.removeArtificialNodes(diagram);
-            BPMNSimplifier.fixANDGateway(diagram);
-            BPMNSimplifier.removeGatewaysUseless(diagram, diagram.getGateways());
-            size = diagram.getActivities().size() + diagram.getEvents().size() + diagram.getGateways().size() + diagram.getFlows().size();
-        }
+        prepare(diagram);
+        new BPMNRewriter(diagram, basicRules()).rewrite();
         return diagram;
 
     }
 
+    /**
+     * Changes that are made once, before the rewriting: start and end events are only inserted for artificial
+     * activities, which the rewriting removes, and labels are not changed by the rewriting.
+     */
+    private static void prepare(BPMNDiagram diagram) {
+        BPMNSimplifier.removeConnectedStartEndEvent(diagram);
+        BPMNSimplifier.removeHTMLfromAllActivitiesProcess(diagram);
+        BPMNSimplifier.insertStartAndEndEventsIfMissing(diagram);
+    }
+
+    private static final BPMNRewriteRule<Event> REMOVE_CONNECTED_START_END_EVENT = new BPMNRewriteRule<Event>(Event.class) {
+        @Override
+        public boolean apply(BPMNRewriter rewriter, Event event) {
+            boolean changed = false;
+            if (event.getEventType().equals(Event.EventType.START)) {
+                for (Flow f : new ArrayList<>(rewriter.getOutgoing(event))) {
+                    if (f.getTarget() instanceof Event && ((Event) f.getTarget()).getEventType().equals(Event.EventType.END)) {
+                        rewriter.removeFlow(f);
+                        changed = true;
+                    }
+                }
+            }
+            if (event.getEventType().equals(Event.EventType.END)) {
+                for (Flow f : new ArrayList<>(rewriter.getIncoming(event))) {
+                    if (f.getSource() instanceof Event && ((Event) f.getSource()).getEventType().equals(Event.EventType.START)) {
+                        rewriter.removeFlow(f);
+                        changed = true;
+                    }
+                }
+            }
+            if (rewriter.getIncoming(event).isEmpty() && rewriter.getOutgoing(event).isEmpty()) {
+                rewriter.removeNode(event);
+                changed = true;
+            }
+            return changed;
+        }
+    };
+
+    private static final BPMNRewriteRule<Activity> REMOVE_ARTIFICIAL_ACTIVITY = new BPMNRewriteRule<Activity>(Activity.class) {
+        @Override
+        public boolean matches(BPMNNode node) {
+            return super.matches(node) && !(node instanceof SubProcess);
+        }
+
+        @Override
+        public boolean apply(BPMNRewriter rewriter, Activity act) {
+            if (!act.getLabel().startsWith("Artificial")) return false;
+
+            Set<BPMNNode> from = new LinkedHashSet<>();
+            Set<BPMNNode> to = new LinkedHashSet<>();
+            for (Flow f : rewriter.getIncoming(act)) {
+                from.add(f.getSource());
+            }
+            for (Flow f : rewriter.getOutgoing(act)) {
+                to.add(f.getTarget());
+            }
+            from.remove(act);
+            to.remove(act);
+
+            rewriter.removeNode(act);
+            for (BPMNNode nodeFrom : from) {
+                for (BPMNNode nodeTo : to) {
+                    rewriter.addFlow(nodeFrom, nodeTo);
+                }
+            }
+            return true;
+        }
+    };
+
+    private static final BPMNRewriteRule<Gateway> REMOVE_LOOPED_XOR = new BPMNRewriteRule<Gateway>(Gateway.class) {
+        @Override
+        public boolean apply(BPMNRewriter rewriter, Gateway g) {
+            if (!g.getGatewayType().equals(Gateway.GatewayType.DATABASED)) return false;
+
+            // The gateway is either the join or the split of the loop
+            for (Flow f : rewriter.getOutgoing(g)) {
+                if (isXOR(f.getTarget()) && removeLoop(rewriter, g, (Gateway) f.getTarget())) return true;
+            }
+            for (Flow f : rewriter.getIncoming(g)) {
+                if (isXOR(f.getSource()) && removeLoop(rewriter, (Gateway) f.getSource(), g)) return true;
+            }
+            return false;
+        }
+
+        private boolean isXOR(BPMNNode node) {
+            return node instanceof Gateway && ((Gateway) node).getGatewayType().equals(Gateway.GatewayType.DATABASED);
+        }
+
+        private boolean removeLoop(BPMNRewriter rewriter, Gateway g1, Gateway g2) {
+            if (rewriter.getIncoming(g1).size() != 2 || rewriter.getOutgoing(g2).size() != 2) return false;
+
+            boolean found = false;
+            BPMNNode start = null;
+            for (Flow f1 : rewriter.getIncoming(g1)) {
+                if (f1.getSource().equals(g2)) {
+                    found = true;
+                } else {
+                    start = f1.getSource();
+                }
+            }
+            if (!found) return false;
+
+            BPMNNode end = null;
+            for (Flow f1 : rewriter.getOutgoing(g2)) {
+                if (!f1.getTarget().equals(g1)) {
+                    end = f1.getTarget();
+                }
+            }
+
+            rewriter.removeNode(g1);
+            rewriter.removeNode(g2);
+            if (start != null && end != null) {
+                rewriter.addFlow(start, end);
+            }
+            return true;
+        }
+    };
+
+    /**
+     * Removes the flows from an AND or OR gateway to an AND join with a single outgoing flow, when the join can be
+     * reached from the gateway through another path. Rewriting never makes a node reachable from another one it was
+     * not reachable from, hence the flows found without such a path are not searched again.
+     */
+    private static class FixANDGatewayRule extends BPMNRewriteRule<Gateway> {
+
+        private final Set<Flow> withoutBypass = new UnifiedSet<>();
+
+        private FixANDGatewayRule() {
+            super(Gateway.class);
+        }
+
+        @Override
+        public boolean apply(BPMNRewriter rewriter, Gateway g) {
+            boolean changed = false;
+            // The gateway is either the split of the flow or the join it goes to
+            if (g.getGatewayType().equals(Gateway.GatewayType.PARALLEL) || g.getGatewayType().equals(Gateway.GatewayType.INCLUSIVE)) {
+                for (Flow f : new ArrayList<>(rewriter.getOutgoing(g))) {
+                    changed |= removeBypass(rewriter, f);
+                }
+            }
+            if (g.getGatewayType().equals(Gateway.GatewayType.PARALLEL)) {
+                for (Flow f : new ArrayList<>(rewriter.getIncoming(g))) {
+                    changed |= removeBypass(rewriter, f);
+                }
+            }
+            return changed;
+        }
+
+        private boolean removeBypass(BPMNRewriter rewriter, Flow f) {
+            if (!(f.getSource() instanceof Gateway) || !(f.getTarget() instanceof Gateway)) return false;
+
+            Gateway g = (Gateway) f.getSource();
+            Gateway g1 = (Gateway) f.getTarget();
+            if (!g.getGatewayType().equals(Gateway.GatewayType.PARALLEL) && !g.getGatewayType().equals(Gateway.GatewayType.INCLUSIVE)) return false;
+            if (!g1.getGatewayType().equals(Gateway.GatewayType.PARALLEL)) return false;
+            if (rewriter.getIncoming(g1).size() <= 1 || rewriter.getOutgoing(g1).size() != 1) return false;
+            if (withoutBypass.contains(f)) return false;
+
+            if (rewriter.isReachable(g, g1, f)) {
+                rewriter.removeFlow(f);
+                return true;
+            }
+            withoutBypass.add(f);
+            return false;
+        }
+    }
+
+    private static final BPMNRewriteRule<Gateway> REMOVE_USELESS_GATEWAY = new BPMNRewriteRule<Gateway>(Gateway.class) {
+        @Override
+        public boolean apply(BPMNRewriter rewriter, Gateway g) {
+            int sources = 0;
+            BPMNNode source = null;
+            for (Flow flow : rewriter.getIncoming(g)) {
+                // A self loop is counted as an outgoing flow only
+                if (!flow.getSource().equals(g)) sources++;
+                source = flow.getSource();
+            }
+            int targets = rewriter.getOutgoing(g).size();
+            if (sources + targets >= 3) return false;
+
+            BPMNNode target = null;
+            for (Flow flow : rewriter.getOutgoing(g)) {
+                target = flow.getTarget();
+            }
+
+            rewriter.removeNode(g);
+            if (source != null && target != null && !source.equals(g) && !target.equals(g)) {
+                rewriter.addFlow(source, target);
+            }
+            return true;
+        }
+    };
+
+    private static final BPMNRewriteRule<BPMNNode> REMOVE_DUPLICATE_ARCS = new BPMNRewriteRule<BPMNNode>(BPMNNode.class) {
+        @Override
+        public boolean apply(BPMNRewriter rewriter, BPMNNode node) {
+            List<Flow> duplicates = new ArrayList<>();
+            Set<BPMNNode> targets = new UnifiedSet<>();
+            for (Flow f : rewriter.getOutgoing(node)) {
+                if (!targets.add(f.getTarget())) {
+                    duplicates.add(f);
+                }
+            }
+            for (Flow f : duplicates) {
+                rewriter.removeFlow(f);
+            }
+            return !duplicates.isEmpty();
+        }
+    };
+
+    private static final BPMNRewriteRule<Activity> REMOVE_EMPTY_ACTIVITY = new BPMNRewriteRule<Activity>(Activity.class) {
+        @Override
+        public boolean matches(BPMNNode node) {
+            return super.matches(node) && !(node instanceof SubProcess);
+        }
+
+        @Override
+        public boolean apply(BPMNRewriter rewriter, Activity a) {
+            if (!a.getLabel().isEmpty()) return false;
+
+            List<BPMNNode> sources = new ArrayList<>();
+            List<BPMNNode> targets = new ArrayList<>();
+            for (Flow f : rewriter.getIncoming(a)) {
+                if (!f.getSource().equals(a)) sources.add(f.getSource());
+            }
+            for (Flow f : rewriter.getOutgoing(a)) {
+                if (!f.getTarget().equals(a)) targets.add(f.getTarget());
+            }
+
+            rewriter.removeNode(a);
+            for (BPMNNode source : sources) {
+                for (BPMNNode target : targets) {
+                    rewriter.addFlow(source, target);
+                }
+            }
+            return true;
+        }
+    };
+
+    // Rules in the order of the passes of the former simplification loops
+    private static List<BPMNRewriteRule<?>> simplifyRules() {
+        return Arrays.<BPMNRewriteRule<?>>asList(
+                REMOVE_CONNECTED_START_END_EVENT,
+                REMOVE_ARTIFICIAL_ACTIVITY,
+                REMOVE_LOOPED_XOR,
+                new FixANDGatewayRule(),
+                REMOVE_USELESS_GATEWAY,
+                REMOVE_DUPLICATE_ARCS,
+                REMOVE_EMPTY_ACTIVITY
+        );
+    }
+
+    private static List<BPMNRewriteRule<?>> basicRules() {
+        return Arrays.<BPMNRewriteRule<?>>asList(
+                REMOVE_CONNECTED_START_END_EVENT,
+                REMOVE_ARTIFICIAL_ACTIVITY,
+                new FixANDGatewayRule(),
+                REMOVE_USELESS_GATEWAY
+        );
+    }
+
     public static BPMNDiagram removeArtificialNodes(BPMNDiagram process) {
 
         List<Flow> remove = new ArrayList<>();
@@ -2,6 +2,7 @@ package com.raffaeleconforti.bpmnminer.subprocessminer;
 
 import com.raffaeleconforti.bpmn.util.BPMNAnalizer;
 import com.raffaeleconforti.bpmn.util.BPMNModifier;
+import com.raffaeleconforti.bpmn.util.BPMNReachabilityIndex;
 import com.raffaeleconforti.bpmn.util.BPMNSimplifier;
 import com.raffaeleconforti.bpmnminer.exception.ExecutionCancelledException;
 import com.raffaeleconforti.bpmnminer.foreignkeynoicetollerant.ForeignKeySelector;
@@ -792,41 +793,20 @@ public class BPMNSubProcessMiner {
         Map<BPMNNode, Set<List<Flow>>> startAct = new UnifiedMap<BPMNNode, Set<List<Flow>>>();
         Set<List<Flow>> pathsToEnd;
         List<Event> ends = bpmnAnalizer.discoverEndEvents(subProcess);
+        BPMNReachabilityIndex reachabilityIndex = new BPMNReachabilityIndex(subProcess);
 
         for (Flow f : subProcess.getFlows()) {
-            if (f.getSource() instanceof Activity) {
+            // The path to the end only depends on the activity, not on which of its flows is visited
+            if (f.getSource() instanceof Activity && !startAct.containsKey(f.getSource())) {
                 String actName = bpmnAnalizer.extractActivityLabel((Activity) f.getSource());
                 if (possibleActivitiesToCheck.contains(actName)) {
-                    if ((pathsToEnd = startAct.get(f.getSource())) == null) {
-                        pathsToEnd = new UnifiedSet<List<Flow>>();
-                        startAct.put(f.getSource(), pathsToEnd);
-                    }
+                    pathsToEnd = new UnifiedSet<List<Flow>>();
+                    startAct.put(f.getSource(), pathsToEnd);
                     List<Flow> path = bpmnAnalizer.discoverPathToEnd(subProcess, f.getSource());
-                    List<Flow> reduntantFlows = new ArrayList<Flow>();
-                    for (Flow flow : path) {
-                        BPMNNode start = flow.getSource();
-                        BPMNNode end = flow.getTarget();
-
-                        int outputS = 0;
-                        int inputT = 0;
-
-                        for (Flow f1 : subProcess.getFlows()) {
-                            if (f1.getSource().equals(start)) {
-                                outputS++;
-                            }
-                            if (f1.getTarget().equals(end)) {
-                                inputT++;
-                            }
-                        }
-
-                        if (outputS > 1 && inputT > 1) {
-                            reduntantFlows.add(flow);
-                        }
-                    }
+                    List<Flow> reduntantFlows = getRedundantFlows(reachabilityIndex, path);
                     int found = 0;
                     for(Event end : ends) {
-                        List<Flow> path2 = bpmnAnalizer.discoverPath(subProcess, f.getSource(), end, reduntantFlows);
-                        if(path2 != null && path2.size() > 0) {
+                        if(reachabilityIndex.isReachable(f.getSource(), end, reduntantFlows)) {
                             found++;
                         }
                     }
@@ -840,46 +820,12 @@ public class BPMNSubProcessMiner {
         List<Flow> reduntantFlows;
         for (Map.Entry<BPMNNode, Set<List<Flow>>> entry : startAct.entrySet()) {
             for (List<Flow> flows : entry.getValue()) {
-                reduntantFlows = new ArrayList<Flow>();
-                for (Flow f : flows) {
-                    BPMNNode start = f.getSource();
-                    BPMNNode end = f.getTarget();
-
-                    int outputS = 0;
-                    int inputT = 0;
-
-                    for (Flow f1 : subProcess.getFlows()) {
-                        if (f1.getSource().equals(start)) {
-                            outputS++;
-                        }
-                        if (f1.getTarget().equals(end)) {
-                            inputT++;
-                        }
-                    }
-
-                    if (outputS > 1 && inputT > 1) {
-                        reduntantFlows.add(f);
-                    }
-                }
-                if (!isEssentialForOtherActivities(subProcess, flows, reduntantFlows, entry.getKey())) {
+                reduntantFlows = getRedundantFlows(reachabilityIndex, flows);
+                if (!isEssentialForOtherActivities(subProcess, reachabilityIndex, flows, reduntantFlows, entry.getKey())) {
                     for (Flow f : flows) {
-                        BPMNNode start = f.getSource();
-                        BPMNNode end = f.getTarget();
-
-                        int outputS = 0;
-                        int inputT = 0;
-
-                        for (Flow f1 : subProcess.getFlows()) {
-                            if (f1.getSource().equals(start)) {
-                                outputS++;
-                            }
-                            if (f1.getTarget().equals(end)) {
-                                inputT++;
-                            }
-                        }
-
-                        if (outputS > 1 && inputT > 1) {
+                        if (reachabilityIndex.countOutgoing(f.getSource()) > 1 && reachabilityIndex.countIncoming(f.getTarget()) > 1) {
                             subProcess.removeEdge(f);
+                            reachabilityIndex.removeFlow(f);
                         }
                     }
                 }
@@ -889,7 +835,21 @@ public class BPMNSubProcessMiner {
         return subProcess;
     }
 
-    private boolean isEssentialForOtherActivities(BPMNDiagram subProcess, List<Flow> pathToEnd, List<Flow> excludedFlow, BPMNNode start) {
+    /**
+     * @return the flows of the path leaving a node with other outgoing flows and entering a node with other incoming
+     * flows.
+     */
+    private List<Flow> getRedundantFlows(BPMNReachabilityIndex reachabilityIndex, List<Flow> path) {
+        List<Flow> reduntantFlows = new ArrayList<Flow>();
+        for (Flow flow : path) {
+            if (reachabilityIndex.countOutgoing(flow.getSource()) > 1 && reachabilityIndex.countIncoming(flow.getTarget()) > 1) {
+                reduntantFlows.add(flow);
+            }
+        }
+        return reduntantFlows;
+    }
+
+    private boolean isEssentialForOtherActivities(BPMNDiagram subProcess, BPMNReachabilityIndex reachabilityIndex, List<Flow> pathToEnd, List<Flow> excludedFlow, BPMNNode start) {
         Set<BPMNNode> visitedNode = new UnifiedSet<BPMNNode>();
         Deque<BPMNNode> toVisit = new ArrayDeque<BPMNNode>();
         Set<Activity> activities = new UnifiedSet<Activity>();
@@ -918,8 +878,8 @@ public class BPMNSubProcessMiner {
                 while (toVisit2.size() > 0) {
                     BPMNNode node2 = toVisit2.removeFirst();
                     if (!(node2 instanceof Activity)) {
-                        for (Flow f : subProcess.getFlows()) {
-                            if (f.getTarget().equals(node2) && !f.getSource().equals(start) && !visitedNode2.contains(f.getSource())) {
+                        for (Flow f : reachabilityIndex.getIncoming(node2)) {
+                            if (!f.getSource().equals(start) && !visitedNode2.contains(f.getSource())) {
                                 toVisit2.add(f.getSource());
                             }
                         }
@@ -934,7 +894,7 @@ public class BPMNSubProcessMiner {
         }
 
         for (Activity act : activities) {
-            if (!reachable(subProcess, act, excludedFlow)) {
+            if (!reachable(subProcess, reachabilityIndex, act, excludedFlow)) {
                 return true;
             }
         }
@@ -942,7 +902,7 @@ public class BPMNSubProcessMiner {
         return false;
     }
 
-    private boolean reachable(BPMNDiagram subProcess, Activity act, List<Flow> excludedFlow) {
+    private boolean reachable(BPMNDiagram subProcess, BPMNReachabilityIndex reachabilityIndex, Activity act, List<Flow> excludedFlow) {
         Event startEvent = null;
 
         for (Event e : subProcess.getEvents()) {
@@ -952,8 +912,7 @@ public class BPMNSubProcessMiner {
             }
         }
 
-        List<Flow> path = bpmnAnalizer.discoverPath(subProcess, startEvent, act, excludedFlow);
-        return (path != null && path.size() > 0);
+        return reachabilityIndex.isReachable(startEvent, act, excludedFlow);
     }
 
     private void fixEventSubProcesses(BPMNDiagram diagram, Set<SubProcess> eventSubProcesses) {
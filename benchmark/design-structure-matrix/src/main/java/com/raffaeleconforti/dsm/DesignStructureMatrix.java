@@ -1,8 +1,8 @@
 package com.raffaeleconforti.dsm;
 
-import com.raffaeleconforti.datastructures.multilevelmap.MultiLevelMap;
-import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
-import com.raffaeleconforti.dsm.factory.DirectFollowFactory;
+import com.raffaeleconforti.dsm.matrix.ActivityIndex;
+import com.raffaeleconforti.dsm.matrix.BitMatrix;
+import com.raffaeleconforti.dsm.matrix.LogRelations;
 import com.raffaeleconforti.foreignkeydiscovery.Couple;
 import com.raffaeleconforti.kernelestimation.distribution.EventDistributionCalculator;
 import com.raffaeleconforti.kernelestimation.distribution.impl.EventDistributionCalculatorImpl;
@@ -10,27 +10,36 @@ import com.raffaeleconforti.log.util.LogAnalyser;
 import com.raffaeleconforti.log.util.LogImporter;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
 import org.deckfour.xes.model.XLog;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
 import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 20/03/2016.
+ *
+ * Each cell type is stored as a {@link BitMatrix} over the {@link ActivityIndex} of the log,
+ * the String based getCell/setCell methods are adapters over these matrices.
  */
 public class DesignStructureMatrix {
 
     private EventDistributionCalculator eventDistributionCalculator;
     private XEventClassifier eventClassifier = new XEventNameClassifier();
-    private MultiLevelMap<String, Set<DesignStructureMatrixCell>> multiLevelMap;
     private Set<String> activities;
     private String[] activitiesOrder;
+    private ActivityIndex activityIndex;
+    private LogRelations logRelations;
+    private Map<String, DesignStructureMatrixCell> cellTypes = new UnifiedMap<>();
+    private Map<String, BitMatrix> cellMatrices = new UnifiedMap<>();
 
     public static void main(String[] args) throws Exception {
         XLog log = LogImporter.importFromFile(new XFactoryNaiveImpl(), "/Volumes/Data/SharedFolder/Logs/repairExample_complete_lifecycle_only.xes");
         DesignStructureMatrix dsm = new DesignStructureMatrix(log);
-        MultiLevelHashMap<String, Boolean> directFollow = DirectFollowFactory.discoverDirectFollow(log, dsm.eventClassifier);
-//        dsm = SequenceDSMFactory.discover(LogAnalyser.getUniqueActivities(log, dsm.eventClassifier), dsm.eventClassifier, directFollow, dsm);
-//        dsm = ConflictDSMFactory.discover(LogAnalyser.getUniqueActivities(log, dsm.eventClassifier), dsm.eventClassifier, directFollow, dsm);
+//        dsm = SequenceDSMFactory.discover(dsm);
+//        dsm = ConflictDSMFactory.discover(dsm);
         System.out.println(dsm);
     }
 
@@ -39,7 +48,8 @@ public class DesignStructureMatrix {
         activitiesOrder = new String[activities.size()];
         eventDistributionCalculator = new EventDistributionCalculatorImpl(log, eventClassifier);
         eventDistributionCalculator.analyseLog();
-        multiLevelMap = new MultiLevelHashMap(2);
+        activityIndex = new ActivityIndex(activities);
+        logRelations = LogRelations.discover(log, eventClassifier, activityIndex);
         generateDesignStructureMatrix(log);
     }
 
@@ -356,20 +366,66 @@ public class DesignStructureMatrix {
         return filled.toString();
     }
 
+    public ActivityIndex getActivityIndex() {
+        return activityIndex;
+    }
+
+    public LogRelations getLogRelations() {
+        return logRelations;
+    }
+
+    public BitMatrix getCellMatrix(String type) {
+        return cellMatrices.get(type);
+    }
+
+    /**
+     * Adds the cell to all the pairs of activities in the matrix.
+     */
+    public void addCell(DesignStructureMatrixCell cell, BitMatrix matrix) {
+        getOrCreateCellMatrix(cell).or(matrix);
+    }
+
+    private BitMatrix getOrCreateCellMatrix(DesignStructureMatrixCell cell) {
+        BitMatrix matrix;
+        if((matrix = cellMatrices.get(cell.getType())) == null) {
+            matrix = new BitMatrix(activityIndex.size());
+            cellMatrices.put(cell.getType(), matrix);
+            cellTypes.put(cell.getType(), cell);
+        }
+        return matrix;
+    }
+
     public Set<DesignStructureMatrixCell> getCell(String... keys) {
-        if(multiLevelMap.get(keys) == null) return null;
+        int row = activityIndex.getIndex(keys[0]);
+        int column = activityIndex.getIndex(keys[1]);
+        if(row < 0 || column < 0) return null;
 
         Set<DesignStructureMatrixCell> set = new UnifiedSet<>();
-        set.addAll(multiLevelMap.get(keys));
-        return set;
+        for(Map.Entry<String, BitMatrix> entry : cellMatrices.entrySet()) {
+            if(entry.getValue().get(row, column)) {
+                set.add(cellTypes.get(entry.getKey()));
+            }
+        }
+        return set.isEmpty() ? null : set;
     }
 
     public void setCell(Set<DesignStructureMatrixCell> cell, String... keys) {
-        multiLevelMap.put(cell, keys);
+        int row = activityIndex.getIndex(keys[0]);
+        int column = activityIndex.getIndex(keys[1]);
+        if(row < 0 || column < 0) {
+            throw new IllegalArgumentException("Unknown activities " + keys[0] + ", " + keys[1]);
+        }
+
+        for(BitMatrix matrix : cellMatrices.values()) {
+            matrix.clear(row, column);
+        }
+        for(DesignStructureMatrixCell dsmc : cell) {
+            getOrCreateCellMatrix(dsmc).set(row, column);
+        }
     }
 
     private String getName(String... keys) {
-        Set<DesignStructureMatrixCell> dsmc = multiLevelMap.get(keys);
+        Set<DesignStructureMatrixCell> dsmc = getCell(keys);
         if (dsmc == null) return  "";
         return dsmc.toString();
     }
@@ -1,10 +1,9 @@
 package com.raffaeleconforti.dsm.factory;
 
 import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
+import com.raffaeleconforti.dsm.matrix.LogRelations;
 import org.deckfour.xes.classification.XEventClassifier;
-import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
-import org.deckfour.xes.model.XTrace;
 
 import java.util.Set;
 
@@ -13,57 +12,12 @@ import java.util.Set;
  */
 public class IndirectFollowFactory {
 
+    /**
+     * The XOR-split and XOR-join candidates are all the activities of the log, which are expected to match uniqueEvents.
+     */
     public static MultiLevelHashMap<String, Boolean> discoverIndirectFollow(XLog log, Set<String> uniqueEvents, XEventClassifier eventClassifier) {
-        MultiLevelHashMap<String, Boolean> directFollow = DirectFollowFactory.discoverDirectFollow(log, eventClassifier);
-        MultiLevelHashMap<String, Boolean> MultiLevelHashMap = new MultiLevelHashMap<>(2);
-
-        for(XTrace trace : log) {
-            for (int i = 0; i < trace.size() - 1; i++) {
-                for (int j = i + 1; j < trace.size(); j++) {
-                    XEvent current = trace.get(i);
-                    XEvent next = trace.get(j);
-                    String nameCurrent = eventClassifier.getClassIdentity(current);
-                    String nameNext = eventClassifier.getClassIdentity(next);
-
-                    if (!directFollow.containsKeys(nameCurrent, nameNext)) {
-                        for (int k = i + 1; k < j; k++) {
-                            XEvent eventK = trace.get(k);
-                            String nameK = eventClassifier.getClassIdentity(eventK);
-                            if (!nameK.equals(nameCurrent) && !nameK.equals(nameNext)
-                                    && !(isXORSPlit(uniqueEvents, nameK, nameCurrent, directFollow)
-                                    || !isXORJoin(uniqueEvents, nameK, nameCurrent, directFollow)
-                                    )
-                            ) {
-                                MultiLevelHashMap.put(true, nameCurrent, nameNext);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return MultiLevelHashMap;
+        LogRelations logRelations = LogRelations.discover(log, eventClassifier);
+        return logRelations.getActivityIndex().toMultiLevelHashMap(logRelations.getIndirectFollow());
     }
 
-    private static boolean isXORSPlit(Set<String> uniqueEvents, String nameCurrent, String nameNext, MultiLevelHashMap<String, Boolean> directFollowDepencencies) {
-        if(!directFollowDepencencies.containsKeys(nameCurrent, nameNext) && !directFollowDepencencies.containsKeys(nameNext, nameCurrent)) {
-            for(String split : uniqueEvents) {
-                if(directFollowDepencencies.containsKeys(split, nameCurrent) && directFollowDepencencies.containsKeys(split, nameNext)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private static boolean isXORJoin(Set<String> uniqueEvents, String nameCurrent, String nameNext, MultiLevelHashMap<String, Boolean> directFollowDepencencies) {
-        if(!directFollowDepencencies.containsKeys(nameCurrent, nameNext) && !directFollowDepencencies.containsKeys(nameNext, nameCurrent)) {
-            for(String join : uniqueEvents) {
-                if(directFollowDepencencies.containsKeys(nameCurrent, join) && directFollowDepencencies.containsKeys(nameNext, join)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
 }
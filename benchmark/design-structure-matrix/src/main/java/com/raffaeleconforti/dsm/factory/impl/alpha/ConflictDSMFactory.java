@@ -2,9 +2,10 @@ package com.raffaeleconforti.dsm.factory.impl.alpha;
 
 import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
 import com.raffaeleconforti.dsm.DesignStructureMatrix;
-import com.raffaeleconforti.dsm.DesignStructureMatrixCell;
 import com.raffaeleconforti.dsm.dsmcells.alpha.Conflict;
-import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+import com.raffaeleconforti.dsm.matrix.ActivityIndex;
+import com.raffaeleconforti.dsm.matrix.BitMatrix;
+import com.raffaeleconforti.dsm.matrix.LogRelations;
 
 import java.util.Set;
 
@@ -13,23 +14,19 @@ import java.util.Set;
  */
 public class ConflictDSMFactory {
 
-    public static DesignStructureMatrix discover(Set<String> uniqueEvents, MultiLevelHashMap<String, Boolean> directFollowDepencencies, DesignStructureMatrix designStructureMatrix) {
-        Set<DesignStructureMatrixCell> set;
-
-        for(String nameCurrent : uniqueEvents) {
-            for(String nameNext : uniqueEvents) {
-                if((set = designStructureMatrix.getCell(nameCurrent, nameNext)) == null) {
-                    set = new UnifiedSet<>();
-                }
-
-                if(!directFollowDepencencies.containsKeys(nameCurrent, nameNext) && !directFollowDepencencies.containsKeys(nameNext, nameCurrent)) {
-                    set.add(new Conflict());
-                    designStructureMatrix.setCell(set, nameCurrent, nameNext);
-                }
+    public static DesignStructureMatrix discover(DesignStructureMatrix designStructureMatrix) {
+        LogRelations logRelations = designStructureMatrix.getLogRelations();
+        return discover(logRelations.getDirectFollow(), designStructureMatrix);
+    }
 
-            }
-        }
+    public static DesignStructureMatrix discover(Set<String> uniqueEvents, MultiLevelHashMap<String, Boolean> directFollowDepencencies, DesignStructureMatrix designStructureMatrix) {
+        ActivityIndex activityIndex = designStructureMatrix.getActivityIndex();
+        return discover(activityIndex.toBitMatrix(directFollowDepencencies), designStructureMatrix);
+    }
 
+    public static DesignStructureMatrix discover(BitMatrix directFollow, DesignStructureMatrix designStructureMatrix) {
+        BitMatrix conflict = directFollow.copy().or(directFollow.transpose()).not();
+        designStructureMatrix.addCell(new Conflict(), conflict);
         return designStructureMatrix;
     }
 
@@ -2,9 +2,10 @@ package com.raffaeleconforti.dsm.factory.impl.alphaplus;
 
 import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
 import com.raffaeleconforti.dsm.DesignStructureMatrix;
-import com.raffaeleconforti.dsm.DesignStructureMatrixCell;
 import com.raffaeleconforti.dsm.dsmcells.alphaplus.Sequence;
-import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+import com.raffaeleconforti.dsm.matrix.ActivityIndex;
+import com.raffaeleconforti.dsm.matrix.BitMatrix;
+import com.raffaeleconforti.dsm.matrix.LogRelations;
 
 import java.util.Set;
 
@@ -13,27 +14,20 @@ import java.util.Set;
  */
 public class SequenceDSMFactory {
 
-    public static DesignStructureMatrix discover(Set<String> uniqueEvents, MultiLevelHashMap<String, Boolean> directFollowDepencencies, MultiLevelHashMap<String, Boolean> shortLoopDependencies, DesignStructureMatrix designStructureMatrix) {
-        Set<DesignStructureMatrixCell> set;
-
-        for(String nameCurrent : uniqueEvents) {
-            for(String nameNext : uniqueEvents) {
-                if((set = designStructureMatrix.getCell(nameCurrent, nameNext)) == null) {
-                    set = new UnifiedSet<>();
-                }
-
-                if(directFollowDepencencies.containsKeys(nameCurrent, nameNext)
-                        && (!directFollowDepencencies.containsKeys(nameNext, nameCurrent)
-                            || (shortLoopDependencies.containsKeys(nameCurrent, nameNext) && shortLoopDependencies.containsKeys(nameNext, nameCurrent))
-                        )
-                    ){
-                    set.add(new Sequence());
-                    designStructureMatrix.setCell(set, nameCurrent, nameNext);
-                }
+    public static DesignStructureMatrix discover(DesignStructureMatrix designStructureMatrix) {
+        LogRelations logRelations = designStructureMatrix.getLogRelations();
+        return discover(logRelations.getDirectFollow(), logRelations.getShortLoop(), designStructureMatrix);
+    }
 
-            }
-        }
+    public static DesignStructureMatrix discover(Set<String> uniqueEvents, MultiLevelHashMap<String, Boolean> directFollowDepencencies, MultiLevelHashMap<String, Boolean> shortLoopDependencies, DesignStructureMatrix designStructureMatrix) {
+        ActivityIndex activityIndex = designStructureMatrix.getActivityIndex();
+        return discover(activityIndex.toBitMatrix(directFollowDepencencies), activityIndex.toBitMatrix(shortLoopDependencies), designStructureMatrix);
+    }
 
+    public static DesignStructureMatrix discover(BitMatrix directFollow, BitMatrix shortLoop, DesignStructureMatrix designStructureMatrix) {
+        BitMatrix loop = shortLoop.copy().and(shortLoop.transpose());
+        BitMatrix sequence = directFollow.copy().andNot(directFollow.transpose().andNot(loop));
+        designStructureMatrix.addCell(new Sequence(), sequence);
         return designStructureMatrix;
     }
 
@@ -1,14 +1,11 @@
 package com.raffaeleconforti.dsm.factory.impl.alphaplusplus;
 
-import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
 import com.raffaeleconforti.dsm.DesignStructureMatrix;
-import com.raffaeleconforti.dsm.DesignStructureMatrixCell;
 import com.raffaeleconforti.dsm.dsmcells.alphaplusplus.Follow;
-import com.raffaeleconforti.dsm.factory.DirectFollowFactory;
-import com.raffaeleconforti.dsm.factory.IndirectFollowFactory;
+import com.raffaeleconforti.dsm.matrix.BitMatrix;
+import com.raffaeleconforti.dsm.matrix.LogRelations;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.model.XLog;
-import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
 import java.util.Set;
 
@@ -17,25 +14,19 @@ import java.util.Set;
  */
 public class FollowDSMFactory {
 
-    public static DesignStructureMatrix discover(XLog log, Set<String> uniqueEvents, XEventClassifier eventClassifier, DesignStructureMatrix designStructureMatrix) {
-        MultiLevelHashMap<String, Boolean> directFollow = DirectFollowFactory.discoverDirectFollow(log, eventClassifier);
-        MultiLevelHashMap<String, Boolean> indirecltyFollow = IndirectFollowFactory.discoverIndirectFollow(log, uniqueEvents, eventClassifier);
-        Set<DesignStructureMatrixCell> set;
-
-        for (String nameCurrent : uniqueEvents) {
-            for (String nameNext : uniqueEvents) {
-                if ((set = designStructureMatrix.getCell(nameCurrent, nameNext)) == null) {
-                    set = new UnifiedSet<>();
-                }
-
-                if (directFollow.containsKeys(nameCurrent, nameNext) || indirecltyFollow.containsKeys(nameCurrent, nameNext)) {
-                    set.add(new Follow());
-                    designStructureMatrix.setCell(set, nameCurrent, nameNext);
-                }
+    public static DesignStructureMatrix discover(DesignStructureMatrix designStructureMatrix) {
+        LogRelations logRelations = designStructureMatrix.getLogRelations();
+        return discover(logRelations.getDirectFollow(), logRelations.getIndirectFollow(), designStructureMatrix);
+    }
 
-            }
-        }
+    public static DesignStructureMatrix discover(XLog log, Set<String> uniqueEvents, XEventClassifier eventClassifier, DesignStructureMatrix designStructureMatrix) {
+        LogRelations logRelations = LogRelations.discover(log, eventClassifier, designStructureMatrix.getActivityIndex());
+        return discover(logRelations.getDirectFollow(), logRelations.getIndirectFollow(), designStructureMatrix);
+    }
 
+    public static DesignStructureMatrix discover(BitMatrix directFollow, BitMatrix indirectFollow, DesignStructureMatrix designStructureMatrix) {
+        BitMatrix follow = directFollow.copy().or(indirectFollow);
+        designStructureMatrix.addCell(new Follow(), follow);
         return designStructureMatrix;
     }
 
@@ -2,9 +2,10 @@ package com.raffaeleconforti.dsm.factory.impl.alphaplusplus;
 
 import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
 import com.raffaeleconforti.dsm.DesignStructureMatrix;
-import com.raffaeleconforti.dsm.DesignStructureMatrixCell;
 import com.raffaeleconforti.dsm.dsmcells.alphaplusplus.XORJoin;
-import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+import com.raffaeleconforti.dsm.matrix.ActivityIndex;
+import com.raffaeleconforti.dsm.matrix.BitMatrix;
+import com.raffaeleconforti.dsm.matrix.LogRelations;
 
 import java.util.Set;
 
@@ -13,28 +14,27 @@ import java.util.Set;
  */
 public class XORJoinDSMFactory {
 
-    public static DesignStructureMatrix discover(Set<String> uniqueEvents, MultiLevelHashMap<String, Boolean> directFollowDepencencies, MultiLevelHashMap<String, Boolean> shortLoopDependencies, DesignStructureMatrix designStructureMatrix) {
-        Set<DesignStructureMatrixCell> set;
+    public static DesignStructureMatrix discover(DesignStructureMatrix designStructureMatrix) {
+        LogRelations logRelations = designStructureMatrix.getLogRelations();
+        return discover(logRelations.getDirectFollow(), designStructureMatrix);
+    }
 
-        for(String nameCurrent : uniqueEvents) {
-            for(String nameNext : uniqueEvents) {
-                if((set = designStructureMatrix.getCell(nameCurrent, nameNext)) == null) {
-                    set = new UnifiedSet<>();
-                }
+    public static DesignStructureMatrix discover(Set<String> uniqueEvents, MultiLevelHashMap<String, Boolean> directFollowDepencencies, MultiLevelHashMap<String, Boolean> shortLoopDependencies, DesignStructureMatrix designStructureMatrix) {
+        ActivityIndex activityIndex = designStructureMatrix.getActivityIndex();
+        return discover(activityIndex.toBitMatrix(directFollowDepencencies), designStructureMatrix);
+    }
 
-                if(!directFollowDepencencies.containsKeys(nameCurrent, nameNext) && !directFollowDepencencies.containsKeys(nameNext, nameCurrent)) {
-                    for(String split : uniqueEvents) {
-                        if(directFollowDepencencies.containsKeys(nameCurrent, split) && directFollowDepencencies.containsKeys(nameNext, split)) {
-                            set.add(new XORJoin());
-                            designStructureMatrix.setCell(set, nameCurrent, nameNext);
-                            break;
-                        }
-                    }
+    public static DesignStructureMatrix discover(BitMatrix directFollow, DesignStructureMatrix designStructureMatrix) {
+        BitMatrix conflict = directFollow.copy().or(directFollow.transpose()).not();
+        BitMatrix xorJoin = new BitMatrix(conflict.size());
+        for(int i = 0; i < conflict.size(); i++) {
+            for(int j = 0; j < conflict.size(); j++) {
+                if(conflict.get(i, j) && directFollow.rowsIntersect(i, j)) {
+                    xorJoin.set(i, j);
                 }
-
             }
         }
-
+        designStructureMatrix.addCell(new XORJoin(), xorJoin);
         return designStructureMatrix;
     }
 
@@ -0,0 +1,66 @@
+package com.raffaeleconforti.dsm.matrix;
+
+import com.raffaeleconforti.datastructures.multilevelmap.impl.MultiLevelHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.util.Collection;
+
+/**
+ * Assigns a dense int to each activity, so that relations between activities can be stored in a {@link BitMatrix}.
+ */
+public class ActivityIndex {
+
+    private final ObjectIntHashMap<String> indexes;
+    private final String[] activities;
+
+    public ActivityIndex(Collection<String> activities) {
+        this.indexes = new ObjectIntHashMap<>(activities.size());
+        this.activities = new String[activities.size()];
+        int pos = 0;
+        for(String activity : activities) {
+            this.activities[pos] = activity;
+            indexes.put(activity, pos);
+            pos++;
+        }
+    }
+
+    public int size() {
+        return activities.length;
+    }
+
+    /**
+     * @return the index of the activity, or -1 if the activity is unknown.
+     */
+    public int getIndex(String activity) {
+        return indexes.getIfAbsent(activity, -1);
+    }
+
+    public String getActivity(int index) {
+        return activities[index];
+    }
+
+    public BitMatrix toBitMatrix(MultiLevelHashMap<String, Boolean> relation) {
+        BitMatrix matrix = new BitMatrix(activities.length);
+        for(int i = 0; i < activities.length; i++) {
+            for(int j = 0; j < activities.length; j++) {
+                if(relation.containsKeys(activities[i], activities[j])) {
+                    matrix.set(i, j);
+                }
+            }
+        }
+        return matrix;
+    }
+
+    public MultiLevelHashMap<String, Boolean> toMultiLevelHashMap(BitMatrix matrix) {
+        MultiLevelHashMap<String, Boolean> relation = new MultiLevelHashMap<>(2);
+        for(int i = 0; i < activities.length; i++) {
+            for(int j = 0; j < activities.length; j++) {
+                if(matrix.get(i, j)) {
+                    relation.put(true, activities[i], activities[j]);
+                }
+            }
+        }
+        return relation;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.raffaeleconforti.dsm.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Square boolean relation over the activities of an {@link ActivityIndex}, stored row-major with one bit per cell.
+ * Row i holds the activities j such that (i, j) is in the relation, hence relational operators are word-level operations.
+ */
+public class BitMatrix {
+
+    private final int size;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public BitMatrix(int size) {
+        this.size = size;
+        this.wordsPerRow = (size + 63) >>> 6;
+        this.words = new long[size * wordsPerRow];
+    }
+
+    private BitMatrix(BitMatrix matrix) {
+        this.size = matrix.size;
+        this.wordsPerRow = matrix.wordsPerRow;
+        this.words = Arrays.copyOf(matrix.words, matrix.words.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int row, int column) {
+        return (words[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    public void set(int row, int column) {
+        words[row * wordsPerRow + (column >>> 6)] |= 1L << column;
+    }
+
+    public void clear(int row, int column) {
+        words[row * wordsPerRow + (column >>> 6)] &= ~(1L << column);
+    }
+
+    public boolean isEmpty() {
+        for(long word : words) {
+            if(word != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if rows i and j of this matrix share at least one column.
+     */
+    public boolean rowsIntersect(int i, int j) {
+        int offsetI = i * wordsPerRow;
+        int offsetJ = j * wordsPerRow;
+        for(int w = 0; w < wordsPerRow; w++) {
+            if((words[offsetI + w] & words[offsetJ + w]) != 0) return true;
+        }
+        return false;
+    }
+
+    public BitMatrix copy() {
+        return new BitMatrix(this);
+    }
+
+    public BitMatrix transpose() {
+        BitMatrix transpose = new BitMatrix(size);
+        for(int i = 0; i < size; i++) {
+            int offset = i * wordsPerRow;
+            for(int w = 0; w < wordsPerRow; w++) {
+                long word = words[offset + w];
+                while(word != 0) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(word);
+                    transpose.set(j, i);
+                    word &= word - 1;
+                }
+            }
+        }
+        return transpose;
+    }
+
+    public BitMatrix and(BitMatrix matrix) {
+        for(int i = 0; i < words.length; i++) {
+            words[i] &= matrix.words[i];
+        }
+        return this;
+    }
+
+    public BitMatrix andNot(BitMatrix matrix) {
+        for(int i = 0; i < words.length; i++) {
+            words[i] &= ~matrix.words[i];
+        }
+        return this;
+    }
+
+    public BitMatrix or(BitMatrix matrix) {
+        for(int i = 0; i < words.length; i++) {
+            words[i] |= matrix.words[i];
+        }
+        return this;
+    }
+
+    public BitMatrix not() {
+        for(int i = 0; i < words.length; i++) {
+            words[i] = ~words[i];
+        }
+        clearPadding();
+        return this;
+    }
+
+    private void clearPadding() {
+        int used = size & 63;
+        if(used == 0) return;
+        long mask = (1L << used) - 1;
+        for(int i = 0; i < size; i++) {
+            words[i * wordsPerRow + wordsPerRow - 1] &= mask;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(!(o instanceof BitMatrix)) return false;
+        BitMatrix matrix = (BitMatrix) o;
+        return size == matrix.size && Arrays.equals(words, matrix.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+}
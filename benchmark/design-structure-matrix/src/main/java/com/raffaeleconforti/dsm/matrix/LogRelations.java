@@ -0,0 +1,153 @@
+package com.raffaeleconforti.dsm.matrix;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ordering relations of a log, discovered with a single pass over the log and shared by all the DSM factories.
+ *
+ * The pass encodes each trace as an int array using the {@link ActivityIndex} and fills the direct-follow and
+ * length-two-loop matrices. The indirect-follow matrix depends on the complete direct-follow relation,
+ * hence it is computed on the encoded traces the first time it is requested.
+ */
+public class LogRelations {
+
+    private final ActivityIndex activityIndex;
+    private final BitMatrix directFollow;
+    private final BitMatrix shortLoop;
+    private BitMatrix indirectFollow;
+    private int[][] traces;
+
+    private LogRelations(ActivityIndex activityIndex, int[][] traces) {
+        int size = activityIndex.size();
+        this.activityIndex = activityIndex;
+        this.traces = traces;
+        this.directFollow = new BitMatrix(size);
+        this.shortLoop = new BitMatrix(size);
+
+        for(int[] trace : traces) {
+            for(int i = 0; i < trace.length - 1; i++) {
+                if(trace[i] < 0 || trace[i + 1] < 0) continue;
+                directFollow.set(trace[i], trace[i + 1]);
+                if(i < trace.length - 2 && trace[i] == trace[i + 2]) {
+                    shortLoop.set(trace[i], trace[i + 1]);
+                }
+            }
+        }
+    }
+
+    public static LogRelations discover(XLog log, XEventClassifier eventClassifier) {
+        Set<String> activities = new UnifiedSet<>();
+        List<String> orderedActivities = new ArrayList<>();
+        for(XTrace trace : log) {
+            for(int i = 0; i < trace.size(); i++) {
+                String name = eventClassifier.getClassIdentity(trace.get(i));
+                if(activities.add(name)) {
+                    orderedActivities.add(name);
+                }
+            }
+        }
+        return discover(log, eventClassifier, new ActivityIndex(orderedActivities));
+    }
+
+    /**
+     * Events whose activity is not in the index interrupt the relations, as if the trace was split at that event.
+     */
+    public static LogRelations discover(XLog log, XEventClassifier eventClassifier, ActivityIndex activityIndex) {
+        int[][] traces = new int[log.size()][];
+        int pos = 0;
+        for(XTrace trace : log) {
+            int[] encoded = new int[trace.size()];
+            for(int i = 0; i < encoded.length; i++) {
+                encoded[i] = activityIndex.getIndex(eventClassifier.getClassIdentity(trace.get(i)));
+            }
+            traces[pos++] = encoded;
+        }
+        return new LogRelations(activityIndex, traces);
+    }
+
+    public ActivityIndex getActivityIndex() {
+        return activityIndex;
+    }
+
+    public BitMatrix getDirectFollow() {
+        return directFollow;
+    }
+
+    public BitMatrix getShortLoop() {
+        return shortLoop;
+    }
+
+    /**
+     * (a, b) is an indirect follow if a is eventually (but not directly) followed by b, and between them there is
+     * an activity k, different from a and b, that is in a XOR-join and not in a XOR-split with a.
+     */
+    public synchronized BitMatrix getIndirectFollow() {
+        if(indirectFollow == null) {
+            indirectFollow = discoverIndirectFollow();
+            traces = null;
+        }
+        return indirectFollow;
+    }
+
+    private BitMatrix discoverIndirectFollow() {
+        int size = activityIndex.size();
+        BitMatrix result = new BitMatrix(size);
+        BitMatrix witnesses = discoverXORJoinWithoutSplit();
+
+        int[] counts = new int[size];
+        IntArrayList touched = new IntArrayList();
+        for(int[] trace : traces) {
+            for(int i = 0; i < trace.length - 1; i++) {
+                int current = trace[i];
+                if(current < 0) continue;
+
+                int total = 0;
+                for(int j = i + 1; j < trace.length; j++) {
+                    int next = trace[j];
+                    if(next < 0) break;
+                    if(j > i + 1) {
+                        int k = trace[j - 1];
+                        if(k != current && witnesses.get(k, current)) {
+                            if(counts[k]++ == 0) touched.add(k);
+                            total++;
+                        }
+                    }
+                    if(total - counts[next] > 0 && !directFollow.get(current, next)) {
+                        result.set(current, next);
+                    }
+                }
+
+                for(int t = 0; t < touched.size(); t++) {
+                    counts[touched.get(t)] = 0;
+                }
+                touched.clear();
+            }
+        }
+        return result;
+    }
+
+    private BitMatrix discoverXORJoinWithoutSplit() {
+        int size = activityIndex.size();
+        BitMatrix predecessors = directFollow.transpose();
+        BitMatrix unrelated = directFollow.copy().or(predecessors).not();
+
+        BitMatrix witnesses = new BitMatrix(size);
+        for(int i = 0; i < size; i++) {
+            for(int j = 0; j < size; j++) {
+                if(unrelated.get(i, j) && directFollow.rowsIntersect(i, j) && !predecessors.rowsIntersect(i, j)) {
+                    witnesses.set(i, j);
+                }
+            }
+        }
+        return witnesses;
+    }
+
+}
@@ -15,31 +15,49 @@ import org.deckfour.xes.extension.std.XTimeExtension;
 import org.deckfour.xes.factory.XFactory;
 import org.deckfour.xes.factory.XFactoryNaiveImpl;
 import org.deckfour.xes.model.XLog;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
 import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
 import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 25/08/2016.
+ *
+ * States are packed in longs by an {@link EntanglementStateSpace} and sets of states are bitsets over the state ids,
+ * hence the exploration does not allocate an object per state.
  */
 public class EntanglementSolver {
 
     private Automaton automaton;
     private int nodes;
+    private int maxNode;
     private Map<Node, Integer> nodeIntegerMap = new UnifiedMap<>();
     private IntObjectHashMap intObjectMap = new IntObjectHashMap();
 
-    private Set<EntanglementState> nonCapturingStates = new UnifiedSet<>();
-    private Set<EntanglementState> capturingStates = new UnifiedSet<>();
-    private Set<EntanglementState> possibleStates = new UnifiedSet<>();
+    private int[][] successors;
+    private int[][] predecessors;
 
-    private Map<EntanglementState, Set<EntanglementState>> previousStatesCache = new UnifiedMap<>();
-    private Map<EntanglementState, Set<EntanglementState>> nextStatesCache = new UnifiedMap<>();
-    private Map<EntanglementState, Set<EntanglementState>> sameSourceStatesCache = new UnifiedMap<>();
+    private EntanglementStateSpace stateSpace;
 
-//    private Set<Set<EntanglementState>> capturingSets = new UnifiedSet<>();
+    private BitSet nonCapturingStates = new BitSet();
+    private BitSet capturingStates = new BitSet();
+    private BitSet possibleStates = new BitSet();
+    private int capturingStatesSize = 0;
+    private int possibleStatesSize = 0;
+    private int[][] possibleStatesByRobber;
 
-    private Set<EntanglementState> signatureStates = new UnifiedSet<>();
+    private LongObjectHashMap<BitSet> previousStatesCache = new LongObjectHashMap<>();
+    private LongObjectHashMap<BitSet> nextStatesCache = new LongObjectHashMap<>();
+    private LongObjectHashMap<BitSet> sameSourceStatesCache = new LongObjectHashMap<>();
+
+//    private Set<Set<EntanglementState>> capturingSets = new UnifiedSet<>();
 
 //    public static void main(String[] args) throws Exception {
 //        XLog original = LogImporter.importFromFile(new XFactoryNaiveImpl(), "/Volumes/Data/Dropbox/LaTex/2016/Timestamp Repair/Logs/Experiments/TimeExperimentSimulation.xes.gz");
@@ -94,6 +112,7 @@ public class EntanglementSolver {
 //        if (true) return;
 //    }
 
+
     public static void main(String[] args) throws Exception {
         XFactory factory = new XFactoryNaiveImpl();
         LogOptimizer logOptimizer = new LogOptimizer();
@@ -165,6 +184,28 @@ public class EntanglementSolver {
                 intObjectMap.put(1, node);
             }
         }
+        this.maxNode = pos - 1;
+
+        int[] outgoing = new int[maxNode + 1];
+        int[] incoming = new int[maxNode + 1];
+        Set<Edge> edges = automaton.getEdges();
+        for(Edge edge : edges) {
+            outgoing[nodeIntegerMap.get(edge.getSource())]++;
+            incoming[nodeIntegerMap.get(edge.getTarget())]++;
+        }
+
+        successors = new int[maxNode + 1][];
+        predecessors = new int[maxNode + 1][];
+        for(int i = 0; i <= maxNode; i++) {
+            successors[i] = new int[outgoing[i]];
+            predecessors[i] = new int[incoming[i]];
+        }
+        for(Edge edge : edges) {
+            int source = nodeIntegerMap.get(edge.getSource());
+            int target = nodeIntegerMap.get(edge.getTarget());
+            successors[source][--outgoing[source]] = target;
+            predecessors[target][--incoming[target]] = source;
+        }
     }
 
     private void simplifyAutomaton() {
@@ -213,7 +254,6 @@ public class EntanglementSolver {
                 sameSourceStatesCache.clear();
 
                 nonCapturingStates.clear();
-                signatureStates.clear();
                 cops++;
             }
         }
@@ -223,52 +263,76 @@ public class EntanglementSolver {
     private boolean solve(int cops) {
 
         System.out.println(intObjectMap);
-        capturingStates = discoverCapturingStates(cops);
-        System.out.println("capturing " + capturingStates);
-        possibleStates = discoverPossibleStates(cops);
-        System.out.println("possible " + possibleStates);
+        EntanglementStateSpace previousStateSpace = stateSpace;
+        stateSpace = new EntanglementStateSpace(cops, maxNode);
+
+        possibleStates = discoverPossibleStates(previousStateSpace, possibleStates);
+        possibleStatesSize = possibleStates.cardinality();
+        possibleStatesByRobber = indexByRobber(possibleStates);
+        System.out.println("possible " + possibleStatesSize);
+        capturingStates = discoverCapturingStates(possibleStates);
+        capturingStatesSize = capturingStates.cardinality();
+        System.out.println("capturing " + capturingStatesSize);
 
         extendCapturingStates();
 
-        boolean captured = capturingStates.size() == possibleStates.size();
+        boolean captured = capturingStatesSize == possibleStatesSize;
 
-        System.out.println("new capturing " + capturingStates);
-        System.out.println("nonCapturing " + nonCapturingStates);
+        System.out.println("new capturing " + capturingStatesSize);
+        System.out.println("nonCapturing " + nonCapturingStates.cardinality());
         return captured;
     }
 
-    public Set<EntanglementState> discoverPossibleStates(int cops) {
+    public Set<EntanglementState> getPossibleStates() {
+        return toEntanglementStates(possibleStates);
+    }
 
-        Set<EntanglementState> visited = new UnifiedSet<>();
-        Set<EntanglementState> toVisit = new UnifiedSet<>();
+    public Set<EntanglementState> getCapturingStates() {
+        return toEntanglementStates(capturingStates);
+    }
+
+    private Set<EntanglementState> toEntanglementStates(BitSet states) {
+        Set<EntanglementState> result = new UnifiedSet<>(states.cardinality());
+        for(int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            result.add(stateSpace.toEntanglementState(state));
+        }
+        return result;
+    }
 
-        for(EntanglementState state : possibleStates) {
-            int[] uniqueStage = new int[cops + 1];
-            for(int i = 0; i < uniqueStage.length - 1; i++) {
-                uniqueStage[i] = state.get(i);
+    private BitSet discoverPossibleStates(EntanglementStateSpace previousStateSpace, BitSet previousPossibleStates) {
+
+        BitSet visited = new BitSet();
+        IntArrayList toVisit = new IntArrayList();
+
+        if(previousStateSpace != null) {
+            for (int state = previousPossibleStates.nextSetBit(0); state >= 0; state = previousPossibleStates.nextSetBit(state + 1)) {
+                int[] stage = previousStateSpace.decode(previousStateSpace.getState(state));
+                int[] uniqueStage = new int[stateSpace.getCops() + 1];
+                System.arraycopy(stage, 0, uniqueStage, 0, stage.length);
+                int start = stateSpace.getId(stateSpace.getSignature(stateSpace.encode(uniqueStage)));
+                if(!visited.get(start)) {
+                    visited.set(start);
+                    toVisit.add(start);
+                }
             }
-            EntanglementState start = new EntanglementState(uniqueStage);
-            toVisit.add(start.getSignatureState());
         }
 
         if(toVisit.size() == 0) {
-            EntanglementState start = new EntanglementState(new int[cops + 1]);
-            start.set(0, nodeIntegerMap.get(automaton.getAutomatonStart().iterator().next()));
+            int[] uniqueStage = new int[stateSpace.getCops() + 1];
+            uniqueStage[0] = nodeIntegerMap.get(automaton.getAutomatonStart().iterator().next());
+            int start = stateSpace.getId(stateSpace.encode(uniqueStage));
+            visited.set(start);
             toVisit.add(start);
         }
 
-        Iterator<EntanglementState> toVisitIterator = toVisit.iterator();
-        EntanglementState currentState;
-        while (toVisitIterator.hasNext()) {
-            currentState = toVisitIterator.next();
-            toVisitIterator.remove();
-            visited.add(currentState);
+        while (toVisit.size() > 0) {
+            int currentState = toVisit.removeAtIndex(toVisit.size() - 1);
 
-            Set<EntanglementState> nextStates = discoverNextStates(currentState);
-            for(EntanglementState nextState : nextStates) {
-                if (!visited.contains(nextState)) {
+            BitSet nextStates = discoverNextStates(currentState);
+            for(int nextState = nextStates.nextSetBit(0); nextState >= 0; nextState = nextStates.nextSetBit(nextState + 1)) {
+                if (!visited.get(nextState)) {
+                    visited.set(nextState);
                     toVisit.add(nextState);
-                    toVisitIterator = toVisit.iterator();
                 }
             }
         }
@@ -276,57 +340,92 @@ public class EntanglementSolver {
         return visited;
     }
 
-    public Set<EntanglementState> discoverCapturingStates(int cops) {
-        Set<EntanglementState> visited = new UnifiedSet<>();
-        Set<EntanglementState> set = discoverPossibleStates(cops);
-
-        Set<Edge> edges = automaton.getEdges();
-        System.out.println(edges);
+    private BitSet discoverCapturingStates(BitSet possibleStates) {
+        BitSet visited = new BitSet();
 
-        for (EntanglementState state : set) {
-            for(int i = 1; i < state.size(); i++) {
-                if(state.get(0) == state.get(i)) {
-                    visited.add(state);
+        for (int state = possibleStates.nextSetBit(0); state >= 0; state = possibleStates.nextSetBit(state + 1)) {
+            long packed = stateSpace.getState(state);
+            int robber = stateSpace.getRobber(packed);
+            for(int i = 1; i <= stateSpace.getCops(); i++) {
+                if(robber == stateSpace.getCop(packed, i)) {
+                    visited.set(state);
+                    break;
                 }
             }
         }
         return visited;
     }
 
-    public boolean areCapturingStatesAvoidable(Set<EntanglementState> nonCapturingStates, Map<EntanglementState, Integer> visited, EntanglementState currentState) {
-        Map<EntanglementState, Integer> currentVisited = new UnifiedMap(visited);
-        Integer timeVisit = currentVisited.get(currentState);
-        currentVisited.put(currentState, timeVisit==null?1:timeVisit+1);
+    private int[][] indexByRobber(BitSet states) {
+        int[] sizes = new int[maxNode + 1];
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            sizes[stateSpace.getRobber(stateSpace.getState(state))]++;
+        }
+
+        int[][] index = new int[maxNode + 1][];
+        for(int i = 0; i <= maxNode; i++) {
+            index[i] = new int[sizes[i]];
+        }
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            int robber = stateSpace.getRobber(stateSpace.getState(state));
+            index[robber][--sizes[robber]] = state;
+        }
+        return index;
+    }
+
+    private boolean addCapturingState(int state) {
+        if(!capturingStates.get(state)) {
+            capturingStates.set(state);
+            capturingStatesSize++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean containsAll(BitSet states, BitSet subset) {
+        for(int state = subset.nextSetBit(0); state >= 0; state = subset.nextSetBit(state + 1)) {
+            if(!states.get(state)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        Set<EntanglementState> states = discoverNextStates(currentState);
+    public boolean areCapturingStatesAvoidable(IntIntHashMap visited, int currentState) {
+        IntIntHashMap currentVisited = new IntIntHashMap(visited);
+        currentVisited.addToValue(currentState, 1);
 
-        if(capturingStates.contains(currentState)) {
+        BitSet states = discoverNextStates(currentState);
+
+        if(capturingStates.get(currentState)) {
             return false;
-        }else if(nonCapturingStates.contains(currentState)) {
+        }else if(nonCapturingStates.get(currentState)) {
             return true;
         }
 
-        if(states.size() == 0) {
-            capturingStates.add(currentState);
+        if(states.isEmpty()) {
+            addCapturingState(currentState);
             return false;
         }
 
-        if (capturingStates.containsAll(states)) {
-            capturingStates.add(currentState);
+        if (containsAll(capturingStates, states)) {
+            addCapturingState(currentState);
             return false;
         }
 
-        Set<EntanglementState> possibleEscapeStates = new UnifiedSet<>();
-        for(EntanglementState nextState : states) {
-            if(!capturingStates.contains(nextState)) {
+        long current = stateSpace.getState(currentState);
+        BitSet possibleEscapeStates = new BitSet();
+        for(int nextState = states.nextSetBit(0); nextState >= 0; nextState = states.nextSetBit(nextState + 1)) {
+            if(!capturingStates.get(nextState)) {
                 if (currentVisited.containsKey(nextState)) {
-                    currentVisited.put(nextState, currentVisited.get(nextState) + 1);
+                    currentVisited.addToValue(nextState, 1);
                     boolean possibleEscape = false;
 
-                    for (EntanglementState possibleNextState : states) {
+                    for (int possibleNextState = states.nextSetBit(0); possibleNextState >= 0; possibleNextState = states.nextSetBit(possibleNextState + 1)) {
                         boolean escapeOptions = true;
-                        for (int i = 1; i < nextState.size(); i++) {
-                            if (possibleNextState.get(0) == currentState.get(i)) {
+                        int robber = stateSpace.getRobber(stateSpace.getState(possibleNextState));
+                        for (int i = 1; i <= stateSpace.getCops(); i++) {
+                            if (robber == stateSpace.getCop(current, i)) {
                                 escapeOptions = false;
                                 break;
                             }
@@ -334,185 +433,155 @@ public class EntanglementSolver {
                         possibleEscape |= escapeOptions;
                     }
 
-                    for (int i = 1; i < nextState.size(); i++) {
-                        if (nextState.get(i) == 0) {
+                    long next = stateSpace.getState(nextState);
+                    for (int i = 1; i <= stateSpace.getCops(); i++) {
+                        if (stateSpace.getCop(next, i) == 0) {
                             possibleEscape = false;
                             break;
                         }
                     }
 
-                    if (possibleEscape && !nextState.isSkip()) {
-                        if(nonCapturingStates.contains(nextState)) {
-                            nonCapturingStates.add(currentState);
+                    if (possibleEscape) {
+                        if(nonCapturingStates.get(nextState)) {
+                            nonCapturingStates.set(currentState);
                             return true;
                         }
-                        possibleEscapeStates.add(nextState);
+                        possibleEscapeStates.set(nextState);
                     }
                 } else {
-                    if(areCapturingStatesAvoidable(nonCapturingStates, currentVisited, nextState)) {
-                        if(nonCapturingStates.contains(nextState)) {
-                            nonCapturingStates.add(currentState);
+                    if(areCapturingStatesAvoidable(currentVisited, nextState)) {
+                        if(nonCapturingStates.get(nextState)) {
+                            nonCapturingStates.set(currentState);
                             return true;
                         }
-                        possibleEscapeStates.add(nextState);
+                        possibleEscapeStates.set(nextState);
                     }
                 }
             }
         }
 
-        for(EntanglementState escapeState : possibleEscapeStates) {
+        for(int escapeState = possibleEscapeStates.nextSetBit(0); escapeState >= 0; escapeState = possibleEscapeStates.nextSetBit(escapeState + 1)) {
             boolean safe = false;
-            if(nonCapturingStates.contains(escapeState)) {
-                nonCapturingStates.add(currentState);
+            if(nonCapturingStates.get(escapeState)) {
+                nonCapturingStates.set(currentState);
                 return true;
             }
 
-            for(EntanglementState nextState : states) {
-                if(!escapeState.equals(nextState) && nextState.get(0) == escapeState.get(0) && capturingStates.contains(nextState)) {
+            int escapeRobber = stateSpace.getRobber(stateSpace.getState(escapeState));
+            for(int nextState = states.nextSetBit(0); nextState >= 0; nextState = states.nextSetBit(nextState + 1)) {
+                if(escapeState != nextState && stateSpace.getRobber(stateSpace.getState(nextState)) == escapeRobber && capturingStates.get(nextState)) {
                     safe = true;
                     break;
                 }
             }
             if(!safe) {
-                if(visited.get(escapeState) != null && visited.get(escapeState) > 3){//automaton.getNodes().size()) {
-                    nonCapturingStates.add(escapeState);
-                    nonCapturingStates.add(currentState);
+                if(visited.getIfAbsent(escapeState, 0) > 3){//automaton.getNodes().size()) {
+                    nonCapturingStates.set(escapeState);
+                    nonCapturingStates.set(currentState);
                 }
                 return true;
             }
         }
 
-        capturingStates.add(currentState);
+        addCapturingState(currentState);
         return false;
     }
 
-    public Set<EntanglementState> discoverNextStates(EntanglementState currentState) {
-        Set<EntanglementState> result;
-
-        if((result = nextStatesCache.get(currentState)) == null) {
-            result = new UnifiedSet<>();
-            Set<Edge> edges = automaton.getEdges();
-            Set<EntanglementState> toVisit = new UnifiedSet<>();
-
-            EntanglementState nextStateNoCop = new EntanglementState(currentState);
-            nextStateNoCop.skip();
-            boolean found = false;
-            for (Edge robberEdge : edges) {
-                if (nodeIntegerMap.get(robberEdge.getSource()) == nextStateNoCop.get(0)) {
-                    found = true;
-                    EntanglementState nextStateRobber = new EntanglementState(nextStateNoCop);
-                    nextStateRobber.set(0, nodeIntegerMap.get(robberEdge.getTarget()));
-
-                    if (!toVisit.contains(nextStateRobber)) {
-                        toVisit.add(nextStateRobber);
-                    }
-                }
-            }
+    private BitSet discoverNextStates(int currentState) {
+        long current = stateSpace.getState(currentState);
+        BitSet result;
 
-            if (!found) {
-                if (!toVisit.contains(nextStateNoCop)) {
-                    toVisit.add(nextStateNoCop);
-                }
+        if((result = nextStatesCache.get(current)) == null) {
+            result = new BitSet();
+            int robber = stateSpace.getRobber(current);
+            int[] robberMoves = successors[robber];
+
+            if (robberMoves.length == 0) {
+                addSignature(result, current);
+            }
+            for (int target : robberMoves) {
+                addSignature(result, stateSpace.set(current, 0, target));
             }
 
-            for (int i = 1; i < currentState.size(); i++) {
-                EntanglementState nextStateCop = new EntanglementState(currentState);
-                nextStateCop.set(i, nextStateCop.get(0));
+            for (int i = 1; i <= stateSpace.getCops(); i++) {
+                long nextStateCop = stateSpace.set(current, i, robber);
 
                 boolean skip = false;
-                for (int j = 1; j < nextStateCop.size(); j++) {
-                    if (j != i && nextStateCop.get(j) == nextStateCop.get(i)) {
+                for (int j = 1; j <= stateSpace.getCops(); j++) {
+                    if (j != i && stateSpace.getCop(nextStateCop, j) == robber) {
                         skip = true;
                         break;
                     }
                 }
 
                 if (!skip) {
-                    found = false;
-                    for (Edge robberEdge : edges) {
-                        if (nodeIntegerMap.get(robberEdge.getSource()) == nextStateCop.get(0)) {
-                            found = true;
-                            EntanglementState nextStateRobber = new EntanglementState(nextStateCop);
-                            nextStateRobber.set(0, nodeIntegerMap.get(robberEdge.getTarget()));
-
-                            if (!toVisit.contains(nextStateRobber)) {
-                                toVisit.add(nextStateRobber);
-                            }
-                        }
+                    if (robberMoves.length == 0) {
+                        addSignature(result, current);
                     }
-
-                    if (!found) {
-                        if (!toVisit.contains(nextStateNoCop)) {
-                            toVisit.add(nextStateNoCop);
-                        }
+                    for (int target : robberMoves) {
+                        addSignature(result, stateSpace.set(nextStateCop, 0, target));
                     }
                 }
             }
 
-            for (EntanglementState state : toVisit) {
-                result.add(state.getSignatureState());
-            }
-
-            nextStatesCache.put(currentState, result);
+            nextStatesCache.put(current, result);
         }
 
         return result;
     }
 
-    public void extendCapturingStates() {
-        Iterator<EntanglementState> capturingStatesIterator = capturingStates.iterator();
-        Set<Edge> edges = automaton.getEdges();
+    private void addSignature(BitSet states, long state) {
+        states.set(stateSpace.getId(stateSpace.getSignature(state)));
+    }
+
+    private int getPossibleState(long state) {
+        int id = stateSpace.getIdIfPresent(stateSpace.getSignature(state));
+        return (id >= 0 && possibleStates.get(id)) ? id : -1;
+    }
 
+    public void extendCapturingStates() {
         boolean loop = true;
         while (loop) {
             loop = false;
-            while (capturingStatesIterator.hasNext() && capturingStates.size() != possibleStates.size()) {
-                boolean increased = false;
-                EntanglementState state = capturingStatesIterator.next();
-
-                Set<EntanglementState> possiblePreviousStates = new UnifiedSet<>();
-                for (Edge edge : edges) {
-                    if (nodeIntegerMap.get(edge.getTarget()) == state.get(0)) {
-                        EntanglementState possiblePreviousState = new EntanglementState(state);
-                        possiblePreviousState.set(0, nodeIntegerMap.get(edge.getSource()));
-                        if (possibleStates.contains(possiblePreviousState.getSignatureState())) {
-                            possiblePreviousStates.add(possiblePreviousState.getSignatureState());
-                        }
+            for (int state = capturingStates.nextSetBit(0); state >= 0 && capturingStatesSize != possibleStatesSize; state = capturingStates.nextSetBit(state + 1)) {
+                long packed = stateSpace.getState(state);
+                int robber = stateSpace.getRobber(packed);
+
+                BitSet possiblePreviousStates = new BitSet();
+                for (int source : predecessors[robber]) {
+                    int possiblePreviousState = getPossibleState(stateSpace.set(packed, 0, source));
+                    if (possiblePreviousState >= 0) {
+                        possiblePreviousStates.set(possiblePreviousState);
                     }
                 }
 
-                for (EntanglementState possiblePreviousState : possiblePreviousStates) {
-                    Set<EntanglementState> nextStates = discoverNextStates(possiblePreviousState);
-                    if (!capturingStates.contains(possiblePreviousState)) {
+                for (int possiblePreviousState = possiblePreviousStates.nextSetBit(0); possiblePreviousState >= 0; possiblePreviousState = possiblePreviousStates.nextSetBit(possiblePreviousState + 1)) {
+                    BitSet nextStates = discoverNextStates(possiblePreviousState);
+                    if (!capturingStates.get(possiblePreviousState)) {
                         boolean otherOptions = false;
-                        for (EntanglementState nextState : nextStates) {
-                            if (nextState.get(0) != state.get(0)) {
+                        for (int nextState = nextStates.nextSetBit(0); nextState >= 0; nextState = nextStates.nextSetBit(nextState + 1)) {
+                            if (stateSpace.getRobber(stateSpace.getState(nextState)) != robber) {
                                 otherOptions = true;
                                 break;
                             }
                         }
                         if (!otherOptions) {
-                            capturingStates.add(possiblePreviousState);
-                            increased = true;
+                            // States with a lower id are picked up by the next pass of the outer loop.
+                            addCapturingState(possiblePreviousState);
+                            loop = true;
                         }
                     }
                 }
-
-                if (increased) {
-                    capturingStatesIterator = capturingStates.iterator();
-                    loop = true;
-                }
             }
 
             if(!loop) {
-                capturingStatesIterator = capturingStates.iterator();
-                while (capturingStatesIterator.hasNext() && capturingStates.size() != possibleStates.size()) {
-                    EntanglementState state = capturingStatesIterator.next();
-                    Set<EntanglementState> previousStates = getPreviousStatesLeadingToCapture(state);
-                    int capturingStatesSize = capturingStates.size();
-                    capturingStates.addAll(previousStates);
-                    if (capturingStates.size() > capturingStatesSize) {
-                        capturingStatesIterator = capturingStates.iterator();
+                for (int state = capturingStates.nextSetBit(0); state >= 0 && capturingStatesSize != possibleStatesSize; state = capturingStates.nextSetBit(state + 1)) {
+                    BitSet previousStates = getPreviousStatesLeadingToCapture(state);
+                    int capturingStatesSize = this.capturingStatesSize;
+                    for (int previousState = previousStates.nextSetBit(0); previousState >= 0; previousState = previousStates.nextSetBit(previousState + 1)) {
+                        addCapturingState(previousState);
+                    }
+                    if (this.capturingStatesSize > capturingStatesSize) {
                         loop = true;
                         break;
                     }
@@ -521,54 +590,40 @@ public class EntanglementSolver {
         }
     }
 
-    private Set<EntanglementState> getPreviousStatesLeadingToCapture(EntanglementState state) {
-        Set<EntanglementState> possiblePreviousStates;
-        if((possiblePreviousStates = previousStatesCache.get(state)) == null) {
-            possiblePreviousStates = new UnifiedSet<>();
-            for (int i = 1; i < state.size(); i++) {
-                for (EntanglementState possibleState : possibleStates) {
-                    if (possibleState.get(0) == state.get(i)) {
-                        int differences = 0;
-                        for (int j = 1; j < state.size(); j++) {
-                            boolean match = false;
-                            for (int k = 1; k < state.size(); k++) {
-                                if (possibleState.get(j) == state.get(k)) {
-                                    match = true;
-                                    break;
-                                }
+    private BitSet getPreviousStatesLeadingToCapture(int state) {
+        long packed = stateSpace.getState(state);
+        BitSet possiblePreviousStates;
+        if((possiblePreviousStates = previousStatesCache.get(packed)) == null) {
+            possiblePreviousStates = new BitSet();
+            int cops = stateSpace.getCops();
+            for (int i = 1; i <= cops; i++) {
+                for (int possibleState : possibleStatesByRobber[stateSpace.getCop(packed, i)]) {
+                    long possible = stateSpace.getState(possibleState);
+                    int differences = 0;
+                    for (int j = 1; j <= cops; j++) {
+                        boolean match = false;
+                        for (int k = 1; k <= cops; k++) {
+                            if (stateSpace.getCop(possible, j) == stateSpace.getCop(packed, k)) {
+                                match = true;
+                                break;
                             }
-                            if (!match) differences++;
                         }
-                        if (differences <= 1) possiblePreviousStates.add(possibleState);
+                        if (!match) differences++;
                     }
+                    if (differences <= 1) possiblePreviousStates.set(possibleState);
                 }
             }
-            previousStatesCache.put(state, possiblePreviousStates);
+            previousStatesCache.put(packed, possiblePreviousStates);
         }
 
-        Set<EntanglementState> previousStates = new UnifiedSet<>();
-        for(EntanglementState possiblePreviousState : possiblePreviousStates) {
-            if(!capturingStates.contains(possiblePreviousState)) {
-                Set<EntanglementState> nextStates = discoverNextStates(possiblePreviousState);
-                for (EntanglementState nextState : nextStates) {
-                    Set<EntanglementState> sameSource = findStatesSameSource(nextState);
-                    if(capturingStates.size() * 100 / possibleStates.size() > 50) {
-                        if (capturingStates.containsAll(sameSource)) {
-                            previousStates.add(possiblePreviousState);
-                            break;
-                        }
-                    }else {
-                        boolean containsAll = true;
-                        for (EntanglementState same : sameSource) {
-                            if (!capturingStates.contains(same)) {
-                                containsAll = false;
-                                break;
-                            }
-                        }
-                        if (containsAll) {
-                            previousStates.add(possiblePreviousState);
-                            break;
-                        }
+        BitSet previousStates = new BitSet();
+        for(int possiblePreviousState = possiblePreviousStates.nextSetBit(0); possiblePreviousState >= 0; possiblePreviousState = possiblePreviousStates.nextSetBit(possiblePreviousState + 1)) {
+            if(!capturingStates.get(possiblePreviousState)) {
+                BitSet nextStates = discoverNextStates(possiblePreviousState);
+                for (int nextState = nextStates.nextSetBit(0); nextState >= 0; nextState = nextStates.nextSetBit(nextState + 1)) {
+                    if (containsAll(capturingStates, findStatesSameSource(nextState))) {
+                        previousStates.set(possiblePreviousState);
+                        break;
                     }
                 }
             }
@@ -576,18 +631,18 @@ public class EntanglementSolver {
         return previousStates;
     }
 
-    private Set<EntanglementState> findStatesSameSource(EntanglementState state) {
-        Set<EntanglementState> sameSource;
-        if((sameSource = sameSourceStatesCache.get(state)) == null) {
-            sameSource = new UnifiedSet<>();
+    private BitSet findStatesSameSource(int state) {
+        long packed = stateSpace.getState(state);
+        BitSet sameSource;
+        if((sameSource = sameSourceStatesCache.get(packed)) == null) {
+            sameSource = new BitSet();
             for (int i = 1; i < intObjectMap.size(); i++) {
-                EntanglementState same = new EntanglementState(state);
-                same.set(0, i);
-                if (possibleStates.contains(same.getSignatureState())) {
-                    sameSource.add(same.getSignatureState());
+                int same = getPossibleState(stateSpace.set(packed, 0, i));
+                if (same >= 0) {
+                    sameSource.set(same);
                 }
             }
-            sameSourceStatesCache.put(state, sameSource);
+            sameSourceStatesCache.put(packed, sameSource);
         }
         return sameSource;
     }
@@ -0,0 +1,154 @@
+package com.raffaeleconforti.entropy;
+
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packed representation of the states explored by the {@link EntanglementSolver}.
+ *
+ * A state is the position of the robber (slot 0) followed by the positions of the cops (slots 1..cops),
+ * where a position is the integer assigned to an automaton node and 0 means that the cop has not been placed yet.
+ * Each slot takes the minimum number of bits required to store the highest node, and the whole state is stored in a long.
+ * When the slots do not fit in 63 bits, the long is instead a handle to the stage interned by the state space, so that the
+ * solver works on longs either way; every stage built in this mode, including the intermediate ones, is kept.
+ * Every distinct state is also given a dense id, in order of discovery, so that sets of states can be kept in bitsets.
+ */
+class EntanglementStateSpace {
+
+    private final int cops;
+    private final boolean wide;
+    private final int bitsPerSlot;
+    private final long slotMask;
+
+    // Stages behind the handles of the wide encoding
+    private final ObjectIntHashMap<EntanglementState> handles;
+    private final List<EntanglementState> stages;
+
+    private final LongIntHashMap stateIds = new LongIntHashMap();
+    private final LongArrayList states = new LongArrayList();
+
+    EntanglementStateSpace(int cops, int maxNode) {
+        this.cops = cops;
+        this.bitsPerSlot = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxNode));
+        this.wide = (long) bitsPerSlot * (cops + 1) > 63;
+        this.slotMask = (1L << bitsPerSlot) - 1;
+        this.handles = wide ? new ObjectIntHashMap<EntanglementState>() : null;
+        this.stages = wide ? new ArrayList<EntanglementState>() : null;
+    }
+
+    int getCops() {
+        return cops;
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    long get(long state, int slot) {
+        if(wide) return stages.get((int) state).get(slot);
+        return (state >>> (slot * bitsPerSlot)) & slotMask;
+    }
+
+    int getRobber(long state) {
+        if(wide) return stages.get((int) state).get(0);
+        return (int) (state & slotMask);
+    }
+
+    int getCop(long state, int cop) {
+        return (int) get(state, cop);
+    }
+
+    long set(long state, int slot, int value) {
+        if(wide) {
+            EntanglementState stage = stages.get((int) state);
+            if(stage.get(slot) == value) return state;
+            EntanglementState changed = new EntanglementState(stage);
+            changed.set(slot, value);
+            return intern(changed);
+        }
+        int shift = slot * bitsPerSlot;
+        return (state & ~(slotMask << shift)) | ((long) value << shift);
+    }
+
+    long encode(int[] stage) {
+        if(wide) return intern(new EntanglementState(stage));
+        long state = 0;
+        for(int i = 0; i < stage.length; i++) {
+            state = set(state, i, stage[i]);
+        }
+        return state;
+    }
+
+    int[] decode(long state) {
+        int[] stage = new int[cops + 1];
+        if(wide) {
+            EntanglementState entanglementState = stages.get((int) state);
+            for(int i = 0; i < stage.length; i++) {
+                stage[i] = entanglementState.get(i);
+            }
+            return stage;
+        }
+        for(int i = 0; i < stage.length; i++) {
+            stage[i] = (int) get(state, i);
+        }
+        return stage;
+    }
+
+    /**
+     * Equivalent of {@link EntanglementState#getSignatureState()}: cops are interchangeable, hence their positions are sorted.
+     */
+    long getSignature(long state) {
+        if(cops < 2) return state;
+        if(wide) return intern(stages.get((int) state).getSignatureState());
+
+        int[] signature = new int[cops];
+        for(int i = 0; i < cops; i++) {
+            signature[i] = getCop(state, i + 1);
+        }
+        Arrays.sort(signature);
+
+        long result = state & slotMask;
+        for(int i = 0; i < cops; i++) {
+            result = set(result, i + 1, signature[i]);
+        }
+        return result;
+    }
+
+    private long intern(EntanglementState stage) {
+        int handle = handles.getIfAbsent(stage, -1);
+        if(handle == -1) {
+            handle = stages.size();
+            handles.put(stage, handle);
+            stages.add(stage);
+        }
+        return handle;
+    }
+
+    int getId(long state) {
+        int id = stateIds.getIfAbsent(state, -1);
+        if(id == -1) {
+            id = states.size();
+            stateIds.put(state, id);
+            states.add(state);
+        }
+        return id;
+    }
+
+    int getIdIfPresent(long state) {
+        return stateIds.getIfAbsent(state, -1);
+    }
+
+    long getState(int id) {
+        return states.get(id);
+    }
+
+    EntanglementState toEntanglementState(int id) {
+        return new EntanglementState(decode(getState(id)));
+    }
+
+}
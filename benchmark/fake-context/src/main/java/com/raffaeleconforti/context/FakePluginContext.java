@@ -17,6 +17,9 @@ import java.util.Iterator;
 
 public class FakePluginContext extends UIPluginContext {
 
+    // A single progress per context, so that cancelling it is seen by whoever polls it
+    private FakeProgress progress;
+
     public FakePluginContext() {
         this(MAIN_PLUGINCONTEXT, "Fake Plugin Context");
     }
@@ -38,8 +41,12 @@ public class FakePluginContext extends UIPluginContext {
 
     }
 
-    public Progress getProgress() {
-        return new FakeProgress();
+    public synchronized Progress getProgress() {
+        // Created lazily, as the constructors of the super classes may already ask for it
+        if (progress == null) {
+            progress = new FakeProgress();
+        }
+        return progress;
     }
 
     public ProMFuture getFutureResult(int i) {
@@ -62,5 +62,5 @@ public class FakeProgress implements Progress {
     public void setValue(int i) {
     }
 
-    private boolean cancelled;
+    private volatile boolean cancelled;
 }
\ No newline at end of file
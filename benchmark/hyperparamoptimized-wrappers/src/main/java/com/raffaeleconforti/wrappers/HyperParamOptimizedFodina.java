@@ -3,6 +3,7 @@ package com.raffaeleconforti.wrappers;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.impl.*;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.impl.FodinaAlgorithmWrapper;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -121,14 +122,9 @@ public class HyperParamOptimizedFodina implements MiningAlgorithm {
             d_threshold = d_MAX;
             do {
 
-                try {
+                try (QuietScope ignored = QuietScope.mute()) {
                     minerSettings.dependencyThreshold = d_threshold;
 
-                    System.setOut(new PrintStream(new OutputStream() {
-                        @Override
-                        public void write(int b) {}
-                    }));
-
                     eTime = System.currentTimeMillis();
                     Object[] bpmnResults = FodinaMinerPlugin.runMiner(context, plog, minerSettings);
                     eTime = System.currentTimeMillis() - eTime;
@@ -172,7 +168,6 @@ public class HyperParamOptimizedFodina implements MiningAlgorithm {
             else longDistance = true;
         } while (longDistance);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
 
         return petrinet;
     }
@@ -199,12 +194,7 @@ public class HyperParamOptimizedFodina implements MiningAlgorithm {
             p = 0.0;
             fs = 0.0;
 
-            try {
-
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
+            try (QuietScope ignored = QuietScope.mute()) {
 
                 Object[] bpmnResults = FodinaMinerPlugin.runMiner(context, miningLog, minerSettings);
                 CausalNet net = (CausalNet) bpmnResults[0];
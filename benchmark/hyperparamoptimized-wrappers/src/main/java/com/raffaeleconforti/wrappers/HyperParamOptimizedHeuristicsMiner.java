@@ -3,6 +3,7 @@ package com.raffaeleconforti.wrappers;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.impl.*;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.impl.heuristics.HeuristicsAlgorithmWrapper;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -109,14 +110,9 @@ public class HyperParamOptimizedHeuristicsMiner implements MiningAlgorithm {
             minerSettings.setRelativeToBestThreshold(rtb_threshold);
             d_threshold = MIN;
             do {
-                try {
+                try (QuietScope ignored = QuietScope.mute()) {
                     minerSettings.setDependencyThreshold(d_threshold);
 
-                    System.setOut(new PrintStream(new OutputStream() {
-                        @Override
-                        public void write(int b) {}
-                    }));
-
                     eTime = System.currentTimeMillis();
                     HeuristicsNet heuristicsNet = FlexibleHeuristicsMinerPlugin.run(context, log, minerSettings);
                     eTime = System.currentTimeMillis() - eTime;
@@ -158,7 +154,6 @@ public class HyperParamOptimizedHeuristicsMiner implements MiningAlgorithm {
             rtb_threshold += STEP;
         } while (rtb_threshold <= MAX);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         return petrinet;
     }
 
@@ -184,12 +179,7 @@ public class HyperParamOptimizedHeuristicsMiner implements MiningAlgorithm {
             p = 0.0;
             fs = 0.0;
 
-            try {
-
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
+            try (QuietScope ignored = QuietScope.mute()) {
 
                 HeuristicsNet heuristicsNet = FlexibleHeuristicsMinerPlugin.run(context, miningLog, minerSettings);
                 Object[] result = HeuristicsNetToPetriNetConverter.converter(context, heuristicsNet);
@@ -3,6 +3,7 @@ package com.raffaeleconforti.wrappers;
 
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.impl.*;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.impl.inductive.InductiveMinerIMfWrapper;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -87,21 +88,11 @@ public class HyperParamOptimizedInductiveMinerInfrequent implements MiningAlgori
             System.out.println("ERROR - impossible to create the file for storing the results: printing only on terminal.");
         }
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
         Float threshold = MIN;
         do {
-            try {
+            try (QuietScope ignored = QuietScope.mute()) {
                 miningParameters.setNoiseThreshold(threshold);
 
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
-
                 eTime = System.currentTimeMillis();
                 Object[] result = miner.minePetriNetParameters(context, log, miningParameters);
                 eTime = System.currentTimeMillis() -eTime;
@@ -134,7 +125,6 @@ public class HyperParamOptimizedInductiveMinerInfrequent implements MiningAlgori
             threshold += STEP;
         } while ( threshold <= MAX);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         return petrinet;
     }
 
@@ -161,12 +151,7 @@ public class HyperParamOptimizedInductiveMinerInfrequent implements MiningAlgori
             p = 0.0;
             fs = 0.0;
 
-            try {
-
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
+            try (QuietScope ignored = QuietScope.mute()) {
 
                 Object[] result = miner.minePetriNetParameters(context, miningLog, miningParameters);
                 petrinetWithMarking = new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
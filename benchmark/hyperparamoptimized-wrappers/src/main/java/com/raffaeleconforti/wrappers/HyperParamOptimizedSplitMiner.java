@@ -8,6 +8,7 @@ import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.impl.*;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.impl.SplitMinerWrapper;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -110,12 +111,7 @@ public class HyperParamOptimizedSplitMiner implements MiningAlgorithm {
         do {
             p_threshold = p_MIN;
             do {
-                try {
-
-                    System.setOut(new PrintStream(new OutputStream() {
-                        @Override
-                        public void write(int b) throws IOException {}
-                    }));
+                try (QuietScope ignored = QuietScope.mute()) {
 
                     eTime = System.currentTimeMillis();
                     bpmn = yam.mineBPMNModel(log, xEventClassifier, f_threshold, p_threshold, DFGPUIResult.FilterType.WTH, true, true, false, SplitMinerUIResult.StructuringTime.NONE);
@@ -215,7 +211,6 @@ public class HyperParamOptimizedSplitMiner implements MiningAlgorithm {
 
         if(result[2] == null) result[2] = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
         else MarkingDiscoverer.createFinalMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
 
         return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
     }
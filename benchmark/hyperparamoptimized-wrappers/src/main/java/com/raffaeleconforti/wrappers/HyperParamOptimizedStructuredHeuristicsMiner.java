@@ -6,6 +6,7 @@ import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.impl.*;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.impl.heuristics.HeuristicsAlgorithmWrapper;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -113,14 +114,9 @@ public class HyperParamOptimizedStructuredHeuristicsMiner implements MiningAlgor
             d_threshold = MIN;
             do {
 
-                try {
+                try (QuietScope ignored = QuietScope.mute()) {
                     minerSettings.setDependencyThreshold(d_threshold);
 
-                    System.setOut(new PrintStream(new OutputStream() {
-                        @Override
-                        public void write(int b) {}
-                    }));
-
                     eTime = System.currentTimeMillis();
                     HeuristicsNet heuristicsNet = FlexibleHeuristicsMinerPlugin.run(context, log, minerSettings);
                     eTime = System.currentTimeMillis() - eTime;
@@ -168,7 +164,6 @@ public class HyperParamOptimizedStructuredHeuristicsMiner implements MiningAlgor
             rtb_threshold += STEP;
         } while (rtb_threshold <= MAX);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         return petrinet;
     }
 
@@ -195,12 +190,7 @@ public class HyperParamOptimizedStructuredHeuristicsMiner implements MiningAlgor
             p = 0.0;
             fs = 0.0;
 
-            try {
-
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
+            try (QuietScope ignored = QuietScope.mute()) {
 
                 HeuristicsNet heuristicsNet = FlexibleHeuristicsMinerPlugin.run(context, miningLog, minerSettings);
                 Object[] result = HeuristicsNetToPetriNetConverter.converter(context, heuristicsNet);
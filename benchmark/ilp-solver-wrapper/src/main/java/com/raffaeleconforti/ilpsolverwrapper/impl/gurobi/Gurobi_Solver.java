@@ -4,6 +4,7 @@ import com.raffaeleconforti.ilpsolverwrapper.ILPSolver;
 import com.raffaeleconforti.ilpsolverwrapper.ILPSolverConstraint;
 import com.raffaeleconforti.ilpsolverwrapper.ILPSolverExpression;
 import com.raffaeleconforti.ilpsolverwrapper.ILPSolverVariable;
+import com.raffaeleconforti.output.QuietScope;
 import gurobi.*;
 
 import java.io.*;
@@ -42,16 +43,11 @@ public class Gurobi_Solver implements ILPSolver {
             constraints = new ArrayList<>();
             minimize = true;
 
-            System.setOut(new PrintStream(new OutputStream() {
-                @Override
-                public void write(int b) {}
-            }));
-
-            env = new GRBEnv("qp.noisefiltering");
-            model = new GRBModel(env);
-            model.getEnv().set(GRB.IntParam.LogToConsole, 0);
-
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+            try (QuietScope ignored = QuietScope.mute()) {
+                env = new GRBEnv("qp.noisefiltering");
+                model = new GRBModel(env);
+                model.getEnv().set(GRB.IntParam.LogToConsole, 0);
+            }
         } catch (GRBException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,253 @@
+package com.raffaeleconforti.output;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Suppresses the standard output of the current thread for the duration of a try-with-resources block:
+ *
+ * <pre>
+ * try (QuietScope ignored = QuietScope.mute()) {
+ *     // chatty plugin calls
+ * }
+ * </pre>
+ *
+ * Instead of swapping {@link System#out} for every call, which is process-global and races with other threads,
+ * a single routing stream is installed once. It forwards to the original standard output unless the writing thread
+ * is muted, in which case it returns before formatting anything. Threads started by a muted thread start muted.
+ * Scopes nest, and closing a scope restores the state the thread had when the scope was opened.
+ */
+public final class QuietScope implements AutoCloseable {
+
+    private static final InheritableThreadLocal<Boolean> muted = new InheritableThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return Boolean.FALSE;
+        }
+    };
+
+    private static RoutingPrintStream router;
+
+    private final Boolean previous;
+    private boolean closed = false;
+
+    private QuietScope(Boolean state) {
+        install();
+        this.previous = muted.get();
+        muted.set(state);
+    }
+
+    /**
+     * Mutes the standard output of the current thread until the scope is closed.
+     */
+    public static QuietScope mute() {
+        return new QuietScope(Boolean.TRUE);
+    }
+
+    /**
+     * Restores the standard output of the current thread until the scope is closed, e.g. to report progress
+     * from within a muted task.
+     */
+    public static QuietScope unmute() {
+        return new QuietScope(Boolean.FALSE);
+    }
+
+    public static boolean isMuted() {
+        return muted.get();
+    }
+
+    /**
+     * Installs the routing stream, unless it already is the standard output. A stream set with
+     * {@link System#setOut(PrintStream)} in the meantime becomes the destination of the routing stream.
+     */
+    public static synchronized void install() {
+        if(router != null && System.out == router) return;
+        router = new RoutingPrintStream(System.out);
+        System.setOut(router);
+    }
+
+    @Override
+    public void close() {
+        if(closed) return;
+        closed = true;
+        muted.set(previous);
+    }
+
+    private static class RoutingPrintStream extends PrintStream {
+
+        private final PrintStream out;
+
+        private RoutingPrintStream(PrintStream out) {
+            super(out, true);
+            this.out = out;
+        }
+
+        private boolean quiet() {
+            return muted.get();
+        }
+
+        @Override
+        public void write(int b) {
+            if(!quiet()) out.write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            if(!quiet()) out.write(buf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // The standard output is never closed through the router
+            out.flush();
+        }
+
+        @Override
+        public boolean checkError() {
+            return out.checkError();
+        }
+
+        @Override
+        public void print(boolean b) {
+            if(!quiet()) out.print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            if(!quiet()) out.print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            if(!quiet()) out.print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            if(!quiet()) out.print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            if(!quiet()) out.print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            if(!quiet()) out.print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            if(!quiet()) out.print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            if(!quiet()) out.print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            if(!quiet()) out.print(obj);
+        }
+
+        @Override
+        public void println() {
+            if(!quiet()) out.println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            if(!quiet()) out.println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            if(!quiet()) out.printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            if(!quiet()) out.printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            if(!quiet()) out.format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            if(!quiet()) out.format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            if(!quiet()) out.append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            if(!quiet()) out.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            if(!quiet()) out.append(c);
+            return this;
+        }
+    }
+
+}
@@ -11,6 +11,7 @@ import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
+import org.eclipse.collections.impl.map.mutable.ConcurrentHashMap;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
 import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
@@ -23,8 +24,13 @@ import java.util.Set;
  */
 public class EventDistributionCalculatorImpl implements EventDistributionCalculator {
 
-    protected int initiator = -1;
-    protected int terminator = -1;
+    // Positions of the two events of the last pair found unlikely, per thread as the permutation workers share the calculator
+    private final ThreadLocal<int[]> unlikelyPair = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[] {-1, -1};
+        }
+    };
     protected final NameExtractor nameExtractor;
     protected final XLog log;
     protected final Map<String, Integer> startEvent = new UnifiedMap<>();
@@ -32,12 +38,13 @@ public class EventDistributionCalculatorImpl implements EventDistributionCalcula
     protected final Map<String, Map<String, Integer>> distribution = new UnifiedMap<>();
     protected final Map<String, Map<String, Integer>> distributionReverse = new UnifiedMap<>();
 
-    protected final Map<String, Double> distributionCache = new UnifiedMap<>();
-    protected final Map<String, Double> distributionReverseCache = new UnifiedMap<>();
-    protected final Map<String, Double> distributionZeroCache = new UnifiedMap<>();
-    protected final Map<String, Double> distributionReverseZeroCache = new UnifiedMap<>();
+    // Filled lazily by the likelihood queries, which may come from several threads
+    protected final Map<String, Double> distributionCache = new ConcurrentHashMap<>();
+    protected final Map<String, Double> distributionReverseCache = new ConcurrentHashMap<>();
+    protected final Map<String, Double> distributionZeroCache = new ConcurrentHashMap<>();
+    protected final Map<String, Double> distributionReverseZeroCache = new ConcurrentHashMap<>();
 
-    protected Map<String, Double> likelihood = new UnifiedMap<>();
+    protected Map<String, Double> likelihood = new ConcurrentHashMap<>();
     protected Cache<XTrace, Double> likelihoodCache;
 
     protected Map<String, Map<String, Integer>> enrichedDistribution = new UnifiedMap<>();
@@ -203,8 +210,7 @@ public class EventDistributionCalculatorImpl implements EventDistributionCalcula
                 String eventName = getEventName(event);
                 double tmp = computeLikelihoodAcceptZero(lastName, eventName);
                 if(tmp == 0) {
-                    initiator = i-1;
-                    terminator = i;
+                    setUnlikelyPair(i-1, i);
                     return 0;
                 }
                 likelihood *= tmp;
@@ -227,8 +233,7 @@ public class EventDistributionCalculatorImpl implements EventDistributionCalcula
                     String eventName = getEventName(event);
                     double tmp = computeLikelihoodAcceptZero(lastName, eventName);
                     if(tmp == 0) {
-                        initiator = i-1;
-                        terminator = i;
+                        setUnlikelyPair(i-1, i);
                         return 0;
                     }
                     likelihood *= tmp;
@@ -277,8 +282,7 @@ public class EventDistributionCalculatorImpl implements EventDistributionCalcula
                 String eventName = getEventName(event);
                 likelihood *= computeLikelihoodAcceptZero(previousName, eventName);
                 if(likelihood <= limit) {
-                    initiator = i-1;
-                    terminator = i;
+                    setUnlikelyPair(i-1, i);
                     return 0;
                 }
             }
@@ -396,12 +400,18 @@ public class EventDistributionCalculatorImpl implements EventDistributionCalcula
         return 0;
     }
 
+    private void setUnlikelyPair(int initiator, int terminator) {
+        int[] pair = unlikelyPair.get();
+        pair[0] = initiator;
+        pair[1] = terminator;
+    }
+
     public int getInitiator() {
-        return initiator;
+        return unlikelyPair.get()[0];
     }
 
     public int getTerminator() {
-        return terminator;
+        return unlikelyPair.get()[1];
     }
 
     @Override
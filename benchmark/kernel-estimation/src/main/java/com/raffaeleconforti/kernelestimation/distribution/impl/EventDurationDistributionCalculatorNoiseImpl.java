@@ -222,8 +222,6 @@ public class EventDurationDistributionCalculatorNoiseImpl implements EventDurati
 
                 try {
                     normalMixtureDistribution = new NormalMixtureDistribution(data);
-                    kolmogorovSmirnovTest.kolmogorovSmirnovTest(normalMixtureDistribution, data);
-                    mannWhitneyUTest.mannWhitneyUTest(normalMixtureDistribution.sample(data.length), data);
                 } catch (NotStrictlyPositiveException nspe) {
                     normalMixtureDistribution = null;
                 }
@@ -235,10 +233,14 @@ public class EventDurationDistributionCalculatorNoiseImpl implements EventDurati
                         normalMixtureDistribution
                 };
 
+                double[] sortedData = data.clone();
+                Arrays.sort(sortedData);
+
                 Double[] significances = new Double[4];
                 for (int i = 0; i < significances.length; i++) {
                     if (distributions[i] != null) {
-                        significances[i] = Math.max(kolmogorovSmirnovTest.kolmogorovSmirnovTest(distributions[i], data), mannWhitneyUTest.mannWhitneyUTest(distributions[i].sample(data.length), data));
+                        double kolmogorovSmirnov = 1 - kolmogorovSmirnovTest.cdf(kolmogorovSmirnovStatistic(distributions[i], sortedData), sortedData.length);
+                        significances[i] = Math.max(kolmogorovSmirnov, mannWhitneyUTest.mannWhitneyUTest(distributions[i].sample(data.length), data));
                     } else {
                         significances[i] = null;
                     }
@@ -262,6 +264,19 @@ public class EventDurationDistributionCalculatorNoiseImpl implements EventDurati
         return distribution;
     }
 
+    /**
+     * Kolmogorov-Smirnov statistic of a sorted sample, sorted once for all the distributions tested against it.
+     */
+    private double kolmogorovSmirnovStatistic(AbstractRealDistribution distribution, double[] sortedData) {
+        int n = sortedData.length;
+        double statistic = 0;
+        for (int i = 0; i < n; i++) {
+            double cdf = distribution.cumulativeProbability(sortedData[i]);
+            statistic = Math.max(statistic, Math.max(cdf - (double) i / n, (double) (i + 1) / n - cdf));
+        }
+        return statistic;
+    }
+
     private long estimateDuration(String eventName) throws NoDataAvailableException {
         NormalDistribution d = new NormalDistribution(getAverageDuration(eventName), getStdDeviationDuration(eventName));
         return (long) d.sample();
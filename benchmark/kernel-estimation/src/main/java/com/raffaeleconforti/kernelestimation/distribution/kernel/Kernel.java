@@ -8,4 +8,9 @@ import org.apache.commons.math3.analysis.UnivariateFunction;
 public interface Kernel extends UnivariateFunction {
 
     double getKernel(double u);
+
+    /**
+     * @return the distance from 0 beyond which the kernel is negligible, i.e. below 1e-12 times its value in 0.
+     */
+    double getSupportRadius();
 }
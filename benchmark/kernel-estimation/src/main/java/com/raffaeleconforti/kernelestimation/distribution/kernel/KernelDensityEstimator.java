@@ -2,68 +2,216 @@ package com.raffaeleconforti.kernelestimation.distribution.kernel;
 
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+import java.util.Arrays;
 
 /**
- * Created by conforti on 29/01/2016.
+ * Kernel density estimate of a sample, with the bandwidth given by the Silverman rule of thumb. Cumulative
+ * probabilities are the ones of the mixture of the normal distributions centred on the data points.
+ *
+ * On large samples the data are linearly binned on a grid of a few points per bandwidth, and the density and the
+ * cumulative probability are tabulated on the grid by convolving the bins with the kernel and with the normal
+ * distribution through FFT; queries interpolate the tables in constant time. Small samples, and samples too spread
+ * for a grid of bounded size, are estimated exactly, summing over the data points within the support radius of the
+ * query only.
  */
 public class KernelDensityEstimator implements UnivariateFunction {
 
+    // Below this number of data points the estimates are exact
+    private static final int EXACT_THRESHOLD = 512;
+    private static final int POINTS_PER_BANDWIDTH = 16;
+    private static final int MIN_GRID = 1 << 10;
+    private static final int MAX_GRID = 1 << 16;
+    // Bandwidths beyond which a normal distribution is taken as 0 or 1
+    private static final double NORMAL_RADIUS = 8;
+
+    private static final NormalDistribution standardNormal = new NormalDistribution(null, 0, 1);
+
     private final Kernel kernel;
     private final double[] data;
-    private final NormalDistribution[] distributions;
 
     private final double h;
     private final int n;
+    private final double mean;
+    private final double stdDeviation;
+
+    private double lower;
+    private double delta;
+    private double[] densities;
+    private double[] cumulatives;
 
     public KernelDensityEstimator(Kernel kernel, double[] data) {
         this.kernel = kernel;
-        this.data = data;
-        this.distributions = new NormalDistribution[data.length];
+        this.data = data.clone();
+        Arrays.sort(this.data);
 
         this.n = data.length;
+        double mean = 0;
+        for(int i = 0; i < n; i++) {
+            mean += data[i];
+        }
+        this.mean = mean / n;
+        double stdDeviation = 0;
+        for(int i = 0; i < n; i++) {
+            stdDeviation += Math.pow((this.mean - data[i]), 2);
+        }
+        this.stdDeviation = Math.sqrt(stdDeviation / n);
         this.h = estimateBandwidthUsingSilvermanRuleOfThumb();
+        if(!(h > 0)) throw new NotStrictlyPositiveException(LocalizedFormats.STANDARD_DEVIATION, h);
+
+        if(n >= EXACT_THRESHOLD) {
+            tabulate();
+        }
+    }
 
+    private void tabulate() {
+        double radius = Math.max(kernel.getSupportRadius(), NORMAL_RADIUS) * h;
+        double lower = data[0] - radius;
+        double upper = data[n - 1] + radius;
+        double needed = Math.ceil((upper - lower) / h * POINTS_PER_BANDWIDTH) + 1;
+        if(needed > MAX_GRID) return;
+
+        int size = MIN_GRID;
+        while(size < needed) size <<= 1;
+        double delta = (upper - lower) / (size - 1);
+
+        double[] bins = new double[size];
         for(int i = 0; i < n; i++) {
-            distributions[i] = new NormalDistribution(data[i], h);
+            double position = (data[i] - lower) / delta;
+            int bin = Math.min((int) position, size - 2);
+            double weight = position - bin;
+            bins[bin] += 1 - weight;
+            bins[bin + 1] += weight;
+        }
+
+        // Weights of the offsets -(size - 1) .. size - 1 between grid points
+        double[] kernelWeights = new double[2 * size - 1];
+        double[] normalWeights = new double[2 * size - 1];
+        for(int offset = -(size - 1); offset < size; offset++) {
+            double u = offset * delta / h;
+            kernelWeights[offset + size - 1] = kernel.getKernel(u) / (n * h);
+            normalWeights[offset + size - 1] = standardNormal.cumulativeProbability(u) / n;
+        }
+
+        double[][] transformedBins = transform(bins, 4 * size);
+        densities = convolve(transformedBins, kernelWeights, size);
+        cumulatives = convolve(transformedBins, normalWeights, size);
+
+        // Round-off of the transforms must not make the cumulative probability decrease
+        for(int i = 0; i < size; i++) {
+            cumulatives[i] = Math.min(Math.max(cumulatives[i], i == 0 ? 0 : cumulatives[i - 1]), 1);
         }
+        this.lower = lower;
+        this.delta = delta;
+    }
+
+    private double[][] transform(double[] values, int length) {
+        double[][] transformed = new double[][] {Arrays.copyOf(values, length), new double[length]};
+        FastFourierTransformer.transformInPlace(transformed, DftNormalization.STANDARD, TransformType.FORWARD);
+        return transformed;
+    }
+
+    /**
+     * @return the values in the grid points of the linear convolution of the bins with the weights of the offsets.
+     */
+    private double[] convolve(double[][] transformedBins, double[] weights, int size) {
+        int length = transformedBins[0].length;
+        double[][] product = transform(weights, length);
+        for(int i = 0; i < length; i++) {
+            double re = transformedBins[0][i] * product[0][i] - transformedBins[1][i] * product[1][i];
+            double im = transformedBins[0][i] * product[1][i] + transformedBins[1][i] * product[0][i];
+            product[0][i] = re;
+            product[1][i] = im;
+        }
+        FastFourierTransformer.transformInPlace(product, DftNormalization.STANDARD, TransformType.INVERSE);
+        return Arrays.copyOfRange(product[0], size - 1, 2 * size - 1);
     }
 
     public double estimate(double x) {
+        if(densities != null) {
+            return interpolate(densities, x, 0, 0);
+        }
+
+        double radius = kernel.getSupportRadius() * h;
         double k = 0;
-        for(int i = 0; i < n; i++) {
+        for(int i = firstAtLeast(x - radius), last = firstAbove(x + radius); i < last; i++) {
             k += kernel.getKernel((data[i] - x) / h);
         }
         return k / (n * h);
     }
 
     public double cumulativeProbability(double x) {
-        double k = 0;
-        for(int i = 0; i < n; i++) {
-            k += distributions[i].cumulativeProbability(x);
+        if(cumulatives != null) {
+            return interpolate(cumulatives, x, 0, 1);
+        }
+
+        double radius = NORMAL_RADIUS * h;
+        int first = firstAtLeast(x - radius);
+        double k = first;
+        for(int i = first, last = firstAbove(x + radius); i < last; i++) {
+            k += standardNormal.cumulativeProbability((x - data[i]) / h);
         }
         return k / n;
     }
 
-    public double getMean() {
-        double mean = 0;
-        for(int i = 0; i < data.length; i++) {
-            mean += data[i];
+    private double interpolate(double[] table, double x, double below, double above) {
+        double position = (x - lower) / delta;
+        if(!(position >= 0)) return below;
+        if(position >= table.length - 1) return above;
+        int i = (int) position;
+        double weight = position - i;
+        return table[i] + weight * (table[i + 1] - table[i]);
+    }
+
+    private int firstAtLeast(double x) {
+        int low = 0;
+        int high = n;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(data[middle] < x) low = middle + 1;
+            else high = middle;
         }
-        return mean / data.length;
+        return low;
     }
 
-    public double getStdDeviation() {
-        double mean = getMean();
-        double stdDeviation = 0;
-        for(int i = 0; i < data.length; i++) {
-            stdDeviation += Math.pow((mean - data[i]), 2);
+    private int firstAbove(double x) {
+        int low = 0;
+        int high = n;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(data[middle] <= x) low = middle + 1;
+            else high = middle;
         }
-        return Math.sqrt(stdDeviation / data.length);
+        return low;
+    }
+
+    /**
+     * Draws from the mixture of normal distributions whose cumulative probability is {@link #cumulativeProbability}.
+     */
+    public double sample(RandomGenerator random) {
+        return data[random.nextInt(n)] + h * random.nextGaussian();
+    }
+
+    public double getBandwidth() {
+        return h;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDeviation() {
+        return stdDeviation;
     }
 
     private double estimateBandwidthUsingSilvermanRuleOfThumb() {
-        double stdDeviation = getStdDeviation();
-        return 1.06 * stdDeviation * Math.pow(data.length, -0.2);
+        return 1.06 * stdDeviation * Math.pow(n, -0.2);
     }
 
     @Override
@@ -71,6 +219,3 @@ public class KernelDensityEstimator implements UnivariateFunction {
         return estimate(v);
     }
 }
-
-
-
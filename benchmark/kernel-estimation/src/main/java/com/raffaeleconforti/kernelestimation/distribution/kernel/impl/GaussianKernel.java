@@ -12,6 +12,11 @@ public class GaussianKernel implements Kernel {
         return (1 / (Math.sqrt(2 * Math.PI))) * Math.exp(-0.5 * Math.pow(u, 2));
     }
 
+    @Override
+    public double getSupportRadius() {
+        return 8;
+    }
+
     @Override
     public double value(double v) {
         return getKernel(v);
@@ -12,6 +12,11 @@ public class LogisticKernel implements Kernel {
         return (1 / (Math.exp(u) + 2 + Math.exp(-u)));
     }
 
+    @Override
+    public double getSupportRadius() {
+        return 30;
+    }
+
     @Override
     public double value(double v) {
         return getKernel(v);
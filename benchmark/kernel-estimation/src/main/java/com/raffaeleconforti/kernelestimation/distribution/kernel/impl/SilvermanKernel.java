@@ -12,6 +12,11 @@ public class SilvermanKernel implements Kernel {
         return (0.5 * Math.exp(-(Math.abs(u) / Math.sqrt(2))) * Math.sin((Math.abs(u) / Math.sqrt(2)) + (Math.PI / 4)));
     }
 
+    @Override
+    public double getSupportRadius() {
+        return 40;
+    }
+
     @Override
     public double value(double v) {
         return getKernel(v);
@@ -30,6 +30,14 @@ public class NormalMixtureDistribution extends AbstractRealDistribution {
         return kernelDensityEstimator.cumulativeProbability(v);
     }
 
+    /**
+     * Draws a data point and a normal deviation, instead of inverting the cumulative probability.
+     */
+    @Override
+    public double sample() {
+        return kernelDensityEstimator.sample(random);
+    }
+
     @Override
     public double getNumericalMean() {
         return kernelDensityEstimator.getMean();
@@ -0,0 +1,50 @@
+package com.raffaeleconforti.log.util;
+
+import org.eclipse.collections.impl.map.mutable.ConcurrentHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe mapping between event labels and dense ints, assigned in order of first appearance.
+ */
+public class LabelDictionary {
+
+    private final ConcurrentHashMap<String, Integer> indexes = new ConcurrentHashMap<>();
+    private volatile String[] labels = new String[16];
+    private int size = 0;
+
+    public int getOrAddIndex(String label) {
+        Integer index;
+        if((index = indexes.get(label)) == null) {
+            synchronized (this) {
+                if((index = indexes.get(label)) == null) {
+                    if(size == labels.length) {
+                        labels = Arrays.copyOf(labels, size * 2);
+                    }
+                    labels[size] = label;
+                    index = size++;
+                    indexes.put(label, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the label, or -1 if the label has never been added.
+     */
+    public int getIndex(String label) {
+        if(label == null) return -1;
+        Integer index = indexes.get(label);
+        return index == null ? -1 : index;
+    }
+
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+
+}
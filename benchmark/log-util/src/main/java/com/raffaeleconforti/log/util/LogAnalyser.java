@@ -25,11 +25,7 @@ public class LogAnalyser {
     private static final XTimeExtension xte = XTimeExtension.instance();
 
     public static int countEvents(XLog log) {
-        int events = 0;
-        for(XTrace trace : log) {
-            events += countEvents(trace);
-        }
-        return events;
+        return LogProfile.getProfile(log).countEvents();
     }
 
     public static int countEvents(XTrace trace) {
@@ -41,21 +37,11 @@ public class LogAnalyser {
     }
 
     public static int countUniqueActivities(XLog log, XEventClassifier eventClassifier) {
-        return getUniqueActivities(log, eventClassifier).size();
+        return LogProfile.getProfile(log, eventClassifier).countUniqueActivities();
     }
 
     public static Map<String, Integer> getFinalActivityFriquencies(XLog log) {
-        Map<String, Integer> finalActivityFrequencies = new UnifiedMap<>();
-        for(XTrace trace : log) {
-            String activity = getFinalActivity(trace);
-            Integer frequency;
-            if((frequency = finalActivityFrequencies.get(activity)) == null) {
-                frequency = 0;
-            }
-            frequency++;
-            finalActivityFrequencies.put(activity, frequency);
-        }
-        return finalActivityFrequencies;
+        return new UnifiedMap<>(LogProfile.getProfile(log).getFinalActivityFrequencies());
     }
 
     public static Set<String> getFinalActivities(XLog log) {
@@ -67,17 +53,7 @@ public class LogAnalyser {
     }
 
     public static Map<String, Integer> getInitialActivityFriquencies(XLog log) {
-        Map<String, Integer> initialActivityFrequencies = new UnifiedMap<>();
-        for(XTrace trace : log) {
-            String activity = getInitialActivity(trace);
-            Integer frequency;
-            if((frequency = initialActivityFrequencies.get(activity)) == null) {
-                frequency = 0;
-            }
-            frequency++;
-            initialActivityFrequencies.put(activity, frequency);
-        }
-        return initialActivityFrequencies;
+        return new UnifiedMap<>(LogProfile.getProfile(log).getInitialActivityFrequencies());
     }
 
     public static Set<String> getInitialActivities(XLog log) {
@@ -89,11 +65,7 @@ public class LogAnalyser {
     }
 
     public static Set<String> getUniqueActivities(XLog log, XEventClassifier eventClassifier) {
-        Set<String> uniqueActivities = new UnifiedSet<>();
-        for(XTrace trace : log) {
-            uniqueActivities.addAll(getUniqueActivities(trace, eventClassifier));
-        }
-        return uniqueActivities;
+        return new UnifiedSet<>(LogProfile.getProfile(log, eventClassifier).getUniqueActivities());
     }
 
     public static Set<String> getUniqueActivities(XTrace trace, XEventClassifier eventClassifier) {
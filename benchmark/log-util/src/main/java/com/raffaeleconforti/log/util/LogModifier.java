@@ -187,6 +187,7 @@ public class LogModifier {
             trace.add(0, start);
             trace.add(trace.size(), end);
         }
+        LogProfile.invalidate(log);
         return log;
 
     }
@@ -209,6 +210,7 @@ public class LogModifier {
                 trace.remove(event);
             }
         }
+        LogProfile.invalidate(log);
         return log;
 
     }
@@ -0,0 +1,297 @@
+package com.raffaeleconforti.log.util;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.eclipse.collections.api.map.primitive.IntIntMap;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.map.mutable.primitive.IntIntHashMap;
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statistics of a log computed in a single pass: number of traces and events, unique activities,
+ * initial and final activity frequencies (by concept:name, as {@link LogAnalyser} always did),
+ * start and end activity frequencies (by classifier), variants and trace-length histogram.
+ *
+ * Profiles are cached per log instance, compared by identity and weakly referenced so that a cached
+ * profile never keeps a log alive. XLog does not expose a modification counter: code which modifies a
+ * log in place should call {@link #invalidate(XLog)} afterwards, as {@link LogModifier} does. For the
+ * code which does not, a cached profile is only returned if the log still has the same number of traces
+ * and the same first and last traces, of the same sizes; this check is O(1) and misses edits which
+ * keep all of these, such as renaming events or changing a trace in the middle of the log.
+ */
+public final class LogProfile {
+
+    private static final XConceptExtension xce = XConceptExtension.instance();
+    private static final XEventClassifier defaultClassifier = new XEventNameClassifier();
+
+    private static final ReferenceQueue<XLog> queue = new ReferenceQueue<>();
+    private static final Map<LogReference, CacheEntry> cache = new UnifiedMap<>();
+
+    private final XEventClassifier classifier;
+    private final int modCount;
+
+    // Shape of the log when profiled, checked before returning the cached profile
+    private final int firstTrace;
+    private final int firstTraceSize;
+    private final int lastTrace;
+    private final int lastTraceSize;
+
+    private final int traces;
+    private final int events;
+    private final Set<String> uniqueActivities;
+    private final Map<String, Integer> initialActivityFrequencies;
+    private final Map<String, Integer> finalActivityFrequencies;
+    private final Map<String, Integer> startActivityFrequencies;
+    private final Map<String, Integer> endActivityFrequencies;
+    private final Map<TraceKey, Integer> variants;
+    private final IntIntHashMap traceLengths;
+    private final LabelDictionary labelDictionary;
+
+    private LogProfile(XLog log, XEventClassifier classifier, int modCount) {
+        this.classifier = classifier;
+        this.modCount = modCount;
+
+        XTrace first = log.isEmpty() ? null : log.get(0);
+        XTrace last = log.isEmpty() ? null : log.get(log.size() - 1);
+        this.firstTrace = System.identityHashCode(first);
+        this.firstTraceSize = first == null ? -1 : first.size();
+        this.lastTrace = System.identityHashCode(last);
+        this.lastTraceSize = last == null ? -1 : last.size();
+
+        TraceKeyInterner interner = new TraceKeyInterner(new NameExtractor(classifier));
+        Map<String, Integer> initial = new UnifiedMap<>();
+        Map<String, Integer> end = new UnifiedMap<>();
+        Map<String, Integer> start = new UnifiedMap<>();
+        Map<String, Integer> fin = new UnifiedMap<>();
+        Map<TraceKey, Integer> variants = new UnifiedMap<>();
+        IntIntHashMap traceLengths = new IntIntHashMap();
+
+        int traces = 0;
+        int events = 0;
+        for(XTrace trace : log) {
+            int size = trace.size();
+            traces++;
+            events += size;
+            traceLengths.addToValue(size, 1);
+
+            TraceKey key = interner.getKey(trace);
+            increment(variants, key);
+
+            if(size > 0) {
+                increment(initial, xce.extractName(trace.get(0)));
+                increment(fin, xce.extractName(trace.get(size - 1)));
+                increment(start, interner.getLabelDictionary().getLabel(key.getLabel(0)));
+                increment(end, interner.getLabelDictionary().getLabel(key.getLabel(size - 1)));
+            }
+        }
+
+        LabelDictionary labelDictionary = interner.getLabelDictionary();
+        Set<String> uniqueActivities = new UnifiedSet<>(labelDictionary.size());
+        for(int i = 0; i < labelDictionary.size(); i++) {
+            uniqueActivities.add(labelDictionary.getLabel(i));
+        }
+
+        this.traces = traces;
+        this.events = events;
+        this.uniqueActivities = Collections.unmodifiableSet(uniqueActivities);
+        this.initialActivityFrequencies = Collections.unmodifiableMap(initial);
+        this.finalActivityFrequencies = Collections.unmodifiableMap(fin);
+        this.startActivityFrequencies = Collections.unmodifiableMap(start);
+        this.endActivityFrequencies = Collections.unmodifiableMap(end);
+        this.variants = Collections.unmodifiableMap(variants);
+        this.traceLengths = traceLengths;
+        this.labelDictionary = labelDictionary;
+    }
+
+    private static <K> void increment(Map<K, Integer> frequencies, K key) {
+        Integer frequency;
+        if((frequency = frequencies.get(key)) == null) {
+            frequency = 0;
+        }
+        frequencies.put(key, frequency + 1);
+    }
+
+    /**
+     * Returns a profile of the log. The classifier independent statistics are shared by all
+     * classifiers, hence any valid cached profile is returned; otherwise one is computed with the
+     * event name classifier.
+     */
+    public static LogProfile getProfile(XLog log) {
+        synchronized (cache) {
+            CacheEntry entry = cache.get(new LogReference(log));
+            if(entry != null) {
+                for(LogProfile profile : entry.profiles.values()) {
+                    if(profile.isValid(entry.modCount, log)) return profile;
+                }
+            }
+        }
+        return getProfile(log, defaultClassifier);
+    }
+
+    public static LogProfile getProfile(XLog log, XEventClassifier classifier) {
+        int modCount;
+        synchronized (cache) {
+            expungeStaleEntries();
+            CacheEntry entry = getEntry(log);
+            LogProfile profile = entry.profiles.get(classifier);
+            if(profile != null) {
+                if(profile.isValid(entry.modCount, log)) return profile;
+                // The log was modified without being invalidated, the other profiles are stale too
+                entry.modCount++;
+                entry.profiles.clear();
+            }
+            modCount = entry.modCount;
+        }
+
+        LogProfile profile = new LogProfile(log, classifier, modCount);
+
+        synchronized (cache) {
+            CacheEntry entry = getEntry(log);
+            if(entry.modCount == modCount) {
+                entry.profiles.put(classifier, profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Discards every cached profile of the log. Should be called after modifying a log in place, the
+     * cache only detects the modifications which change the number of traces or the first or last trace.
+     */
+    public static void invalidate(XLog log) {
+        synchronized (cache) {
+            CacheEntry entry = cache.get(new LogReference(log));
+            if(entry != null) {
+                entry.modCount++;
+                entry.profiles.clear();
+            }
+        }
+    }
+
+    private static CacheEntry getEntry(XLog log) {
+        CacheEntry entry;
+        if((entry = cache.get(new LogReference(log))) == null) {
+            entry = new CacheEntry();
+            cache.put(new LogReference(log, queue), entry);
+        }
+        return entry;
+    }
+
+    private static void expungeStaleEntries() {
+        Reference<? extends XLog> reference;
+        while((reference = queue.poll()) != null) {
+            cache.remove(reference);
+        }
+    }
+
+    private boolean isValid(int modCount, XLog log) {
+        if(this.modCount != modCount || traces != log.size()) return false;
+        if(traces == 0) return true;
+        XTrace first = log.get(0);
+        XTrace last = log.get(traces - 1);
+        return System.identityHashCode(first) == firstTrace && first.size() == firstTraceSize
+                && System.identityHashCode(last) == lastTrace && last.size() == lastTraceSize;
+    }
+
+    public XEventClassifier getClassifier() {
+        return classifier;
+    }
+
+    public int countTraces() {
+        return traces;
+    }
+
+    public int countEvents() {
+        return events;
+    }
+
+    public int countUniqueActivities() {
+        return uniqueActivities.size();
+    }
+
+    public int countVariants() {
+        return variants.size();
+    }
+
+    public Set<String> getUniqueActivities() {
+        return uniqueActivities;
+    }
+
+    public Map<String, Integer> getInitialActivityFrequencies() {
+        return initialActivityFrequencies;
+    }
+
+    public Map<String, Integer> getFinalActivityFrequencies() {
+        return finalActivityFrequencies;
+    }
+
+    public Map<String, Integer> getStartActivityFrequencies() {
+        return startActivityFrequencies;
+    }
+
+    public Map<String, Integer> getEndActivityFrequencies() {
+        return endActivityFrequencies;
+    }
+
+    /**
+     * Frequency of each variant, labels of the keys are resolved through {@link #getLabelDictionary()}.
+     */
+    public Map<TraceKey, Integer> getVariants() {
+        return variants;
+    }
+
+    public LabelDictionary getLabelDictionary() {
+        return labelDictionary;
+    }
+
+    /**
+     * Number of traces for each trace length.
+     */
+    public IntIntMap getTraceLengthHistogram() {
+        return traceLengths.asUnmodifiable();
+    }
+
+    private static final class CacheEntry {
+        private int modCount = 0;
+        private final Map<XEventClassifier, LogProfile> profiles = new UnifiedMap<>();
+    }
+
+    private static final class LogReference extends WeakReference<XLog> {
+
+        private final int hash;
+
+        private LogReference(XLog log) {
+            super(log);
+            this.hash = System.identityHashCode(log);
+        }
+
+        private LogReference(XLog log, ReferenceQueue<XLog> queue) {
+            super(log, queue);
+            this.hash = System.identityHashCode(log);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof LogReference)) return false;
+            Object log = get();
+            return log != null && log == ((LogReference) o).get();
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.raffaeleconforti.log.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable key of a trace variant: the sequence of its labels, encoded through a {@link LabelDictionary},
+ * together with a precomputed 64-bit hash.
+ *
+ * Keys are created by a {@link TraceKeyInterner}, which returns the same instance for equal sequences,
+ * hence equal keys coming from the same interner are also identical.
+ */
+public final class TraceKey {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] labels;
+    private final long hash;
+    private final LabelDictionary labelDictionary;
+
+    TraceKey(int[] labels, long hash, LabelDictionary labelDictionary) {
+        this.labels = labels;
+        this.hash = hash;
+        this.labelDictionary = labelDictionary;
+    }
+
+    static long hash(int[] labels, int length) {
+        long hash = FNV_OFFSET;
+        for(int i = 0; i < length; i++) {
+            hash = (hash ^ labels[i]) * FNV_PRIME;
+        }
+        return (hash ^ length) * FNV_PRIME;
+    }
+
+    boolean matches(int[] labels, int length, long hash) {
+        if(this.hash != hash || this.labels.length != length) return false;
+        for(int i = 0; i < length; i++) {
+            if(this.labels[i] != labels[i]) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public int getLabel(int pos) {
+        return labels[pos];
+    }
+
+    public int[] getLabels() {
+        return Arrays.copyOf(labels, labels.length);
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof TraceKey)) return false;
+        TraceKey traceKey = (TraceKey) o;
+        return matches(traceKey.labels, traceKey.labels.length, traceKey.hash);
+    }
+
+    /**
+     * @return the same representation produced by {@link TraceToString#listToString(java.util.List)}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for(int label : labels) {
+            sb.append(labelDictionary.getLabel(label)).append(", ");
+        }
+        return sb.toString();
+    }
+
+}
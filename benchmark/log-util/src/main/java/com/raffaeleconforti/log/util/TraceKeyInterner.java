@@ -0,0 +1,212 @@
+package com.raffaeleconforti.log.util;
+
+import org.deckfour.xes.model.XTrace;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Int based replacement of the String keys produced by {@link TraceToString}.
+ *
+ * Labels are encoded into a per-thread buffer and the buffer is looked up in an open-addressing table,
+ * hence a {@link TraceKey} is only allocated the first time a variant is seen.
+ * The comparator and parallel-set overloads reorder the buffer exactly as the corresponding
+ * convertXTraceToString methods reorder their list of labels.
+ */
+public class TraceKeyInterner {
+
+    private final NameExtractor nameExtractor;
+    private final LabelDictionary labelDictionary;
+    private final ThreadLocal<int[]> buffers = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[64];
+        }
+    };
+
+    private TraceKey[] table = new TraceKey[64];
+    private int size = 0;
+
+    public TraceKeyInterner(NameExtractor nameExtractor) {
+        this(nameExtractor, new LabelDictionary());
+    }
+
+    public TraceKeyInterner(NameExtractor nameExtractor, LabelDictionary labelDictionary) {
+        this.nameExtractor = nameExtractor;
+        this.labelDictionary = labelDictionary;
+    }
+
+    public LabelDictionary getLabelDictionary() {
+        return labelDictionary;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TraceKey getKey(XTrace trace) {
+        int[] buffer = getBuffer(trace.size());
+        int length = encode(trace, -1, buffer);
+        return intern(buffer, length);
+    }
+
+    public TraceKey getKey(XTrace trace, Comparator<String> comparator) {
+        return getKey(trace, null, comparator);
+    }
+
+    public TraceKey getKey(XTrace trace, Map<String, Set<String>> parallel) {
+        return getKey(trace, null, getParallelComparator(parallel));
+    }
+
+    public TraceKey getKey(XTrace trace, String skipLabel, Comparator<String> comparator) {
+        int[] buffer = getBuffer(trace.size());
+        int skip = skipLabel == null ? -1 : labelDictionary.getOrAddIndex(skipLabel);
+        int length = encode(trace, skip, buffer);
+        sort(buffer, length, comparator);
+        return intern(buffer, length);
+    }
+
+    public TraceKey getKey(XTrace trace, String skipLabel, Map<String, Set<String>> parallel) {
+        return getKey(trace, skipLabel, getParallelComparator(parallel));
+    }
+
+    private int[] getBuffer(int size) {
+        int[] buffer = buffers.get();
+        if(buffer.length < size) {
+            buffer = new int[Integer.highestOneBit(size) << 1];
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the number of labels written in the buffer, the skip label is omitted.
+     */
+    private int encode(XTrace trace, int skip, int[] buffer) {
+        int length = 0;
+        for(int i = 0; i < trace.size(); i++) {
+            int label = labelDictionary.getOrAddIndex(nameExtractor.getEventName(trace.get(i)));
+            if(label != skip) {
+                buffer[length++] = label;
+            }
+        }
+        return length;
+    }
+
+    private synchronized TraceKey intern(int[] buffer, int length) {
+        long hash = TraceKey.hash(buffer, length);
+        int mask = table.length - 1;
+        int pos = (int) (hash ^ (hash >>> 32)) & mask;
+
+        TraceKey key;
+        while((key = table[pos]) != null) {
+            if(key.matches(buffer, length, hash)) {
+                return key;
+            }
+            pos = (pos + 1) & mask;
+        }
+
+        key = new TraceKey(Arrays.copyOf(buffer, length), hash, labelDictionary);
+        table[pos] = key;
+        if(++size * 2 > table.length) {
+            rehash();
+        }
+        return key;
+    }
+
+    private void rehash() {
+        TraceKey[] oldTable = table;
+        table = new TraceKey[oldTable.length * 2];
+        int mask = table.length - 1;
+        for(TraceKey key : oldTable) {
+            if(key != null) {
+                int pos = key.hashCode() & mask;
+                while(table[pos] != null) {
+                    pos = (pos + 1) & mask;
+                }
+                table[pos] = key;
+            }
+        }
+    }
+
+    private Comparator<String> getParallelComparator(Map<String, Set<String>> parallel) {
+        return new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                Set<String> concurrent = null;
+                if((concurrent = parallel.get(o1)) != null) {
+                    if(concurrent.contains(o2)) {
+                        return o1.compareTo(o2);
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    private int compare(int label1, int label2, Comparator<String> comparator) {
+        return comparator.compare(labelDictionary.getLabel(label1), labelDictionary.getLabel(label2));
+    }
+
+    /**
+     * Same block sorting of {@link TraceToString}: a new block starts every time a label is equivalent
+     * to the first label of the current block, and each closed block is sorted.
+     */
+    private void sort(int[] labels, int length, Comparator<String> comparator) {
+        int last = 0;
+        for(int i = 1; i < length; i++) {
+            if(compare(labels[last], labels[i], comparator) == 0) {
+                if(last != i - 1) {
+                    sortBlock(labels, last, i, comparator);
+                }
+                last = i;
+            }
+        }
+    }
+
+    /**
+     * The comparators are not total orders, hence the block is sorted with the same algorithm used by
+     * Collections.sort (binary insertion sort below 32 elements) to obtain the same order.
+     */
+    private void sortBlock(int[] labels, int lo, int hi, Comparator<String> comparator) {
+        if(hi - lo >= 32) {
+            String[] block = new String[hi - lo];
+            for(int i = lo; i < hi; i++) {
+                block[i - lo] = labelDictionary.getLabel(labels[i]);
+            }
+            Arrays.sort(block, comparator);
+            for(int i = lo; i < hi; i++) {
+                labels[i] = labelDictionary.getIndex(block[i - lo]);
+            }
+            return;
+        }
+
+        int runHi = lo + 1;
+        if(compare(labels[runHi++], labels[lo], comparator) < 0) {
+            while(runHi < hi && compare(labels[runHi], labels[runHi - 1], comparator) < 0) runHi++;
+            for(int i = lo, j = runHi - 1; i < j; i++, j--) {
+                int tmp = labels[i];
+                labels[i] = labels[j];
+                labels[j] = tmp;
+            }
+        }else {
+            while(runHi < hi && compare(labels[runHi], labels[runHi - 1], comparator) >= 0) runHi++;
+        }
+
+        for(int start = runHi; start < hi; start++) {
+            int pivot = labels[start];
+            int left = lo;
+            int right = start;
+            while(left < right) {
+                int mid = (left + right) >>> 1;
+                if(compare(pivot, labels[mid], comparator) < 0) right = mid;
+                else left = mid + 1;
+            }
+            System.arraycopy(labels, left, labels, left + 1, start - left);
+            labels[left] = pivot;
+        }
+    }
+
+}
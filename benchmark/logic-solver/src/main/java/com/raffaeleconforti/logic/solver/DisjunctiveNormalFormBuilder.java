@@ -1,5 +1,6 @@
 package com.raffaeleconforti.logic.solver;
 
+import com.raffaeleconforti.logic.solver.bdd.BDD;
 import com.raffaeleconforti.logic.solver.builder.LogicElementBuilder;
 import com.raffaeleconforti.logic.solver.elements.*;
 import com.raffaeleconforti.logic.solver.exception.LogicElementValueNotAssigned;
@@ -52,44 +53,12 @@ public class DisjunctiveNormalFormBuilder {
         System.out.println(removeParenthesys(ex.toString()));
     }
 
+    /**
+     * @return the minimal disjunctive normal form of the formula, obtained from its binary decision diagram.
+     */
     public static LogicElement convertToDNF(LogicElement logicElement) throws LogicElementValueNotAssigned {
-        logicElement = logicElement.reduce();
-        if(logicElement instanceof LogicExpression) {
-            LogicExpression logicExpression = (LogicExpression) logicElement;
-            logicExpression.setLeftLogicElement(convertToDNF(logicExpression.getLeftLogicElement()).reduce());
-            logicExpression.setRightLogicElement(convertToDNF(logicExpression.getRightLogicElement()).reduce());
-
-            if (LogicOperator.isAND(logicExpression.getLogicOperator())) {
-                if (logicExpression.getLeftLogicElement() instanceof LogicExpression && logicExpression.getRightLogicElement() instanceof LogicExpression) {
-                    LogicExpression firstExpression = (LogicExpression ) logicExpression.getLeftLogicElement();
-                    LogicExpression secondExpression = (LogicExpression ) logicExpression.getRightLogicElement();
-
-                    if(LogicOperator.isOR(firstExpression.getLogicOperator()) || LogicOperator.isOR(secondExpression.getLogicOperator())) {
-                        LogicExpression leftExpression = convertElement(firstExpression, secondExpression.getLeftLogicElement());
-                        LogicExpression rightExpression = convertElement(firstExpression, secondExpression.getRightLogicElement());
-
-                        LogicElement left = convertToDNF(leftExpression).reduce();
-                        LogicElement right = convertToDNF(rightExpression).reduce();
-                        return new LogicExpression(left, ((LogicExpression) logicExpression.getRightLogicElement()).getLogicOperator(), right);
-                    }
-                } else if (logicExpression.getLeftLogicElement() instanceof LogicExpression) {
-                    return  convertElement((LogicExpression) logicExpression.getLeftLogicElement(), logicExpression.getRightLogicElement());
-                } else if (logicExpression.getRightLogicElement() instanceof LogicExpression) {
-                    return convertElement((LogicExpression) logicExpression.getRightLogicElement(), logicExpression.getLeftLogicElement());
-                }
-            }
-            return logicExpression;
-        }
-        return logicElement;
-    }
-
-    private static LogicExpression convertElement(LogicExpression expression, LogicElement element) throws LogicElementValueNotAssigned {
-        LogicExpression leftExpression = new LogicExpression(expression.getLeftLogicElement(), LogicOperator.AND, element);
-        LogicExpression rightExpression = new LogicExpression(expression.getRightLogicElement(), LogicOperator.AND, element);
-
-        LogicElement left = convertToDNF(leftExpression);
-        LogicElement right = convertToDNF(rightExpression);
-        return new LogicExpression(left, expression.getLogicOperator(), right);
+        BDD bdd = new BDD();
+        return bdd.toDNF(bdd.build(logicElement));
     }
 
     public static String removeParenthesys(String result) {
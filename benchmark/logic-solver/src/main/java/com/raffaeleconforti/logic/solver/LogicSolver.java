@@ -1,14 +1,15 @@
 package com.raffaeleconforti.logic.solver;
 
+import com.raffaeleconforti.logic.solver.bdd.BDD;
 import com.raffaeleconforti.logic.solver.builder.LogicElementBuilder;
 import com.raffaeleconforti.logic.solver.elements.LogicElement;
 import com.raffaeleconforti.logic.solver.elements.LogicFunction;
 import com.raffaeleconforti.logic.solver.elements.LogicSystem;
 import com.raffaeleconforti.logic.solver.exception.LogicElementValueNotAssigned;
-import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
-import java.util.StringTokenizer;
 
 /**
  * Created by conforti on 9/08/15.
@@ -39,39 +40,19 @@ public class LogicSolver {
     }
 
     public static LogicElement solve(LogicElement logicElement) throws LogicElementValueNotAssigned {
-        LogicElement dnfLogicElement = DisjunctiveNormalFormBuilder.convertToDNF(logicElement);
-        System.out.println(dnfLogicElement);
-        System.out.println(DisjunctiveNormalFormBuilder.removeParenthesys(dnfLogicElement.toString()));
-        System.out.println(idenditySmallestConjunction(DisjunctiveNormalFormBuilder.removeParenthesys(dnfLogicElement.toString())));
+        BDD bdd = new BDD();
+        int node = bdd.build(logicElement);
+        System.out.println(bdd.toDNF(node));
+        System.out.println(identifySmallestConjunction(bdd, node));
         return logicElement;
     }
 
-    private static String idenditySmallestConjunction(String expression) {
-        StringTokenizer stringTokenizer = new StringTokenizer(expression, " ");
-
-        Set<String> set = null;
-        Set<String> smallest = null;
-
-        while (stringTokenizer.hasMoreTokens()) {
-            String token = stringTokenizer.nextToken();
-            if(token.equals("(")) {
-                set = new UnifiedSet<String>();
-            }else if(token.equals(")")) {
-                if(checkIfSmallerList(smallest, set)) {
-                    smallest = set;
-                }
-            }else {
-                if(!token.equals("AND") && !token.equals("OR")) {
-                    set.add(token);
-                }
-            }
-        }
-
-        return smallest.toString();
-    }
-
-    private static boolean checkIfSmallerList(Set<String> smallest, Set<String> set) {
-        return smallest == null || smallest.size() > set.size();
+    /**
+     * @return the atoms of a smallest conjunction of the minimal disjunctive normal form, null if unsatisfiable.
+     */
+    private static Set<String> identifySmallestConjunction(BDD bdd, int node) {
+        List<BitSet> implicants = bdd.primeImplicants(node);
+        return implicants.isEmpty() ? null : bdd.toVariableNames(implicants.get(0));
     }
 
 }
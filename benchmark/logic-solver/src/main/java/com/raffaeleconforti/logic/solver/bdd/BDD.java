@@ -0,0 +1,329 @@
+package com.raffaeleconforti.logic.solver.bdd;
+
+import com.raffaeleconforti.logic.solver.elements.*;
+import com.raffaeleconforti.logic.solver.exception.LogicElementValueNotAssigned;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+
+import java.util.*;
+
+/**
+ * Reduced ordered binary decision diagrams of the formulas of the solver, whose atoms are the variables.
+ *
+ * A diagram is identified by the index of its root node, {@link #FALSE} and {@link #TRUE} being the terminals. The
+ * nodes are hash-consed in a unique table, so that two formulas are equivalent if and only if they have the same root,
+ * and the results of the operations are kept in a lossy cache. The variables are ordered by their first appearance,
+ * unless declared beforehand with {@link #declareVariable(String)}.
+ *
+ * The formulas have no negation, hence their functions are monotone: the minimal disjunctive normal form is the set of
+ * the prime implicants, and the minimal conjunctive normal form is given by the prime implicants of the dual function.
+ */
+public class BDD {
+
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    private static final int TERMINAL = Integer.MAX_VALUE;
+
+    private static final int OP_AND = 0;
+    private static final int OP_OR = 1;
+    private static final int OP_DUAL = 2;
+
+    private final Map<String, Integer> variableIndex = new UnifiedMap<String, Integer>();
+    private final List<String> variableNames = new ArrayList<String>();
+
+    private int[] variables;
+    private int[] lows;
+    private int[] highs;
+    private int size;
+
+    // Unique table, open addressing on the nodes (variable, low, high), -1 marks an empty slot
+    private int[] table;
+
+    private final int[] cacheOps;
+    private final int[] cacheLefts;
+    private final int[] cacheRights;
+    private final int[] cacheResults;
+
+    public BDD() {
+        this(1 << 10, 1 << 14);
+    }
+
+    /**
+     * @param nodes     the initial capacity of the unique table.
+     * @param cacheSize the number of entries of the operation cache, rounded up to a power of two.
+     */
+    public BDD(int nodes, int cacheSize) {
+        int capacity = Math.max(4, nodes);
+        variables = new int[capacity];
+        lows = new int[capacity];
+        highs = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity - 1) << 2];
+        Arrays.fill(table, -1);
+
+        variables[FALSE] = TERMINAL;
+        variables[TRUE] = TERMINAL;
+        size = 2;
+
+        int entries = Integer.highestOneBit(Math.max(2, cacheSize) - 1) << 1;
+        cacheOps = new int[entries];
+        cacheLefts = new int[entries];
+        cacheRights = new int[entries];
+        cacheResults = new int[entries];
+        Arrays.fill(cacheOps, -1);
+    }
+
+    /**
+     * Appends a variable to the order, if not already there.
+     */
+    public int declareVariable(String name) {
+        Integer index = variableIndex.get(name);
+        if (index == null) {
+            index = variableNames.size();
+            variableIndex.put(name, index);
+            variableNames.add(name);
+        }
+        return index;
+    }
+
+    public int variable(String name) {
+        return mk(declareVariable(name), FALSE, TRUE);
+    }
+
+    public int getVariable(int node) {
+        return variables[node];
+    }
+
+    public String getVariableName(int variable) {
+        return variableNames.get(variable);
+    }
+
+    public int getLow(int node) {
+        return lows[node];
+    }
+
+    public int getHigh(int node) {
+        return highs[node];
+    }
+
+    public int getNodeCount() {
+        return size;
+    }
+
+    /**
+     * @return the diagram of a formula; the functions are replaced by their formula.
+     * @throws LogicElementValueNotAssigned if the formula refers to a function through a bookmark, which must have
+     *                                      been replaced beforehand (see {@link LogicSystem#reduce()}).
+     */
+    public int build(LogicElement logicElement) throws LogicElementValueNotAssigned {
+        if (logicElement instanceof BooleanElement) {
+            return ((BooleanElement) logicElement).isValue() ? TRUE : FALSE;
+        } else if (logicElement instanceof AtomicElement) {
+            return variable(((AtomicElement) logicElement).getName());
+        } else if (logicElement instanceof LogicFunction) {
+            return build(((LogicFunction) logicElement).getElement());
+        } else if (logicElement instanceof LogicExpression) {
+            LogicExpression logicExpression = (LogicExpression) logicElement;
+            int left = build(logicExpression.getLeftLogicElement());
+            int right = build(logicExpression.getRightLogicElement());
+            if (LogicOperator.isAND(logicExpression.getLogicOperator())) return and(left, right);
+            else return or(left, right);
+        }
+        throw new LogicElementValueNotAssigned();
+    }
+
+    public int and(int left, int right) {
+        return apply(OP_AND, left, right);
+    }
+
+    public int or(int left, int right) {
+        return apply(OP_OR, left, right);
+    }
+
+    private int mk(int variable, int low, int high) {
+        if (low == high) return low;
+
+        int mask = table.length - 1;
+        int slot = hash(variable, low, high) & mask;
+        int node;
+        while ((node = table[slot]) >= 0) {
+            if (variables[node] == variable && lows[node] == low && highs[node] == high) return node;
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == variables.length) {
+            int capacity = size * 2;
+            variables = Arrays.copyOf(variables, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+        }
+        node = size++;
+        variables[node] = variable;
+        lows[node] = low;
+        highs[node] = high;
+        table[slot] = node;
+
+        // Kept at most half full
+        if (size * 2 > table.length) rehash();
+        return node;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        for (int node = 2; node < size; node++) {
+            int slot = hash(variables[node], lows[node], highs[node]) & mask;
+            while (table[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = node;
+        }
+    }
+
+    private static int hash(int a, int b, int c) {
+        int h = a * 0x9E3779B1;
+        h = (h ^ b) * 0x85EBCA6B;
+        h = (h ^ c) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    private int apply(int op, int left, int right) {
+        if (op == OP_AND) {
+            if (left == FALSE || right == FALSE) return FALSE;
+            if (left == TRUE || left == right) return right;
+            if (right == TRUE) return left;
+        } else {
+            if (left == TRUE || right == TRUE) return TRUE;
+            if (left == FALSE || left == right) return right;
+            if (right == FALSE) return left;
+        }
+        // Both operations are commutative
+        if (left > right) {
+            int swap = left;
+            left = right;
+            right = swap;
+        }
+
+        int slot = hash(op, left, right) & (cacheOps.length - 1);
+        if (cacheOps[slot] == op && cacheLefts[slot] == left && cacheRights[slot] == right) {
+            return cacheResults[slot];
+        }
+
+        int variable = Math.min(variables[left], variables[right]);
+        int leftLow = variables[left] == variable ? lows[left] : left;
+        int leftHigh = variables[left] == variable ? highs[left] : left;
+        int rightLow = variables[right] == variable ? lows[right] : right;
+        int rightHigh = variables[right] == variable ? highs[right] : right;
+        int result = mk(variable, apply(op, leftLow, rightLow), apply(op, leftHigh, rightHigh));
+
+        cacheOps[slot] = op;
+        cacheLefts[slot] = left;
+        cacheRights[slot] = right;
+        cacheResults[slot] = result;
+        return result;
+    }
+
+    /**
+     * @return the dual of a function, i.e. the function with AND and OR exchanged in its formulas.
+     */
+    public int dual(int node) {
+        if (node == FALSE) return TRUE;
+        if (node == TRUE) return FALSE;
+
+        int slot = hash(OP_DUAL, node, 0) & (cacheOps.length - 1);
+        if (cacheOps[slot] == OP_DUAL && cacheLefts[slot] == node) {
+            return cacheResults[slot];
+        }
+
+        // not f(not x): the branches of each variable are exchanged and the terminals negated
+        int result = mk(variables[node], dual(highs[node]), dual(lows[node]));
+
+        cacheOps[slot] = OP_DUAL;
+        cacheLefts[slot] = node;
+        cacheRights[slot] = 0;
+        cacheResults[slot] = result;
+        return result;
+    }
+
+    /**
+     * @return the prime implicants of a monotone function as sets of variables, the smallest first.
+     */
+    public List<BitSet> primeImplicants(int node) {
+        List<BitSet> implicants = new ArrayList<BitSet>(primeImplicants(node, new UnifiedMap<Integer, List<BitSet>>()));
+        Collections.sort(implicants, new Comparator<BitSet>() {
+            @Override
+            public int compare(BitSet o1, BitSet o2) {
+                if (o1.cardinality() != o2.cardinality()) return Integer.compare(o1.cardinality(), o2.cardinality());
+                for (int i = o1.nextSetBit(0), j = o2.nextSetBit(0); i >= 0; i = o1.nextSetBit(i + 1), j = o2.nextSetBit(j + 1)) {
+                    if (i != j) return Integer.compare(i, j);
+                }
+                return 0;
+            }
+        });
+        return implicants;
+    }
+
+    /**
+     * The minimal sets of variables satisfying f = (not x and f0) or (x and f1), with f0 implying f1, are those of f0
+     * and x added to those of f1 which do not satisfy f0, i.e. which are not minimal sets of f0.
+     */
+    private List<BitSet> primeImplicants(int node, Map<Integer, List<BitSet>> memo) {
+        if (node == FALSE) return Collections.emptyList();
+        if (node == TRUE) return Collections.singletonList(new BitSet());
+
+        List<BitSet> implicants = memo.get(node);
+        if (implicants == null) {
+            List<BitSet> lowImplicants = primeImplicants(lows[node], memo);
+            List<BitSet> highImplicants = primeImplicants(highs[node], memo);
+            Set<BitSet> lowSet = new UnifiedSet<BitSet>(lowImplicants);
+
+            implicants = new ArrayList<BitSet>(lowImplicants);
+            for (BitSet implicant : highImplicants) {
+                if (!lowSet.contains(implicant)) {
+                    BitSet extended = (BitSet) implicant.clone();
+                    extended.set(variables[node]);
+                    implicants.add(extended);
+                }
+            }
+            memo.put(node, implicants);
+        }
+        return implicants;
+    }
+
+    /**
+     * @return the minimal disjunctive normal form of a function, as a binary OR of binary ANDs.
+     */
+    public LogicElement toDNF(int node) {
+        return toLogicElement(primeImplicants(node), LogicOperator.OR, LogicOperator.AND);
+    }
+
+    /**
+     * @return the minimal conjunctive normal form of a function, as a binary AND of binary ORs.
+     */
+    public LogicElement toCNF(int node) {
+        return toLogicElement(primeImplicants(dual(node)), LogicOperator.AND, LogicOperator.OR);
+    }
+
+    private LogicElement toLogicElement(List<BitSet> terms, LogicOperator outer, LogicOperator inner) {
+        LogicElement result = null;
+        for (BitSet term : terms) {
+            LogicElement element = null;
+            for (int variable = term.nextSetBit(0); variable >= 0; variable = term.nextSetBit(variable + 1)) {
+                AtomicElement atomicElement = new AtomicElement(variableNames.get(variable));
+                element = element == null ? atomicElement : new LogicExpression(element, inner, atomicElement);
+            }
+            if (element == null) element = new BooleanElement(LogicOperator.isAND(inner));
+            result = result == null ? element : new LogicExpression(result, outer, element);
+        }
+        return result == null ? new BooleanElement(LogicOperator.isAND(outer)) : result;
+    }
+
+    public Set<String> toVariableNames(BitSet term) {
+        Set<String> names = new UnifiedSet<String>();
+        for (int variable = term.nextSetBit(0); variable >= 0; variable = term.nextSetBit(variable + 1)) {
+            names.add(variableNames.get(variable));
+        }
+        return names;
+    }
+}
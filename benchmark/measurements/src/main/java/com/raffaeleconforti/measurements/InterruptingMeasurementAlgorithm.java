@@ -1,16 +1,12 @@
 package com.raffaeleconforti.measurements;
 
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.model.XLog;
 import org.processmining.contexts.uitopia.UIPluginContext;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 9/11/16.
  */
@@ -30,18 +26,11 @@ public class InterruptingMeasurementAlgorithm {
         Runnable runnable = new Runnable() {
             @Override
             public void run() {
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
-
-                try {
+                try (QuietScope ignored = QuietScope.mute()) {
                     result[0] = measurementAlgorithm.computeMeasurement(pluginContext, xEventClassifier, petrinetWithMarking, miningAlgorithm, log).getValue();
                 } catch (Exception e) {
 
                 }
-
-                System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             }
         };
         Thread t = new Thread(runnable);
@@ -69,7 +58,6 @@ public class InterruptingMeasurementAlgorithm {
 
         }
         if(reached) {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             System.out.println(getMeasurementName() + " - Timeout Reached!");
         }
 
@@ -0,0 +1,306 @@
+package com.raffaeleconforti.measurements.dafsa;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal deterministic acyclic finite-state automaton accepting the variants of a log, built incrementally over
+ * the int-encoded variants sorted in lexicographic order (Daciuk et al., 2000). Variants sharing a prefix share
+ * the states of the prefix, and variants sharing a suffix share the states of the suffix.
+ *
+ * States are numbered from 0 (the initial state); the transitions of each state are sorted by label.
+ * Words are kept in lexicographic order, each with its frequency.
+ */
+public class DAFSA {
+
+    private static final Comparator<int[]> LEXICOGRAPHIC = new Comparator<int[]>() {
+        @Override
+        public int compare(int[] o1, int[] o2) {
+            int length = Math.min(o1.length, o2.length);
+            for(int i = 0; i < length; i++) {
+                if(o1[i] != o2[i]) return o1[i] < o2[i] ? -1 : 1;
+            }
+            return Integer.compare(o1.length, o2.length);
+        }
+    };
+
+    private final int[][] labels;
+    private final int[][] targets;
+    private final boolean[] finals;
+    private final int[] inDegrees;
+    private final boolean[] uniqueSuffix;
+
+    private final int[][] words;
+    private final int[] frequencies;
+
+    private DAFSA(List<Builder.State> states, int[][] words, int[] frequencies) {
+        int size = states.size();
+        this.labels = new int[size][];
+        this.targets = new int[size][];
+        this.finals = new boolean[size];
+        this.inDegrees = new int[size];
+        this.uniqueSuffix = new boolean[size];
+        this.words = words;
+        this.frequencies = frequencies;
+
+        for(int i = 0; i < size; i++) {
+            Builder.State state = states.get(i);
+            labels[i] = state.labels.toArray();
+            targets[i] = new int[state.targets.size()];
+            for(int j = 0; j < targets[i].length; j++) {
+                targets[i][j] = state.targets.get(j).id;
+                inDegrees[targets[i][j]]++;
+            }
+            finals[i] = state.isFinal;
+        }
+
+        // Every target has a higher number than its source
+        int[] rightLanguageSize = new int[size];
+        for(int i = size - 1; i >= 0; i--) {
+            int count = finals[i] ? 1 : 0;
+            for(int target : targets[i]) {
+                count = Math.min(2, count + rightLanguageSize[target]);
+            }
+            rightLanguageSize[i] = count;
+            uniqueSuffix[i] = count == 1;
+        }
+    }
+
+    /**
+     * Builds the automaton of the given words, each with its frequency. Duplicated words are merged.
+     */
+    public static DAFSA build(final int[][] words, int[] frequencies) {
+        Integer[] order = new Integer[words.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return LEXICOGRAPHIC.compare(words[o1], words[o2]);
+            }
+        });
+
+        Builder builder = new Builder();
+        List<int[]> sortedWords = new ArrayList<>(words.length);
+        IntArrayList sortedFrequencies = new IntArrayList(words.length);
+        int[] previous = null;
+        for(int i : order) {
+            if(previous != null && LEXICOGRAPHIC.compare(previous, words[i]) == 0) {
+                int last = sortedFrequencies.size() - 1;
+                sortedFrequencies.set(last, sortedFrequencies.get(last) + frequencies[i]);
+                continue;
+            }
+            builder.add(words[i]);
+            sortedWords.add(words[i]);
+            sortedFrequencies.add(frequencies[i]);
+            previous = words[i];
+        }
+
+        return new DAFSA(builder.finish(), sortedWords.toArray(new int[sortedWords.size()][]), sortedFrequencies.toArray());
+    }
+
+    public int size() {
+        return finals.length;
+    }
+
+    public int getInitialState() {
+        return 0;
+    }
+
+    public boolean isFinal(int state) {
+        return finals[state];
+    }
+
+    public int[] getLabels(int state) {
+        return labels[state];
+    }
+
+    public int[] getTargets(int state) {
+        return targets[state];
+    }
+
+    /**
+     * @return the state reached from the given state with the label, or -1.
+     */
+    public int getTarget(int state, int label) {
+        int pos = Arrays.binarySearch(labels[state], label);
+        return pos < 0 ? -1 : targets[state][pos];
+    }
+
+    public int getInDegree(int state) {
+        return inDegrees[state];
+    }
+
+    /**
+     * @return true if exactly one word can be read from the state to a final state.
+     */
+    public boolean hasUniqueSuffix(int state) {
+        return uniqueSuffix[state];
+    }
+
+    public int countWords() {
+        return words.length;
+    }
+
+    public int[] getWord(int word) {
+        return words[word];
+    }
+
+    public int getFrequency(int word) {
+        return frequencies[word];
+    }
+
+    /**
+     * @return the states visited reading the word, starting from the initial state.
+     */
+    public int[] getPath(int word) {
+        int[] path = new int[words[word].length + 1];
+        path[0] = getInitialState();
+        for(int i = 0; i < words[word].length; i++) {
+            path[i + 1] = getTarget(path[i], words[word][i]);
+        }
+        return path;
+    }
+
+    private static class Builder {
+
+        private final State root = new State();
+        private final Map<State, State> register = new UnifiedMap<>();
+        private int[] previous = new int[0];
+
+        private void add(int[] word) {
+            int prefix = 0;
+            State state = root;
+            while(prefix < word.length && prefix < previous.length && word[prefix] == previous[prefix]) {
+                state = state.lastChild();
+                prefix++;
+            }
+
+            if(state.hasChildren()) replaceOrRegister(state);
+
+            for(int i = prefix; i < word.length; i++) {
+                State next = new State();
+                state.labels.add(word[i]);
+                state.targets.add(next);
+                state = next;
+            }
+            state.isFinal = true;
+            previous = word;
+        }
+
+        /**
+         * Replaces the states along the last path from the given state with their registered equivalents,
+         * from the deepest one up, registering the ones without an equivalent.
+         */
+        private void replaceOrRegister(State state) {
+            List<State> path = new ArrayList<>();
+            while(state.hasChildren()) {
+                path.add(state);
+                state = state.lastChild();
+            }
+
+            for(int i = path.size() - 1; i >= 0; i--) {
+                State parent = path.get(i);
+                State child = parent.lastChild();
+                State equivalent;
+                if((equivalent = register.get(child)) != null) {
+                    parent.targets.set(parent.targets.size() - 1, equivalent);
+                }else {
+                    register.put(child, child);
+                }
+            }
+        }
+
+        private List<State> finish() {
+            if(root.hasChildren()) replaceOrRegister(root);
+
+            List<State> states = new ArrayList<>();
+            number(root, states);
+            return states;
+        }
+
+        /**
+         * Numbers the states in reverse post-order, so that every target has a higher number than its source.
+         */
+        private void number(State state, List<State> states) {
+            // Iterative visit, words can be long
+            List<State> stack = new ArrayList<>();
+            IntArrayList next = new IntArrayList();
+            state.id = -2;
+            stack.add(state);
+            next.add(0);
+            while(!stack.isEmpty()) {
+                int top = stack.size() - 1;
+                State current = stack.get(top);
+                int child = next.get(top);
+                if(child < current.targets.size()) {
+                    next.set(top, child + 1);
+                    State target = current.targets.get(child);
+                    if(target.id == -1) {
+                        target.id = -2;
+                        stack.add(target);
+                        next.add(0);
+                    }
+                }else {
+                    stack.remove(top);
+                    next.removeAtIndex(top);
+                    states.add(current);
+                }
+            }
+
+            Collections.reverse(states);
+            for(int i = 0; i < states.size(); i++) {
+                states.get(i).id = i;
+            }
+        }
+
+        private static class State {
+
+            private boolean isFinal = false;
+            private final IntArrayList labels = new IntArrayList(2);
+            private final List<State> targets = new ArrayList<>(2);
+            // -1 until visited by the numbering, -2 while being visited
+            private int id = -1;
+
+            private boolean hasChildren() {
+                return !targets.isEmpty();
+            }
+
+            private State lastChild() {
+                return targets.get(targets.size() - 1);
+            }
+
+            // Only used on registered states and on states whose children are all registered,
+            // hence children can be compared by identity
+            @Override
+            public int hashCode() {
+                int hash = isFinal ? 1 : 0;
+                for(int i = 0; i < targets.size(); i++) {
+                    hash = 31 * (31 * hash + labels.get(i)) + System.identityHashCode(targets.get(i));
+                }
+                return hash;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if(this == o) return true;
+                if(!(o instanceof State)) return false;
+                State state = (State) o;
+                if(isFinal != state.isFinal || targets.size() != state.targets.size() || !labels.equals(state.labels)) return false;
+                for(int i = 0; i < targets.size(); i++) {
+                    if(targets.get(i) != state.targets.get(i)) return false;
+                }
+                return true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,364 @@
+package com.raffaeleconforti.measurements.dafsa;
+
+import com.raffaeleconforti.log.util.LogProfile;
+import com.raffaeleconforti.log.util.TraceKey;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XLog;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aligns the variants of a log, represented as a {@link DAFSA}, with the {@link ReachabilityGraph} of a net.
+ * Log moves and visible model moves cost 1, synchronous moves and invisible model moves cost 0.
+ *
+ * Alignments are computed by dynamic programming over the synchronous product of the two automata. The forward
+ * costs (the cost of aligning a prefix and reaching each marking) are kept on a stack while the variants are
+ * visited in lexicographic order, hence each prefix shared by several variants is aligned once. The backward
+ * costs (the cost of aligning a suffix from each marking to a final marking) are computed at the states of the
+ * DAFSA from which a single suffix can be read and memoised, hence each suffix shared by several variants is
+ * aligned once. The cost of a variant is the minimum, over the markings, of the forward cost of its prefix up
+ * to the first such state plus the backward cost of its suffix from there, which is exactly its optimal
+ * alignment cost.
+ */
+public class DAFSAConformanceChecker {
+
+    public static final int DEFAULT_MAX_STATES = 500000;
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    // Number of costs kept by the cache of backward costs
+    private static final int CACHE_CAPACITY = 1 << 24;
+
+    private final DAFSA dafsa;
+    private final ReachabilityGraph graph;
+    private final int[] endCosts;
+    private final Map<Integer, int[]> suffixCosts;
+    private final int[][] enabledLabels;
+
+    public DAFSAConformanceChecker(DAFSA dafsa, ReachabilityGraph graph) {
+        this.dafsa = dafsa;
+        this.graph = graph;
+        this.enabledLabels = new int[graph.size()][];
+
+        endCosts = new int[graph.size()];
+        Arrays.fill(endCosts, INFINITY);
+        for(int m = 0; m < graph.size(); m++) {
+            if(graph.isFinal(m)) endCosts[m] = 0;
+        }
+        close(endCosts, false);
+        if(endCosts[graph.getInitialState()] >= INFINITY) throw new IllegalStateException("No final marking is reachable from the initial marking");
+
+        final int capacity = Math.max(2, CACHE_CAPACITY / Math.max(1, graph.size()));
+        suffixCosts = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public static DAFSAConformanceChecker create(PetrinetWithMarking petrinetWithMarking, XLog log, XEventClassifier xEventClassifier) {
+        LogProfile profile = LogProfile.getProfile(log, xEventClassifier);
+        Map<TraceKey, Integer> variants = profile.getVariants();
+        int[][] words = new int[variants.size()][];
+        int[] frequencies = new int[variants.size()];
+        int i = 0;
+        for(Map.Entry<TraceKey, Integer> entry : variants.entrySet()) {
+            words[i] = entry.getKey().getLabels();
+            frequencies[i++] = entry.getValue();
+        }
+        return new DAFSAConformanceChecker(DAFSA.build(words, frequencies), ReachabilityGraph.build(petrinetWithMarking, profile.getLabelDictionary(), DEFAULT_MAX_STATES));
+    }
+
+    public DAFSA getDAFSA() {
+        return dafsa;
+    }
+
+    public ReachabilityGraph getReachabilityGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the cost of the cheapest run of the net from the initial to a final marking.
+     */
+    public int getShortestRunCost() {
+        return endCosts[graph.getInitialState()];
+    }
+
+    /**
+     * @return the optimal alignment cost of each word of the DAFSA.
+     */
+    public int[] computeAlignmentCosts() {
+        int[] costs = new int[dafsa.countWords()];
+        List<int[]> forward = new ArrayList<>();
+        int[] previous = null;
+        for(int w = 0; w < dafsa.countWords(); w++) {
+            int[] word = dafsa.getWord(w);
+            int[] path = dafsa.getPath(w);
+
+            int split = 0;
+            while(split < word.length && !dafsa.hasUniqueSuffix(path[split])) {
+                split++;
+            }
+            int[] backward = (split < word.length) ? getSuffixCosts(path[split]) : endCosts;
+
+            truncate(forward, commonPrefix(previous, word) + 1);
+            while(forward.size() <= split) {
+                int depth = forward.size();
+                forward.add(depth == 0 ? getInitialCosts() : forwardStep(forward.get(depth - 1), word[depth - 1]));
+            }
+
+            int[] prefix = forward.get(split);
+            int cost = INFINITY;
+            for(int m = 0; m < prefix.length; m++) {
+                cost = Math.min(cost, prefix[m] + backward[m]);
+            }
+            costs[w] = cost;
+            previous = word;
+        }
+        return costs;
+    }
+
+    /**
+     * Average of the trace fitness values, 1 - cost / (length of the trace + cost of the shortest run),
+     * weighted by the frequency of each variant, as the trace fitness reported by the alignment replayer.
+     */
+    public double computeFitness() {
+        int[] costs = computeAlignmentCosts();
+        double fitness = 0;
+        long traces = 0;
+        for(int w = 0; w < costs.length; w++) {
+            int worstCost = dafsa.getWord(w).length + getShortestRunCost();
+            fitness += dafsa.getFrequency(w) * ((worstCost == 0) ? 1.0 : 1.0 - (double) costs[w] / worstCost);
+            traces += dafsa.getFrequency(w);
+        }
+        return (traces == 0) ? Double.NaN : fitness / traces;
+    }
+
+    /**
+     * Escaping-edges precision over the optimal prefix alignments. For each prefix of the log followed by an event,
+     * weighted by the number of traces having it, the allowed activities are the visible labels enabled (possibly
+     * after invisible moves) in the markings reached with the minimal alignment cost, and the escaping ones are
+     * those not following the prefix anywhere in the log.
+     */
+    public double computePrecision() {
+        List<Prefix> prefixes = new ArrayList<>();
+        double[] sums = new double[2];
+        int[] previous = null;
+        for(int w = 0; w < dafsa.countWords(); w++) {
+            int[] word = dafsa.getWord(w);
+
+            int keep = Math.min(prefixes.size(), commonPrefix(previous, word) + 1);
+            while(prefixes.size() > keep) {
+                prefixes.remove(prefixes.size() - 1).account(sums);
+            }
+            while(prefixes.size() < word.length) {
+                int depth = prefixes.size();
+                int[] costs;
+                if(depth == 0) costs = getInitialCosts();
+                else costs = forwardStep(prefixes.get(depth - 1).costs, word[depth - 1]);
+                prefixes.add(new Prefix(costs));
+            }
+
+            for(int d = 0; d < word.length; d++) {
+                prefixes.get(d).weight += dafsa.getFrequency(w);
+                prefixes.get(d).reflected.add(word[d]);
+            }
+            previous = word;
+        }
+        while(!prefixes.isEmpty()) {
+            prefixes.remove(prefixes.size() - 1).account(sums);
+        }
+
+        return (sums[1] == 0) ? 1.0 : 1.0 - sums[0] / sums[1];
+    }
+
+    private static int commonPrefix(int[] previous, int[] word) {
+        if(previous == null) return -1;
+        int length = 0;
+        while(length < previous.length && length < word.length && previous[length] == word[length]) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void truncate(List<int[]> list, int size) {
+        while(list.size() > Math.max(0, size)) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    private int[] getInitialCosts() {
+        int[] costs = new int[graph.size()];
+        Arrays.fill(costs, INFINITY);
+        costs[graph.getInitialState()] = 0;
+        close(costs, true);
+        return costs;
+    }
+
+    /**
+     * Costs of aligning the prefix extended with the label, from the closed costs of the prefix.
+     */
+    private int[] forwardStep(int[] costs, int label) {
+        int[] next = new int[costs.length];
+        Arrays.fill(next, INFINITY);
+        for(int m = 0; m < costs.length; m++) {
+            if(costs[m] >= INFINITY) continue;
+            next[m] = Math.min(next[m], costs[m] + 1);
+            int[] labels = graph.getLabels(m);
+            int[] targets = graph.getTargets(m);
+            for(int j = 0; j < labels.length; j++) {
+                if(labels[j] == label && costs[m] < next[targets[j]]) next[targets[j]] = costs[m];
+            }
+        }
+        close(next, true);
+        return next;
+    }
+
+    /**
+     * Costs of aligning the suffix preceded by the label, from the closed costs of the suffix.
+     */
+    private int[] backwardStep(int[] costs, int label) {
+        int[] next = new int[costs.length];
+        for(int m = 0; m < costs.length; m++) {
+            int cost = costs[m] + 1;
+            int[] labels = graph.getLabels(m);
+            int[] targets = graph.getTargets(m);
+            for(int j = 0; j < labels.length; j++) {
+                if(labels[j] == label) cost = Math.min(cost, costs[targets[j]]);
+            }
+            next[m] = Math.min(cost, INFINITY);
+        }
+        close(next, false);
+        return next;
+    }
+
+    /**
+     * Backward costs of the single suffix readable from the state, computed from the deepest memoised state
+     * of the suffix (or from its end) and memoised at every state of the suffix.
+     */
+    private int[] getSuffixCosts(int state) {
+        int[] costs = suffixCosts.get(state);
+        IntArrayList path = new IntArrayList();
+        int current = state;
+        while(costs == null) {
+            if(dafsa.getLabels(current).length == 0) {
+                costs = endCosts;
+                break;
+            }
+            path.add(current);
+            current = dafsa.getTargets(current)[0];
+            costs = suffixCosts.get(current);
+        }
+
+        for(int i = path.size() - 1; i >= 0; i--) {
+            costs = backwardStep(costs, dafsa.getLabels(path.get(i))[0]);
+            suffixCosts.put(path.get(i), costs);
+        }
+        return costs;
+    }
+
+    /**
+     * Closes the costs under model moves (forwards) or under model moves preceding the markings (backwards),
+     * using a bucket queue since moves cost either 0 or 1.
+     */
+    private void close(int[] costs, boolean forwards) {
+        List<IntArrayList> buckets = new ArrayList<>();
+        for(int m = 0; m < costs.length; m++) {
+            if(costs[m] < INFINITY) getBucket(buckets, costs[m]).add(m);
+        }
+
+        for(int cost = 0; cost < buckets.size(); cost++) {
+            IntArrayList bucket = buckets.get(cost);
+            if(bucket == null) continue;
+            // Invisible moves add to the bucket being visited
+            for(int i = 0; i < bucket.size(); i++) {
+                int m = bucket.get(i);
+                if(costs[m] != cost) continue;
+                int[] labels = forwards ? graph.getLabels(m) : graph.getReverseLabels(m);
+                int[] nodes = forwards ? graph.getTargets(m) : graph.getReverseSources(m);
+                for(int j = 0; j < labels.length; j++) {
+                    int next = cost + ((labels[j] == ReachabilityGraph.TAU) ? 0 : 1);
+                    if(next < costs[nodes[j]]) {
+                        costs[nodes[j]] = next;
+                        getBucket(buckets, next).add(nodes[j]);
+                    }
+                }
+            }
+            buckets.set(cost, null);
+        }
+    }
+
+    private static IntArrayList getBucket(List<IntArrayList> buckets, int cost) {
+        while(buckets.size() <= cost) {
+            buckets.add(null);
+        }
+        IntArrayList bucket = buckets.get(cost);
+        if(bucket == null) {
+            bucket = new IntArrayList();
+            buckets.set(cost, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Visible labels enabled in the marking or in the markings reachable from it with invisible moves.
+     */
+    private int[] getEnabledLabels(int state) {
+        if(enabledLabels[state] == null) {
+            IntHashSet labels = new IntHashSet();
+            IntHashSet visited = new IntHashSet();
+            IntArrayList stack = new IntArrayList();
+            stack.add(state);
+            visited.add(state);
+            while(!stack.isEmpty()) {
+                int m = stack.removeAtIndex(stack.size() - 1);
+                int[] mLabels = graph.getLabels(m);
+                int[] mTargets = graph.getTargets(m);
+                for(int j = 0; j < mLabels.length; j++) {
+                    if(mLabels[j] != ReachabilityGraph.TAU) labels.add(mLabels[j]);
+                    else if(visited.add(mTargets[j])) stack.add(mTargets[j]);
+                }
+            }
+            enabledLabels[state] = labels.toArray();
+        }
+        return enabledLabels[state];
+    }
+
+    private class Prefix {
+
+        private final int[] costs;
+        private final IntHashSet reflected = new IntHashSet();
+        private long weight = 0;
+
+        private Prefix(int[] costs) {
+            this.costs = costs;
+        }
+
+        private void account(double[] sums) {
+            int min = INFINITY;
+            for(int cost : costs) {
+                min = Math.min(min, cost);
+            }
+
+            IntHashSet allowed = new IntHashSet();
+            for(int m = 0; m < costs.length; m++) {
+                if(costs[m] == min) allowed.addAll(getEnabledLabels(m));
+            }
+
+            int escaping = 0;
+            for(int label : allowed.toArray()) {
+                if(!reflected.contains(label)) escaping++;
+            }
+            sums[0] += (double) weight * escaping;
+            sums[1] += (double) weight * allowed.size();
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.raffaeleconforti.measurements.dafsa;
+
+import com.raffaeleconforti.log.util.LabelDictionary;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.processmining.models.graphbased.directed.petrinet.Petrinet;
+import org.processmining.models.graphbased.directed.petrinet.PetrinetEdge;
+import org.processmining.models.graphbased.directed.petrinet.PetrinetNode;
+import org.processmining.models.graphbased.directed.petrinet.elements.Arc;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.models.semantics.petrinet.Marking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reachability graph of a Petri net with int-encoded markings and labels, explored breadth-first from the
+ * initial marking. Visible transitions are labelled with the index of their label in the {@link LabelDictionary}
+ * of the log, labels not occurring in the log get indexes following the ones of the dictionary (which is not
+ * modified) and invisible transitions are labelled {@link #TAU}.
+ *
+ * The exploration stops with an {@link IllegalStateException} when the number of markings exceeds the given limit,
+ * which also guards against unbounded nets.
+ */
+public class ReachabilityGraph {
+
+    public static final int TAU = -1;
+
+    private final int[][] labels;
+    private final int[][] targets;
+    private final int[][] reverseLabels;
+    private final int[][] reverseSources;
+    private final boolean[] finals;
+
+    private ReachabilityGraph(List<IntArrayList> labels, List<IntArrayList> targets, boolean[] finals) {
+        int size = finals.length;
+        this.labels = new int[size][];
+        this.targets = new int[size][];
+        this.reverseLabels = new int[size][];
+        this.reverseSources = new int[size][];
+        this.finals = finals;
+
+        int[] inDegrees = new int[size];
+        for(int i = 0; i < size; i++) {
+            this.labels[i] = labels.get(i).toArray();
+            this.targets[i] = targets.get(i).toArray();
+            for(int target : this.targets[i]) {
+                inDegrees[target]++;
+            }
+        }
+        for(int i = 0; i < size; i++) {
+            reverseLabels[i] = new int[inDegrees[i]];
+            reverseSources[i] = new int[inDegrees[i]];
+            inDegrees[i] = 0;
+        }
+        for(int i = 0; i < size; i++) {
+            for(int j = 0; j < this.targets[i].length; j++) {
+                int target = this.targets[i][j];
+                reverseLabels[target][inDegrees[target]] = this.labels[i][j];
+                reverseSources[target][inDegrees[target]++] = i;
+            }
+        }
+    }
+
+    public static ReachabilityGraph build(PetrinetWithMarking petrinetWithMarking, LabelDictionary labelDictionary, int maxStates) {
+        Petrinet petrinet = petrinetWithMarking.getPetrinet();
+        Set<Marking> finalMarkings = petrinetWithMarking.getFinalMarkings();
+        if(finalMarkings == null || finalMarkings.isEmpty()) throw new IllegalArgumentException("The net has no final marking");
+
+        Map<Place, Integer> places = new UnifiedMap<>();
+        for(Place place : petrinet.getPlaces()) {
+            places.put(place, places.size());
+        }
+
+        Collection<Transition> transitions = petrinet.getTransitions();
+        Map<String, Integer> modelLabels = new UnifiedMap<>();
+        int[] transitionLabels = new int[transitions.size()];
+        int[][] consumed = new int[transitions.size()][];
+        int[][] consumedWeights = new int[transitions.size()][];
+        int[][] produced = new int[transitions.size()][];
+        int[][] producedWeights = new int[transitions.size()][];
+
+        int t = 0;
+        for(Transition transition : transitions) {
+            if(transition.isInvisible()) {
+                transitionLabels[t] = TAU;
+            }else {
+                int label = labelDictionary.getIndex(transition.getLabel());
+                if(label < 0) {
+                    Integer modelLabel;
+                    if((modelLabel = modelLabels.get(transition.getLabel())) == null) {
+                        modelLabel = labelDictionary.size() + modelLabels.size();
+                        modelLabels.put(transition.getLabel(), modelLabel);
+                    }
+                    label = modelLabel;
+                }
+                transitionLabels[t] = label;
+            }
+
+            Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> inEdges = petrinet.getInEdges(transition);
+            consumed[t] = new int[inEdges.size()];
+            consumedWeights[t] = new int[inEdges.size()];
+            int i = 0;
+            for(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : inEdges) {
+                consumed[t][i] = places.get(edge.getSource());
+                consumedWeights[t][i++] = getWeight(edge);
+            }
+
+            Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> outEdges = petrinet.getOutEdges(transition);
+            produced[t] = new int[outEdges.size()];
+            producedWeights[t] = new int[outEdges.size()];
+            i = 0;
+            for(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : outEdges) {
+                produced[t][i] = places.get(edge.getTarget());
+                producedWeights[t][i++] = getWeight(edge);
+            }
+            t++;
+        }
+
+        List<int[]> finals = new ArrayList<>(finalMarkings.size());
+        for(Marking finalMarking : finalMarkings) {
+            finals.add(toArray(finalMarking, places));
+        }
+
+        return build(transitionLabels, consumed, consumedWeights, produced, producedWeights,
+                toArray(petrinetWithMarking.getInitialMarking(), places), finals, maxStates);
+    }
+
+    /**
+     * Explores the markings of a net given as, for each transition, its label and the places (and weights)
+     * it consumes from and produces into.
+     */
+    static ReachabilityGraph build(int[] transitionLabels, int[][] consumed, int[][] consumedWeights, int[][] produced, int[][] producedWeights,
+                                   int[] initialMarking, List<int[]> finalMarkings, int maxStates) {
+        Map<MarkingKey, Integer> ids = new UnifiedMap<>();
+        List<int[]> markings = new ArrayList<>();
+        List<IntArrayList> labels = new ArrayList<>();
+        List<IntArrayList> targets = new ArrayList<>();
+
+        ids.put(new MarkingKey(initialMarking), 0);
+        markings.add(initialMarking);
+
+        for(int state = 0; state < markings.size(); state++) {
+            int[] marking = markings.get(state);
+            IntArrayList stateLabels = new IntArrayList();
+            IntArrayList stateTargets = new IntArrayList();
+
+            for(int t = 0; t < transitionLabels.length; t++) {
+                if(!isEnabled(marking, consumed[t], consumedWeights[t])) continue;
+
+                int[] next = marking.clone();
+                for(int i = 0; i < consumed[t].length; i++) {
+                    next[consumed[t][i]] -= consumedWeights[t][i];
+                }
+                for(int i = 0; i < produced[t].length; i++) {
+                    next[produced[t][i]] += producedWeights[t][i];
+                }
+
+                MarkingKey key = new MarkingKey(next);
+                Integer target;
+                if((target = ids.get(key)) == null) {
+                    if(markings.size() >= maxStates) throw new IllegalStateException("The reachability graph exceeds " + maxStates + " markings");
+                    target = markings.size();
+                    ids.put(key, target);
+                    markings.add(next);
+                }
+                stateLabels.add(transitionLabels[t]);
+                stateTargets.add(target);
+            }
+
+            labels.add(stateLabels);
+            targets.add(stateTargets);
+        }
+
+        boolean[] finals = new boolean[markings.size()];
+        for(int[] finalMarking : finalMarkings) {
+            Integer state;
+            if((state = ids.get(new MarkingKey(finalMarking))) != null) finals[state] = true;
+        }
+
+        return new ReachabilityGraph(labels, targets, finals);
+    }
+
+    private static boolean isEnabled(int[] marking, int[] consumed, int[] consumedWeights) {
+        // Arcs from the same place are summed, as firing would subtract them one after the other
+        for(int i = 0; i < consumed.length; i++) {
+            int required = consumedWeights[i];
+            for(int j = 0; j < consumed.length; j++) {
+                if(j != i && consumed[j] == consumed[i]) required += consumedWeights[j];
+            }
+            if(marking[consumed[i]] < required) return false;
+        }
+        return true;
+    }
+
+    private static int getWeight(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+        return (edge instanceof Arc) ? ((Arc) edge).getWeight() : 1;
+    }
+
+    private static int[] toArray(Marking marking, Map<Place, Integer> places) {
+        int[] array = new int[places.size()];
+        for(Place place : marking.baseSet()) {
+            Integer index;
+            if((index = places.get(place)) != null) array[index] = marking.occurrences(place);
+        }
+        return array;
+    }
+
+    public int size() {
+        return finals.length;
+    }
+
+    public int getInitialState() {
+        return 0;
+    }
+
+    public boolean isFinal(int state) {
+        return finals[state];
+    }
+
+    public int[] getLabels(int state) {
+        return labels[state];
+    }
+
+    public int[] getTargets(int state) {
+        return targets[state];
+    }
+
+    public int[] getReverseLabels(int state) {
+        return reverseLabels[state];
+    }
+
+    public int[] getReverseSources(int state) {
+        return reverseSources[state];
+    }
+
+    private static class MarkingKey {
+
+        private final int[] marking;
+        private final int hash;
+
+        private MarkingKey(int[] marking) {
+            this.marking = marking;
+            this.hash = Arrays.hashCode(marking);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof MarkingKey)) return false;
+            MarkingKey that = (MarkingKey) o;
+            return hash == that.hash && Arrays.equals(marking, that.marking);
+        }
+    }
+
+}
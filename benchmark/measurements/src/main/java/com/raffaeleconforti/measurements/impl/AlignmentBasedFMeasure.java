@@ -2,6 +2,7 @@ package com.raffaeleconforti.measurements.impl;
 
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -15,11 +16,6 @@ import org.processmining.plugins.petrinet.replayresult.PNRepResult;
 import org.processmining.plugins.replayer.replayresult.SyncReplayResult;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 23/11/16.
  */
@@ -55,25 +51,17 @@ public class AlignmentBasedFMeasure implements MeasurementAlgorithm {
         AlignmentBasedFitness alignmentBasedFitness = new AlignmentBasedFitness();
         AlignmentBasedPrecision alignmentBasedPrecision = new AlignmentBasedPrecision();
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {
-            }
-        }));
-
-        MultiETCPlugin multiETCPlugin = new MultiETCPlugin();
+        try (QuietScope ignored = QuietScope.mute()) {
+            MultiETCPlugin multiETCPlugin = new MultiETCPlugin();
 
-        MultiETCSettings settings = new MultiETCSettings();
-        settings.put(MultiETCSettings.ALGORITHM, MultiETCSettings.Algorithm.ALIGN_1);
-        settings.put(MultiETCSettings.REPRESENTATION, MultiETCSettings.Representation.ORDERED);
+            MultiETCSettings settings = new MultiETCSettings();
+            settings.put(MultiETCSettings.ALGORITHM, MultiETCSettings.Algorithm.ALIGN_1);
+            settings.put(MultiETCSettings.REPRESENTATION, MultiETCSettings.Representation.ORDERED);
 
-        try {
             PNRepResult pnRepResult = alignmentBasedFitness.computeAlignment(pluginContext, xEventClassifier, soundPetrinetWithMarking, log);
             Object[] res = multiETCPlugin.checkMultiETCAlign1(pluginContext, log, soundPetrinetWithMarking.getPetrinet(), settings, pnRepResult);
             MultiETCResult multiETCResult = (MultiETCResult) res[0];
 
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-
             double fitness = getAlignmentValue(pnRepResult);
             double precision = (Double) (multiETCResult).getAttribute(MultiETCResult.PRECISION);
             double f_measure = 2 * (fitness * precision) / (fitness + precision);
@@ -88,7 +76,6 @@ public class AlignmentBasedFMeasure implements MeasurementAlgorithm {
             connectionCannotBeObtained.printStackTrace();
         }
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         return measure;
     }
 
@@ -2,6 +2,7 @@ package com.raffaeleconforti.measurements.impl;
 
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import nl.tue.astar.AStarException;
@@ -25,10 +26,6 @@ import org.processmining.plugins.petrinet.replayresult.PNRepResult;
 import org.processmining.plugins.replayer.replayresult.SyncReplayResult;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
 import java.util.Map;
 
 /**
@@ -81,37 +78,33 @@ public class AlignmentBasedFitness implements MeasurementAlgorithm {
             return null;
         }
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {
-            }
-        }));
-
         Petrinet petrinet = petrinetWithMarking.getPetrinet();
         Marking initialMarking = petrinetWithMarking.getInitialMarking();
         Marking finalMarking = petrinetWithMarking.getFinalMarking();
+        IPNReplayParameter parameters;
+        TransEvClassMapping mapping;
 
-        pluginContext.addConnection(new FinalMarkingConnection(petrinet, finalMarking));
+        try (QuietScope ignored = QuietScope.mute()) {
+            pluginContext.addConnection(new FinalMarkingConnection(petrinet, finalMarking));
 
-        PetrinetReplayerWithILP replayer = new PetrinetReplayerWithILP();
+            XEventClass dummyEvClass = new XEventClass("DUMMY", 99999);
 
-        XEventClass dummyEvClass = new XEventClass("DUMMY", 99999);
+            Map<Transition, Integer> transitions2costs = constructTTCMap(petrinet);
+            Map<XEventClass, Integer> events2costs = constructETCMap(petrinet, xEventClassifier, log, dummyEvClass);
 
-        Map<Transition, Integer> transitions2costs = constructTTCMap(petrinet);
-        Map<XEventClass, Integer> events2costs = constructETCMap(petrinet, xEventClassifier, log, dummyEvClass);
+            parameters = constructParameters(transitions2costs, events2costs, petrinet, initialMarking, finalMarking);
+            parameters.setNumThreads(nThreads);
+            mapping = constructMapping(petrinet, xEventClassifier, log, dummyEvClass);
+        }
 
-        IPNReplayParameter parameters = constructParameters(transitions2costs, events2costs, petrinet, initialMarking, finalMarking);
-        parameters.setNumThreads(nThreads);
-        TransEvClassMapping mapping = constructMapping(petrinet, xEventClassifier, log, dummyEvClass);
+        PetrinetReplayerWithILP replayer = new PetrinetReplayerWithILP();
 
         try {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             return replayer.replayLog(pluginContext, petrinet, log, mapping, parameters);
         } catch (AStarException | ArrayIndexOutOfBoundsException e) {
             e.printStackTrace();
         }
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         return null;
     }
 
@@ -2,6 +2,7 @@ package com.raffaeleconforti.measurements.impl;
 
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -14,11 +15,6 @@ import org.processmining.plugins.multietc.sett.MultiETCSettings;
 import org.processmining.plugins.petrinet.replayresult.PNRepResult;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 18/10/2016.
  */
@@ -50,27 +46,20 @@ public class AlignmentBasedPrecision implements MeasurementAlgorithm {
     @Override
     public Measure computeSoundMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, PetrinetWithMarking soundPetrinetWithMarking, MiningAlgorithm miningAlgorithm, XLog log) {
         Measure measure = new Measure();
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {
-            }
-        }));
-
         long start = System.currentTimeMillis();
 
-        MultiETCPlugin multiETCPlugin = new MultiETCPlugin();
+        try (QuietScope ignored = QuietScope.mute()) {
+            MultiETCPlugin multiETCPlugin = new MultiETCPlugin();
 
-        MultiETCSettings settings = new MultiETCSettings();
-        settings.put(MultiETCSettings.ALGORITHM, MultiETCSettings.Algorithm.ALIGN_1);
-        settings.put(MultiETCSettings.REPRESENTATION, MultiETCSettings.Representation.ORDERED);
+            MultiETCSettings settings = new MultiETCSettings();
+            settings.put(MultiETCSettings.ALGORITHM, MultiETCSettings.Algorithm.ALIGN_1);
+            settings.put(MultiETCSettings.REPRESENTATION, MultiETCSettings.Representation.ORDERED);
 
-        try {
             AlignmentBasedFitness alignmentBasedFitness = new AlignmentBasedFitness();
             PNRepResult pnRepResult = alignmentBasedFitness.computeAlignment(pluginContext, xEventClassifier, soundPetrinetWithMarking, log);
             Object[] res = multiETCPlugin.checkMultiETCAlign1(pluginContext, log, soundPetrinetWithMarking.getPetrinet(), settings, pnRepResult);
             MultiETCResult multiETCResult = (MultiETCResult) res[0];
 
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             measure.setValue((Double) (multiETCResult).getAttribute(MultiETCResult.PRECISION));
             return measure;
 
@@ -78,7 +67,6 @@ public class AlignmentBasedPrecision implements MeasurementAlgorithm {
             connectionCannotBeObtained.printStackTrace();
         }
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         long time = System.currentTimeMillis() - start;
         measure.addMeasure("time", time);
         return measure;
@@ -3,40 +3,18 @@ package com.raffaeleconforti.measurements.impl;
 import au.edu.qut.petrinet.tools.SoundnessChecker;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.measurements.dafsa.DAFSAConformanceChecker;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
-import nl.tue.astar.AStarException;
-import org.deckfour.xes.classification.XEventClass;
 import org.deckfour.xes.classification.XEventClassifier;
-import org.deckfour.xes.info.XLogInfo;
-import org.deckfour.xes.info.XLogInfoFactory;
 import org.deckfour.xes.model.XLog;
-import org.eclipse.collections.impl.map.mutable.UnifiedMap;
 import org.processmining.contexts.uitopia.UIPluginContext;
-import org.processmining.framework.plugin.PluginContext;
-import org.processmining.models.connections.petrinets.behavioral.FinalMarkingConnection;
-import org.processmining.models.graphbased.directed.petrinet.Petrinet;
-import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
-import org.processmining.models.semantics.petrinet.Marking;
-import org.processmining.plugins.astar.petrinet.PetrinetReplayerWithILP;
-import org.processmining.plugins.connectionfactories.logpetrinet.TransEvClassMapping;
-import org.processmining.plugins.petrinet.replayer.algorithms.IPNReplayParameter;
-import org.processmining.plugins.petrinet.replayer.algorithms.costbasedcomplete.CostBasedCompleteParam;
-import org.processmining.plugins.petrinet.replayresult.PNRepResult;
-import org.processmining.plugins.replayer.replayresult.SyncReplayResult;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-import java.util.Map;
-
-//import au.qut.apromore.ScalableConformanceChecker.DecomposingConformanceChecker;
-//import au.qut.apromore.importer.DecomposingConformanceImporter;
-
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 18/10/2016.
+ *
+ * Alignment-based fitness computed on the DAFSA of the log, see {@link DAFSAConformanceChecker}.
  */
 public class DAFSABasedFitness implements MeasurementAlgorithm {
 
@@ -57,12 +35,18 @@ public class DAFSABasedFitness implements MeasurementAlgorithm {
     public Measure computeMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, PetrinetWithMarking petrinetWithMarking, MiningAlgorithm miningAlgorithm, XLog log) {
         SoundnessChecker checker = new SoundnessChecker(petrinetWithMarking.getPetrinet());
         if( !checker.isSound() ) return new Measure(getAcronym(), "-");
-        return new Measure(getAlignmentValue(computeAlignment(pluginContext, xEventClassifier, petrinetWithMarking, log)));
+        return computeSoundMeasurement(pluginContext, xEventClassifier, petrinetWithMarking, miningAlgorithm, log);
     }
 
     @Override
     public Measure computeSoundMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, PetrinetWithMarking soundPetrinetWithMarking, MiningAlgorithm miningAlgorithm, XLog log) {
-        return new Measure(getAlignmentValue(computeAlignment(pluginContext, xEventClassifier, soundPetrinetWithMarking, log)));
+        if(soundPetrinetWithMarking == null) return new Measure(Double.NaN);
+        try {
+            return new Measure(DAFSAConformanceChecker.create(soundPetrinetWithMarking, log, xEventClassifier).computeFitness());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        return new Measure(Double.NaN);
     }
 
     @Override
@@ -72,133 +56,4 @@ public class DAFSABasedFitness implements MeasurementAlgorithm {
 
     @Override
     public String getAcronym() {return "(d)fitness";}
-
-    public PNRepResult computeAlignment(PluginContext pluginContext, XEventClassifier xEventClassifier, PetrinetWithMarking petrinetWithMarking, XLog log) {
-        if(petrinetWithMarking == null) return null;
-
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
-        Petrinet petrinet = petrinetWithMarking.getPetrinet();
-        Marking initialMarking = petrinetWithMarking.getInitialMarking();
-        Marking finalMarking = petrinetWithMarking.getFinalMarking();
-
-        pluginContext.addConnection(new FinalMarkingConnection(petrinet, finalMarking));
-
-        PetrinetReplayerWithILP replayer = new PetrinetReplayerWithILP();
-
-        XEventClass dummyEvClass = new XEventClass("DUMMY",99999);
-
-        Map<Transition, Integer> transitions2costs = constructTTCMap(petrinet);
-        Map<XEventClass, Integer> events2costs = constructETCMap(petrinet, xEventClassifier, log, dummyEvClass);
-
-        IPNReplayParameter parameters = constructParameters(transitions2costs, events2costs, petrinet, initialMarking, finalMarking);
-        TransEvClassMapping mapping = constructMapping(petrinet, xEventClassifier, log, dummyEvClass);
-
-//        DecomposingConformanceImporter decomposer = new DecomposingConformanceImporter();
-
-//        decomposer.importAndDecomposeModelAndLogForConformanceChecking("/Users/daniel/Documents/workspace/paper_tests/BPIC2012/", "RecomposingConformanceBPIC2012PNet.pnml", "BPIC12.xes.gz");
-//        DecomposingConformanceChecker checker = new DecomposingConformanceChecker(decomposer);
-//        checker.printAlignmentResults(alignmentStatisticsFileName, caseTypeAlignmentResultsFileName);
-
-        try {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-            return replayer.replayLog(pluginContext, petrinet, log, mapping, parameters);
-        } catch (AStarException | ArrayIndexOutOfBoundsException e) {
-            e.printStackTrace();
-        }
-
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-        return null;
-    }
-
-
-    private Map<Transition, Integer> constructTTCMap(Petrinet petrinet) {
-        Map<Transition, Integer> transitions2costs = new UnifiedMap<Transition, Integer>();
-
-        for(Transition t : petrinet.getTransitions()) {
-            if(t.isInvisible()) {
-                transitions2costs.put(t, 0);
-            }else {
-                transitions2costs.put(t, 1);
-            }
-        }
-        return transitions2costs;
-    }
-
-    private static Map<XEventClass, Integer> constructETCMap(Petrinet petrinet, XEventClassifier xEventClassifier, XLog log, XEventClass dummyEvClass) {
-        Map<XEventClass,Integer> costMOT = new UnifiedMap<XEventClass,Integer>();
-        XLogInfo summary = XLogInfoFactory.createLogInfo(log, xEventClassifier);
-
-        for (XEventClass evClass : summary.getEventClasses().getClasses()) {
-            int value = 1;
-            for(Transition t : petrinet.getTransitions()) {
-                if(t.getLabel().equals(evClass.getId())) {
-                    value = 1;
-                    break;
-                }
-            }
-            costMOT.put(evClass, value);
-        }
-
-        costMOT.put(dummyEvClass, 1);
-
-        return costMOT;
-    }
-
-    private IPNReplayParameter constructParameters(Map<Transition, Integer> transitions2costs, Map<XEventClass, Integer> events2costs, Petrinet petrinet, Marking initialMarking, Marking finalMarking) {
-        IPNReplayParameter parameters = new CostBasedCompleteParam(events2costs, transitions2costs);
-
-        parameters.setInitialMarking(initialMarking);
-        parameters.setFinalMarkings(finalMarking);
-        parameters.setGUIMode(false);
-        parameters.setCreateConn(false);
-        ((CostBasedCompleteParam) parameters).setMaxNumOfStates(Integer.MAX_VALUE);
-
-        return  parameters;
-    }
-
-    private static TransEvClassMapping constructMapping(Petrinet net, XEventClassifier xEventClassifier, XLog log, XEventClass dummyEvClass) {
-        TransEvClassMapping mapping = new TransEvClassMapping(xEventClassifier, dummyEvClass);
-
-        XLogInfo summary = XLogInfoFactory.createLogInfo(log, xEventClassifier);
-
-        for (Transition t : net.getTransitions()) {
-            boolean mapped = false;
-
-            for (XEventClass evClass : summary.getEventClasses().getClasses()) {
-                String id = evClass.getId();
-
-                if (t.getLabel().equals(id)) {
-                    mapping.put(t, evClass);
-                    mapped = true;
-                    break;
-                }
-            }
-
-            if (!mapped) {
-                mapping.put(t, dummyEvClass);
-            }
-
-        }
-
-        return mapping;
-    }
-
-    private double getAlignmentValue(PNRepResult pnRepResult) {
-        int unreliable = 0;
-        if(pnRepResult == null) return Double.NaN;
-        for(SyncReplayResult srp : pnRepResult) {
-            if(!srp.isReliable()) {
-                unreliable += srp.getTraceIndex().size();
-            }
-        }
-        if(unreliable > pnRepResult.size() / 2) {
-            return Double.NaN;
-        }else {
-            return (Double) pnRepResult.getInfo().get(PNRepResult.TRACEFITNESS);
-        }
-    }
 }
@@ -3,25 +3,18 @@ package com.raffaeleconforti.measurements.impl;
 import au.edu.qut.petrinet.tools.SoundnessChecker;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.measurements.dafsa.DAFSAConformanceChecker;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.model.XLog;
 import org.processmining.contexts.uitopia.UIPluginContext;
-import org.processmining.framework.connections.ConnectionCannotBeObtained;
-import org.processmining.plugins.multietc.plugins.MultiETCPlugin;
-import org.processmining.plugins.multietc.res.MultiETCResult;
-import org.processmining.plugins.multietc.sett.MultiETCSettings;
-import org.processmining.plugins.petrinet.replayresult.PNRepResult;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 18/10/2016.
+ *
+ * Escaping-edges precision over the alignments computed on the DAFSA of the log, see {@link DAFSAConformanceChecker}.
  */
 public class DAFSABasedPrecision implements MeasurementAlgorithm {
 
@@ -55,33 +48,13 @@ public class DAFSABasedPrecision implements MeasurementAlgorithm {
     @Override
     public Measure computeSoundMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, PetrinetWithMarking soundPetrinetWithMarking, MiningAlgorithm miningAlgorithm, XLog log) {
         Measure measure = new Measure();
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {
-            }
-        }));
-
-        MultiETCPlugin multiETCPlugin = new MultiETCPlugin();
-
-        MultiETCSettings settings = new MultiETCSettings();
-        settings.put(MultiETCSettings.ALGORITHM, MultiETCSettings.Algorithm.ALIGN_1);
-        settings.put(MultiETCSettings.REPRESENTATION, MultiETCSettings.Representation.ORDERED);
 
         try {
-            AlignmentBasedFitness alignmentBasedFitness = new AlignmentBasedFitness();
-            PNRepResult pnRepResult = alignmentBasedFitness.computeAlignment(pluginContext, xEventClassifier, soundPetrinetWithMarking, log);
-            Object[] res = multiETCPlugin.checkMultiETCAlign1(pluginContext, log, soundPetrinetWithMarking.getPetrinet(), settings, pnRepResult);
-            MultiETCResult multiETCResult = (MultiETCResult) res[0];
-
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-            measure.setValue((Double) (multiETCResult).getAttribute(MultiETCResult.PRECISION));
-            return measure;
-
-        } catch (ConnectionCannotBeObtained connectionCannotBeObtained) {
-            connectionCannotBeObtained.printStackTrace();
+            measure.setValue(DAFSAConformanceChecker.create(soundPetrinetWithMarking, log, xEventClassifier).computePrecision());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            e.printStackTrace();
         }
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
         return measure;
     }
 
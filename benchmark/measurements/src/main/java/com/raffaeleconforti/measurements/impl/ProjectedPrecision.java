@@ -2,26 +2,20 @@ package com.raffaeleconforti.measurements.impl;
 
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.measurements.projected.ProjectedConformanceChecker;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.model.XLog;
-import org.processmining.acceptingpetrinet.models.AcceptingPetriNet;
-import org.processmining.acceptingpetrinet.models.impl.AcceptingPetriNetImpl;
 import org.processmining.contexts.uitopia.UIPluginContext;
 import org.processmining.framework.plugin.ProMCanceller;
 import org.processmining.plugins.InductiveMiner.efficienttree.EfficientTreeReduceParametersDuplicates;
 import org.processmining.processtree.ProcessTree;
 import org.processmining.projectedrecallandprecision.framework.CompareParameters;
-import org.processmining.projectedrecallandprecision.plugins.CompareLog2PetriNetPlugin;
 import org.processmining.projectedrecallandprecision.plugins.CompareLog2ProcessTreePlugin;
 import org.processmining.projectedrecallandprecision.result.ProjectedRecallPrecisionResult;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 2/12/16.
  */
@@ -39,12 +33,7 @@ public class ProjectedPrecision implements MeasurementAlgorithm {
     public Measure computeMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, ProcessTree processTree, MiningAlgorithm miningAlgorithm, XLog log) {
         Measure measure = new Measure();
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
-        try {
+        try (QuietScope ignored = QuietScope.mute()) {
             CompareParameters parameters = new CompareParameters(2);
             parameters.setClassifier(xEventClassifier);
             parameters.setTreeReduceParameters(new EfficientTreeReduceParametersDuplicates(false));
@@ -62,10 +51,8 @@ public class ProjectedPrecision implements MeasurementAlgorithm {
             measure.addMeasure(getMeasurementName(), projectedPrecision);
 
             measure.setValue(projectedPrecision);
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             return measure;
         } catch( Exception e ) {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             return measure;
         }
     }
@@ -74,42 +61,17 @@ public class ProjectedPrecision implements MeasurementAlgorithm {
     public Measure computeMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, PetrinetWithMarking petrinetWithMarking, MiningAlgorithm miningAlgorithm, XLog log) {
         Measure measure = new Measure();
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
         if(petrinetWithMarking == null) return measure;
 
         try {
-            CompareParameters parameters = new CompareParameters(2);
-            parameters.setClassifier(xEventClassifier);
-            parameters.setTreeReduceParameters(new EfficientTreeReduceParametersDuplicates(false));
-            parameters.setDebug(false);
-            ProMCanceller canceller = new ProMCanceller() {
-                @Override
-                public boolean isCancelled() {
-                    return false;
-                }
-            };
-
-            AcceptingPetriNet acceptingPetriNet;
-            if(petrinetWithMarking.getFinalMarkings().size() > 1) {
-                acceptingPetriNet = new AcceptingPetriNetImpl(petrinetWithMarking.getPetrinet(), petrinetWithMarking.getInitialMarking(), petrinetWithMarking.getFinalMarkings());
-            }else {
-                acceptingPetriNet = new AcceptingPetriNetImpl(petrinetWithMarking.getPetrinet(), petrinetWithMarking.getInitialMarking(), petrinetWithMarking.getFinalMarking());
-            }
-
-            ProjectedRecallPrecisionResult projectedRecallPrecisionResult = CompareLog2PetriNetPlugin.measure(log, acceptingPetriNet, parameters, canceller);
-            double projectedPrecision = projectedRecallPrecisionResult.getPrecision();
+            // Shares the walk of ProjectedRecall on the same net and log
+            double projectedPrecision = ProjectedConformanceChecker.measure(petrinetWithMarking, log, xEventClassifier).getPrecision();
 
             measure.addMeasure(getMeasurementName(), projectedPrecision);
 
             measure.setValue(projectedPrecision);
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             return measure;
         } catch( Exception e ) {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             return measure;
         }
     }
@@ -2,6 +2,7 @@ package com.raffaeleconforti.measurements.impl;
 
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.MeasurementAlgorithm;
+import com.raffaeleconforti.measurements.timing.TimingHarness;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -9,37 +10,93 @@ import org.deckfour.xes.model.XLog;
 import org.processmining.contexts.uitopia.UIPluginContext;
 import org.processmining.processtree.ProcessTree;
 
+import java.util.concurrent.Callable;
+
 /**
  * Created by Adriano on 13/10/2017.
  */
 public class TimePerformance implements MeasurementAlgorithm {
 
-    static int REP = 5;
+    private static final int WARMUPS = 1;
+    private static final int REP = 5;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /**
+     * Value of every metric when the discovery fails, as Benchmark reports failed measurements.
+     */
+    public static final String ERROR = "-ERR";
+
+    private final TimingHarness timingHarness;
+
+    public TimePerformance() {
+        this(WARMUPS, REP);
+    }
+
+    public TimePerformance(int warmups, int runs) {
+        this.timingHarness = new TimingHarness(warmups, runs);
+    }
 
     @Override
     public Measure computeMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier, ProcessTree processTree, MiningAlgorithm miningAlgorithm, XLog log) {
         return null;
     }
 
+    /**
+     * Times the discovery of a BPMN diagram. Times are in milliseconds, allocations in bytes, and the CPU time and
+     * allocations only account for the calling thread. If a run fails, every metric is recorded as {@link #ERROR}
+     * rather than left out, so that the failure shows in the results.
+     */
     @Override
-    public Measure computeMeasurement(UIPluginContext pluginContext, XEventClassifier xEventClassifier,
-                                      PetrinetWithMarking petrinetWithMarking, MiningAlgorithm miningAlgorithm, XLog log) {
+    public Measure computeMeasurement(final UIPluginContext pluginContext, final XEventClassifier xEventClassifier,
+                                      PetrinetWithMarking petrinetWithMarking, final MiningAlgorithm miningAlgorithm, final XLog log) {
         Measure measure = new Measure();
-        double otime;
-        double etime;
 
+        TimingHarness.Result result;
         try {
-            etime = 0;
-            for(int i = 0; i<REP; i++) {
-                otime = System.currentTimeMillis();
-                miningAlgorithm.mineBPMNDiagram(pluginContext, log, false, null, xEventClassifier);
-                etime += (System.currentTimeMillis() - otime);
+            result = timingHarness.measure(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return miningAlgorithm.mineBPMNDiagram(pluginContext, log, false, null, xEventClassifier);
+                }
+            });
+        } catch( RuntimeException e ) {
+            System.out.println("ERROR - impossible to time: " + miningAlgorithm.getAlgorithmName());
+            e.printStackTrace();
+            for(String metric : getMetrics()) {
+                measure.addMeasure(metric, ERROR);
             }
-            etime = etime/REP;
-            measure.addMeasure(getAcronym(), etime);
-        } catch( Exception e ) { return measure; }
+            return measure;
+        }
+
+        double[] wallTimes = toMillis(result.getWallTimes());
+        double[] cpuTimes = toMillis(result.getCpuTimes());
+        double[] allocations = result.getAllocations();
+
+        measure.addMeasure(getAcronym(), TimingHarness.Result.mean(wallTimes));
+        measure.addMeasure("median-time", TimingHarness.Result.median(wallTimes));
+        measure.addMeasure("min-time", TimingHarness.Result.min(wallTimes));
+        measure.addMeasure("iqr-time", TimingHarness.Result.interquartileRange(wallTimes));
+        measure.addMeasure("median-cpu-time", TimingHarness.Result.median(cpuTimes));
+        measure.addMeasure("min-cpu-time", TimingHarness.Result.min(cpuTimes));
+        measure.addMeasure("iqr-cpu-time", TimingHarness.Result.interquartileRange(cpuTimes));
+        measure.addMeasure("median-alloc", TimingHarness.Result.median(allocations));
+        measure.addMeasure("min-alloc", TimingHarness.Result.min(allocations));
+        measure.addMeasure("iqr-alloc", TimingHarness.Result.interquartileRange(allocations));
+
+        return measure;
+    }
+
+    private String[] getMetrics() {
+        return new String[] {getAcronym(), "median-time", "min-time", "iqr-time", "median-cpu-time", "min-cpu-time",
+                "iqr-cpu-time", "median-alloc", "min-alloc", "iqr-alloc"};
+    }
 
-        return  measure;
+    private double[] toMillis(double[] nanos) {
+        double[] millis = new double[nanos.length];
+        for(int i = 0; i < nanos.length; i++) {
+            millis[i] = nanos[i] / NANOS_PER_MILLI;
+        }
+        return millis;
     }
 
     @Override
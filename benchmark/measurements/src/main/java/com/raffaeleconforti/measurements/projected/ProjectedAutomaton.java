@@ -0,0 +1,155 @@
+package com.raffaeleconforti.measurements.projected;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Minimal deterministic automaton of a language projected on two labels, labelled 0 for the first label and 1 for
+ * the second. State 0 is the initial state; every state is reachable from it and reaches a final state, so a word
+ * leaving the automaton is not a prefix of its language.
+ */
+public class ProjectedAutomaton {
+
+    public static final int NONE = -1;
+
+    private final int[] targets;
+    private final boolean[] finals;
+
+    private ProjectedAutomaton(int[] targets, boolean[] finals) {
+        this.targets = targets;
+        this.finals = finals;
+    }
+
+    /**
+     * Minimises a deterministic automaton whose states are all reachable from state 0 and all reach a final state,
+     * by refining the partition of its states (Moore) until states of a block agree on finality and on the blocks of
+     * their targets.
+     *
+     * @param targets target of each state on each symbol, at 2 * state + symbol, {@link #NONE} if undefined.
+     */
+    static ProjectedAutomaton minimize(int[] targets, boolean[] finals) {
+        int size = finals.length;
+        int[] blocks = new int[size];
+        int count = 0;
+        for(int state = 0; state < size; state++) {
+            blocks[state] = finals[state] ? 1 : 0;
+        }
+
+        int[] refined = new int[size];
+        while(true) {
+            Map<Signature, Integer> ids = new UnifiedMap<>();
+            for(int state = 0; state < size; state++) {
+                Signature signature = new Signature(blocks[state], getBlock(blocks, targets[2 * state]), getBlock(blocks, targets[2 * state + 1]));
+                Integer id;
+                if((id = ids.get(signature)) == null) {
+                    id = ids.size();
+                    ids.put(signature, id);
+                }
+                refined[state] = id;
+            }
+
+            int[] swap = blocks;
+            blocks = refined;
+            refined = swap;
+            if(ids.size() == count) break;
+            count = ids.size();
+        }
+        return quotient(blocks, count, targets, finals);
+    }
+
+    private static int getBlock(int[] blocks, int state) {
+        return state == NONE ? NONE : blocks[state];
+    }
+
+    /**
+     * @return the automaton whose states are the blocks of the states of the given one, numbered in breadth-first
+     * order from the block of state 0.
+     */
+    static ProjectedAutomaton quotient(int[] blocks, int count, int[] targets, boolean[] finals) {
+        int[] representatives = new int[count];
+        Arrays.fill(representatives, NONE);
+        for(int state = finals.length - 1; state >= 0; state--) {
+            representatives[blocks[state]] = state;
+        }
+
+        int[] ids = new int[count];
+        Arrays.fill(ids, NONE);
+        IntArrayList order = new IntArrayList();
+        ids[blocks[0]] = 0;
+        order.add(blocks[0]);
+        for(int i = 0; i < order.size(); i++) {
+            int state = representatives[order.get(i)];
+            for(int symbol = 0; symbol < 2; symbol++) {
+                int target = targets[2 * state + symbol];
+                if(target != NONE && ids[blocks[target]] == NONE) {
+                    ids[blocks[target]] = order.size();
+                    order.add(blocks[target]);
+                }
+            }
+        }
+
+        int[] quotientTargets = new int[2 * order.size()];
+        boolean[] quotientFinals = new boolean[order.size()];
+        for(int i = 0; i < order.size(); i++) {
+            int state = representatives[order.get(i)];
+            for(int symbol = 0; symbol < 2; symbol++) {
+                int target = targets[2 * state + symbol];
+                quotientTargets[2 * i + symbol] = target == NONE ? NONE : ids[blocks[target]];
+            }
+            quotientFinals[i] = finals[state];
+        }
+        return new ProjectedAutomaton(quotientTargets, quotientFinals);
+    }
+
+    public int size() {
+        return finals.length;
+    }
+
+    public int getTarget(int state, int symbol) {
+        return targets[2 * state + symbol];
+    }
+
+    public boolean isFinal(int state) {
+        return finals[state];
+    }
+
+    /**
+     * @return the number of edges leaving the state, ending in a final state counting as one.
+     */
+    public int countOutgoing(int state) {
+        int outgoing = finals[state] ? 1 : 0;
+        if(targets[2 * state] != NONE) outgoing++;
+        if(targets[2 * state + 1] != NONE) outgoing++;
+        return outgoing;
+    }
+
+    static class Signature {
+
+        private final int block;
+        private final int first;
+        private final int second;
+
+        Signature(int block, int first, int second) {
+            this.block = block;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int hashCode() {
+            return (block * 31 + first) * 31 + second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return block == that.block && first == that.first && second == that.second;
+        }
+    }
+
+}
@@ -0,0 +1,350 @@
+package com.raffaeleconforti.measurements.projected;
+
+import com.raffaeleconforti.measurements.dafsa.DAFSAConformanceChecker;
+import com.raffaeleconforti.measurements.dafsa.ReachabilityGraph;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XLog;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Projected recall and precision of a net with respect to a log (Leemans et al.), over all the pairs of labels of
+ * the log and of the net (k = 2), as computed by {@code CompareLog2PetriNetPlugin}.
+ *
+ * For each pair, the log and the net are projected on the two labels and the minimal automata of both projections
+ * are built. Their conjunction is walked from the pair of initial states, and at each of its states the edges it
+ * keeps are counted against the edges of the corresponding state of either automaton, ending in a final state
+ * counting as an edge:
+ * <ul>
+ * <li>recall is the number of edges of the conjunction over the number of edges of the corresponding log states;</li>
+ * <li>precision is the number of edges of the conjunction over the number of edges of the corresponding net
+ * states.</li>
+ * </ul>
+ * Both are averaged over the pairs, and are computed in the same walk of each pair.
+ *
+ * The minimal automaton of the log is taken from the {@link ProjectedLogStore} of the log, shared by all measures
+ * and nets evaluated on it. The one of the net is built from the {@link ReachabilityGraph} of the net, restricted
+ * to the markings from which a final marking is reachable, its states being the sets of markings reached by the
+ * projected words, other labels being silent. Pairs are evaluated by a fixed number of workers, each holding the
+ * automata of the pair it evaluates only.
+ */
+public class ProjectedConformanceChecker {
+
+    public static final int DEFAULT_MAX_STATES = DAFSAConformanceChecker.DEFAULT_MAX_STATES;
+
+    private static final int NONE = ProjectedAutomaton.NONE;
+
+    private final ProjectedLogStore store;
+    private final ReachabilityGraph graph;
+    private final boolean[] coreachable;
+    private final int labels;
+    private final int threads;
+
+    public ProjectedConformanceChecker(ProjectedLogStore store, ReachabilityGraph graph, int threads) {
+        this.store = store;
+        this.graph = graph;
+        this.threads = Math.max(1, threads);
+
+        coreachable = new boolean[graph.size()];
+        IntArrayList queue = new IntArrayList();
+        for(int m = 0; m < graph.size(); m++) {
+            if(graph.isFinal(m)) {
+                coreachable[m] = true;
+                queue.add(m);
+            }
+        }
+        for(int i = 0; i < queue.size(); i++) {
+            for(int source : graph.getReverseSources(queue.get(i))) {
+                if(!coreachable[source]) {
+                    coreachable[source] = true;
+                    queue.add(source);
+                }
+            }
+        }
+        if(!coreachable[graph.getInitialState()]) throw new IllegalStateException("No final marking is reachable from the initial marking");
+
+        int labels = store.getLabelDictionary().size();
+        for(int m = 0; m < graph.size(); m++) {
+            for(int label : graph.getLabels(m)) {
+                labels = Math.max(labels, label + 1);
+            }
+        }
+        this.labels = labels;
+    }
+
+    public static ProjectedConformanceChecker create(PetrinetWithMarking petrinetWithMarking, XLog log, XEventClassifier xEventClassifier) {
+        return create(petrinetWithMarking, ProjectedLogStore.getStore(log, xEventClassifier));
+    }
+
+    private static ProjectedConformanceChecker create(PetrinetWithMarking petrinetWithMarking, ProjectedLogStore store) {
+        ReachabilityGraph graph = ReachabilityGraph.build(petrinetWithMarking, store.getLabelDictionary(), DEFAULT_MAX_STATES);
+        return new ProjectedConformanceChecker(store, graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return recall and precision of the net, both computed in a single walk the first time either is requested for
+     * the net and the log, and kept in the store of the log until the net is released. The net must not be modified
+     * in the meantime.
+     */
+    public static Result measure(PetrinetWithMarking petrinetWithMarking, XLog log, XEventClassifier xEventClassifier) {
+        ProjectedLogStore store = ProjectedLogStore.getStore(log, xEventClassifier);
+        Result result;
+        if((result = store.getResult(petrinetWithMarking)) == null) {
+            result = create(petrinetWithMarking, store).compute();
+            store.putResult(petrinetWithMarking, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes recall and precision in a single walk of each pair.
+     */
+    public Result compute() {
+        // With a single label the only projection is on the label itself
+        final int pairs = labels < 2 ? labels : labels * (labels - 1) / 2;
+        final int[] firsts = new int[pairs];
+        final int[] seconds = new int[pairs];
+        if(labels == 1) {
+            seconds[0] = NONE;
+        }else {
+            int p = 0;
+            for(int first = 0; first < labels; first++) {
+                for(int second = first + 1; second < labels; second++) {
+                    firsts[p] = first;
+                    seconds[p++] = second;
+                }
+            }
+        }
+
+        final double[] recalls = new double[pairs];
+        final double[] precisions = new double[pairs];
+        final AtomicInteger next = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, pairs)));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int w = 0; w < Math.min(threads, pairs); w++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        int[] stamps = new int[graph.size()];
+                        int p;
+                        while((p = next.getAndIncrement()) < pairs) {
+                            ProjectedAutomaton net = new ProjectedNet(firsts[p], seconds[p], stamps).minimize();
+                            evaluate(store.getProjection(firsts[p], seconds[p]), net, recalls, precisions, p);
+                        }
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Summed in pair order, so that the result does not depend on the scheduling
+        double recallSum = 0;
+        double precisionSum = 0;
+        for(int p = 0; p < pairs; p++) {
+            recallSum += recalls[p];
+            precisionSum += precisions[p];
+        }
+        return new Result(pairs == 0 ? 1 : recallSum / pairs, pairs == 0 ? 1 : precisionSum / pairs);
+    }
+
+    private void evaluate(ProjectedAutomaton log, ProjectedAutomaton net, double[] recalls, double[] precisions, int pair) {
+        long conjunction = 0;
+        long logEdges = 0;
+        long netEdges = 0;
+
+        // States of the conjunction, as pairs of a log state and a net state
+        LongHashSet visited = new LongHashSet();
+        IntArrayList logStates = new IntArrayList();
+        IntArrayList netStates = new IntArrayList();
+        visited.add(0L);
+        logStates.add(0);
+        netStates.add(0);
+        for(int i = 0; i < logStates.size(); i++) {
+            int logState = logStates.get(i);
+            int netState = netStates.get(i);
+
+            int edges = log.isFinal(logState) && net.isFinal(netState) ? 1 : 0;
+            for(int symbol = 0; symbol < 2; symbol++) {
+                int logTarget = log.getTarget(logState, symbol);
+                int netTarget = net.getTarget(netState, symbol);
+                if(logTarget == NONE || netTarget == NONE) continue;
+
+                edges++;
+                if(visited.add(((long) logTarget << 32) | netTarget)) {
+                    logStates.add(logTarget);
+                    netStates.add(netTarget);
+                }
+            }
+            conjunction += edges;
+            logEdges += log.countOutgoing(logState);
+            netEdges += net.countOutgoing(netState);
+        }
+
+        recalls[pair] = logEdges == 0 ? 1 : (double) conjunction / logEdges;
+        precisions[pair] = netEdges == 0 ? 1 : (double) conjunction / netEdges;
+    }
+
+    /**
+     * Deterministic projection of the reachability graph on two labels, restricted to the markings from which a
+     * final marking is reachable.
+     */
+    private class ProjectedNet {
+
+        private final int first;
+        private final int second;
+        private final int[] stamps;
+        private int stamp = 0;
+
+        private final Map<SubsetKey, Integer> ids = new UnifiedMap<>();
+        private final List<int[]> subsets = new ArrayList<>();
+
+        private ProjectedNet(int first, int second, int[] stamps) {
+            this.first = first;
+            this.second = second;
+            this.stamps = stamps;
+            Arrays.fill(stamps, 0);
+        }
+
+        /**
+         * @return the minimal automaton of the projection, built from the sets of markings reachable from the
+         * initial marking.
+         */
+        private ProjectedAutomaton minimize() {
+            IntArrayList initial = new IntArrayList();
+            initial.add(graph.getInitialState());
+            getState(initial);
+
+            IntArrayList targets = new IntArrayList();
+            for(int state = 0; state < subsets.size(); state++) {
+                targets.add(getTarget(state, first));
+                targets.add(second == NONE ? NONE : getTarget(state, second));
+            }
+
+            boolean[] finals = new boolean[subsets.size()];
+            for(int state = 0; state < subsets.size(); state++) {
+                for(int m : subsets.get(state)) {
+                    finals[state] |= graph.isFinal(m);
+                }
+            }
+            return ProjectedAutomaton.minimize(targets.toArray(), finals);
+        }
+
+        private int getTarget(int state, int label) {
+            IntArrayList seeds = new IntArrayList();
+            for(int m : subsets.get(state)) {
+                int[] labels = graph.getLabels(m);
+                int[] markings = graph.getTargets(m);
+                for(int i = 0; i < labels.length; i++) {
+                    if(labels[i] == label && coreachable[markings[i]]) seeds.add(markings[i]);
+                }
+            }
+            return seeds.isEmpty() ? NONE : getState(seeds);
+        }
+
+        private boolean isProjected(int label) {
+            return label != ReachabilityGraph.TAU && (label == first || label == second);
+        }
+
+        private int getState(IntArrayList seeds) {
+            stamp++;
+            IntArrayList closure = new IntArrayList();
+            for(int i = 0; i < seeds.size(); i++) {
+                int m = seeds.get(i);
+                if(stamps[m] != stamp) {
+                    stamps[m] = stamp;
+                    closure.add(m);
+                }
+            }
+            for(int i = 0; i < closure.size(); i++) {
+                int[] labels = graph.getLabels(closure.get(i));
+                int[] markings = graph.getTargets(closure.get(i));
+                for(int j = 0; j < labels.length; j++) {
+                    int m = markings[j];
+                    if(!isProjected(labels[j]) && coreachable[m] && stamps[m] != stamp) {
+                        stamps[m] = stamp;
+                        closure.add(m);
+                    }
+                }
+            }
+
+            int[] subset = closure.toSortedArray();
+            SubsetKey key = new SubsetKey(subset);
+            Integer id;
+            if((id = ids.get(key)) == null) {
+                if(subsets.size() == DEFAULT_MAX_STATES) throw new IllegalStateException("The projection of the net exceeds " + DEFAULT_MAX_STATES + " states");
+                id = subsets.size();
+                ids.put(key, id);
+                subsets.add(subset);
+            }
+            return id;
+        }
+    }
+
+    private static class SubsetKey {
+
+        private final int[] subset;
+        private final int hash;
+
+        private SubsetKey(int[] subset) {
+            this.subset = subset;
+            this.hash = Arrays.hashCode(subset);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof SubsetKey)) return false;
+            SubsetKey that = (SubsetKey) o;
+            return hash == that.hash && Arrays.equals(subset, that.subset);
+        }
+    }
+
+    public static class Result {
+
+        private final double recall;
+        private final double precision;
+
+        private Result(double recall, double precision) {
+            this.recall = recall;
+            this.precision = precision;
+        }
+
+        public double getRecall() {
+            return recall;
+        }
+
+        public double getPrecision() {
+            return precision;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.raffaeleconforti.measurements.projected;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Prefix automaton of a log projected on two labels, labelled 0 and 1, recording in which nodes traces end; node 0
+ * is the root.
+ */
+class ProjectedLogAutomaton {
+
+    private static final int NONE = ProjectedAutomaton.NONE;
+
+    private int size = 1;
+    private int[] children = new int[] {NONE, NONE};
+    private boolean[] ends = new boolean[1];
+
+    void add(IntArrayList word) {
+        int node = 0;
+        for(int i = 0; i < word.size(); i++) {
+            int symbol = word.get(i);
+            int child;
+            if((child = children[2 * node + symbol]) == NONE) {
+                child = newNode();
+                children[2 * node + symbol] = child;
+            }
+            node = child;
+        }
+        ends[node] = true;
+    }
+
+    private int newNode() {
+        if(size == ends.length) {
+            int capacity = 2 * size;
+            children = Arrays.copyOf(children, 2 * capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        children[2 * size] = NONE;
+        children[2 * size + 1] = NONE;
+        return size++;
+    }
+
+    /**
+     * @return the minimal automaton of the projected traces. Children are added after their parent, hence nodes are
+     * merged bottom-up in a single pass, by ending and merged children, as in the construction of a DAFSA.
+     */
+    ProjectedAutomaton minimize() {
+        int[] blocks = new int[size];
+        Map<ProjectedAutomaton.Signature, Integer> register = new UnifiedMap<>();
+        for(int node = size - 1; node >= 0; node--) {
+            int first = children[2 * node];
+            int second = children[2 * node + 1];
+            ProjectedAutomaton.Signature signature = new ProjectedAutomaton.Signature(ends[node] ? 1 : 0,
+                    first == NONE ? NONE : blocks[first], second == NONE ? NONE : blocks[second]);
+            Integer block;
+            if((block = register.get(signature)) == null) {
+                block = register.size();
+                register.put(signature, block);
+            }
+            blocks[node] = block;
+        }
+        return ProjectedAutomaton.quotient(blocks, register.size(), Arrays.copyOf(children, 2 * size), Arrays.copyOf(ends, size));
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.raffaeleconforti.measurements.projected;
+
+import com.raffaeleconforti.log.util.LabelDictionary;
+import com.raffaeleconforti.log.util.LogProfile;
+import com.raffaeleconforti.log.util.TraceKey;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XLog;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Projections of the variants of a log on pairs of labels, shared by all the projected measures computed on the log.
+ *
+ * The occurrences of each label are indexed by variant, hence projecting on a pair only reads the variants in
+ * which one of the two labels occurs, the others all projecting on the empty trace. The minimal automata of the
+ * projections are kept in a cache bounded by their total number of states, so that the pairs evaluated for one net
+ * are not projected again for the next one, and the measures of each net are kept until the net is released. Stores are attached to the
+ * {@link LogProfile} of the log and classifier, and released with it.
+ */
+public class ProjectedLogStore {
+
+    // Number of automaton states kept by the cache of projections
+    private static final int CACHE_CAPACITY = 1 << 22;
+
+    private static final Map<LogProfile, ProjectedLogStore> stores = new WeakHashMap<>();
+
+    private final LabelDictionary labelDictionary;
+    private final int[][] variants;
+
+    private final int[][] labelVariants;
+    private final int[][][] labelPositions;
+
+    private final Map<Long, ProjectedAutomaton> cache;
+    private int cachedStates = 0;
+
+    // Measures of the nets, compared by identity, evaluated on the log
+    private final Map<PetrinetWithMarking, ProjectedConformanceChecker.Result> results = new WeakHashMap<>();
+
+    private ProjectedLogStore(LogProfile profile) {
+        this.labelDictionary = profile.getLabelDictionary();
+
+        Set<TraceKey> variantKeys = profile.getVariants().keySet();
+        variants = new int[variantKeys.size()][];
+        int v = 0;
+        for(TraceKey variant : variantKeys) {
+            variants[v++] = variant.getLabels();
+        }
+
+        int labels = labelDictionary.size();
+        List<IntArrayList> occurrenceVariants = new ArrayList<>(labels);
+        List<List<IntArrayList>> occurrencePositions = new ArrayList<>(labels);
+        for(int label = 0; label < labels; label++) {
+            occurrenceVariants.add(new IntArrayList());
+            occurrencePositions.add(new ArrayList<IntArrayList>());
+        }
+        for(v = 0; v < variants.length; v++) {
+            for(int pos = 0; pos < variants[v].length; pos++) {
+                int label = variants[v][pos];
+                IntArrayList labelVariants = occurrenceVariants.get(label);
+                List<IntArrayList> positions = occurrencePositions.get(label);
+                if(labelVariants.isEmpty() || labelVariants.getLast() != v) {
+                    labelVariants.add(v);
+                    positions.add(new IntArrayList());
+                }
+                positions.get(positions.size() - 1).add(pos);
+            }
+        }
+
+        labelVariants = new int[labels][];
+        labelPositions = new int[labels][][];
+        for(int label = 0; label < labels; label++) {
+            labelVariants[label] = occurrenceVariants.get(label).toArray();
+            List<IntArrayList> positions = occurrencePositions.get(label);
+            labelPositions[label] = new int[positions.size()][];
+            for(int i = 0; i < positions.size(); i++) {
+                labelPositions[label][i] = positions.get(i).toArray();
+            }
+        }
+
+        cache = new LinkedHashMap<Long, ProjectedAutomaton>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProjectedAutomaton> eldest) {
+                if(cachedStates <= CACHE_CAPACITY) return false;
+                cachedStates -= eldest.getValue().size();
+                return true;
+            }
+        };
+    }
+
+    public static ProjectedLogStore getStore(XLog log, XEventClassifier xEventClassifier) {
+        LogProfile profile = LogProfile.getProfile(log, xEventClassifier);
+        synchronized (stores) {
+            ProjectedLogStore store;
+            if((store = stores.get(profile)) == null) {
+                store = new ProjectedLogStore(profile);
+                stores.put(profile, store);
+            }
+            return store;
+        }
+    }
+
+    public LabelDictionary getLabelDictionary() {
+        return labelDictionary;
+    }
+
+    ProjectedConformanceChecker.Result getResult(PetrinetWithMarking petrinetWithMarking) {
+        synchronized (results) {
+            return results.get(petrinetWithMarking);
+        }
+    }
+
+    void putResult(PetrinetWithMarking petrinetWithMarking, ProjectedConformanceChecker.Result result) {
+        synchronized (results) {
+            results.put(petrinetWithMarking, result);
+        }
+    }
+
+    /**
+     * @return the minimal automaton of the log projected on the two labels, labelled 0 for the first label and 1 for
+     * the second. Labels not occurring in the log, including the labels of the model only, project away.
+     */
+    public ProjectedAutomaton getProjection(int first, int second) {
+        Long key = ((long) first << 32) | (second & 0xFFFFFFFFL);
+        synchronized (cache) {
+            ProjectedAutomaton automaton;
+            if((automaton = cache.get(key)) != null) return automaton;
+        }
+
+        ProjectedAutomaton automaton = project(first, second);
+        synchronized (cache) {
+            if(!cache.containsKey(key)) {
+                cachedStates += automaton.size();
+                cache.put(key, automaton);
+            }
+        }
+        return automaton;
+    }
+
+    private ProjectedAutomaton project(int first, int second) {
+        int[] firstVariants = getVariants(first);
+        int[] secondVariants = getVariants(second);
+
+        ProjectedLogAutomaton automaton = new ProjectedLogAutomaton();
+        IntArrayList word = new IntArrayList();
+        int projected = 0;
+        int i = 0;
+        int j = 0;
+        while(i < firstVariants.length || j < secondVariants.length) {
+            int[] firstPositions = null;
+            int[] secondPositions = null;
+            if(j == secondVariants.length || (i < firstVariants.length && firstVariants[i] < secondVariants[j])) {
+                firstPositions = labelPositions[first][i++];
+            }else if(i == firstVariants.length || secondVariants[j] < firstVariants[i]) {
+                secondPositions = labelPositions[second][j++];
+            }else {
+                firstPositions = labelPositions[first][i++];
+                secondPositions = labelPositions[second][j++];
+            }
+
+            word.clear();
+            int p = 0;
+            int q = 0;
+            while(firstPositions != null && p < firstPositions.length || secondPositions != null && q < secondPositions.length) {
+                if(secondPositions == null || q == secondPositions.length || (firstPositions != null && p < firstPositions.length && firstPositions[p] < secondPositions[q])) {
+                    word.add(0);
+                    p++;
+                }else {
+                    word.add(1);
+                    q++;
+                }
+            }
+            automaton.add(word);
+            projected++;
+        }
+
+        if(projected < variants.length) {
+            automaton.add(new IntArrayList());
+        }
+        return automaton.minimize();
+    }
+
+    private int[] getVariants(int label) {
+        return label >= 0 && label < labelVariants.length ? labelVariants[label] : new int[0];
+    }
+
+}
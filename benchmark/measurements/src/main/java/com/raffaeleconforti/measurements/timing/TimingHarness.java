@@ -0,0 +1,163 @@
+package com.raffaeleconforti.measurements.timing;
+
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+
+/**
+ * Times repeated executions of a task on the calling thread.
+ *
+ * A number of warm-up executions are run and discarded first, then each measured execution records its wall time,
+ * the CPU time of the calling thread and the bytes allocated by the calling thread (when the JVM supports it).
+ * A garbage collection is forced before every execution, so that the collection of the garbage left by one run
+ * is not charged to the next one. Work done by threads spawned by the task is only accounted in the wall time.
+ *
+ * A failing execution is not skipped: the measurement stops and the exception is rethrown, checked exceptions
+ * wrapped in an {@link IllegalStateException}. Callers decide how to report it.
+ */
+public class TimingHarness {
+
+    private static final int MAX_GC_ATTEMPTS = 5;
+
+    private final int warmups;
+    private final int runs;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    public TimingHarness(int warmups, int runs) {
+        if(warmups < 0) throw new IllegalArgumentException("warmups must not be negative");
+        if(runs < 1) throw new IllegalArgumentException("runs must be positive");
+        this.warmups = warmups;
+        this.runs = runs;
+    }
+
+    public Result measure(Callable<?> task) {
+        boolean cpuTime = threadMXBean.isCurrentThreadCpuTimeSupported();
+        if(cpuTime && !threadMXBean.isThreadCpuTimeEnabled()) threadMXBean.setThreadCpuTimeEnabled(true);
+        com.sun.management.ThreadMXBean allocationMXBean = getAllocationMXBean();
+
+        for(int i = 0; i < warmups; i++) {
+            call(task);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        double[] wallTimes = new double[runs];
+        double[] cpuTimes = new double[runs];
+        double[] allocations = new double[runs];
+        for(int i = 0; i < runs; i++) {
+            collectGarbage();
+
+            long allocated = (allocationMXBean != null) ? allocationMXBean.getThreadAllocatedBytes(threadId) : 0;
+            long cpu = cpuTime ? threadMXBean.getCurrentThreadCpuTime() : 0;
+            long wall = System.nanoTime();
+
+            call(task);
+
+            wallTimes[i] = System.nanoTime() - wall;
+            cpuTimes[i] = cpuTime ? threadMXBean.getCurrentThreadCpuTime() - cpu : Double.NaN;
+            allocations[i] = (allocationMXBean != null) ? allocationMXBean.getThreadAllocatedBytes(threadId) - allocated : Double.NaN;
+        }
+
+        return new Result(wallTimes, cpuTimes, allocations);
+    }
+
+    private void call(Callable<?> task) {
+        try {
+            task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private com.sun.management.ThreadMXBean getAllocationMXBean() {
+        if(threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if(allocationMXBean.isThreadAllocatedMemorySupported()) {
+                if(!allocationMXBean.isThreadAllocatedMemoryEnabled()) allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+                return allocationMXBean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Requests collections until the collectors report that one actually happened.
+     */
+    private void collectGarbage() {
+        long collections = countCollections();
+        for(int i = 0; i < MAX_GC_ATTEMPTS; i++) {
+            System.gc();
+            System.runFinalization();
+            if(countCollections() > collections) return;
+        }
+    }
+
+    private long countCollections() {
+        long collections = 0;
+        for(GarbageCollectorMXBean garbageCollectorMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+        }
+        return collections;
+    }
+
+    /**
+     * Per-run wall times and CPU times in nanoseconds and allocated bytes; values the JVM cannot measure are NaN.
+     */
+    public static class Result {
+
+        private final double[] wallTimes;
+        private final double[] cpuTimes;
+        private final double[] allocations;
+
+        private Result(double[] wallTimes, double[] cpuTimes, double[] allocations) {
+            this.wallTimes = wallTimes;
+            this.cpuTimes = cpuTimes;
+            this.allocations = allocations;
+        }
+
+        public double[] getWallTimes() {
+            return wallTimes.clone();
+        }
+
+        public double[] getCpuTimes() {
+            return cpuTimes.clone();
+        }
+
+        public double[] getAllocations() {
+            return allocations.clone();
+        }
+
+        public static double mean(double[] values) {
+            double sum = 0;
+            for(double value : values) {
+                sum += value;
+            }
+            return sum / values.length;
+        }
+
+        public static double min(double[] values) {
+            double min = Double.POSITIVE_INFINITY;
+            for(double value : values) {
+                min = Math.min(min, value);
+            }
+            return min;
+        }
+
+        public static double median(double[] values) {
+            return percentile(values, 50);
+        }
+
+        public static double interquartileRange(double[] values) {
+            return percentile(values, 75) - percentile(values, 25);
+        }
+
+        private static double percentile(double[] values, double p) {
+            return new Percentile().withEstimationType(Percentile.EstimationType.R_7).evaluate(values, p);
+        }
+    }
+
+}
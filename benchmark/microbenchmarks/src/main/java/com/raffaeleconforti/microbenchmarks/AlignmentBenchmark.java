@@ -0,0 +1,62 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.benchmark.PrefixTreeMiner;
+import com.raffaeleconforti.context.FakePluginContext;
+import com.raffaeleconforti.measurements.Measure;
+import com.raffaeleconforti.measurements.impl.AlignmentBasedFitness;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alignment based fitness of a log against a prefix tree mined from a small sample of the same process,
+ * so that part of the traces requires non-trivial alignments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AlignmentBenchmark {
+
+    private static final int MODEL_TRACES = 50;
+
+    @State(Scope.Benchmark)
+    public static class AlignmentState {
+
+        @Param({"100", "1000"})
+        public int traces;
+
+        public XLog log;
+        public PetrinetWithMarking petrinet;
+        public PrefixTreeMiner miner;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SyntheticLogGenerator generator = new SyntheticLogGenerator();
+            miner = new PrefixTreeMiner();
+            log = generator.generateLog(traces);
+            petrinet = miner.minePetrinet(new FakePluginContext(), generator.generateLog(MODEL_TRACES), false, null, new XEventNameClassifier());
+        }
+    }
+
+    @Benchmark
+    public Measure alignmentBasedFitness(AlignmentState state) {
+        return new AlignmentBasedFitness().computeMeasurement(new FakePluginContext(), new XEventNameClassifier(), state.petrinet, state.miner, state.log);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.benchmark.ComplexityCalculatorCustom;
+import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.processmining.models.graphbased.directed.bpmn.BPMNDiagram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a Petri net into BPMN (PetriNetToBPMNConverter) and the size and complexity
+ * metrics computed on the resulting diagram (ComplexityCalculatorCustom).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Benchmark
+    public BPMNDiagram petriNetToBPMN(ModelState state) {
+        return PetriNetToBPMNConverter.convert(state.petrinet.getPetrinet(), state.petrinet.getInitialMarking(), state.petrinet.getFinalMarking(), false);
+    }
+
+    @Benchmark
+    public void complexity(ModelState state, Blackhole blackhole) {
+        ComplexityCalculatorCustom cc = new ComplexityCalculatorCustom(state.bpmn);
+        blackhole.consume(cc.computeSize());
+        blackhole.consume(cc.getFlowSize());
+        blackhole.consume(cc.getConnectorSize());
+        blackhole.consume(cc.computeMinConnectorDensity());
+        blackhole.consume(cc.computeMaxConnectorDensity());
+        blackhole.consume(cc.computeMeanConnectorDensity());
+        blackhole.consume(cc.computeMedianConnectorDensity());
+        blackhole.consume(cc.computeCNC());
+        blackhole.consume(cc.computeCFC());
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.benchmark.LogImporterFF;
+import com.raffaeleconforti.log.util.LogImporter;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of XES (LogImporter) and flexfringe (LogImporterFF) logs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Benchmark
+    public XLog importXes(LogState state) throws Exception {
+        return LogImporter.importFromFile(new XFactoryNaiveImpl(), state.xesFile.getAbsolutePath());
+    }
+
+    @Benchmark
+    public XLog importFlexfringe(LogState state) throws Exception {
+        return LogImporterFF.importFromFile(new XFactoryNaiveImpl(), state.flexfringeFile.getAbsolutePath());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with -rf json, e.g. the results of two commits.
+ *
+ * Usage: JmhResultComparator baseline.json candidate.json [threshold]
+ *
+ * For every benchmark and parameter combination present in both files prints the two scores and the
+ * relative change, and marks as a regression any change worse than the threshold (default 0.1, i.e. 10%)
+ * that is also larger than the sum of the two score errors. Exits with status 1 if a regression is found.
+ */
+public class JmhResultComparator {
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.out.println("Usage: JmhResultComparator baseline.json candidate.json [threshold]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> candidate = read(new File(args[1]));
+
+        boolean regression = false;
+        for(Map.Entry<String, JsonNode> entry : baseline.entrySet()) {
+            JsonNode other = candidate.get(entry.getKey());
+            if(other == null) {
+                System.out.println(String.format("%-80s missing in %s", entry.getKey(), args[1]));
+                continue;
+            }
+
+            JsonNode base = entry.getValue();
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double baseError = errorOf(base);
+            double score = other.path("primaryMetric").path("score").asDouble();
+            double error = errorOf(other);
+            String unit = base.path("primaryMetric").path("scoreUnit").asText();
+
+            // Throughput modes are better when higher, time modes when lower
+            boolean higherIsBetter = "thrpt".equals(base.path("mode").asText());
+            double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore;
+            double worsening = higherIsBetter ? -change : change;
+            boolean worse = worsening > threshold && Math.abs(score - baseScore) > baseError + error;
+            regression |= worse;
+
+            System.out.println(String.format("%-80s %12.3f %12.3f %-10s %+8.2f%%%s",
+                    entry.getKey(), baseScore, score, unit, change * 100, worse ? "  REGRESSION" : ""));
+        }
+
+        System.exit(regression ? 1 : 0);
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for(JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while(fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double errorOf(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+}
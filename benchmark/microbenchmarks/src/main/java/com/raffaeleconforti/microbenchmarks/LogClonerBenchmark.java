@@ -0,0 +1,30 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.log.util.LogCloner;
+import org.deckfour.xes.model.XLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deep copy of a log, done by most filters and noise generators before modifying it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LogClonerBenchmark {
+
+    @Benchmark
+    public XLog cloneLog(LogState state) {
+        return new LogCloner().cloneLog(state.log);
+    }
+
+}
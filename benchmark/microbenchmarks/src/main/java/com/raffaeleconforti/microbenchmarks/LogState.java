@@ -0,0 +1,50 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import org.deckfour.xes.model.XLog;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Synthetic log of the requested number of traces, also written to disk as XES and flexfringe files.
+ */
+@State(Scope.Benchmark)
+public class LogState {
+
+    @Param({"100", "1000", "10000"})
+    public int traces;
+
+    public List<List<String>> rawTraces;
+    public XLog log;
+    public File xesFile;
+    public File flexfringeFile;
+
+    private File directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticLogGenerator generator = new SyntheticLogGenerator();
+        rawTraces = generator.generateTraces(traces);
+        log = generator.generateLog(traces);
+
+        directory = Files.createTempDirectory("microbenchmarks").toFile();
+        xesFile = generator.writeXes(log, directory, "synthetic" + traces);
+        flexfringeFile = generator.writeFlexfringe(rawTraces, directory, "synthetic" + traces);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        xesFile.delete();
+        flexfringeFile.delete();
+        directory.delete();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.automaton.Automaton;
+import com.raffaeleconforti.automaton.AutomatonFactory;
+import com.raffaeleconforti.benchmark.PrefixTreeMiner;
+import com.raffaeleconforti.context.FakePluginContext;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovery of a prefix tree Petri net (PrefixTreeMiner) and of the automaton of a log (AutomatonFactory).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MinerBenchmark {
+
+    @Benchmark
+    public PetrinetWithMarking prefixTreeMiner(LogState state) {
+        return new PrefixTreeMiner().minePetrinet(new FakePluginContext(), state.log, false, null, new XEventNameClassifier());
+    }
+
+    @Benchmark
+    public Automaton automatonFactory(LogState state) {
+        return new AutomatonFactory(new XEventNameClassifier()).generate(state.log);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.benchmark.PrefixTreeMiner;
+import com.raffaeleconforti.context.FakePluginContext;
+import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
+import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.processmining.models.graphbased.directed.bpmn.BPMNDiagram;
+
+/**
+ * Prefix tree model of a synthetic log, as a Petri net and as a BPMN diagram.
+ * The size of the model grows with the number of distinct variants, hence with the number of traces.
+ */
+@State(Scope.Benchmark)
+public class ModelState {
+
+    @Param({"100", "1000", "10000"})
+    public int traces;
+
+    public PetrinetWithMarking petrinet;
+    public BPMNDiagram bpmn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        petrinet = new PrefixTreeMiner().minePetrinet(new FakePluginContext(), new SyntheticLogGenerator().generateLog(traces), false, null, new XEventNameClassifier());
+        bpmn = PetriNetToBPMNConverter.convert(petrinet.getPetrinet(), petrinet.getInitialMarking(), petrinet.getFinalMarking(), false);
+    }
+
+}
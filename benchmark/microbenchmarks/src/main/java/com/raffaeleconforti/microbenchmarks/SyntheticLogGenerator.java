@@ -0,0 +1,141 @@
+package com.raffaeleconforti.microbenchmarks;
+
+import com.raffaeleconforti.log.util.LogImporter;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of the logs used by the benchmarks, so that results of different commits are
+ * always measured over the same input without shipping large log files.
+ *
+ * Traces are random walks over a fixed process: a start activity, two parallel branches with three
+ * activities each, an exclusive choice, a loop repeated up to three times, and an end activity.
+ * A small fraction of the traces skips or duplicates an activity, so that the logs are not perfectly
+ * fitting any structured model.
+ */
+public class SyntheticLogGenerator {
+
+    private static final long SEED = 123456789L;
+
+    private static final String[] BRANCH_1 = new String[] {"B1", "B2", "B3"};
+    private static final String[] BRANCH_2 = new String[] {"C1", "C2", "C3"};
+    private static final String[] CHOICE = new String[] {"D1", "D2", "D3", "D4"};
+    private static final String[] LOOP = new String[] {"E1", "E2"};
+
+    private final XFactory factory = new XFactoryNaiveImpl();
+    private final XConceptExtension xce = XConceptExtension.instance();
+    private final XLifecycleExtension xle = XLifecycleExtension.instance();
+    private final XTimeExtension xte = XTimeExtension.instance();
+
+    public List<List<String>> generateTraces(int traces) {
+        Random r = new Random(SEED + traces);
+        List<List<String>> result = new ArrayList<>(traces);
+        for(int i = 0; i < traces; i++) {
+            result.add(generateTrace(r));
+        }
+        return result;
+    }
+
+    public XLog generateLog(int traces) {
+        XLog log = factory.createLog();
+        log.getExtensions().add(xce);
+        log.getExtensions().add(xle);
+        log.getExtensions().add(xte);
+        xce.assignName(log, "Synthetic " + traces);
+
+        long time = 0;
+        int id = 0;
+        for(List<String> labels : generateTraces(traces)) {
+            XTrace trace = factory.createTrace();
+            xce.assignName(trace, Integer.toString(id++));
+            for(String label : labels) {
+                XEvent event = factory.createEvent();
+                xce.assignName(event, label);
+                xle.assignStandardTransition(event, XLifecycleExtension.StandardModel.COMPLETE);
+                xte.assignTimestamp(event, new Date(time));
+                time += 60000;
+                trace.add(event);
+            }
+            log.add(trace);
+        }
+        return log;
+    }
+
+    public File writeXes(XLog log, File directory, String name) {
+        File file = new File(directory, name + ".xes.gz");
+        LogImporter.exportToFile(file.getAbsolutePath(), log);
+        return file;
+    }
+
+    /**
+     * Writes the traces in the flexfringe format read by LogImporterFF:
+     * a header with the number of traces and the size of the alphabet, then one trace per line.
+     */
+    public File writeFlexfringe(List<List<String>> traces, File directory, String name) throws IOException {
+        File file = new File(directory, name + ".txt");
+        int alphabet = 2 + BRANCH_1.length + BRANCH_2.length + CHOICE.length + LOOP.length;
+        try(PrintWriter writer = new PrintWriter(file)) {
+            writer.println(traces.size() + " " + alphabet);
+            for(List<String> trace : traces) {
+                StringBuilder sb = new StringBuilder();
+                sb.append("1 ").append(trace.size());
+                for(String label : trace) {
+                    sb.append(' ').append(label);
+                }
+                writer.println(sb.toString());
+            }
+        }
+        return file;
+    }
+
+    private List<String> generateTrace(Random r) {
+        List<String> trace = new ArrayList<>();
+        trace.add("A");
+
+        int b = 0;
+        int c = 0;
+        while(b < BRANCH_1.length || c < BRANCH_2.length) {
+            if(c == BRANCH_2.length || (b < BRANCH_1.length && r.nextBoolean())) {
+                trace.add(BRANCH_1[b++]);
+            }else {
+                trace.add(BRANCH_2[c++]);
+            }
+        }
+
+        trace.add(CHOICE[r.nextInt(CHOICE.length)]);
+
+        int iterations = 1 + r.nextInt(3);
+        for(int i = 0; i < iterations; i++) {
+            for(String label : LOOP) {
+                trace.add(label);
+            }
+        }
+
+        trace.add("F");
+
+        if(r.nextInt(10) == 0) {
+            int pos = 1 + r.nextInt(trace.size() - 2);
+            if(r.nextBoolean()) {
+                trace.remove(pos);
+            }else {
+                trace.add(pos, trace.get(pos));
+            }
+        }
+        return trace;
+    }
+
+}
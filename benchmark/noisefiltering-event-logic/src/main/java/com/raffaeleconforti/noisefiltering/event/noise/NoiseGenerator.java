@@ -1,21 +1,24 @@
 package com.raffaeleconforti.noisefiltering.event.noise;
 
 import com.raffaeleconforti.log.util.LogCloner;
+import com.raffaeleconforti.log.util.LogImporter;
 import org.deckfour.xes.extension.std.XConceptExtension;
-import org.deckfour.xes.extension.std.XLifecycleExtension;
 import org.deckfour.xes.extension.std.XTimeExtension;
 import org.deckfour.xes.factory.XFactory;
 import org.deckfour.xes.factory.XFactoryNaiveImpl;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
 import org.eclipse.collections.impl.set.mutable.UnifiedSet;
 
-import java.util.Date;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created by conforti on 8/02/15.
@@ -23,18 +26,26 @@ import java.util.Set;
 
 public class NoiseGenerator {
 
+    private static final int MAX_REJECTED = 1000;
+
     private final XLog log;
     private String[] labels;
     private int numberOfEvents = 0;
     private final XConceptExtension xce = XConceptExtension.instance();
     private final XTimeExtension xte = XTimeExtension.instance();
-    private final XLifecycleExtension xle = XLifecycleExtension.instance();
     private final XFactory factory = new XFactoryNaiveImpl();
     private final Map<String, Set<String>> directDependencies = new UnifiedMap<String, Set<String>>();
-    private final Random random = new Random(123456789);
+    private final long seed;
+    private final int threads;
 
     public NoiseGenerator(XLog log) {
+        this(log, 123456789, Runtime.getRuntime().availableProcessors());
+    }
+
+    public NoiseGenerator(XLog log, long seed, int threads) {
         this.log = log;
+        this.seed = seed;
+        this.threads = Math.max(1, threads);
         discoverDependencies(log);
         populateLabels(log);
     }
@@ -67,65 +78,224 @@ public class NoiseGenerator {
         labels = set.toArray(new String[set.size()]);
     }
 
+    /**
+     * @return a copy of the log with noise inserted so that the given fraction of its events is noise.
+     */
     public XLog insertNoise(double percentageNoise) {
-        LogCloner logCloner = new LogCloner();
-        XLog result = logCloner.cloneLog(log);
-
-        int inserted = 0;
-        long needed = Math.round((numberOfEvents * percentageNoise) / (1.0 - percentageNoise));
-        
-        while(inserted < needed) {
-            int tracePos = random.nextInt(result.size());
-            XTrace trace = result.get(tracePos);
-
-            if(trace.size() > 0) {
-                int eventPos = 0;
-                while(eventPos == 0) {
-                    eventPos = random.nextInt(trace.size());
-                }
+        return new LogCloner().cloneLog(getNoisyLogs(percentageNoise).get(0));
+    }
 
-                int label = random.nextInt(labels.length);
+    /**
+     * Plans the noise of all the levels in a single pass over the log, and returns one read-only {@link NoisyLog}
+     * view per level, in the order of the percentages. Levels are nested, the noise of a level includes the noise
+     * of the lower ones.
+     */
+    public List<NoisyLog> getNoisyLogs(double... percentagesNoise) {
+        NoisePlan plan = plan(percentagesNoise);
+        List<NoisyLog> noisyLogs = new ArrayList<>(percentagesNoise.length);
+        for(int level = 0; level < percentagesNoise.length; level++) {
+            noisyLogs.add(new NoisyLog(log, plan, level));
+        }
+        return noisyLogs;
+    }
 
-                XEvent event = factory.createEvent();
-                xce.assignName(event, labels[label]);
+    /**
+     * Writes one log per noise level, streaming the noisy traces to the files instead of building the noisy logs.
+     * Files are compressed unless their name ends with .xes or .mxml.
+     */
+    public void exportNoisyLogs(double[] percentagesNoise, String[] names) {
+        if(percentagesNoise.length != names.length) {
+            throw new IllegalArgumentException("Expected one file per noise level");
+        }
+        List<NoisyLog> noisyLogs = getNoisyLogs(percentagesNoise);
+        for(int level = 0; level < names.length; level++) {
+            LogImporter.exportToFile(names[level], noisyLogs.get(level));
+        }
+    }
 
-                event.getAttributes().put("noise", factory.createAttributeBoolean("noise", true, null));
-                xle.assignStandardTransition(event, XLifecycleExtension.StandardModel.COMPLETE);
+    /**
+     * Spreads the insertions of each level over the traces at random, lowest level first, and plans the traces. A trace
+     * can take fewer insertions than allocated to it, when no insertion breaks the dependencies of the log any more:
+     * the insertions it could not take are then allocated again to the other traces, until every level has its noise
+     * or no trace can take more, in which case the shortfall is reported.
+     */
+    private NoisePlan plan(double[] percentagesNoise) {
+        int levels = percentagesNoise.length;
+        NoisePlan plan = new NoisePlan(labels, levels, log.size());
 
-                boolean pre = false;
-                if(eventPos - 1 < trace.size() && eventPos > 0) {
-                    String name = xce.extractName(trace.get(eventPos - 1));
-                    if (directDependencies.get(name) != null && !directDependencies.get(name).contains(labels[label])) {
-                        pre = true;
+        // Insertions only go after the first event of a trace
+        IntArrayList open = new IntArrayList();
+        for(int tracePos = 0; tracePos < log.size(); tracePos++) {
+            if(log.get(tracePos).size() > 1) open.add(tracePos);
+        }
+
+        Integer[] order = new Integer[levels];
+        final long[] needed = new long[levels];
+        for(int level = 0; level < levels; level++) {
+            order[level] = level;
+            needed[level] = Math.round((numberOfEvents * percentagesNoise[level]) / (1.0 - percentagesNoise[level]));
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(needed[o1], needed[o2]);
+            }
+        });
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] insertions = new int[levels][log.size()];
+        int[] quota = new int[log.size()];
+        int[] planned = new int[log.size()];
+        boolean[] saturated = new boolean[log.size()];
+        while(true) {
+            boolean[] changed = new boolean[log.size()];
+            IntArrayList toPlan = new IntArrayList();
+            for(int rank = 0; rank < levels; rank++) {
+                int level = order[rank];
+                long inserted = 0;
+                for(int tracePos = 0; tracePos < log.size(); tracePos++) {
+                    inserted += saturated[tracePos] ? Math.min(insertions[level][tracePos], planned[tracePos]) : insertions[level][tracePos];
+                }
+                // Levels are nested, an insertion for a level is also one for the levels above
+                for(; inserted < needed[level] && !open.isEmpty(); inserted++) {
+                    int tracePos = open.get(random.nextInt(open.size()));
+                    for(int higher = rank; higher < levels; higher++) {
+                        insertions[order[higher]][tracePos]++;
+                    }
+                    quota[tracePos]++;
+                    if(!changed[tracePos]) {
+                        changed[tracePos] = true;
+                        toPlan.add(tracePos);
                     }
                 }
+            }
+            if(toPlan.isEmpty()) break;
 
-                boolean post = false;
-                String name = xce.extractName(trace.get(eventPos));
-                if (directDependencies.get(labels[label]) != null && !directDependencies.get(labels[label]).contains(name)) {
-                    post = true;
+            planTraces(plan, toPlan.toArray(), quota);
+            IntArrayList stillOpen = new IntArrayList(open.size());
+            for(int i = 0; i < open.size(); i++) {
+                int tracePos = open.get(i);
+                if(changed[tracePos]) {
+                    planned[tracePos] = plan.getPlanned(tracePos);
+                    saturated[tracePos] = planned[tracePos] < quota[tracePos];
                 }
+                if(!saturated[tracePos]) stillOpen.add(tracePos);
+            }
+            open = stillOpen;
+        }
 
-                if(pre || post) {
-                    Date date1 = xte.extractTimestamp(trace.get(eventPos - 1));
-                    Date date2 = xte.extractTimestamp(trace.get(eventPos));
-                    Date date3 = new Date(date2.getTime() - date1.getTime());
-                    xte.assignTimestamp(event, date3);
-                    trace.add(eventPos, event);
-                    inserted++;
-                }
+        for(int level = 0; level < levels; level++) {
+            plan.setInsertions(level, insertions[level]);
+            long inserted = 0;
+            for(int tracePos = 0; tracePos < log.size(); tracePos++) {
+                inserted += plan.getInsertions(level, tracePos);
+            }
+            if(inserted < needed[level]) {
+                System.out.println("WARNING - only " + inserted + " of the " + needed[level] + " noise events of level "
+                        + percentagesNoise[level] + " fit the log");
             }
         }
-        
-        return result;
+        return plan;
+    }
+
+    private void planTraces(final NoisePlan plan, final int[] traces, final int[] quota) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int chunk = Math.max(1, traces.length / (4 * threads));
+            List<Future<?>> futures = new ArrayList<>();
+            for(int start = 0; start < traces.length; start += chunk) {
+                final int from = start;
+                final int to = Math.min(traces.length, start + chunk);
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for(int i = from; i < to; i++) {
+                            planTrace(plan, traces[i], quota[traces[i]]);
+                        }
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Draws the insertions of a trace from the random stream of the trace, so that the plan does not depend on the
+     * number of threads, and planning a trace again with a larger quota only adds insertions after the ones planned
+     * before. A trace where no insertion breaks the dependencies of the log any more gets fewer insertions than its
+     * quota.
+     */
+    private void planTrace(NoisePlan plan, int tracePos, int quota) {
+        XTrace trace = log.get(tracePos);
+        List<String> names = new ArrayList<>(trace.size() + quota);
+        List<Date> dates = new ArrayList<>(trace.size() + quota);
+        for(XEvent event : trace) {
+            names.add(xce.extractName(event));
+            dates.add(xte.extractTimestamp(event));
+        }
+
+        IntArrayList positions = new IntArrayList(quota);
+        IntArrayList labelIds = new IntArrayList(quota);
+        LongArrayList timestamps = new LongArrayList(quota);
+
+        SplittableRandom random = new SplittableRandom(traceSeed(tracePos));
+        int rejected = 0;
+        while(positions.size() < quota && rejected < MAX_REJECTED) {
+            int eventPos = 1 + random.nextInt(names.size() - 1);
+            int label = random.nextInt(labels.length);
+
+            Set<String> preceding = directDependencies.get(names.get(eventPos - 1));
+            boolean pre = preceding != null && !preceding.contains(labels[label]);
+
+            Set<String> following = directDependencies.get(labels[label]);
+            boolean post = following != null && !following.contains(names.get(eventPos));
+
+            if(pre || post) {
+                Date date1 = dates.get(eventPos - 1);
+                Date date2 = dates.get(eventPos);
+                Date date3 = date1 != null && date2 != null ? new Date(date2.getTime() - date1.getTime()) : null;
+
+                names.add(eventPos, labels[label]);
+                dates.add(eventPos, date3);
+                positions.add(eventPos);
+                labelIds.add(label);
+                timestamps.add(date3 != null ? date3.getTime() : NoisePlan.NO_TIMESTAMP);
+                rejected = 0;
+            }else {
+                rejected++;
+            }
+        }
+
+        plan.setTrace(tracePos, positions.toArray(), labelIds.toArray(), timestamps.toArray());
+    }
+
+    /**
+     * SplitMix64 finaliser of the seed and the position of the trace.
+     */
+    private long traceSeed(int tracePos) {
+        long z = seed + (tracePos + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     public XLog fixDate() {
         LogCloner logCloner = new LogCloner();
-        XLog result = logCloner.cloneLog(log);
+        XLog result = factory.createLog(log.getAttributes());
 
-        for(int tracePos = 0; tracePos < result.size(); tracePos++) {
-            XTrace trace = result.get(tracePos);
+        for(XTrace original : log) {
+            XTrace trace = logCloner.getXTrace(original);
+            result.add(trace);
             for(int eventPos = 0; eventPos < trace.size(); eventPos++) {
                 XEvent event = trace.get(eventPos);
                 if(xte.extractTimestamp(event) == null) {
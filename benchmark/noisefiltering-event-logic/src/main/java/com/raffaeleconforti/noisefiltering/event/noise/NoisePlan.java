@@ -0,0 +1,68 @@
+package com.raffaeleconforti.noisefiltering.event.noise;
+
+/**
+ * Noise to insert in each trace of a log, for several noise levels at once.
+ *
+ * The insertions of a trace are kept in the order they have to be applied, positions referring to the trace with the
+ * previous insertions already applied. Levels are nested: a level inserts a prefix of the insertions of each trace,
+ * so a higher level only adds noise to the noise of a lower one.
+ */
+class NoisePlan {
+
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final String[] labels;
+    private final int[][] insertions;
+    private final int[][] positions;
+    private final int[][] labelIds;
+    private final long[][] timestamps;
+
+    NoisePlan(String[] labels, int levels, int traces) {
+        this.labels = labels;
+        this.insertions = new int[levels][traces];
+        this.positions = new int[traces][];
+        this.labelIds = new int[traces][];
+        this.timestamps = new long[traces][];
+    }
+
+    void setInsertions(int level, int[] insertions) {
+        this.insertions[level] = insertions;
+    }
+
+    void setTrace(int trace, int[] positions, int[] labelIds, long[] timestamps) {
+        this.positions[trace] = positions;
+        this.labelIds[trace] = labelIds;
+        this.timestamps[trace] = timestamps;
+    }
+
+    /**
+     * @return the number of insertions planned for the trace, over all the levels.
+     */
+    int getPlanned(int trace) {
+        return positions[trace] == null ? 0 : positions[trace].length;
+    }
+
+    int levels() {
+        return insertions.length;
+    }
+
+    /**
+     * @return the number of insertions of the trace at the level, never more than the ones planned for the trace.
+     */
+    int getInsertions(int level, int trace) {
+        return positions[trace] == null ? 0 : Math.min(insertions[level][trace], positions[trace].length);
+    }
+
+    int getPosition(int trace, int insertion) {
+        return positions[trace][insertion];
+    }
+
+    String getLabel(int trace, int insertion) {
+        return labels[labelIds[trace][insertion]];
+    }
+
+    long getTimestamp(int trace, int insertion) {
+        return timestamps[trace][insertion];
+    }
+
+}
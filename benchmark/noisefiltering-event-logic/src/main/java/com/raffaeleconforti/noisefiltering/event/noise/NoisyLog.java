@@ -0,0 +1,182 @@
+package com.raffaeleconforti.noisefiltering.event.noise;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.model.*;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+
+import java.util.AbstractList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of a log with the noise of one level of a {@link NoisePlan} inserted.
+ *
+ * Noisy traces are built when they are read, from the events of the source log and the insertions of the plan, and
+ * are not retained: iterating the view, e.g. to serialise it, only holds one noisy trace at a time. Extensions,
+ * classifiers and global attributes are the ones of the source log, and the events of the source log are shared, not
+ * copied. The attributes are the ones of the source log until replaced with {@link #setAttributes(XAttributeMap)},
+ * which only affects the view.
+ */
+public class NoisyLog extends AbstractList<XTrace> implements XLog {
+
+    private static final XConceptExtension xce = XConceptExtension.instance();
+    private static final XTimeExtension xte = XTimeExtension.instance();
+    private static final XLifecycleExtension xle = XLifecycleExtension.instance();
+
+    private final XLog log;
+    private final NoisePlan plan;
+    private final int level;
+    private final XFactory factory = new XFactoryNaiveImpl();
+    private final Map<XEventClassifier, XLogInfo> cachedInfo = new UnifiedMap<XEventClassifier, XLogInfo>();
+    private XAttributeMap attributes;
+
+    NoisyLog(XLog log, NoisePlan plan, int level) {
+        this.log = log;
+        this.plan = plan;
+        this.level = level;
+    }
+
+    @Override
+    public XTrace get(int index) {
+        XTrace trace = log.get(index);
+        XTrace noisyTrace = factory.createTrace(trace.getAttributes());
+        noisyTrace.addAll(trace);
+
+        int insertions = plan.getInsertions(level, index);
+        for(int i = 0; i < insertions; i++) {
+            noisyTrace.add(plan.getPosition(index, i), createNoise(plan.getLabel(index, i), plan.getTimestamp(index, i)));
+        }
+        return noisyTrace;
+    }
+
+    private XEvent createNoise(String label, long timestamp) {
+        XEvent event = factory.createEvent();
+        xce.assignName(event, label);
+
+        event.getAttributes().put("noise", factory.createAttributeBoolean("noise", true, null));
+        xle.assignStandardTransition(event, XLifecycleExtension.StandardModel.COMPLETE);
+
+        if(timestamp != NoisePlan.NO_TIMESTAMP) {
+            xte.assignTimestamp(event, new Date(timestamp));
+        }
+        return event;
+    }
+
+    @Override
+    public int size() {
+        return log.size();
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XAttributable#getAttributes()
+     */
+    public XAttributeMap getAttributes() {
+        return attributes != null ? attributes : log.getAttributes();
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XAttributable#setAttributes(java.util.Map)
+     */
+    public void setAttributes(XAttributeMap attributes) {
+        this.attributes = attributes;
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+     */
+    @Override
+    public boolean hasAttributes() {
+        return !getAttributes().isEmpty();
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XAttributable#getExtensions()
+     */
+    public Set<XExtension> getExtensions() {
+        return log.getExtensions();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#clone()
+     */
+    public Object clone() {
+        XLog clone = factory.createLog((XAttributeMap) getAttributes().clone());
+        clone.getExtensions().addAll(log.getExtensions());
+        clone.getClassifiers().addAll(log.getClassifiers());
+        clone.getGlobalTraceAttributes().addAll(log.getGlobalTraceAttributes());
+        clone.getGlobalEventAttributes().addAll(log.getGlobalEventAttributes());
+        for(XTrace trace : this) {
+            clone.add((XTrace) trace.clone());
+        }
+        return clone;
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XLog#getClassifiers()
+     */
+    public List<XEventClassifier> getClassifiers() {
+        return log.getClassifiers();
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XLog#getGlobalEventAttributes()
+     */
+    public List<XAttribute> getGlobalEventAttributes() {
+        return log.getGlobalEventAttributes();
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XLog#getGlobalTraceAttributes()
+     */
+    public List<XAttribute> getGlobalTraceAttributes() {
+        return log.getGlobalTraceAttributes();
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XLog#accept(org.deckfour.xes.model.XVisitor)
+     */
+    public boolean accept(XVisitor visitor) {
+        if (visitor.precondition()) {
+            visitor.init(this);
+            visitor.visitLogPre(this);
+            for (XExtension extension: getExtensions()) {
+                extension.accept(visitor, this);
+            }
+            for (XEventClassifier classifier: getClassifiers()) {
+                classifier.accept(visitor, this);
+            }
+            for (XAttribute attribute: getAttributes().values()) {
+                attribute.accept(visitor, this);
+            }
+            for (XTrace trace: this) {
+                trace.accept(visitor, this);
+            }
+            visitor.visitLogPost(this);
+            return true;
+        }
+        return false;
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XLog#getInfo(org.deckfour.xes.classification.XEventClassifier)
+     */
+    public XLogInfo getInfo(XEventClassifier classifier) {
+        return cachedInfo.get(classifier);
+    }
+
+    /* (non-Javadoc)
+     * @see org.deckfour.xes.model.XLog#setInfo(org.deckfour.xes.classification.XEventClassifier, org.deckfour.xes.info.XLogInfo)
+     */
+    public void setInfo(XEventClassifier classifier, XLogInfo info) {
+        cachedInfo.put(classifier, info);
+    }
+}
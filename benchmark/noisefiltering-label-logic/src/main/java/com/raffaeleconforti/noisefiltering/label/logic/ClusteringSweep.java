@@ -0,0 +1,88 @@
+package com.raffaeleconforti.noisefiltering.label.logic;
+
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.AbstractClustering;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several clustering algorithm and parameter combinations over the candidate labels of a log.
+ *
+ * The features of the candidates are computed once and loaded in a single {@link ClusteringDatabase}, with the
+ * pairwise distances precomputed, which all the combinations share. The combinations run concurrently, and each
+ * of them yields label ids, which {@link LabelFeatures#getMask(java.util.Collection)} turns into a mask: a filtered
+ * log is only built, by {@link LabelFeatures#filterLog(org.deckfour.xes.model.XLog, boolean[])}, for the mask
+ * eventually retained.
+ */
+public class ClusteringSweep {
+
+    /**
+     * A clustering algorithm with its parameters, instantiated over the shared database.
+     */
+    public interface Combination {
+        AbstractClustering<Integer> create(Integer[] key, ClusteringDatabase database);
+    }
+
+    private final LabelFeatures features;
+    private final int threads;
+
+    public ClusteringSweep(LabelFeatures features) {
+        this(features, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ClusteringSweep(LabelFeatures features, int threads) {
+        this.features = features;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @return for each combination, in the given order, the outliers found by its techniques.
+     */
+    public List<List<FilteringResult<Integer>>> run(List<Combination> combinations) {
+        int[] candidates = features.getCandidates();
+        if(candidates.length == 0 || combinations.isEmpty()) {
+            return new ArrayList<>(Collections.nCopies(combinations.size(), Collections.<FilteringResult<Integer>>emptyList()));
+        }
+
+        final Integer[] key = new Integer[candidates.length];
+        for(int i = 0; i < candidates.length; i++) {
+            key[i] = candidates[i];
+        }
+        final ClusteringDatabase database = new ClusteringDatabase(features.getFeatures(candidates), AbstractClustering.DISTANCE_FUNCTIONS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, combinations.size()));
+        try {
+            List<Future<List<FilteringResult<Integer>>>> futures = new ArrayList<>(combinations.size());
+            for(final Combination combination : combinations) {
+                futures.add(executor.submit(new Callable<List<FilteringResult<Integer>>>() {
+                    @Override
+                    public List<FilteringResult<Integer>> call() {
+                        return combination.create(key, database).getOutliers();
+                    }
+                }));
+            }
+
+            List<List<FilteringResult<Integer>>> results = new ArrayList<>(combinations.size());
+            for(Future<List<FilteringResult<Integer>>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.raffaeleconforti.noisefiltering.label.logic;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Directly-follows features of the labels of a log, computed in a single pass over the log.
+ *
+ * Labels are numbered from 0 in order of appearance and the traces are kept as arrays of label ids, so that
+ * the features of any subset of labels, and the log without any subset of labels, can be derived without
+ * classifying the events again.
+ */
+public class LabelFeatures {
+
+    private final List<String> labels = new ArrayList<>();
+    private final ObjectIntHashMap<String> labelIds = new ObjectIntHashMap<>();
+    private final int[][] traces;
+
+    private int[] occurrences = new int[16];
+    private int[] traceOccurrences = new int[16];
+    private int[] predecessors = new int[16];
+    private int[] successors = new int[16];
+
+    public LabelFeatures(XLog log, XEventClassifier xEventClassifier) {
+        traces = new int[log.size()][];
+
+        int[] lastTrace = new int[16];
+        LongHashSet directlyFollows = new LongHashSet();
+        for(int t = 0; t < log.size(); t++) {
+            XTrace trace = log.get(t);
+            int[] codedTrace = new int[trace.size()];
+            for(int i = 0; i < codedTrace.length; i++) {
+                String name = xEventClassifier.getClassIdentity(trace.get(i));
+                int label = labelIds.getIfAbsent(name, -1);
+                if(label < 0) {
+                    label = labels.size();
+                    labels.add(name);
+                    labelIds.put(name, label);
+                    if(label == occurrences.length) {
+                        int capacity = 2 * occurrences.length;
+                        occurrences = copyOf(occurrences, capacity);
+                        traceOccurrences = copyOf(traceOccurrences, capacity);
+                        predecessors = copyOf(predecessors, capacity);
+                        successors = copyOf(successors, capacity);
+                        lastTrace = copyOf(lastTrace, capacity);
+                    }
+                }
+                codedTrace[i] = label;
+
+                occurrences[label]++;
+                // Trace numbers are shifted by one, as 0 marks the labels not seen yet
+                if(lastTrace[label] != t + 1) {
+                    lastTrace[label] = t + 1;
+                    traceOccurrences[label]++;
+                }
+                if(i > 0 && directlyFollows.add(((long) codedTrace[i - 1] << 32) | label)) {
+                    successors[codedTrace[i - 1]]++;
+                    predecessors[label]++;
+                }
+            }
+            traces[t] = codedTrace;
+        }
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    public int size() {
+        return labels.size();
+    }
+
+    public String getLabel(int label) {
+        return labels.get(label);
+    }
+
+    /**
+     * @return the id of the label, or -1 if the label does not occur in the log.
+     */
+    public int getLabelId(String name) {
+        return labelIds.getIfAbsent(name, -1);
+    }
+
+    public int getOccurrences(int label) {
+        return occurrences[label];
+    }
+
+    public int getTraceOccurrences(int label) {
+        return traceOccurrences[label];
+    }
+
+    public int getPredecessors(int label) {
+        return predecessors[label];
+    }
+
+    public int getSuccessors(int label) {
+        return successors[label];
+    }
+
+    /**
+     * @return true if the label occurs only once in the log, or only in one trace.
+     */
+    public boolean isRare(int label) {
+        return occurrences[label] == 1 || traceOccurrences[label] == 1;
+    }
+
+    /**
+     * @return the labels that are not rare and have more than one predecessor and more than one successor,
+     * i.e. the labels worth clustering, in order of first appearance in the log.
+     */
+    public int[] getCandidates() {
+        IntArrayList candidates = new IntArrayList();
+        for(int label = 0; label < labels.size(); label++) {
+            if(!isRare(label) && predecessors[label] > 1 && successors[label] > 1) {
+                candidates.add(label);
+            }
+        }
+        return candidates.toArray();
+    }
+
+    /**
+     * @return for each of the labels, its occurrences and its trace occurrences normalised over all the labels of
+     * the log, its number of predecessors and its number of successors.
+     */
+    public double[][] getFeatures(int[] selected) {
+        double[][] data = new double[selected.length][4];
+        double[] occurrenceRange = range(occurrences);
+        double[] traceOccurrenceRange = range(traceOccurrences);
+        for(int i = 0; i < selected.length; i++) {
+            int label = selected[i];
+            data[i][0] = (occurrences[label] - occurrenceRange[0]) / (occurrenceRange[1] - occurrenceRange[0]);
+            data[i][1] = (traceOccurrences[label] - traceOccurrenceRange[0]) / (traceOccurrenceRange[1] - traceOccurrenceRange[0]);
+            data[i][2] = predecessors[label];
+            data[i][3] = successors[label];
+        }
+        return data;
+    }
+
+    private double[] range(int[] values) {
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for(int label = 0; label < labels.size(); label++) {
+            min = Math.min(min, values[label]);
+            max = Math.max(max, values[label]);
+        }
+        return new double[] {min, max};
+    }
+
+    public boolean[] getMask(Collection<Integer> selected) {
+        boolean[] mask = new boolean[labels.size()];
+        for(int label : selected) {
+            mask[label] = true;
+        }
+        return mask;
+    }
+
+    /**
+     * @return the number of events of the log with one of the removed labels.
+     */
+    public int countRemovedEvents(boolean[] removed) {
+        int count = 0;
+        for(int[] trace : traces) {
+            for(int label : trace) {
+                if(removed[label]) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return a copy of the log, the one the features were computed on, without the events with the removed labels.
+     */
+    public XLog filterLog(XLog log, boolean[] removed) {
+        XFactory factory = new XFactoryNaiveImpl();
+        XLog filteredLog = factory.createLog(log.getAttributes());
+        for(int t = 0; t < traces.length; t++) {
+            XTrace trace = log.get(t);
+            XTrace filteredTrace = factory.createTrace(trace.getAttributes());
+            for(int i = 0; i < traces[t].length; i++) {
+                if(!removed[traces[t][i]]) {
+                    filteredTrace.add(trace.get(i));
+                }
+            }
+            filteredLog.add(filteredTrace);
+        }
+        return filteredLog;
+    }
+
+}
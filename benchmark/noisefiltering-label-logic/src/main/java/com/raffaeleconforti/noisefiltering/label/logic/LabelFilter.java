@@ -1,14 +1,17 @@
 package com.raffaeleconforti.noisefiltering.label.logic;
 
+import com.raffaeleconforti.log.util.LogImporter;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.AbstractClustering;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.centroid.KMedoidsEMFiltering;
+import org.deckfour.xes.classification.XEventAndClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventLifeTransClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.factory.XFactory;
 import org.deckfour.xes.factory.XFactoryNaiveImpl;
-import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
-import org.deckfour.xes.model.XTrace;
-import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 
 import java.util.*;
 
@@ -21,15 +24,11 @@ public class LabelFilter {
 
     private int label_removed;
 
-    private final ObjectIntHashMap<String> stringToIntMap = new ObjectIntHashMap<>();
-    private final IntObjectHashMap<String> intToStringMap = new IntObjectHashMap<>();
-
-    private int events = 1;
     public static String testName = "(Python)";
 
     private static String logName;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         XFactory factory = new XFactoryNaiveImpl();
 //        String[] logNames = new String[] {"BPI2015-4"};
         String[] logNames = new String[] {"BPI2011", "BPI2012", "BPI2013_cp", "BPI2013_i", "BPI2014", "BPI2015-1", "BPI2015-2", "BPI2015-3", "BPI2015-4", "BPI2015-5", "BPI2017", "Road", "Sepsis"};
@@ -56,309 +55,81 @@ public class LabelFilter {
         }
     }
 
-    private List<IntArrayList> codeLog(XLog log) {
-        List<IntArrayList> codedLog = new ArrayList<>(log.size());
-        for(XTrace trace : log) {
-            IntArrayList list = new IntArrayList(trace.size());
-            for(XEvent event : trace) {
-                String name = xEventClassifier.getClassIdentity(event);
-                Integer value;
-                if((value = stringToIntMap.get(name)) > 0) {
-                    list.add(value);
-                }else {
-                    stringToIntMap.put(name, events);
-                    intToStringMap.put(events, name);
-                    list.add(events);
-                    events++;
-                }
-            }
-            codedLog.add(list);
-        }
-        return codedLog;
-    }
-
     public LabelFilter(XEventClassifier xEventClassifier) {
         this.xEventClassifier = xEventClassifier;
     }
 
+    /**
+     * Removes the rare labels, i.e. occurring once or in a single trace, and the labels voted as outliers by the
+     * clusterings of the other labels with more than one predecessor and more than one successor.
+     * The candidates are clustered in order of first appearance in the log, so that the results of the clusterings
+     * sensitive to the order of their input are reproducible.
+     */
     public XLog filterLog(XLog log) {
-        Map<String, Double> occurrence_in_log = new HashMap<>();
-        Map<String, Double> unique_occurrence_in_traces = new HashMap<>();
-        Map<String, Map<String, Double>> connections_in = new HashMap<>();
-        Map<String, Map<String, Double>> connections_out = new HashMap<>();
-        Map<String, Double> number_connections_in = new HashMap<>();
-        Map<String, Double> number_connections_out = new HashMap<>();
+        LabelFeatures features = new LabelFeatures(log, xEventClassifier);
 
-        for(XTrace trace : log) {
-            Set<String> set = new HashSet<>();
-            for(int i = 0; i < trace.size(); i++) {
-                String name = xEventClassifier.getClassIdentity(trace.get(i));
-                set.add(name);
-                Double count;
-                if((count = occurrence_in_log.get(name)) == null) {
-                    count = 0.0;
-                }
-                count++;
-                occurrence_in_log.put(name, count);
-
-                Map<String, Double> in_connected;
-                Map<String, Double> out_connected;
-                if((in_connected = connections_in.get(name)) == null) {
-                    in_connected = new HashMap<>();
-                }
-                if((out_connected = connections_out.get(name)) == null) {
-                    out_connected = new HashMap<>();
-                }
-
-                if(i > 0) {
-                    Double val;
-                    if((val = in_connected.get(xEventClassifier.getClassIdentity(trace.get(i - 1)))) == null) {
-                        val = 0.0;
-                    }
-                    in_connected.put(xEventClassifier.getClassIdentity(trace.get(i - 1)), val + 1);
-                }
-                if(i < trace.size() - 1) {
-                    Double val;
-                    if((val = out_connected.get(xEventClassifier.getClassIdentity(trace.get(i + 1)))) == null) {
-                        val = 0.0;
-                    }
-                    out_connected.put(xEventClassifier.getClassIdentity(trace.get(i + 1)), val + 1);
-                }
-                connections_in.put(name, in_connected);
-                connections_out.put(name, out_connected);
-            }
-            for(String name : set) {
-                Double count;
-                if((count = unique_occurrence_in_traces.get(name)) == null) {
-                    count = 0.0;
-                }
-                count++;
-                unique_occurrence_in_traces.put(name, count);
-            }
+        boolean[] removed = new boolean[features.size()];
+        for(int label = 0; label < features.size(); label++) {
+            if(features.isRare(label)) removed[label] = true;
         }
-
-        for(String name : connections_in.keySet()) {
-            number_connections_in.put(name, (double) connections_in.get(name).size());
-        }
-        for(String name : connections_out.keySet()) {
-            number_connections_out.put(name, (double) connections_out.get(name).size());
+        for(int label : filter(features)) {
+            removed[label] = true;
         }
 
         Set<String> toremove = new HashSet<>();
-
-//        List<String> labels = filter(
-//                normalize(occurrence_in_log)
-////                ,
-////                normalize(unique_occurrence_in_traces)
-////                ,
-////                inverse_normalize(number_connections_in)
-////                ,
-////                inverse_normalize(number_connections_out)
-//        );
-
-        String[] key_orig = connections_in.keySet().toArray(new String[connections_in.size()]);
-//        double[][] data = new double[key.length][2 * key.length + 1];
-////        double[][] data = new double[key.length][2 * key.length + 2];
-//        for (int i = 0; i < data.length; i++) {
-////            data[i][0] = occurrence_in_log.get(key[i]);
-//            data[i][0] = unique_occurrence_in_traces.get(key[i]);
-////            data[i][1] = unique_occurrence_in_traces.get(key[i]);
-//            for (int j = 1; j < data.length; j++) {
-////            for (int j = 2; j < data.length; j++) {
-//                Double d = connections_in.get(key[i]).get(key[j]);
-//                data[i][j] = d != null ? d : 0.0;
-//
-//                d = connections_out.get(key[i]).get(key[j]);
-//                data[i][j + data.length] = d != null ? d : 0.0;
-//            }
-//        }
-        int retained = 0;
-        for (int i = 0; i < key_orig.length; i++) {
-            if(occurrence_in_log.get(key_orig[i]) == 1 || unique_occurrence_in_traces.get(key_orig[i]) == 1) {
-                toremove.add(key_orig[i]);
-            }else if(number_connections_in.get(key_orig[i]) > 1 && number_connections_out.get(key_orig[i]) > 1) {
-                retained++;
-            }
-        }
-
-        String[] key = new String[retained];
-        double[][] data = new double[retained][4];
-        int i = 0;
-        for (int j = 0; j < key_orig.length; j++) {
-            if(i == key.length) break;
-            key[i] = key_orig[j];
-
-            data[i][0] = normalize(occurrence_in_log).get(key[i]);
-            data[i][1] = normalize(unique_occurrence_in_traces).get(key[i]);
-
-            Double d = number_connections_in.get(key[i]);
-//            Double d = normalize(number_connections_in).get(key[i]);
-            data[i][2] = d != null ? d : 0.0;
-
-            d = number_connections_out.get(key[i]);
-//            d = normalize(number_connections_out).get(key[i]);
-            data[i][3] = d != null ? d : 0.0;
-
-            if(occurrence_in_log.get(key[i]) > 1 && unique_occurrence_in_traces.get(key_orig[i]) > 1 && number_connections_in.get(key[i]) > 1 && number_connections_out.get(key[i]) > 1) {
-                i++;
-            }
+        for(int label = 0; label < features.size(); label++) {
+            if(removed[label]) toremove.add(features.getLabel(label));
         }
-
-        List<String> labels = filter(
-                key, data
-        );
-        toremove.addAll(labels);
         System.out.println(toremove);
 
         this.label_removed = toremove.size();
-        XFactory factory = new XFactoryNaiveImpl();
-        XLog filteredLog = factory.createLog(log.getAttributes());
-        for(XTrace trace : log) {
-            XTrace filteredTrace = factory.createTrace(trace.getAttributes());
-            for(XEvent event : trace) {
-                if (!toremove.contains(xEventClassifier.getClassIdentity(event))) {
-                    filteredTrace.add(event);
-                }
-            }
-            filteredLog.add(filteredTrace);
-        }
-        return filteredLog;
+        return features.filterLog(log, removed);
     }
 
-    private List<String> filter(Map<String, Double>... maps) {
-        String[] key = maps[0].keySet().toArray(new String[maps[0].size()]);
-        double[][] data = new double[key.length][maps.length];
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[0].length; j++) {
-                data[i][j] = maps[j].get(key[i]);
-            }
-        }
-        return filter(key, data);
-    }
-
-    private List<String> filter(String[] key, double[][] data) {
-
-//        /* Connectivity-based clustering (connectivity clustering) */
-//        List<FilteringResult> agnesOutliers = getOutliers(new AGNESFiltering(maps));
-//        List<FilteringResult> clinkOutliers = getOutliers(new CLINKFiltering(maps));
-//        List<FilteringResult> slinkOutliers = getOutliers(new SLINKFiltering(maps));
-//
-//        /* Centroid-based clustering (k-means clustering) */
-//        List<FilteringResult> kMeansCompareOutliers = getOutliers(new KMeansCompareFiltering(maps));
-//        List<FilteringResult> kMeansElkanOutliers = getOutliers(new KMeansElkanFiltering(maps));
-//        List<FilteringResult> kMeansHamerlyOutliers = getOutliers(new KMeansHamerlyFiltering(maps));
-//        List<FilteringResult> kMeansLloydOutliers = getOutliers(new KMeansLloydFiltering(maps));
-//        List<FilteringResult> kMeansMacQueenOutliers = getOutliers(new KMeansMacQueenFiltering(maps));
-//        List<FilteringResult> kMeansSortOutliers = getOutliers(new KMeansSortFiltering(maps));
-//        List<FilteringResult> kMediansLloydOutliers = getOutliers(new KMediansLloydFiltering(maps));
-//        List<FilteringResult> kMedoidsEMOutliers = getOutliers(new KMedoidsEMFiltering(maps));
-//
-//        /* Distribution-based clustering (EM clustering) */
-//        List<FilteringResult> emDiagonalGaussianModelOutliers = getOutliers(new EMDiagonalGaussianModelFiltering(maps));
-//        List<FilteringResult> emMultivariateGaussianModelOutliers = getOutliers(new EMMultivariateGaussianModelFiltering(maps));
-//        List<FilteringResult> emSphericalGaussianModelOutliers = getOutliers(new EMSphericalGaussianModelFiltering(maps));
-//
-//        /* Density-based clustering (DBSCAN clustering) */
-//        List<FilteringResult> fastOPTICSOutliers = getOutliers(new FastOPTICSFiltering(maps));
-//        List<FilteringResult> opticsHeapOutlifers = getOutliers(new OPTICSHeapFiltering(maps));
-
-        List<FilteringResult<String>> results = aggregateRsults(
-//                getOutliers(new AGNESFiltering(key, data))
-//                ,
-//                getOutliers(new CLINKFiltering(key, data))
-//                ,
-//                getOutliers(new SLINKFiltering(key, data))
-//                ,
-//                getOutliers(new KMeansCompareFiltering(key, data))
-//                ,
-//                getOutliers(new KMeansElkanFiltering(key, data))
-//                ,
-//                getOutliers(new KMeansHamerlyFiltering(key, data))
-//                ,
-//                getOutliers(new KMeansLloydFiltering(key, data))
-//                ,
-//                getOutliers(new KMeansMacQueenFiltering(key, data))
-//                ,
-//                getOutliers(new KMeansSortFiltering(key, data))
-//                ,
-//                getOutliers(new KMediansLloydFiltering(key, data))
-//                ,
-                getOutliers(new KMedoidsEMFiltering(key, data, 2)),
-                getOutliers(new KMedoidsEMFiltering(key, data, 3)),
-                getOutliers(new KMedoidsEMFiltering(key, data, 4))
-//                ,
-//                getOutliers(new EMDiagonalGaussianModelFiltering(key, data))
-//                ,
-//                getOutliers(new EMMultivariateGaussianModelFiltering(key, data))
-//                ,
-//                getOutliers(new EMSphericalGaussianModelFiltering(key, data))
-//                ,
-//                getOutliers(new FastOPTICSFiltering(key, data))
-//                ,
-//                getOutliers(new OPTICSHeapFiltering(key, data))
-        );
-        List<String> outliers = getMajorityVote(results);
-        System.out.println(outliers);
-        return outliers;
-    }
-
-    private Map<String, Double> normalize(Map<String, Double> occurrence) {
-        double occurrence_max = 0;
-        double occurrence_min = Double.MAX_VALUE;
-        for(String s : occurrence.keySet()) {
-            occurrence_max = Math.max(occurrence.get(s), occurrence_max);
-            occurrence_min = Math.min(occurrence.get(s), occurrence_min);
-        }
-
-        Map<String, Double> tmp_occurrence = new HashMap<>();
-        double denominator = (occurrence_max - occurrence_min);
-        for(String s : occurrence.keySet()) {
-            double val = (occurrence.get(s) - occurrence_min) / denominator;
-            tmp_occurrence.put(s, val);
-        }
-        return tmp_occurrence;
-    }
-
-    private Map<String, Double> inverse_normalize(Map<String, Double> occurrence) {
-        double occurrence_max = 0;
-        double occurrence_min = Double.MAX_VALUE;
-        for(String s : occurrence.keySet()) {
-            occurrence_max = Math.max(occurrence.get(s), occurrence_max);
-            occurrence_min = Math.min(occurrence.get(s), occurrence_min);
+    private List<Integer> filter(LabelFeatures features) {
+        List<ClusteringSweep.Combination> combinations = new ArrayList<>();
+        for(int k = 2; k <= 4; k++) {
+            final int maxClts = k;
+            combinations.add(new ClusteringSweep.Combination() {
+                @Override
+                public AbstractClustering<Integer> create(Integer[] key, ClusteringDatabase database) {
+                    return new KMedoidsEMFiltering<>(key, database, maxClts);
+                }
+            });
         }
 
-        Map<String, Double> tmp_occurrence = new HashMap<>();
-        double denominator = (occurrence_max - occurrence_min);
-        for(String s : occurrence.keySet()) {
-            double val = (occurrence.get(s) - occurrence_min) / denominator;
-            tmp_occurrence.put(s, 1 - val);
+        List<FilteringResult<Integer>> results = new ArrayList<>();
+        for(List<FilteringResult<Integer>> combinationResults : new ClusteringSweep(features).run(combinations)) {
+            if(!combinationResults.isEmpty() && !sanityCheck(combinationResults)) {
+                System.out.println("Failed " + combinationResults.get(0).getTechnique());
+            }
+            results.addAll(combinationResults);
         }
-        return tmp_occurrence;
-    }
 
-    private List<FilteringResult<String>> getOutliers(AbstractClustering<String> abstractClustering) {
-        List<FilteringResult<String>> results = abstractClustering.getOutliers();
-        if(!sanityCheck(results)) {
-            System.out.println("Failed " + results.get(0).getTechnique());
+        List<Integer> outliers = getMajorityVote(results, features);
+        List<String> names = new ArrayList<>(outliers.size());
+        for(int outlier : outliers) {
+            names.add(features.getLabel(outlier));
         }
-        return results;
+        System.out.println(names);
+        return outliers;
     }
 
-    private boolean sanityCheck(List<FilteringResult<String>>... outliers) {
-        List<FilteringResult<String>> results = aggregateRsults(outliers);
+    private <T> boolean sanityCheck(List<FilteringResult<T>>... outliers) {
+        List<FilteringResult<T>> results = aggregateRsults(outliers);
         if(results.size() == 1) return true;
         
-        List<String> o = getMajorityVoteSilent(results);
-        for(List<FilteringResult<String>> filteringResults : outliers) {
-            for(FilteringResult filteringResult : filteringResults) {
+        List<T> o = getMajorityVoteSilent(results);
+        for(List<FilteringResult<T>> filteringResults : outliers) {
+            for(FilteringResult<T> filteringResult : filteringResults) {
                 if(!o.equals(filteringResult.getOutliers())) return true;
             }
         }
         return false;
     }
 
-    private List<FilteringResult<String>> aggregateRsults(List<FilteringResult<String>>... outliers) {
-        List<FilteringResult<String>> results = new ArrayList<>();
+    private <T> List<FilteringResult<T>> aggregateRsults(List<FilteringResult<T>>... outliers) {
+        List<FilteringResult<T>> results = new ArrayList<>();
 
         for (int i = 0; i < outliers.length; i++) {
             results.addAll(outliers[i]);
@@ -367,13 +138,13 @@ public class LabelFilter {
         return results;
     }
 
-    private List<String> getMajorityVoteSilent(List<FilteringResult<String>> outliers) {
-        List<String> selectedOutliers = new ArrayList<>();
-        Map<String, Integer> candidatesOutliers = new HashMap<>();
-        Map<String, List<String>> candidatesVotes = new HashMap<>();
+    private <T> List<T> getMajorityVoteSilent(List<FilteringResult<T>> outliers) {
+        List<T> selectedOutliers = new ArrayList<>();
+        Map<T, Integer> candidatesOutliers = new HashMap<>();
+        Map<T, List<String>> candidatesVotes = new HashMap<>();
 
-        for(FilteringResult<String> filteringResult : outliers) {
-            for(String candidateOutlier : filteringResult.getOutliers()) {
+        for(FilteringResult<T> filteringResult : outliers) {
+            for(T candidateOutlier : filteringResult.getOutliers()) {
                 Integer votes;
                 List<String> names = new ArrayList<>();
                 if((votes = candidatesOutliers.get(candidateOutlier)) == null) {
@@ -388,19 +159,19 @@ public class LabelFilter {
             }
         }
 
-        for(String outlier : candidatesOutliers.keySet()) {
+        for(T outlier : candidatesOutliers.keySet()) {
             if(candidatesOutliers.get(outlier) >= Math.ceil(2.0 * outliers.size() / 3.0)) selectedOutliers.add(outlier);
         }
         return selectedOutliers;
     }
 
-    private List<String> getMajorityVote(List<FilteringResult<String>> outliers) {
-        List<String> selectedOutliers = new ArrayList<>();
-        Map<String, Integer> candidatesOutliers = new HashMap<>();
-        Map<String, List<String>> candidatesVotes = new HashMap<>();
+    private List<Integer> getMajorityVote(List<FilteringResult<Integer>> outliers, LabelFeatures features) {
+        List<Integer> selectedOutliers = new ArrayList<>();
+        Map<Integer, Integer> candidatesOutliers = new HashMap<>();
+        Map<Integer, List<String>> candidatesVotes = new HashMap<>();
 
-        for(FilteringResult<String> filteringResult : outliers) {
-            for(String candidateOutlier : filteringResult.getOutliers()) {
+        for(FilteringResult<Integer> filteringResult : outliers) {
+            for(Integer candidateOutlier : filteringResult.getOutliers()) {
                 Integer votes;
                 List<String> names = new ArrayList<>();
                 if((votes = candidatesOutliers.get(candidateOutlier)) == null) {
@@ -415,8 +186,8 @@ public class LabelFilter {
             }
         }
 
-        for(String outlier : candidatesOutliers.keySet()) {
-            System.out.println(outlier + " " + candidatesOutliers.get(outlier) + "/" + outliers.size() + " required " + Math.ceil(2.0 * outliers.size() / 3.0));
+        for(Integer outlier : candidatesOutliers.keySet()) {
+            System.out.println(features.getLabel(outlier) + " " + candidatesOutliers.get(outlier) + "/" + outliers.size() + " required " + Math.ceil(2.0 * outliers.size() / 3.0));
             System.out.println("\t" + candidatesVotes.get(outlier));
             if(candidatesOutliers.get(outlier) >= Math.ceil(2.0 * outliers.size() / 3.0)) selectedOutliers.add(outlier);
         }
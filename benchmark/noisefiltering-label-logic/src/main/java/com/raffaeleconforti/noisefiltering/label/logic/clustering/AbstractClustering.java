@@ -7,16 +7,10 @@ import de.lmu.ifi.dbs.elki.algorithm.clustering.hierarchical.LinkageMethod;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.kmeans.initialization.*;
 import de.lmu.ifi.dbs.elki.data.Cluster;
 import de.lmu.ifi.dbs.elki.data.Clustering;
-import de.lmu.ifi.dbs.elki.data.NumberVector;
 import de.lmu.ifi.dbs.elki.data.model.AbstractModel;
-import de.lmu.ifi.dbs.elki.data.type.TypeUtil;
 import de.lmu.ifi.dbs.elki.database.Database;
-import de.lmu.ifi.dbs.elki.database.StaticArrayDatabase;
 import de.lmu.ifi.dbs.elki.database.ids.DBIDIter;
 import de.lmu.ifi.dbs.elki.database.ids.DBIDRange;
-import de.lmu.ifi.dbs.elki.database.relation.Relation;
-import de.lmu.ifi.dbs.elki.datasource.ArrayAdapterDatabaseConnection;
-import de.lmu.ifi.dbs.elki.datasource.DatabaseConnection;
 import de.lmu.ifi.dbs.elki.distance.distancefunction.NumberVectorDistanceFunction;
 import de.lmu.ifi.dbs.elki.distance.distancefunction.minkowski.SquaredEuclideanDistanceFunction;
 import de.lmu.ifi.dbs.elki.math.random.RandomFactory;
@@ -29,7 +23,10 @@ import java.util.*;
  */
 public abstract class AbstractClustering<T> {
 
-    protected final NumberVectorDistanceFunction[] distanceFunctions = new NumberVectorDistanceFunction[]{
+    /**
+     * Distance functions used by the clusterings, worth precomputing in a shared {@link ClusteringDatabase}.
+     */
+    public static final NumberVectorDistanceFunction[] DISTANCE_FUNCTIONS = new NumberVectorDistanceFunction[]{
 //            HistogramIntersectionDistanceFunction.STATIC,
 //            AbsolutePearsonCorrelationDistanceFunction.STATIC,OK
 //            PearsonCorrelationDistanceFunction.STATIC,OK
@@ -54,6 +51,8 @@ public abstract class AbstractClustering<T> {
 //            new JaccardSimilarityDistanceFunction()
     };
 
+    protected final NumberVectorDistanceFunction[] distanceFunctions = DISTANCE_FUNCTIONS;
+
     protected final LinkageMethod[] linkageMethods = new LinkageMethod[]{
             CentroidLinkageMethod.STATIC,
 //            CompleteLinkageMethod.STATIC,
@@ -98,15 +97,17 @@ public abstract class AbstractClustering<T> {
     protected int min_size_top_cluster = 1;
 
     public AbstractClustering(T[] key, double[][] data, int maxClts) {
+        this(key, new ClusteringDatabase(data), maxClts);
+    }
+
+    /**
+     * Clustering of the rows of a database shared with other clusterings, each row labelled by the key at its offset.
+     */
+    public AbstractClustering(T[] key, ClusteringDatabase database, int maxClts) {
         this.key = key;
-        this.data = data;
-        // Adapter to load data from an existing array.
-        DatabaseConnection dbc = new ArrayAdapterDatabaseConnection(data);
-        db = new StaticArrayDatabase(dbc, null);
-        db.initialize();
-        // Relation containing the number vectors:
-        Relation<NumberVector> rel = db.getRelation(TypeUtil.NUMBER_VECTOR_FIELD);
-        ids = (DBIDRange) rel.getDBIDs();
+        this.data = database.getData();
+        this.db = database.getDatabase();
+        this.ids = database.getIds();
 
         this.maxClts = maxClts; //(int) Math.ceil(Math.sqrt(key.length / 2));
         minPts = 1;//key.length / maxClts;
@@ -0,0 +1,64 @@
+package com.raffaeleconforti.noisefiltering.label.logic.clustering;
+
+import de.lmu.ifi.dbs.elki.data.NumberVector;
+import de.lmu.ifi.dbs.elki.data.type.TypeUtil;
+import de.lmu.ifi.dbs.elki.database.Database;
+import de.lmu.ifi.dbs.elki.database.StaticArrayDatabase;
+import de.lmu.ifi.dbs.elki.database.ids.DBIDRange;
+import de.lmu.ifi.dbs.elki.database.relation.Relation;
+import de.lmu.ifi.dbs.elki.datasource.ArrayAdapterDatabaseConnection;
+import de.lmu.ifi.dbs.elki.distance.distancefunction.NumberVectorDistanceFunction;
+import de.lmu.ifi.dbs.elki.index.IndexFactory;
+import de.lmu.ifi.dbs.elki.index.distancematrix.PrecomputedDistanceMatrix;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * ELKI database over a feature matrix, built once and shared by all the clusterings of the matrix.
+ *
+ * The distances between the rows can be precomputed for a set of distance functions: algorithms working on
+ * pairwise distances (k-medoids, hierarchical and density-based clustering) then read them from the matrix instead
+ * of recomputing them at each run. The database is only read once initialised, hence clusterings can run on it
+ * concurrently.
+ */
+public class ClusteringDatabase {
+
+    private final Database db;
+    private final DBIDRange ids;
+    private final double[][] data;
+
+    public ClusteringDatabase(double[][] data) {
+        this(data, new NumberVectorDistanceFunction[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ClusteringDatabase(double[][] data, NumberVectorDistanceFunction... precomputedDistances) {
+        this.data = data;
+
+        Collection<IndexFactory<?, ?>> indexes = new ArrayList<>(precomputedDistances.length);
+        for(NumberVectorDistanceFunction distanceFunction : precomputedDistances) {
+            indexes.add(new PrecomputedDistanceMatrix.Factory<NumberVector>(distanceFunction));
+        }
+
+        // Adapter to load data from an existing array.
+        db = new StaticArrayDatabase(new ArrayAdapterDatabaseConnection(data), indexes.isEmpty() ? null : indexes);
+        db.initialize();
+        // Relation containing the number vectors:
+        Relation<NumberVector> rel = db.getRelation(TypeUtil.NUMBER_VECTOR_FIELD);
+        ids = (DBIDRange) rel.getDBIDs();
+    }
+
+    public Database getDatabase() {
+        return db;
+    }
+
+    public DBIDRange getIds() {
+        return ids;
+    }
+
+    public double[][] getData() {
+        return data;
+    }
+
+}
@@ -2,6 +2,7 @@ package com.raffaeleconforti.noisefiltering.label.logic.clustering.centroid;
 
 import com.raffaeleconforti.noisefiltering.label.logic.FilteringResult;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.AbstractClustering;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.SkipClusterException;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.ClusteringAlgorithm;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.kmeans.KMeansMacQueen;
@@ -22,6 +23,10 @@ public class KMeansMacQueenFiltering<T> extends AbstractClustering<T> {
         super(key, data, maxClts);
     }
 
+    public KMeansMacQueenFiltering(T[] key, ClusteringDatabase database, int maxClts) {
+        super(key, database, maxClts);
+    }
+
     public List<FilteringResult<T>> getOutliers() {
         List<FilteringResult<T>> outliers = new ArrayList<>();
 
@@ -1,6 +1,7 @@
 package com.raffaeleconforti.noisefiltering.label.logic.clustering.connectivity;
 
 import com.raffaeleconforti.noisefiltering.label.logic.FilteringResult;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.SkipClusterException;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.hierarchical.AGNES;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.hierarchical.HierarchicalClusteringAlgorithm;
@@ -19,6 +20,10 @@ public class AGNESFiltering<T> extends ConnectivityBasedClustering<T> {
         super(key, data, maxClts);
     }
 
+    public AGNESFiltering(T[] key, ClusteringDatabase database, int maxClts) {
+        super(key, database, maxClts);
+    }
+
     public List<FilteringResult<T>> getOutliers() {
         List<FilteringResult<T>> outliers = new ArrayList<>();
         for (int l = 0; l < linkageMethods.length; l++) {
@@ -1,6 +1,7 @@
 package com.raffaeleconforti.noisefiltering.label.logic.clustering.connectivity;
 
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.AbstractClustering;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.ClusteringAlgorithm;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.hierarchical.HierarchicalClusteringAlgorithm;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.hierarchical.extraction.SimplifiedHierarchyExtraction;
@@ -16,6 +17,10 @@ public abstract class ConnectivityBasedClustering<T> extends AbstractClustering<
         super(key, data, maxClts);
     }
 
+    public ConnectivityBasedClustering(T[] key, ClusteringDatabase database, int maxClts) {
+        super(key, database, maxClts);
+    }
+
     public ClusteringAlgorithm<? extends Clustering<? extends AbstractModel>> wrapClusteringTechnique(HierarchicalClusteringAlgorithm clusteringMethod) {
         return new SimplifiedHierarchyExtraction(clusteringMethod, 2);
     }
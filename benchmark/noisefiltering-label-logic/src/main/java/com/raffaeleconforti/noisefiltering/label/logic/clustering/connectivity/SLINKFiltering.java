@@ -1,6 +1,7 @@
 package com.raffaeleconforti.noisefiltering.label.logic.clustering.connectivity;
 
 import com.raffaeleconforti.noisefiltering.label.logic.FilteringResult;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.SkipClusterException;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.hierarchical.SLINK;
 import de.lmu.ifi.dbs.elki.data.NumberVector;
@@ -18,6 +19,10 @@ public class SLINKFiltering<T> extends ConnectivityBasedClustering<T> {
         super(key, data, maxClts);
     }
 
+    public SLINKFiltering(T[] key, ClusteringDatabase database, int maxClts) {
+        super(key, database, maxClts);
+    }
+
     public List<FilteringResult<T>> getOutliers() {
         List<FilteringResult<T>> outliers = new ArrayList<>();
         for (int d = 0; d < distanceFunctions.length; d++) {
@@ -1,6 +1,7 @@
 package com.raffaeleconforti.noisefiltering.label.logic.clustering.density;
 
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.AbstractClustering;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.ClusteringAlgorithm;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.optics.OPTICSTypeAlgorithm;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.optics.OPTICSXi;
@@ -16,6 +17,10 @@ public abstract class DensityBasedClustering<T> extends AbstractClustering<T> {
         super(key, data, maxClts);
     }
 
+    public DensityBasedClustering(T[] key, ClusteringDatabase database, int maxClts) {
+        super(key, database, maxClts);
+    }
+
     public ClusteringAlgorithm<? extends Clustering<? extends AbstractModel>> wrapClusteringTechnique(OPTICSTypeAlgorithm clusteringMethod) {
         return new OPTICSXi(clusteringMethod, 0.1);
     }
@@ -1,6 +1,7 @@
 package com.raffaeleconforti.noisefiltering.label.logic.clustering.density;
 
 import com.raffaeleconforti.noisefiltering.label.logic.FilteringResult;
+import com.raffaeleconforti.noisefiltering.label.logic.clustering.ClusteringDatabase;
 import com.raffaeleconforti.noisefiltering.label.logic.clustering.SkipClusterException;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.optics.FastOPTICS;
 import de.lmu.ifi.dbs.elki.algorithm.clustering.optics.OPTICSTypeAlgorithm;
@@ -20,6 +21,10 @@ public class FastOPTICSFiltering<T> extends DensityBasedClustering<T> {
         super(key, data, maxClts);
     }
 
+    public FastOPTICSFiltering(T[] key, ClusteringDatabase database, int maxClts) {
+        super(key, database, maxClts);
+    }
+
     public List<FilteringResult<T>> getOutliers() {
         List<FilteringResult<T>> outliers = new ArrayList<>();
         RandomProjectedNeighborsAndDensities distanceFunction = new RandomProjectedNeighborsAndDensities(RandomFactory.DEFAULT);
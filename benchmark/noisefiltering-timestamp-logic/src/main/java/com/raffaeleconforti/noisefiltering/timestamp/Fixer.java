@@ -3,7 +3,8 @@ package com.raffaeleconforti.noisefiltering.timestamp;
 import com.raffaeleconforti.kernelestimation.distribution.impl.EventDistributionCalculatorNoiseImpl;
 import com.raffaeleconforti.log.util.LogCloner;
 import com.raffaeleconforti.log.util.NameExtractor;
-import com.raffaeleconforti.log.util.TraceToString;
+import com.raffaeleconforti.log.util.TraceKey;
+import com.raffaeleconforti.log.util.TraceKeyInterner;
 import com.raffaeleconforti.memorylog.XFactoryMemoryImpl;
 import com.raffaeleconforti.noisefiltering.timestamp.check.TimeStampChecker;
 import org.deckfour.xes.classification.XEventAndClassifier;
@@ -40,13 +41,14 @@ public class Fixer {
         log = logCloner.cloneLog(log);
 
         TimeStampChecker timeStampChecker = new TimeStampChecker(xEventClassifier, new SimpleDateFormat("yyyy/MM/dd hh:mm:ss"));
-        Map<String, List<XTrace>> uniqueTraces = new UnifiedMap<>();
-        Map<String, List<XTrace>> excludedUniqueTraces = new UnifiedMap<>();
+        TraceKeyInterner traceKeyInterner = new TraceKeyInterner(new NameExtractor(xEventClassifier));
+        Map<TraceKey, List<XTrace>> uniqueTraces = new UnifiedMap<>();
+        Map<TraceKey, List<XTrace>> excludedUniqueTraces = new UnifiedMap<>();
         Map<String, List<XTrace>> fixedExcludedUniqueTraces = new UnifiedMap<>();
 
         for(XTrace trace : log) {
             if (!timeStampChecker.containsSameTimestamps(trace)) {
-                String s = TraceToString.convertXTraceToString(trace, new NameExtractor(xEventClassifier));
+                TraceKey s = traceKeyInterner.getKey(trace);
                 List<XTrace> list;
                 if ((list = uniqueTraces.get(s)) == null) {
                     list = new ArrayList<>();
@@ -58,7 +60,7 @@ public class Fixer {
 
         for(XTrace trace : log) {
             if (timeStampChecker.containsSameTimestamps(trace)) {
-                String s = TraceToString.convertXTraceToString(trace, new NameExtractor(xEventClassifier));
+                TraceKey s = traceKeyInterner.getKey(trace);
                 List<XTrace> list;
                 if ((list = excludedUniqueTraces.get(s)) == null) {
                     list = new ArrayList<>();
@@ -218,7 +220,7 @@ public class Fixer {
 
         Random r = new Random(123456789);
         double changed = 0.0;
-        Map.Entry<String, List<XTrace>>[] entries = uniqueTraces.entrySet().toArray(new Map.Entry[uniqueTraces.size()]);
+        Map.Entry<TraceKey, List<XTrace>>[] entries = uniqueTraces.entrySet().toArray(new Map.Entry[uniqueTraces.size()]);
         while(changed / log.size() < val) {
             int pos = r.nextInt(entries.length);
             List<XTrace> traces = entries[pos].getValue();
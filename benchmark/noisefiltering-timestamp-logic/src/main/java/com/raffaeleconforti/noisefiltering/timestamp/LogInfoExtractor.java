@@ -2,7 +2,8 @@ package com.raffaeleconforti.noisefiltering.timestamp;
 
 import com.raffaeleconforti.log.util.LogCloner;
 import com.raffaeleconforti.log.util.NameExtractor;
-import com.raffaeleconforti.log.util.TraceToString;
+import com.raffaeleconforti.log.util.TraceKey;
+import com.raffaeleconforti.log.util.TraceKeyInterner;
 import com.raffaeleconforti.noisefiltering.timestamp.check.TimeStampChecker;
 import org.deckfour.xes.classification.XEventAndClassifier;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -33,11 +34,12 @@ public class LogInfoExtractor {
         log = logCloner.cloneLog(log);
 
         TimeStampChecker timeStampChecker = new TimeStampChecker(xEventClassifier, new SimpleDateFormat("yyyy/MM/dd HH:mm:ss"));
-        Map<String, List<XTrace>> uniqueTraces = new UnifiedMap<>();
-        Map<String, List<XTrace>> uniqueTracesAffectedByGaps = new UnifiedMap<>();
+        TraceKeyInterner traceKeyInterner = new TraceKeyInterner(new NameExtractor(xEventClassifier));
+        Map<TraceKey, List<XTrace>> uniqueTraces = new UnifiedMap<>();
+        Map<TraceKey, List<XTrace>> uniqueTracesAffectedByGaps = new UnifiedMap<>();
 
         for(XTrace trace : log) {
-            String s = TraceToString.convertXTraceToString(trace, new NameExtractor(xEventClassifier));
+            TraceKey s = traceKeyInterner.getKey(trace);
             List<XTrace> list;
             if ((list = uniqueTraces.get(s)) == null) {
                 list = new ArrayList<>();
@@ -100,7 +102,7 @@ public class LogInfoExtractor {
 
                 numberOfGapsPerTrace += sets.size();
                 tracesAffectedByGaps++;
-                String s = TraceToString.convertXTraceToString(trace, new NameExtractor(xEventClassifier));
+                TraceKey s = traceKeyInterner.getKey(trace);
                 List<XTrace> list;
                 if ((list = uniqueTracesAffectedByGaps.get(s)) == null) {
                     list = new ArrayList<>();
@@ -1,9 +1,9 @@
 package com.raffaeleconforti.noisefiltering.timestamp;
 
 import com.raffaeleconforti.context.FakePluginContext;
+import com.raffaeleconforti.log.util.LabelDictionary;
 import com.raffaeleconforti.log.util.LogImporter;
 import com.raffaeleconforti.log.util.NameExtractor;
-import com.raffaeleconforti.log.util.TraceToString;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.measurements.Measure;
 import com.raffaeleconforti.measurements.impl.AlignmentBasedFitness;
@@ -11,7 +11,6 @@ import com.raffaeleconforti.noisefiltering.timestamp.check.TimeStampChecker;
 import com.raffaeleconforti.statistics.StatisticsSelector;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
 import org.deckfour.xes.classification.XEventAndClassifier;
-import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.extension.std.XTimeExtension;
@@ -20,6 +19,7 @@ import org.deckfour.xes.model.XAttributeTimestamp;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
 import org.processmining.acceptingpetrinet.models.impl.AcceptingPetriNetImpl;
 import org.processmining.acceptingpetrinet.plugins.ImportAcceptingPetriNetPlugin;
@@ -31,6 +31,10 @@ import java.io.FileWriter;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created by conforti on 7/02/15.
@@ -350,8 +354,6 @@ public class TimeStampFilterChecker {
         int numberOfEventsWronglyChanged = 0;
 
         Map<Integer, Integer> mapGapsPerTrace = new UnifiedMap<>();
-        XEventClassifier xEventClassifier = new XEventAndClassifier(new XEventNameClassifier());
-        TimeStampChecker timeStampChecker = new TimeStampChecker(xEventClassifier, new SimpleDateFormat("yyyy/MM/dd HH:mm:ss"));
 
         List<Long> errors = new ArrayList<>();
 
@@ -366,102 +368,54 @@ public class TimeStampFilterChecker {
             }
         }
 
-        for(XTrace trace1 : filteredLog) {
-            String traceID = xce.extractName(trace1);
-            boolean matches = true;
-            if (trace1.getAttributes().get("change") != null || numberOfTracesAffected == 0) {
-                if (trace1.getAttributes().get("fixed") != null) {
-                    numberOfTracesAttempted++;
-                }
-
-                for (XTrace trace2 : correctLog) {
-                    if (xce.extractName(trace2).equals(traceID)) {
-
-                        for (int i = 0; i < trace1.size(); i++) {
-                            if (trace1.get(i).getAttributes().get("change") != null || numberOfTracesAffected == 0) {
-
-                                if (!xce.extractName(trace1.get(i)).equals(xce.extractName(trace2.get(i)))) {
-                                    matches = false;
-                                    numberOfEventsWronglyChanged++;
-                                }else {
-                                    numberOfEventsCorrectlyChanged++;
-                                }
-
-                                if(trace1.get(i).getAttributes().get("originalTimeStamp") != null) {
-                                    Date originalTimeStamp = ((XAttributeTimestamp) trace1.get(i).getAttributes().get("originalTimeStamp")).getValue();
-                                    Date timestamp = xte.extractTimestamp(trace1.get(i));
-                                    errors.add(timestamp.getTime() - originalTimeStamp.getTime());
-                                }
-                            }
-                        }
+        // Traces are joined by concept:name, the first trace of a log with a given name is the one matched
+        Map<String, List<XTrace>> correctTraces = indexTraces(correctLog);
+        Map<String, List<XTrace>> noisyTraces = indexTraces(noisyLog);
 
-                        if (matches) {
-                            numberOfTracesCorrectlyChanged++;
-                        } else {
-                            numberOfTracesWronglyChanged++;
-
-                            for (XTrace trace : noisyLog) {
-                                if (xce.extractName(trace).equals(traceID)) {
-                                    if (timeStampChecker.containsSameTimestamps(trace)) {
-                                        Set<Set<XEvent>> sets = timeStampChecker.findEventsSameTimeStamp(trace);
-
-                                        Integer count;
-                                        for (Set<XEvent> set : sets) {
-                                            if ((count = mapGapsPerTrace.get(set.size())) == null) {
-                                                count = 0;
-                                            }
-                                            count++;
-                                            mapGapsPerTrace.put(set.size(), count);
-                                        }
-                                    }
-                                    break;
-                                }
-                            }
-                        }
-
-                        break;
-                    }
-                }
-            }else if (trace1.getAttributes().get("fixed") != null) {
-                for (XTrace trace2 : correctLog) {
-                    if (xce.extractName(trace2).equals(traceID)) {
-                        for (int i = 0; i < trace1.size(); i++) {
-                            if (!xce.extractName(trace1.get(i)).equals(xce.extractName(trace2.get(i))) && !xte.extractTimestamp(trace1.get(i)).equals(xte.extractTimestamp(trace2.get(i)))) {
-                                matches = false;
-                                eventErrorIntroduced++;
-                            }
-                        }
-                        if (!matches) {
-                            traceErrorIntroduced++;
-                        }
-                        break;
+        // Labels are encoded in order of first appearance in a filtered trace having a correct counterpart.
+        // A label of a correct trace which did not appear yet is encoded as -1, so that all such labels are equal.
+        NameExtractor nameExtractor = new NameExtractor(new XEventNameClassifier());
+        LabelDictionary labelDictionary = new LabelDictionary();
+        IntArrayList firstAppearance = new IntArrayList();
+        for(int i = 0; i < filteredLog.size(); i++) {
+            if(correctTraces.containsKey(xce.extractName(filteredLog.get(i)))) {
+                for(XEvent event : filteredLog.get(i)) {
+                    if(labelDictionary.getOrAddIndex(nameExtractor.getEventName(event)) == firstAppearance.size()) {
+                        firstAppearance.add(i);
                     }
                 }
             }
         }
 
-        NameExtractor nameExtractor = new NameExtractor(new XEventNameClassifier());
+        TraceOutcome[] outcomes = compareTraces(filteredLog, correctTraces, noisyTraces, numberOfTracesAffected, nameExtractor, labelDictionary, firstAppearance);
+
         double[] partialDistances = new double[filteredLog.size()];
         int totalDistance = 0;
-        int counter = 0;
         int pos = 0;
-        Map<String, String> nameMapper = new UnifiedMap<>();
-        for(XTrace trace1 : filteredLog) {
-            String traceID = xce.extractName(trace1);
-            for (XTrace trace2 : correctLog) {
-                if (xce.extractName(trace2).equals(traceID)) {
-                    for(XEvent event : trace1) {
-                        if(!nameMapper.containsKey(event)) {
-                            nameMapper.put(nameExtractor.getEventName(event), "" + counter);
-                            counter++;
-                        }
-                    }
-                    String[] string1 = TraceToString.convertXTraceToListOfString(trace1, nameMapper, nameExtractor);
-                    String[] string2 = TraceToString.convertXTraceToListOfString(trace2, nameMapper, nameExtractor);
-                    partialDistances[pos] = getLevenshteinDistanceLinearSpace(string1, string2);
-                    totalDistance += partialDistances[pos];
-                    pos++;
+        for(TraceOutcome outcome : outcomes) {
+            if(outcome.attempted) numberOfTracesAttempted++;
+            if(outcome.correctlyChanged) numberOfTracesCorrectlyChanged++;
+            if(outcome.wronglyChanged) numberOfTracesWronglyChanged++;
+            if(outcome.errorIntroduced) traceErrorIntroduced++;
+            numberOfEventsCorrectlyChanged += outcome.eventsCorrectlyChanged;
+            numberOfEventsWronglyChanged += outcome.eventsWronglyChanged;
+            eventErrorIntroduced += outcome.eventErrorIntroduced;
+            errors.addAll(outcome.errors);
+
+            Integer count;
+            for(int i = 0; i < outcome.gaps.size(); i++) {
+                int gap = outcome.gaps.get(i);
+                if ((count = mapGapsPerTrace.get(gap)) == null) {
+                    count = 0;
                 }
+                count++;
+                mapGapsPerTrace.put(gap, count);
+            }
+
+            for(int distance : outcome.distances) {
+                partialDistances[pos] = distance;
+                totalDistance += distance;
+                pos++;
             }
         }
 
@@ -545,6 +499,150 @@ public class TimeStampFilterChecker {
         return s;
     }
 
+    private Map<String, List<XTrace>> indexTraces(XLog log) {
+        Map<String, List<XTrace>> index = new UnifiedMap<>();
+        for(XTrace trace : log) {
+            String traceID = xce.extractName(trace);
+            List<XTrace> traces;
+            if((traces = index.get(traceID)) == null) {
+                traces = new ArrayList<>(1);
+                index.put(traceID, traces);
+            }
+            traces.add(trace);
+        }
+        return index;
+    }
+
+    private TraceOutcome[] compareTraces(final XLog filteredLog, final Map<String, List<XTrace>> correctTraces, final Map<String, List<XTrace>> noisyTraces,
+                                         final int numberOfTracesAffected, final NameExtractor nameExtractor, final LabelDictionary labelDictionary, final IntArrayList firstAppearance) {
+        final TraceOutcome[] outcomes = new TraceOutcome[filteredLog.size()];
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), outcomes.length));
+        final int chunk = (outcomes.length + threads - 1) / Math.max(1, threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for(int start = 0; start < outcomes.length; start += chunk) {
+                final int from = start;
+                final int to = Math.min(outcomes.length, start + chunk);
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // SimpleDateFormat is not thread-safe
+                        TimeStampChecker timeStampChecker = new TimeStampChecker(new XEventAndClassifier(new XEventNameClassifier()), new SimpleDateFormat("yyyy/MM/dd HH:mm:ss"));
+                        for(int i = from; i < to; i++) {
+                            outcomes[i] = compareTrace(i, filteredLog.get(i), correctTraces, noisyTraces, numberOfTracesAffected, timeStampChecker, nameExtractor, labelDictionary, firstAppearance);
+                        }
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcomes;
+    }
+
+    private TraceOutcome compareTrace(int position, XTrace trace1, Map<String, List<XTrace>> correctTraces, Map<String, List<XTrace>> noisyTraces, int numberOfTracesAffected,
+                                      TimeStampChecker timeStampChecker, NameExtractor nameExtractor, LabelDictionary labelDictionary, IntArrayList firstAppearance) {
+        TraceOutcome outcome = new TraceOutcome();
+        String traceID = xce.extractName(trace1);
+        List<XTrace> correct = correctTraces.get(traceID);
+        boolean matches = true;
+        if (trace1.getAttributes().get("change") != null || numberOfTracesAffected == 0) {
+            if (trace1.getAttributes().get("fixed") != null) {
+                outcome.attempted = true;
+            }
+
+            if (correct != null) {
+                XTrace trace2 = correct.get(0);
+                for (int i = 0; i < trace1.size(); i++) {
+                    if (trace1.get(i).getAttributes().get("change") != null || numberOfTracesAffected == 0) {
+
+                        if (!xce.extractName(trace1.get(i)).equals(xce.extractName(trace2.get(i)))) {
+                            matches = false;
+                            outcome.eventsWronglyChanged++;
+                        }else {
+                            outcome.eventsCorrectlyChanged++;
+                        }
+
+                        if(trace1.get(i).getAttributes().get("originalTimeStamp") != null) {
+                            Date originalTimeStamp = ((XAttributeTimestamp) trace1.get(i).getAttributes().get("originalTimeStamp")).getValue();
+                            Date timestamp = xte.extractTimestamp(trace1.get(i));
+                            outcome.errors.add(timestamp.getTime() - originalTimeStamp.getTime());
+                        }
+                    }
+                }
+
+                if (matches) {
+                    outcome.correctlyChanged = true;
+                } else {
+                    outcome.wronglyChanged = true;
+
+                    List<XTrace> noisy = noisyTraces.get(traceID);
+                    if (noisy != null && timeStampChecker.containsSameTimestamps(noisy.get(0))) {
+                        for (Set<XEvent> set : timeStampChecker.findEventsSameTimeStamp(noisy.get(0))) {
+                            outcome.gaps.add(set.size());
+                        }
+                    }
+                }
+            }
+        }else if (trace1.getAttributes().get("fixed") != null) {
+            if (correct != null) {
+                XTrace trace2 = correct.get(0);
+                for (int i = 0; i < trace1.size(); i++) {
+                    if (!xce.extractName(trace1.get(i)).equals(xce.extractName(trace2.get(i))) && !xte.extractTimestamp(trace1.get(i)).equals(xte.extractTimestamp(trace2.get(i)))) {
+                        matches = false;
+                        outcome.eventErrorIntroduced++;
+                    }
+                }
+                if (!matches) {
+                    outcome.errorIntroduced = true;
+                }
+            }
+        }
+
+        if (correct != null) {
+            int[] sequence1 = encode(trace1, position, nameExtractor, labelDictionary, firstAppearance);
+            outcome.distances = new int[correct.size()];
+            for (int i = 0; i < correct.size(); i++) {
+                int[] sequence2 = encode(correct.get(i), position, nameExtractor, labelDictionary, firstAppearance);
+                outcome.distances[i] = getLevenshteinDistanceLinearSpace(sequence1, sequence2);
+            }
+        }
+        return outcome;
+    }
+
+    private int[] encode(XTrace trace, int position, NameExtractor nameExtractor, LabelDictionary labelDictionary, IntArrayList firstAppearance) {
+        int[] sequence = new int[trace.size()];
+        for (int i = 0; i < sequence.length; i++) {
+            int label = labelDictionary.getIndex(nameExtractor.getEventName(trace.get(i)));
+            sequence[i] = (label >= 0 && firstAppearance.get(label) <= position) ? label : -1;
+        }
+        return sequence;
+    }
+
+    private static class TraceOutcome {
+        private boolean attempted = false;
+        private boolean correctlyChanged = false;
+        private boolean wronglyChanged = false;
+        private boolean errorIntroduced = false;
+        private int eventsCorrectlyChanged = 0;
+        private int eventsWronglyChanged = 0;
+        private int eventErrorIntroduced = 0;
+        private final List<Long> errors = new ArrayList<>();
+        private final IntArrayList gaps = new IntArrayList();
+        private int[] distances = new int[0];
+    }
+
     private String truncate(double value) {
         DecimalFormat df = new DecimalFormat("#0.000");
         String s = df.format(value);
@@ -568,26 +666,19 @@ public class TimeStampFilterChecker {
         int lengthSeq1 = seq1.length;
         int lengthSeq2 = seq2.length;
         int[] S = new int[lengthSeq2 + 1];
-        S[0] = 0;
-        S[1] = S[0] + 1;
 
-        int s;
-        for(s = 2; s <= lengthSeq2; ++s) {
-            S[s] = S[s - 1] + 1;
+        for(int j = 1; j <= lengthSeq2; ++j) {
+            S[j] = j;
         }
 
         for(int i = 1; i <= lengthSeq1; ++i) {
-            s = S[0];
+            int s = S[0];
             int c;
             S[0] = c = S[0] + 1;
-            String[] sI = Arrays.copyOfRange(seq1, (i - 1), i);
+            String sI = seq1[i - 1];
 
             for(int j = 1; j <= lengthSeq2; ++j) {
-                String[] tJ = Arrays.copyOfRange(seq2, (j - 1), j);
-                byte cost = 0;
-                if(!Arrays.equals(sI, tJ)) {
-                    cost = 1;
-                }
+                int cost = (sI == null ? seq2[j - 1] == null : sI.equals(seq2[j - 1])) ? 0 : 1;
 
                 c = this.Minimum(S[j] + 1, s + cost, c + 1);
                 s = S[j];
@@ -598,6 +689,60 @@ public class TimeStampFilterChecker {
         return S[lengthSeq2];
     }
 
+    public int getLevenshteinDistanceLinearSpace(int[] seq1, int[] seq2) {
+        return getLevenshteinDistanceLinearSpace(seq1, seq2, Math.max(seq1.length, seq2.length));
+    }
+
+    /**
+     * Levenshtein distance between two int encoded sequences, bounded by maxDistance (Ukkonen's cut-off).
+     * Only the cells at most maxDistance away from the diagonal are computed, and the computation stops
+     * as soon as every cell of a row exceeds maxDistance.
+     *
+     * @return the distance if it is at most maxDistance, maxDistance + 1 otherwise
+     */
+    public int getLevenshteinDistanceLinearSpace(int[] seq1, int[] seq2, int maxDistance) {
+        int lengthSeq1 = seq1.length;
+        int lengthSeq2 = seq2.length;
+        int bound = maxDistance + 1;
+        if(Math.abs(lengthSeq1 - lengthSeq2) > maxDistance) {
+            return bound;
+        }
+
+        // Cells outside the band hold bound, the band only moves right hence cells on its right are never written
+        int[] S = new int[lengthSeq2 + 1];
+        for(int j = 0; j <= lengthSeq2; ++j) {
+            S[j] = Math.min(j, bound);
+        }
+
+        for(int i = 1; i <= lengthSeq1; ++i) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(lengthSeq2, i + maxDistance);
+
+            int s = S[from - 1];
+            int c = from == 1 ? Math.min(i, bound) : bound;
+            S[from - 1] = c;
+            int rowMinimum = c;
+            int sI = seq1[i - 1];
+
+            for(int j = from; j <= to; ++j) {
+                int cost = sI == seq2[j - 1] ? 0 : 1;
+
+                c = Math.min(this.Minimum(S[j] + 1, s + cost, c + 1), bound);
+                s = S[j];
+                S[j] = c;
+                if(c < rowMinimum) {
+                    rowMinimum = c;
+                }
+            }
+
+            if(rowMinimum > maxDistance) {
+                return bound;
+            }
+        }
+
+        return S[lengthSeq2];
+    }
+
     private int Minimum(int a, int b, int c) {
         int mi = a;
         if(b < a) {
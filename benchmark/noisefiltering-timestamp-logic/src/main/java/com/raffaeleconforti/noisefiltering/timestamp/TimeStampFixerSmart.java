@@ -9,7 +9,6 @@ import com.raffaeleconforti.log.util.TraceToString;
 import com.raffaeleconforti.noisefiltering.event.InfrequentBehaviourFilter;
 import com.raffaeleconforti.noisefiltering.event.infrequentbehaviour.automaton.AutomatonInfrequentBehaviourDetector;
 import com.raffaeleconforti.noisefiltering.timestamp.check.TimeStampChecker;
-import com.raffaeleconforti.noisefiltering.timestamp.permutation.EventPermutator;
 import com.raffaeleconforti.noisefiltering.timestamp.permutation.EventPermutatorSmart;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.factory.XFactory;
@@ -42,7 +41,7 @@ public class TimeStampFixerSmart implements TimeStampFixer {
     private final boolean useArcsFrequency;
 
     private EventDistributionCalculatorNoiseImpl eventDistributionCalculator;
-    private EventPermutator eventPermutator;
+    private EventPermutatorSmart eventPermutator;
 
     private final Map<String, Set<XTrace>> possibleTraces = new UnifiedMap<>();
     private final Map<String, Set<String>> faultyEvents = new UnifiedMap<>();
@@ -121,10 +120,21 @@ public class TimeStampFixerSmart implements TimeStampFixer {
 
     private XLog permuteLog() {
         duplicatedLog = factory.createLog(log.getAttributes());
+
+        List<XTrace> ambiguousTraces = new ArrayList<>();
+        Set<XTrace> ambiguous = Collections.newSetFromMap(new IdentityHashMap<XTrace, Boolean>());
+        for(XTrace t : log) {
+            if(timeStampChecker.containsSameTimestamps(t)) {
+                ambiguousTraces.add(t);
+                ambiguous.add(t);
+            }
+        }
+        eventPermutator.prefetchPermutations(ambiguousTraces);
+
         for(XTrace t : log) {
             originalTraces.put(getTraceName(t), t);
 
-            if(timeStampChecker.containsSameTimestamps(t)) {
+            if(ambiguous.contains(t)) {
                 Set<XTrace> traces = eventPermutator.duplicatesTrace(t);
                 if(traces.size() > 0) {
                     duplicatedLog.addAll(traces);
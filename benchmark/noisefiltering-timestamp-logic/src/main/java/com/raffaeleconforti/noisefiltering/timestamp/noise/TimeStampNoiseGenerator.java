@@ -2,6 +2,8 @@ package com.raffaeleconforti.noisefiltering.timestamp.noise;
 
 import com.raffaeleconforti.log.util.LogCloner;
 import com.raffaeleconforti.log.util.NameExtractor;
+import com.raffaeleconforti.log.util.TraceKey;
+import com.raffaeleconforti.log.util.TraceKeyInterner;
 import com.raffaeleconforti.log.util.TraceToString;
 import org.deckfour.xes.classification.XEventAndClassifier;
 import org.deckfour.xes.classification.XEventLifeTransClassifier;
@@ -23,6 +25,7 @@ import java.util.*;
 public class TimeStampNoiseGenerator {
 
     final NameExtractor nameExtractor = new NameExtractor(new XEventAndClassifier(new XEventNameClassifier(), new XEventLifeTransClassifier()));
+    final TraceKeyInterner traceKeyInterner = new TraceKeyInterner(nameExtractor);
     final XTimeExtension xte = XTimeExtension.instance();
 
     public XLog insertNoiseTotalTracesEvents(XLog rawlog, double percentageTraces, double percentageEvents) {
@@ -158,9 +161,9 @@ public class TimeStampNoiseGenerator {
                 }
             }
 
-            String oldTrace = TraceToString.convertXTraceToString(trace, nameExtractor);
+            TraceKey oldTrace = traceKeyInterner.getKey(trace);
 
-            while(oldTrace.equals(TraceToString.convertXTraceToString(trace, nameExtractor))) {
+            while(oldTrace.equals(traceKeyInterner.getKey(trace))) {
                 Collections.sort(trace, new Comparator<XEvent>() {
                     Random random = r;
 
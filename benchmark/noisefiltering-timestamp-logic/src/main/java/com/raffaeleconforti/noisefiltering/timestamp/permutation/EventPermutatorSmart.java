@@ -36,6 +36,7 @@ public class EventPermutatorSmart implements EventPermutator {
     private final TimeStampChecker timeStampChecker;
     private final XFactory factory;
     private final int limitExtensive;
+    private final PatternPermutationEngine permutationEngine;
 
     private final String fixed = "fixed";
     private final XAttribute fixedAttribute = new XAttributeBooleanImpl(fixed, true);
@@ -57,6 +58,7 @@ public class EventPermutatorSmart implements EventPermutator {
         this.limitExtensive = limitExtensive;
         this.approach = approach;
         this.verbose = debug_mode;
+        this.permutationEngine = new PatternPermutationEngine(eventDistributionCalculator, xEventClassifier, approach, debug_mode);
     }
 
     private String getEventName(XEvent event) {
@@ -179,6 +181,25 @@ public class EventPermutatorSmart implements EventPermutator {
         return traces;
     }
 
+    /**
+     * Computes in parallel the orderings of the blocks of events with the same timestamp of the given traces,
+     * so that duplicatesTrace only has to instantiate them. Blocks are taken from the original traces,
+     * a block whose neighbours change once an earlier block is permuted is computed again when requested.
+     */
+    public void prefetchPermutations(Collection<XTrace> traces) {
+        if(eventDistributionCalculator == null || !permutationEngine.isMemoisable()) return;
+
+        List<PatternPermutationEngine.Block> blocks = new ArrayList<>();
+        for(XTrace trace : traces) {
+            for(Set<XEvent> events : timeStampChecker.findEventsSameTimeStamp(trace)) {
+                XEvent start = findStart(trace, events);
+                XEvent end = findEnd(trace, start, events);
+                blocks.add(permutationEngine.createBlock(events, start, end));
+            }
+        }
+        permutationEngine.prefetch(blocks);
+    }
+
     private Set<List<XEvent>> createPatternAndGetExistingTraceBasedOnPattern(Set<XEvent> events) {
         ArrayList<String> pattern = new ArrayList<>(events.size());
         for(XEvent event : events) {
@@ -236,8 +257,7 @@ public class EventPermutatorSmart implements EventPermutator {
                     System.out.println("Start " + nameExtractor.getEventName(start));
                     System.out.println("End " + nameExtractor.getEventName(end));
                 }
-                PermutationTechnique permutationTechnique = PermutationTechniqueFactory.getPermutationTechnique(approach, events, eventDistributionCalculator, start, end, debug_mode);
-                permutations = permutationTechnique.findBestStartEnd();
+                permutations = permutationEngine.findPermutations(events, start, end);
                 populateDiscoveredPatterns(createPatternToReusePermutations(start, end, events), permutations);
 
                 if(discoveredPatternsMap.size() > 100) {
@@ -0,0 +1,217 @@
+package com.raffaeleconforti.noisefiltering.timestamp.permutation;
+
+import com.raffaeleconforti.kernelestimation.distribution.EventDistributionCalculator;
+import com.raffaeleconforti.log.util.NameExtractor;
+import org.deckfour.xes.classification.XEventAndClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventLifeTransClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the {@link PermutationTechnique} on a block of events having the same timestamp, memoising its result.
+ *
+ * The heuristic and branch-and-bound techniques sort the events of the block by name and lifecycle transition,
+ * and then only look at the labels of the sorted events and of the events preceding and following the block. Blocks sharing those
+ * labels, which are very common in real logs, therefore receive the same orderings up to the identity of the events.
+ * The orderings are stored as positions in the sorted block and instantiated against the events of each trace.
+ * Equally likely orderings are resolved on those positions, so each block receives the orderings the technique
+ * would have returned had it been run on the block itself.
+ * Unique blocks can be computed ahead of time by a pool of threads using {@link #prefetch(Collection)}.
+ *
+ * The ILP techniques update the enriched likelihoods of the calculator after each run, so their results
+ * depend on the order in which blocks are processed and they are never memoised.
+ */
+public class PatternPermutationEngine {
+
+    private static final XEventClassifier sortClassifier = new XEventAndClassifier(new XEventNameClassifier(), new XEventLifeTransClassifier());
+    private static final Comparator<XEvent> sortComparator = new Comparator<XEvent>() {
+        @Override
+        public int compare(XEvent o1, XEvent o2) {
+            return sortClassifier.getClassIdentity(o1).compareTo(sortClassifier.getClassIdentity(o2));
+        }
+    };
+
+    private final EventDistributionCalculator eventDistributionCalculator;
+    private final NameExtractor nameExtractor;
+    private final int approach;
+    private final boolean debug_mode;
+    private final boolean memoisable;
+
+    private final ConcurrentHashMap<List<String>, FutureTask<int[][]>> orderings = new ConcurrentHashMap<>();
+
+    public PatternPermutationEngine(EventDistributionCalculator eventDistributionCalculator, XEventClassifier xEventClassifier, int approach, boolean debug_mode) {
+        this.eventDistributionCalculator = eventDistributionCalculator;
+        this.nameExtractor = new NameExtractor(xEventClassifier);
+        this.approach = approach;
+        this.debug_mode = debug_mode;
+        this.memoisable = approach == PermutationTechnique.HEURISTICS_SET || approach == PermutationTechnique.HEURISTICS_BEST || approach == PermutationTechnique.BRANCH_AND_BOUND;
+    }
+
+    public boolean isMemoisable() {
+        return memoisable;
+    }
+
+    public int size() {
+        return orderings.size();
+    }
+
+    public Set<List<XEvent>> findPermutations(Set<XEvent> events, XEvent start, XEvent end) {
+        if(!memoisable) {
+            return PermutationTechniqueFactory.getPermutationTechnique(approach, events, eventDistributionCalculator, start, end, debug_mode).findBestStartEnd();
+        }
+
+        Block block = new Block(events, start, end);
+        FutureTask<int[][]> task = getTask(block);
+        // Computes the block here unless a worker already started it
+        task.run();
+        try {
+            return block.instantiate(task.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Computes the orderings of the given blocks on all available processors. Each distinct pattern is only
+     * computed once, and blocks requested through findPermutations before a worker reaches them are computed
+     * by the requesting thread.
+     */
+    public void prefetch(Collection<Block> blocks) {
+        if(!memoisable || blocks.isEmpty()) return;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "pattern-permutation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        Set<FutureTask<int[][]>> submitted = new UnifiedSet<>();
+        for(Block block : blocks) {
+            FutureTask<int[][]> task = getTask(block);
+            if(submitted.add(task)) {
+                executor.execute(task);
+            }
+        }
+        executor.shutdown();
+    }
+
+    private FutureTask<int[][]> getTask(final Block block) {
+        FutureTask<int[][]> task;
+        if((task = orderings.get(block.pattern)) == null) {
+            FutureTask<int[][]> newTask = new FutureTask<>(new Callable<int[][]>() {
+                @Override
+                public int[][] call() throws Exception {
+                    PermutationTechnique permutationTechnique = PermutationTechniqueFactory.getPermutationTechnique(approach, block.events, eventDistributionCalculator, block.start, block.end, debug_mode);
+                    return block.toPositions(permutationTechnique.findBestStartEnd());
+                }
+            });
+            if((task = orderings.putIfAbsent(block.pattern, newTask)) == null) {
+                task = newTask;
+            }
+        }
+        return task;
+    }
+
+    public Block createBlock(Set<XEvent> events, XEvent start, XEvent end) {
+        return new Block(events, start, end);
+    }
+
+    /**
+     * A block of events with the same timestamp, sorted as the permutation techniques sort it,
+     * together with its pattern: the labels of the sorted events, of the start and of the end event.
+     */
+    public class Block {
+
+        private final Set<XEvent> events;
+        private final XEvent start;
+        private final XEvent end;
+        private final XEvent[] sorted;
+        private final List<String> pattern;
+
+        private Block(Set<XEvent> events, XEvent start, XEvent end) {
+            this.events = events;
+            this.start = start;
+            this.end = end;
+            this.sorted = events.toArray(new XEvent[events.size()]);
+            Arrays.sort(sorted, sortComparator);
+
+            pattern = new ArrayList<>(2 * (sorted.length + 2));
+            for(XEvent event : sorted) {
+                addLabels(event);
+            }
+            addLabels(start);
+            addLabels(end);
+        }
+
+        private void addLabels(XEvent event) {
+            if(event == null) {
+                pattern.add(null);
+                pattern.add(null);
+            }else {
+                pattern.add(sortClassifier.getClassIdentity(event));
+                pattern.add(nameExtractor.getEventName(event));
+            }
+        }
+
+        private XEvent get(int position) {
+            if(position < sorted.length) return sorted[position];
+            return position == sorted.length ? start : end;
+        }
+
+        private int[][] toPositions(Set<List<XEvent>> permutations) {
+            Map<XEvent, Integer> positions = new IdentityHashMap<>();
+            for(int i = 0; i < sorted.length + 2; i++) {
+                XEvent event = get(i);
+                if(event != null && !positions.containsKey(event)) positions.put(event, i);
+            }
+
+            int[][] result = new int[permutations.size()][];
+            int i = 0;
+            for(List<XEvent> permutation : permutations) {
+                int[] ordering = new int[permutation.size()];
+                for(int j = 0; j < ordering.length; j++) {
+                    ordering[j] = positions.get(permutation.get(j));
+                }
+                result[i++] = ordering;
+            }
+            return result;
+        }
+
+        private Set<List<XEvent>> instantiate(int[][] positions) {
+            Set<List<XEvent>> permutations = new UnifiedSet<>();
+            for(int[] ordering : positions) {
+                List<XEvent> permutation = new ArrayList<>(ordering.length);
+                for(int position : ordering) {
+                    permutation.add(get(position));
+                }
+                permutations.add(permutation);
+            }
+            return permutations;
+        }
+    }
+
+}
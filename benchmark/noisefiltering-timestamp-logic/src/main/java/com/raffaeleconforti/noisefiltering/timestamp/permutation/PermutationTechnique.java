@@ -16,6 +16,7 @@ public interface PermutationTechnique {
     int ILP_LPSOLVE_ARCS = 3;
     int HEURISTICS_BEST = 4;
     int HEURISTICS_SET = 5;
+    int BRANCH_AND_BOUND = 6;
 
     Set<List<XEvent>> findBestStartEnd();
 
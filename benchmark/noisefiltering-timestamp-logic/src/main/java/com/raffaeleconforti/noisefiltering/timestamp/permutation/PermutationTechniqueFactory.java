@@ -3,6 +3,7 @@ package com.raffaeleconforti.noisefiltering.timestamp.permutation;
 import com.raffaeleconforti.ilpsolverwrapper.impl.gurobi.Gurobi_Solver;
 import com.raffaeleconforti.ilpsolverwrapper.impl.lpsolve.LPSolve_Solver;
 import com.raffaeleconforti.kernelestimation.distribution.EventDistributionCalculator;
+import com.raffaeleconforti.noisefiltering.timestamp.permutation.permutators.BranchAndBoundSolution;
 import com.raffaeleconforti.noisefiltering.timestamp.permutation.permutators.HeuristicBestSolution;
 import com.raffaeleconforti.noisefiltering.timestamp.permutation.permutators.HeuristicSetSolutions;
 import com.raffaeleconforti.noisefiltering.timestamp.permutation.permutators.ILPApproach;
@@ -20,6 +21,8 @@ public class PermutationTechniqueFactory {
             return new HeuristicSetSolutions(events, eventDistributionCalculator, start, end);
         }else if(approach == PermutationTechnique.HEURISTICS_BEST) {
             return new HeuristicBestSolution(events, eventDistributionCalculator, start, end);
+        }else if(approach == PermutationTechnique.BRANCH_AND_BOUND) {
+            return new BranchAndBoundSolution(events, eventDistributionCalculator, start, end);
         }else if(approach == PermutationTechnique.ILP_GUROBI) {
             return new ILPApproach(events, eventDistributionCalculator, start, end, new Gurobi_Solver(), debug_mode);
         }else if(approach == PermutationTechnique.ILP_LPSOLVE) {
@@ -37,6 +40,8 @@ public class PermutationTechniqueFactory {
             return "HEURISTICS_SET";
         }else if(approach == PermutationTechnique.HEURISTICS_BEST) {
             return "HEURISTICS_BEST";
+        }else if(approach == PermutationTechnique.BRANCH_AND_BOUND) {
+            return "BRANCH_AND_BOUND";
         }else if(approach == PermutationTechnique.ILP_GUROBI) {
             return "ILP_GUROBI";
         }else if(approach == PermutationTechnique.ILP_LPSOLVE) {
@@ -0,0 +1,410 @@
+package com.raffaeleconforti.noisefiltering.timestamp.permutation.permutators;
+
+import com.raffaeleconforti.kernelestimation.distribution.EventDistributionCalculator;
+import com.raffaeleconforti.noisefiltering.timestamp.permutation.PermutationTechnique;
+import org.deckfour.xes.classification.XEventAndClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventLifeTransClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import org.eclipse.collections.impl.set.mutable.UnifiedSet;
+
+import java.util.*;
+
+/**
+ * Exact maximum-likelihood ordering of a block of events having the same timestamp.
+ *
+ * The likelihood of an ordering is the product of the likelihoods of its consecutive pairs, including the pair
+ * formed with the event preceding the block (start) and the one formed with the event following it (end).
+ * Orderings are scored in log space, where a pair with likelihood zero costs more than any product of non-zero
+ * likelihoods, so that when no ordering has a non-zero likelihood the one with the fewest zero pairs is returned.
+ *
+ * Small blocks are solved by dynamic programming over the subsets of events. Larger blocks are solved by a
+ * best-first branch-and-bound over bitmask states, bounded by the sum of the row maxima of the events still
+ * to be left, and pruned by the best score found for each (subset, last event) state. Once STATES_LIMIT states
+ * have been recorded, the states left in the queue are searched depth-first, recording new states only while
+ * there is room for them, which keeps memory bounded. Events with the same likelihoods towards every other event
+ * are interchangeable and are only placed in one order.
+ *
+ * The search expands at most NODES_LIMIT states. A block which exhausts this budget gets the best ordering found so
+ * far, which is optimal only if the search happened to reach it, and is never worse than the nearest neighbour
+ * ordering the search starts from. The budget counts states rather than time, so that a block always gets the same
+ * ordering.
+ *
+ * Blocks of more than MAXIMUM_EVENTS events do not fit the bitmasks and are ordered by {@link HeuristicBestSolution}.
+ */
+public class BranchAndBoundSolution implements PermutationTechnique {
+
+    private static final int DYNAMIC_PROGRAMMING_LIMIT = 12;
+    private static final int MAXIMUM_EVENTS = 57;
+    private static final int STATES_LIMIT = 1000000;
+    private static final long NODES_LIMIT = 2000000;
+    private static final double ZERO_PENALTY = -1000000.0;
+
+    private final EventDistributionCalculator eventDistributionCalculator;
+    private final XEvent[] eventsArray;
+    private final XEvent start;
+    private final XEvent end;
+    private final int size;
+
+    private double[][] weights;
+    private double[] startWeights;
+    private double[] endWeights;
+    private double[] rowMaxima;
+    private int[] twins;
+
+    private int[] incumbent;
+    private double incumbentScore;
+    private long nodes;
+
+    public BranchAndBoundSolution(Set<XEvent> events, EventDistributionCalculator eventDistributionCalculator, XEvent start, XEvent end) {
+        this.eventDistributionCalculator = eventDistributionCalculator;
+        this.eventsArray = events.toArray(new XEvent[events.size()]);
+        Arrays.sort(eventsArray, new Comparator<XEvent>() {
+            XEventClassifier xEventClassifier = new XEventAndClassifier(new XEventNameClassifier(), new XEventLifeTransClassifier());
+            @Override
+            public int compare(XEvent o1, XEvent o2) {
+                return xEventClassifier.getClassIdentity(o1).compareTo(xEventClassifier.getClassIdentity(o2));
+            }
+        });
+        this.start = start;
+        this.end = end;
+        this.size = eventsArray.length;
+    }
+
+    public Set<List<XEvent>> findBestStartEnd() {
+        Set<List<XEvent>> set = new UnifiedSet<>();
+        if(size == 0) return set;
+        if(size > MAXIMUM_EVENTS) {
+            return new HeuristicBestSolution(new UnifiedSet<>(Arrays.asList(eventsArray)), eventDistributionCalculator, start, end).findBestStartEnd();
+        }
+
+        computeWeights();
+        int[] ordering = (size <= DYNAMIC_PROGRAMMING_LIMIT) ? solveDynamicProgramming() : solveBranchAndBound();
+
+        List<XEvent> list = new ArrayList<>(size);
+        for(int i : ordering) {
+            list.add(eventsArray[i]);
+        }
+        set.add(list);
+        return set;
+    }
+
+    private void computeWeights() {
+        weights = new double[size][size];
+        startWeights = new double[size];
+        endWeights = new double[size];
+        rowMaxima = new double[size];
+
+        for(int i = 0; i < size; i++) {
+            for(int j = 0; j < size; j++) {
+                weights[i][j] = (i != j) ? weight(eventsArray[i], eventsArray[j]) : Double.NEGATIVE_INFINITY;
+            }
+            startWeights[i] = weight(start, eventsArray[i]);
+            endWeights[i] = weight(eventsArray[i], end);
+        }
+
+        for(int i = 0; i < size; i++) {
+            double max = endWeights[i];
+            for(int j = 0; j < size; j++) {
+                max = Math.max(max, weights[i][j]);
+            }
+            rowMaxima[i] = max;
+        }
+
+        // Interchangeable events are only allowed after the previous event they are interchangeable with
+        twins = new int[size];
+        for(int i = 0; i < size; i++) {
+            twins[i] = -1;
+            for(int j = i - 1; j >= 0; j--) {
+                if(interchangeable(j, i)) {
+                    twins[i] = j;
+                    break;
+                }
+            }
+        }
+    }
+
+    private double weight(XEvent originator, XEvent follower) {
+        // A block at the beginning or at the end of a trace is not constrained on that side
+        if(originator == null || follower == null) return 0.0;
+
+        List<XEvent> list = new ArrayList<>(2);
+        list.add(originator);
+        list.add(follower);
+        double likelihood = eventDistributionCalculator.computeLikelihood(list);
+        return (likelihood > 0) ? Math.log(likelihood) : ZERO_PENALTY;
+    }
+
+    private boolean interchangeable(int i, int j) {
+        if(startWeights[i] != startWeights[j] || endWeights[i] != endWeights[j] || weights[i][j] != weights[j][i]) return false;
+        for(int k = 0; k < size; k++) {
+            if(k != i && k != j && (weights[i][k] != weights[j][k] || weights[k][i] != weights[k][j])) return false;
+        }
+        return true;
+    }
+
+    private boolean canFollow(long mask, int next) {
+        return (mask & (1L << next)) == 0 && (twins[next] < 0 || (mask & (1L << twins[next])) != 0);
+    }
+
+    private int[] solveDynamicProgramming() {
+        int states = 1 << size;
+        double[][] best = new double[states][size];
+        byte[][] previous = new byte[states][size];
+        for(double[] row : best) {
+            Arrays.fill(row, Double.NEGATIVE_INFINITY);
+        }
+
+        for(int i = 0; i < size; i++) {
+            if(twins[i] < 0) {
+                best[1 << i][i] = startWeights[i];
+                previous[1 << i][i] = -1;
+            }
+        }
+
+        for(int mask = 1; mask < states; mask++) {
+            for(int last = 0; last < size; last++) {
+                double score = best[mask][last];
+                if(score == Double.NEGATIVE_INFINITY) continue;
+                for(int next = 0; next < size; next++) {
+                    if(canFollow(mask, next)) {
+                        int nextMask = mask | (1 << next);
+                        double nextScore = score + weights[last][next];
+                        if(nextScore > best[nextMask][next]) {
+                            best[nextMask][next] = nextScore;
+                            previous[nextMask][next] = (byte) last;
+                        }
+                    }
+                }
+            }
+        }
+
+        int full = states - 1;
+        int last = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < size; i++) {
+            double score = best[full][i] + endWeights[i];
+            if(score > bestScore) {
+                bestScore = score;
+                last = i;
+            }
+        }
+
+        int[] ordering = new int[size];
+        int mask = full;
+        for(int pos = size - 1; pos >= 0; pos--) {
+            ordering[pos] = last;
+            int tmp = previous[mask][last];
+            mask &= ~(1 << last);
+            last = tmp;
+        }
+        return ordering;
+    }
+
+    private int[] solveBranchAndBound() {
+        long full = (1L << size) - 1;
+
+        PriorityQueue<State> queue = new PriorityQueue<>();
+        LongDoubleHashMap visited = new LongDoubleHashMap();
+
+        greedy();
+        nodes = 0;
+
+        for(int i = 0; i < size; i++) {
+            if(twins[i] < 0) {
+                offer(queue, visited, new State(null, 1L << i, i, startWeights[i], bound(1L << i, i, full, startWeights[i])));
+            }
+        }
+
+        int[] ordering = new int[size];
+        while(!queue.isEmpty()) {
+            State state = queue.poll();
+            if(state.bound <= incumbentScore) break;
+            if(visited.get(key(state.mask, state.last)) > state.score) continue;
+            if(nodes >= NODES_LIMIT) break;
+
+            if(visited.size() > STATES_LIMIT) {
+                // Too many states to go on best-first, the rest of the subtree is searched depth-first
+                state.fill(ordering);
+                search(state.mask, state.last, state.score, ordering, full, visited);
+                continue;
+            }
+
+            nodes++;
+            if(state.mask == full) {
+                double score = state.score + endWeights[state.last];
+                if(score > incumbentScore) {
+                    state.fill(ordering);
+                    incumbent = ordering.clone();
+                    incumbentScore = score;
+                }
+                continue;
+            }
+
+            for(int next = 0; next < size; next++) {
+                if(canFollow(state.mask, next)) {
+                    long mask = state.mask | (1L << next);
+                    double score = state.score + weights[state.last][next];
+                    offer(queue, visited, new State(state, mask, next, score, bound(mask, next, full, score)));
+                }
+            }
+        }
+
+        return incumbent;
+    }
+
+    private void offer(PriorityQueue<State> queue, LongDoubleHashMap visited, State state) {
+        if(state.bound <= incumbentScore) return;
+        long key = key(state.mask, state.last);
+        if(visited.containsKey(key) && visited.get(key) >= state.score) return;
+        visited.put(key, state.score);
+        queue.add(state);
+    }
+
+    /**
+     * Extends the partial ordering of the events in mask, ending with last, trying first the events with the highest
+     * bound. The states reached are only recorded while there is room for them, which only weakens the pruning.
+     * Returns without extending the ordering once the budget of states is spent.
+     */
+    private void search(long mask, int last, double score, int[] ordering, long full, LongDoubleHashMap visited) {
+        if(nodes >= NODES_LIMIT) return;
+        nodes++;
+
+        int depth = Long.bitCount(mask);
+        if(mask == full) {
+            double total = score + endWeights[last];
+            if(total > incumbentScore) {
+                incumbentScore = total;
+                incumbent = ordering.clone();
+            }
+            return;
+        }
+
+        int count = 0;
+        int[] candidates = new int[size - depth];
+        double[] scores = new double[size];
+        double[] bounds = new double[size];
+        for(int next = 0; next < size; next++) {
+            if(canFollow(mask, next)) {
+                scores[next] = score + weights[last][next];
+                bounds[next] = bound(mask | (1L << next), next, full, scores[next]);
+                candidates[count++] = next;
+            }
+        }
+        sortByBound(candidates, count, bounds);
+
+        for(int i = 0; i < count; i++) {
+            int next = candidates[i];
+            if(bounds[next] <= incumbentScore || nodes >= NODES_LIMIT) break;
+
+            long nextMask = mask | (1L << next);
+            long key = key(nextMask, next);
+            if(visited.containsKey(key)) {
+                if(visited.get(key) >= scores[next]) continue;
+                visited.put(key, scores[next]);
+            }else if(visited.size() < 2 * STATES_LIMIT) {
+                visited.put(key, scores[next]);
+            }
+
+            ordering[depth] = next;
+            search(nextMask, next, scores[next], ordering, full, visited);
+        }
+    }
+
+    /**
+     * Insertion sort by decreasing bound, the lowest event first among equal bounds.
+     */
+    private void sortByBound(int[] candidates, int count, double[] bounds) {
+        for(int i = 1; i < count; i++) {
+            int candidate = candidates[i];
+            int j = i - 1;
+            while(j >= 0 && bounds[candidates[j]] < bounds[candidate]) {
+                candidates[j + 1] = candidates[j];
+                j--;
+            }
+            candidates[j + 1] = candidate;
+        }
+    }
+
+    private long key(long mask, int last) {
+        return mask * 64 + last;
+    }
+
+    /**
+     * Each event still to be placed, as well as the last one placed, has exactly one outgoing pair left,
+     * which cannot score more than the maximum of its row.
+     */
+    private double bound(long mask, int last, long full, double score) {
+        double bound = score + rowMaxima[last];
+        long remaining = full & ~mask;
+        while(remaining != 0) {
+            int i = Long.numberOfTrailingZeros(remaining);
+            bound += rowMaxima[i];
+            remaining &= remaining - 1;
+        }
+        return bound;
+    }
+
+    /**
+     * Nearest neighbour ordering, used as the first incumbent of the branch-and-bound.
+     */
+    private void greedy() {
+        incumbent = new int[size];
+        long mask = 0;
+        int last = -1;
+        double score = 0;
+        for(int pos = 0; pos < size; pos++) {
+            int next = -1;
+            double nextWeight = Double.NEGATIVE_INFINITY;
+            for(int j = 0; j < size; j++) {
+                double weight = (last < 0) ? startWeights[j] : weights[last][j];
+                if(canFollow(mask, j) && (next < 0 || weight > nextWeight)) {
+                    next = j;
+                    nextWeight = weight;
+                }
+            }
+            mask |= 1L << next;
+            score += nextWeight;
+            last = next;
+            incumbent[pos] = next;
+        }
+        incumbentScore = score + endWeights[last];
+    }
+
+    private static class State implements Comparable<State> {
+
+        private final State parent;
+        private final long mask;
+        private final int last;
+        private final double score;
+        private final double bound;
+
+        private State(State parent, long mask, int last, double score, double bound) {
+            this.parent = parent;
+            this.mask = mask;
+            this.last = last;
+            this.score = score;
+            this.bound = bound;
+        }
+
+        private void fill(int[] ordering) {
+            State state = this;
+            for(int pos = Long.bitCount(mask) - 1; pos >= 0; pos--) {
+                ordering[pos] = state.last;
+                state = state.parent;
+            }
+        }
+
+        @Override
+        public int compareTo(State o) {
+            int c = Double.compare(o.bound, bound);
+            if(c == 0) c = Integer.compare(Long.bitCount(o.mask), Long.bitCount(mask));
+            if(c == 0) c = Long.compare(mask, o.mask);
+            if(c == 0) c = Integer.compare(last, o.last);
+            return c;
+        }
+    }
+
+}
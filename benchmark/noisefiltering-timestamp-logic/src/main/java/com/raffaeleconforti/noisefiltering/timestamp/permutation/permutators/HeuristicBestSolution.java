@@ -22,6 +22,7 @@ public class HeuristicBestSolution implements PermutationTechnique {
     private EventDistributionCalculator eventDistributionCalculator;
     private XEvent[] eventsArray;
     private double[][] likeloods;
+    private Map<XEvent, Integer> positions;
 
     private Map<String, IntHashSet> skipMap = new UnifiedMap<>();
     private Map<String, Boolean> existsPathRemaining = new UnifiedMap<>();
@@ -60,12 +61,17 @@ public class HeuristicBestSolution implements PermutationTechnique {
         }
     }
 
+    /**
+     * Equally likely orderings are resolved in favour of the one placing the events with the lowest positions in the
+     * sorted block first, so that blocks with the same labels always resolve to the same positions whatever the
+     * iteration order of the solutions.
+     */
     public Set<List<XEvent>> findBestStartEnd() {
         double bestLikelihood = 0.0;
         List<XEvent> best = null;
         for(List<XEvent> events : findBestStartEndSetSolutions()) {
             double likelihood = eventDistributionCalculator.computeLikelihood(events);
-            if(likelihood > bestLikelihood) {
+            if(likelihood > bestLikelihood || (best != null && likelihood == bestLikelihood && comparePositions(events, best) < 0)) {
                 bestLikelihood = likelihood;
                 best = events;
             }
@@ -75,6 +81,20 @@ public class HeuristicBestSolution implements PermutationTechnique {
         return set;
     }
 
+    private int comparePositions(List<XEvent> o1, List<XEvent> o2) {
+        if(positions == null) {
+            positions = new IdentityHashMap<>();
+            for(int i = 0; i < eventsArray.length - 2; i++) {
+                positions.put(eventsArray[i], i);
+            }
+        }
+        for(int i = 0; i < Math.min(o1.size(), o2.size()); i++) {
+            int c = Integer.compare(positions.get(o1.get(i)), positions.get(o2.get(i)));
+            if(c != 0) return c;
+        }
+        return Integer.compare(o1.size(), o2.size());
+    }
+
     public Set<List<XEvent>> findBestStartEndSetSolutions() {
         int removed = 0;
         Set<List<XEvent>> set = new UnifiedSet<>();
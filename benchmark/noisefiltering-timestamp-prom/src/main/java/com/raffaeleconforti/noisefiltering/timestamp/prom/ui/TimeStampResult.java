@@ -32,7 +32,8 @@ public class TimeStampResult extends ProMPropertiesPanel {
                 PermutationTechniqueFactory.getPermutationTechniqueName(PermutationTechnique.ILP_LPSOLVE),
                 PermutationTechniqueFactory.getPermutationTechniqueName(PermutationTechnique.ILP_LPSOLVE_ARCS),
                 PermutationTechniqueFactory.getPermutationTechniqueName(PermutationTechnique.HEURISTICS_BEST),
-                PermutationTechniqueFactory.getPermutationTechniqueName(PermutationTechnique.HEURISTICS_SET)
+                PermutationTechniqueFactory.getPermutationTechniqueName(PermutationTechnique.HEURISTICS_SET),
+                PermutationTechniqueFactory.getPermutationTechniqueName(PermutationTechnique.BRANCH_AND_BOUND)
         });
         comboBox.addActionListener(udl);
         add(comboBox);
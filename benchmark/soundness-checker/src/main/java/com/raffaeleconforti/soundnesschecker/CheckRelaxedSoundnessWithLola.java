@@ -37,6 +37,23 @@ public class CheckRelaxedSoundnessWithLola {
         System.out.println(isRelaxedSoundAndBounded(net));
     }
 
+    /**
+     * Checks that the reduced net is bounded and that its final marking is reachable, exploring its
+     * state space in the JVM with {@link RelaxedSoundnessChecker}.
+     *
+     * The exploration stops with an {@link IllegalStateException} past
+     * {@link RelaxedSoundnessChecker#DEFAULT_MAX_STATES} markings, a tenth of the limit given to Lola by
+     * {@link #isRelaxedSoundAndBoundedWithLola(AcceptingPetriNet)}, which remains available for larger nets.
+     *
+     * @param net
+     * @return
+     * @throws ConnectionCannotBeObtained
+     */
+    public static boolean isRelaxedSoundAndBounded(AcceptingPetriNet net) throws ConnectionCannotBeObtained {
+        AcceptingPetriNet reducedNet = reduceWorkflowNet(net);
+        return new RelaxedSoundnessChecker(reducedNet).isRelaxedSoundAndBounded();
+    }
+
     /**
      * Very sorry, this method requires a Cygwin + Lola installation. I'm afraid
      * you'll have to compile it yourself.
@@ -47,7 +64,7 @@ public class CheckRelaxedSoundnessWithLola {
      * @throws ConnectionCannotBeObtained
      * @throws JSONException
      */
-    public static boolean isRelaxedSoundAndBounded(AcceptingPetriNet net) throws IOException,
+    public static boolean isRelaxedSoundAndBoundedWithLola(AcceptingPetriNet net) throws IOException,
             ConnectionCannotBeObtained, JSONException {
         AcceptingPetriNet reducedNet = reduceWorkflowNet(net);
         String lolaPetriNet = PetriNet2Lola.convert(reducedNet.getNet(), reducedNet.getInitialMarking());
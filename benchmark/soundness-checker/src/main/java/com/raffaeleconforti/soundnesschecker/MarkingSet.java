@@ -0,0 +1,152 @@
+package com.raffaeleconforti.soundnesschecker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Set of markings of a fixed number of places, safe for concurrent insertions.
+ *
+ * Markings are stored as flat int vectors in pages, each preceded by the id of the marking it was first reached
+ * from, and indexed by open-addressing hash tables. The set is split in segments, chosen by the hash of the marking
+ * and locked independently. Reading a marking is not synchronised: it is only allowed for markings whose insertion
+ * happened-before the read, which the level-by-level exploration guarantees.
+ */
+class MarkingSet {
+
+    static final int NONE = -1;
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_MARKINGS = 1 << PAGE_BITS;
+
+    private final int width;
+    private final int stride;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicInteger size = new AtomicInteger();
+
+    MarkingSet(int width) {
+        this.width = width;
+        this.stride = width + 1;
+        for(int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return the id of the marking if it was not in the set, {@link #NONE} otherwise.
+     */
+    int add(int[] marking, int parent) {
+        int hash = hash(marking);
+        int segment = hash & (SEGMENTS - 1);
+        int local = segments[segment].add(marking, hash >>> SEGMENT_BITS, parent);
+        if(local < 0) return NONE;
+        size.incrementAndGet();
+        return (local << SEGMENT_BITS) | segment;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    void copy(int id, int[] marking) {
+        int local = id >>> SEGMENT_BITS;
+        int[] page = segments[id & (SEGMENTS - 1)].pages[local >>> PAGE_BITS];
+        System.arraycopy(page, (local & (PAGE_MARKINGS - 1)) * stride + 1, marking, 0, width);
+    }
+
+    int getParent(int id) {
+        int local = id >>> SEGMENT_BITS;
+        int[] page = segments[id & (SEGMENTS - 1)].pages[local >>> PAGE_BITS];
+        return page[(local & (PAGE_MARKINGS - 1)) * stride];
+    }
+
+    /**
+     * @return true if the marking has at least as many tokens as the stored one in every place, and more in one.
+     */
+    boolean strictlyCovers(int[] marking, int id) {
+        int local = id >>> SEGMENT_BITS;
+        int[] page = segments[id & (SEGMENTS - 1)].pages[local >>> PAGE_BITS];
+        int offset = (local & (PAGE_MARKINGS - 1)) * stride + 1;
+        boolean strict = false;
+        for(int p = 0; p < width; p++) {
+            int stored = page[offset + p];
+            if(marking[p] < stored) return false;
+            if(marking[p] > stored) strict = true;
+        }
+        return strict;
+    }
+
+    private static int hash(int[] marking) {
+        int hash = 0x9747b28c;
+        for(int value : marking) {
+            hash ^= value;
+            hash *= 0x5bd1e995;
+            hash ^= hash >>> 15;
+        }
+        return hash;
+    }
+
+    private class Segment {
+
+        private volatile int[][] pages = new int[1][];
+        // Local ids plus one, zero for empty slots
+        private int[] table = new int[16];
+        private int[] hashes = new int[0];
+        private int count = 0;
+
+        private synchronized int add(int[] marking, int hash, int parent) {
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            int entry;
+            while((entry = table[slot]) != 0) {
+                if(hashes[entry - 1] == hash && equals(entry - 1, marking)) return -1;
+                slot = (slot + 1) & mask;
+            }
+
+            int local = count++;
+            store(local, marking, hash, parent);
+            table[slot] = local + 1;
+            if(2 * count > table.length) resize();
+            return local;
+        }
+
+        private boolean equals(int local, int[] marking) {
+            int[] page = pages[local >>> PAGE_BITS];
+            int offset = (local & (PAGE_MARKINGS - 1)) * stride + 1;
+            for(int p = 0; p < width; p++) {
+                if(page[offset + p] != marking[p]) return false;
+            }
+            return true;
+        }
+
+        private void store(int local, int[] marking, int hash, int parent) {
+            int pageIndex = local >>> PAGE_BITS;
+            int[][] current = pages;
+            if(pageIndex == current.length) current = Arrays.copyOf(current, 2 * current.length);
+            if(current[pageIndex] == null) current[pageIndex] = new int[PAGE_MARKINGS * stride];
+
+            int offset = (local & (PAGE_MARKINGS - 1)) * stride;
+            current[pageIndex][offset] = parent;
+            System.arraycopy(marking, 0, current[pageIndex], offset + 1, width);
+            pages = current;
+
+            if(local == hashes.length) hashes = Arrays.copyOf(hashes, Math.max(16, 2 * hashes.length));
+            hashes[local] = hash;
+        }
+
+        private void resize() {
+            int[] resized = new int[2 * table.length];
+            int mask = resized.length - 1;
+            for(int local = 0; local < count; local++) {
+                int slot = hashes[local] & mask;
+                while(resized[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                resized[slot] = local + 1;
+            }
+            table = resized;
+        }
+    }
+
+}
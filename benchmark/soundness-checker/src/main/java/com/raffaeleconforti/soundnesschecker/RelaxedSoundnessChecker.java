@@ -0,0 +1,412 @@
+package com.raffaeleconforti.soundnesschecker;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.processmining.acceptingpetrinet.models.AcceptingPetriNet;
+import org.processmining.models.graphbased.directed.petrinet.Petrinet;
+import org.processmining.models.graphbased.directed.petrinet.PetrinetEdge;
+import org.processmining.models.graphbased.directed.petrinet.PetrinetNode;
+import org.processmining.models.graphbased.directed.petrinet.elements.Arc;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.models.semantics.petrinet.Marking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Explores the state space of a Petri net in the JVM to answer the questions previously asked to Lola:
+ * whether the net is bounded and whether a final marking is reachable from the initial marking.
+ *
+ * Markings are explored breadth-first, one level at a time, by a pool of threads sharing a {@link MarkingSet}.
+ * A marking strictly covering one of the markings it was reached from proves that the net is unbounded
+ * (Karp and Miller); conversely, the exploration of an unbounded net always finds such a marking.
+ *
+ * Reachability of the final markings is decided on a state space reduced with stubborn sets: in each marking only
+ * the enabled transitions of a set closed under conflicts (for enabled transitions) and under the producers of a
+ * missing input place (for disabled ones), and containing all transitions that can move the marking towards a
+ * final marking, are fired. Every path to a final marking then starts with a transition of the set, hence a final
+ * marking is reachable in the reduced state space if and only if it is reachable in the full one.
+ *
+ * Explorations visiting more than the given number of markings stop with an {@link IllegalStateException}.
+ */
+public class RelaxedSoundnessChecker {
+
+    /**
+     * A tenth of the marking limit given to Lola. Markings are kept uncompressed in the heap of the JVM, about
+     * 4 * (places + 4) bytes each: 10 million markings of a net with 30 places take 1.4GB, 100 million would take
+     * 14GB.
+     */
+    public static final int DEFAULT_MAX_STATES = 10000000;
+
+    private static final int SEQUENTIAL_LEVEL = 64;
+
+    private final int places;
+    private final int transitions;
+    private final int[][] consumed;
+    private final int[][] consumedWeights;
+    private final int[][] produced;
+    private final int[][] producedWeights;
+    // Per place: transitions consuming from it, increasing it and decreasing it
+    private final int[][] consumers;
+    private final int[][] increasing;
+    private final int[][] decreasing;
+
+    private final int[] initialMarking;
+    private final int[][] finalMarkings;
+    private final int maxStates;
+    private final int threads;
+
+    public RelaxedSoundnessChecker(AcceptingPetriNet net) {
+        this(net.getNet(), net.getInitialMarking(), net.getFinalMarkings(), DEFAULT_MAX_STATES, Runtime.getRuntime().availableProcessors());
+    }
+
+    public RelaxedSoundnessChecker(Petrinet net, Marking initialMarking, Collection<Marking> finalMarkings, int maxStates, int threads) {
+        Map<Place, Integer> placeIndexes = new UnifiedMap<>();
+        for(Place place : net.getPlaces()) {
+            placeIndexes.put(place, placeIndexes.size());
+        }
+
+        Collection<Transition> netTransitions = net.getTransitions();
+        int[][] consumed = new int[netTransitions.size()][];
+        int[][] consumedWeights = new int[netTransitions.size()][];
+        int[][] produced = new int[netTransitions.size()][];
+        int[][] producedWeights = new int[netTransitions.size()][];
+        int t = 0;
+        for(Transition transition : netTransitions) {
+            Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> inEdges = net.getInEdges(transition);
+            consumed[t] = new int[inEdges.size()];
+            consumedWeights[t] = new int[inEdges.size()];
+            int i = 0;
+            for(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : inEdges) {
+                consumed[t][i] = placeIndexes.get(edge.getSource());
+                consumedWeights[t][i++] = getWeight(edge);
+            }
+
+            Collection<PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode>> outEdges = net.getOutEdges(transition);
+            produced[t] = new int[outEdges.size()];
+            producedWeights[t] = new int[outEdges.size()];
+            i = 0;
+            for(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge : outEdges) {
+                produced[t][i] = placeIndexes.get(edge.getTarget());
+                producedWeights[t][i++] = getWeight(edge);
+            }
+            t++;
+        }
+
+        int[][] finals = new int[finalMarkings.size()][];
+        int i = 0;
+        for(Marking finalMarking : finalMarkings) {
+            finals[i++] = toArray(finalMarking, placeIndexes);
+        }
+
+        this.places = placeIndexes.size();
+        this.transitions = netTransitions.size();
+        this.consumed = consumed;
+        this.consumedWeights = consumedWeights;
+        this.produced = produced;
+        this.producedWeights = producedWeights;
+        this.initialMarking = toArray(initialMarking, placeIndexes);
+        this.finalMarkings = finals;
+        this.maxStates = maxStates;
+        this.threads = Math.max(1, threads);
+        this.consumers = new int[places][];
+        this.increasing = new int[places][];
+        this.decreasing = new int[places][];
+        indexPlaces();
+    }
+
+    /**
+     * Net given as, for each transition, the places (and weights) it consumes from and produces into.
+     */
+    RelaxedSoundnessChecker(int places, int[][] consumed, int[][] consumedWeights, int[][] produced, int[][] producedWeights,
+                            int[] initialMarking, int[][] finalMarkings, int maxStates, int threads) {
+        this.places = places;
+        this.transitions = consumed.length;
+        this.consumed = consumed;
+        this.consumedWeights = consumedWeights;
+        this.produced = produced;
+        this.producedWeights = producedWeights;
+        this.initialMarking = initialMarking;
+        this.finalMarkings = finalMarkings;
+        this.maxStates = maxStates;
+        this.threads = Math.max(1, threads);
+        this.consumers = new int[places][];
+        this.increasing = new int[places][];
+        this.decreasing = new int[places][];
+        indexPlaces();
+    }
+
+    private void indexPlaces() {
+        List<IntArrayList> placeConsumers = new ArrayList<>(places);
+        List<IntArrayList> placeIncreasing = new ArrayList<>(places);
+        List<IntArrayList> placeDecreasing = new ArrayList<>(places);
+        for(int p = 0; p < places; p++) {
+            placeConsumers.add(new IntArrayList());
+            placeIncreasing.add(new IntArrayList());
+            placeDecreasing.add(new IntArrayList());
+        }
+
+        int[] effect = new int[places];
+        for(int t = 0; t < transitions; t++) {
+            for(int i = 0; i < consumed[t].length; i++) {
+                effect[consumed[t][i]] -= consumedWeights[t][i];
+                placeConsumers.get(consumed[t][i]).add(t);
+            }
+            for(int i = 0; i < produced[t].length; i++) {
+                effect[produced[t][i]] += producedWeights[t][i];
+            }
+
+            for(int[] arcs : new int[][] {consumed[t], produced[t]}) {
+                for(int p : arcs) {
+                    if(effect[p] > 0) placeIncreasing.get(p).add(t);
+                    else if(effect[p] < 0) placeDecreasing.get(p).add(t);
+                    effect[p] = 0;
+                }
+            }
+        }
+
+        for(int p = 0; p < places; p++) {
+            consumers[p] = placeConsumers.get(p).toArray();
+            increasing[p] = placeIncreasing.get(p).toArray();
+            decreasing[p] = placeDecreasing.get(p).toArray();
+        }
+    }
+
+    private static int getWeight(PetrinetEdge<? extends PetrinetNode, ? extends PetrinetNode> edge) {
+        return (edge instanceof Arc) ? ((Arc) edge).getWeight() : 1;
+    }
+
+    private static int[] toArray(Marking marking, Map<Place, Integer> placeIndexes) {
+        int[] array = new int[placeIndexes.size()];
+        for(Place place : marking.baseSet()) {
+            Integer index;
+            if((index = placeIndexes.get(place)) != null) array[index] = marking.occurrences(place);
+        }
+        return array;
+    }
+
+    /**
+     * @return true if a final marking is reachable and the net is bounded, as the Lola queries did.
+     */
+    public boolean isRelaxedSoundAndBounded() {
+        Outcome outcome = explore(true, true);
+        if(outcome.unbounded.get() || !outcome.finalMarkingReached.get()) return false;
+        return isBounded();
+    }
+
+    /**
+     * Explores the full state space, stopping as soon as the net is proved unbounded.
+     */
+    public boolean isBounded() {
+        return !explore(false, true).unbounded.get();
+    }
+
+    /**
+     * Explores the reduced state space until a final marking is found. On unbounded nets the exploration
+     * may only stop at the state budget.
+     */
+    public boolean canReachFinalMarking() {
+        return explore(true, false).finalMarkingReached.get();
+    }
+
+    private Outcome explore(final boolean reduced, final boolean stopWhenUnbounded) {
+        final MarkingSet markings = new MarkingSet(places);
+        final Outcome outcome = new Outcome();
+
+        int initial = markings.add(initialMarking, MarkingSet.NONE);
+        if(isFinal(initialMarking)) {
+            outcome.finalMarkingReached.set(true);
+            if(reduced) return outcome;
+        }
+
+        ExecutorService executor = null;
+        try {
+            IntArrayList frontier = new IntArrayList();
+            frontier.add(initial);
+            while(!frontier.isEmpty() && !outcome.isDone(reduced, stopWhenUnbounded)) {
+                if(frontier.size() <= SEQUENTIAL_LEVEL || threads == 1) {
+                    frontier = expand(markings, frontier, 0, frontier.size(), reduced, stopWhenUnbounded, outcome);
+                    continue;
+                }
+
+                if(executor == null) executor = Executors.newFixedThreadPool(threads);
+                List<Future<IntArrayList>> futures = new ArrayList<>();
+                int chunk = (frontier.size() + 4 * threads - 1) / (4 * threads);
+                for(int start = 0; start < frontier.size(); start += chunk) {
+                    final IntArrayList level = frontier;
+                    final int from = start;
+                    final int to = Math.min(frontier.size(), start + chunk);
+                    futures.add(executor.submit(new Callable<IntArrayList>() {
+                        @Override
+                        public IntArrayList call() throws Exception {
+                            return expand(markings, level, from, to, reduced, stopWhenUnbounded, outcome);
+                        }
+                    }));
+                }
+
+                IntArrayList next = new IntArrayList();
+                for(Future<IntArrayList> future : futures) {
+                    next.addAll(future.get());
+                }
+                frontier = next;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if(executor != null) executor.shutdownNow();
+        }
+
+        return outcome;
+    }
+
+    private IntArrayList expand(MarkingSet markings, IntArrayList level, int from, int to, boolean reduced, boolean stopWhenUnbounded, Outcome outcome) {
+        IntArrayList next = new IntArrayList();
+        int[] marking = new int[places];
+        Stubborn stubborn = reduced ? new Stubborn() : null;
+
+        for(int i = from; i < to && !outcome.isDone(reduced, stopWhenUnbounded); i++) {
+            int id = level.get(i);
+            markings.copy(id, marking);
+
+            int[] fireable = reduced ? stubborn.compute(marking) : null;
+            int count = reduced ? fireable.length : transitions;
+            for(int j = 0; j < count; j++) {
+                int t = reduced ? fireable[j] : j;
+                if(!reduced && !isEnabled(marking, t)) continue;
+
+                int[] successor = fire(marking, t);
+                int successorId = markings.add(successor, id);
+                if(successorId == MarkingSet.NONE) continue;
+
+                if(markings.size() > maxStates) throw new IllegalStateException("The state space exceeds " + maxStates + " markings");
+                if(isFinal(successor)) outcome.finalMarkingReached.set(true);
+                if(coversAncestor(markings, successor, id)) outcome.unbounded.set(true);
+                next.add(successorId);
+            }
+        }
+        return next;
+    }
+
+    private boolean coversAncestor(MarkingSet markings, int[] marking, int parent) {
+        for(int ancestor = parent; ancestor != MarkingSet.NONE; ancestor = markings.getParent(ancestor)) {
+            if(markings.strictlyCovers(marking, ancestor)) return true;
+        }
+        return false;
+    }
+
+    private boolean isEnabled(int[] marking, int t) {
+        for(int i = 0; i < consumed[t].length; i++) {
+            if(marking[consumed[t][i]] < consumedWeights[t][i]) return false;
+        }
+        return true;
+    }
+
+    private int[] fire(int[] marking, int t) {
+        int[] successor = marking.clone();
+        for(int i = 0; i < consumed[t].length; i++) {
+            successor[consumed[t][i]] -= consumedWeights[t][i];
+        }
+        for(int i = 0; i < produced[t].length; i++) {
+            successor[produced[t][i]] += producedWeights[t][i];
+        }
+        return successor;
+    }
+
+    private boolean isFinal(int[] marking) {
+        for(int[] finalMarking : finalMarkings) {
+            boolean equal = true;
+            for(int p = 0; p < places && equal; p++) {
+                equal = marking[p] == finalMarking[p];
+            }
+            if(equal) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stubborn set computation, with buffers reused across the markings expanded by one thread.
+     */
+    private class Stubborn {
+
+        private final boolean[] included = new boolean[transitions];
+        private final IntArrayList members = new IntArrayList();
+
+        private int[] compute(int[] marking) {
+            members.clear();
+
+            // A path to a final marking must change a place differing from it in the right direction
+            for(int[] finalMarking : finalMarkings) {
+                int[] best = null;
+                for(int p = 0; p < places; p++) {
+                    if(marking[p] == finalMarking[p]) continue;
+                    int[] candidates = (marking[p] < finalMarking[p]) ? increasing[p] : decreasing[p];
+                    if(best == null || candidates.length < best.length) best = candidates;
+                }
+                if(best != null) include(best);
+            }
+
+            IntArrayList fireable = new IntArrayList();
+            for(int i = 0; i < members.size(); i++) {
+                int t = members.get(i);
+                if(isEnabled(marking, t)) {
+                    fireable.add(t);
+                    for(int p : consumed[t]) {
+                        include(consumers[p]);
+                    }
+                }else {
+                    include(increasing[scapegoat(marking, t)]);
+                }
+            }
+
+            for(int i = 0; i < members.size(); i++) {
+                included[members.get(i)] = false;
+            }
+            return fireable.toArray();
+        }
+
+        private void include(int[] candidates) {
+            for(int t : candidates) {
+                if(!included[t]) {
+                    included[t] = true;
+                    members.add(t);
+                }
+            }
+        }
+
+        /**
+         * @return the insufficiently marked input place of the disabled transition with the fewest producers.
+         */
+        private int scapegoat(int[] marking, int t) {
+            int best = -1;
+            for(int i = 0; i < consumed[t].length; i++) {
+                int p = consumed[t][i];
+                if(marking[p] < consumedWeights[t][i] && (best < 0 || increasing[p].length < increasing[best].length)) best = p;
+            }
+            return best;
+        }
+    }
+
+    private static class Outcome {
+
+        private final AtomicBoolean finalMarkingReached = new AtomicBoolean();
+        private final AtomicBoolean unbounded = new AtomicBoolean();
+
+        private boolean isDone(boolean stopWhenFinal, boolean stopWhenUnbounded) {
+            return (stopWhenFinal && finalMarkingReached.get()) || (stopWhenUnbounded && unbounded.get());
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.raffaeleconforti.soundnesschecker;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.junit.Assume;
+import org.junit.Test;
+import org.processmining.acceptingpetrinet.models.AcceptingPetriNet;
+import org.processmining.acceptingpetrinet.models.impl.AcceptingPetriNetFactory;
+import org.processmining.models.graphbased.directed.petrinet.Petrinet;
+import org.processmining.models.graphbased.directed.petrinet.elements.Place;
+import org.processmining.models.graphbased.directed.petrinet.elements.Transition;
+import org.processmining.models.graphbased.directed.petrinet.impl.PetrinetFactory;
+import org.processmining.models.semantics.petrinet.Marking;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Nets are written as one string per transition, "inputs -> outputs", with a token in place i initially and a
+ * single token in place o finally. Each net is checked both through {@link CheckRelaxedSoundnessWithLola}, against
+ * Lola when it is installed, and through the checker built from arrays.
+ */
+public class RelaxedSoundnessCheckerTest {
+
+    private static final String[] SOUND = {
+            "i -> p1 p2",
+            "p1 -> p3",
+            "p2 -> p4",
+            "p2 -> p4",
+            "p3 p4 -> o"
+    };
+
+    // The choices in the two branches are independent, so the join may deadlock
+    private static final String[] RELAXED_SOUND_NOT_SOUND = {
+            "i -> p1 p2",
+            "p1 -> p3",
+            "p1 -> p4",
+            "p2 -> p5",
+            "p2 -> p6",
+            "p3 p5 -> o",
+            "p4 p6 -> o"
+    };
+
+    // The loop on p1 produces tokens in p2 without bound
+    private static final String[] UNBOUNDED = {
+            "i -> p1",
+            "p1 -> p1 p2",
+            "p1 -> o",
+            "p2 -> o"
+    };
+
+    // p2 is never marked, the Lola queries do not ask for the transitions consuming from it to occur
+    private static final String[] DEAD_TRANSITION = {
+            "i -> p1",
+            "p1 -> o",
+            "p1 p2 -> o",
+            "p2 -> p2"
+    };
+
+    private static final String[] FINAL_MARKING_UNREACHABLE = {
+            "i -> p1",
+            "p1 p2 -> o",
+            "p2 -> p2"
+    };
+
+    @Test
+    public void soundNet() throws Exception {
+        assertRelaxedSoundAndBounded(true, SOUND);
+    }
+
+    @Test
+    public void relaxedSoundButNotSoundNet() throws Exception {
+        assertRelaxedSoundAndBounded(true, RELAXED_SOUND_NOT_SOUND);
+    }
+
+    @Test
+    public void unboundedNet() throws Exception {
+        assertRelaxedSoundAndBounded(false, UNBOUNDED);
+        assertFalse(checker(UNBOUNDED, 1000, 1).isBounded());
+        assertTrue(checker(UNBOUNDED, 1000, 1).canReachFinalMarking());
+    }
+
+    @Test
+    public void netWithDeadTransition() throws Exception {
+        assertRelaxedSoundAndBounded(true, DEAD_TRANSITION);
+    }
+
+    @Test
+    public void netWithUnreachableFinalMarking() throws Exception {
+        assertRelaxedSoundAndBounded(false, FINAL_MARKING_UNREACHABLE);
+        assertTrue(checker(FINAL_MARKING_UNREACHABLE, 1000, 1).isBounded());
+    }
+
+    @Test
+    public void parallelExplorationMatchesSequentialOne() {
+        String[] net = concurrentBranches(8);
+        assertTrue(checker(net, 100000, 1).isRelaxedSoundAndBounded());
+        assertTrue(checker(net, 100000, 4).isRelaxedSoundAndBounded());
+        assertTrue(checker(net, 100000, 4).isBounded());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void explorationStopsAtTheStateLimit() {
+        checker(concurrentBranches(8), 1000, 4).isBounded();
+    }
+
+    /**
+     * @return a net running the given number of branches of three steps concurrently, with 4^branches markings and
+     * levels wide enough for the exploration to be split among threads.
+     */
+    private static String[] concurrentBranches(int branches) {
+        String[] net = new String[2 * branches + 2];
+        StringBuilder split = new StringBuilder("i ->");
+        StringBuilder join = new StringBuilder();
+        for(int b = 0; b < branches; b++) {
+            split.append(" a").append(b);
+            net[2 * b + 1] = "a" + b + " -> b" + b;
+            net[2 * b + 2] = "b" + b + " -> c" + b;
+            join.append(" c").append(b);
+        }
+        net[0] = split.toString();
+        net[2 * branches + 1] = join.append(" -> o").toString();
+        return net;
+    }
+
+    private static void assertRelaxedSoundAndBounded(boolean expected, String[] transitions) throws Exception {
+        assertEquals(expected, checker(transitions, 1000, 1).isRelaxedSoundAndBounded());
+        assertEquals(expected, checker(transitions, 1000, 4).isRelaxedSoundAndBounded());
+
+        AcceptingPetriNet net = acceptingPetriNet(transitions);
+        assertEquals(expected, CheckRelaxedSoundnessWithLola.isRelaxedSoundAndBounded(net));
+
+        boolean lola;
+        try {
+            lola = CheckRelaxedSoundnessWithLola.isRelaxedSoundAndBoundedWithLola(net);
+        } catch (IOException e) {
+            Assume.assumeNoException("Lola is not installed", e);
+            return;
+        }
+        assertEquals(lola, CheckRelaxedSoundnessWithLola.isRelaxedSoundAndBounded(net));
+    }
+
+    private static AcceptingPetriNet acceptingPetriNet(String[] transitions) {
+        Petrinet net = PetrinetFactory.newPetrinet("test");
+        Map<String, Place> places = new UnifiedMap<>();
+        for(int t = 0; t < transitions.length; t++) {
+            String[] arcs = transitions[t].split("->");
+            Transition transition = net.addTransition("t" + t);
+            for(String input : arcs[0].trim().split(" ")) {
+                net.addArc(getPlace(net, places, input), transition);
+            }
+            for(String output : arcs[1].trim().split(" ")) {
+                net.addArc(transition, getPlace(net, places, output));
+            }
+        }
+
+        Marking initialMarking = new Marking();
+        initialMarking.add(places.get("i"));
+        Marking finalMarking = new Marking();
+        finalMarking.add(places.get("o"));
+        return AcceptingPetriNetFactory.createAcceptingPetriNet(net, initialMarking, finalMarking);
+    }
+
+    private static Place getPlace(Petrinet net, Map<String, Place> places, String label) {
+        Place place;
+        if((place = places.get(label)) == null) {
+            place = net.addPlace(label);
+            places.put(label, place);
+        }
+        return place;
+    }
+
+    private static RelaxedSoundnessChecker checker(String[] transitions, int maxStates, int threads) {
+        Map<String, Integer> places = new UnifiedMap<>();
+        places.put("i", 0);
+        places.put("o", 1);
+
+        int[][] consumed = new int[transitions.length][];
+        int[][] produced = new int[transitions.length][];
+        int[][] consumedWeights = new int[transitions.length][];
+        int[][] producedWeights = new int[transitions.length][];
+        for(int t = 0; t < transitions.length; t++) {
+            String[] arcs = transitions[t].split("->");
+            consumed[t] = getPlaces(places, arcs[0]);
+            produced[t] = getPlaces(places, arcs[1]);
+            consumedWeights[t] = ones(consumed[t].length);
+            producedWeights[t] = ones(produced[t].length);
+        }
+
+        int[] initialMarking = new int[places.size()];
+        initialMarking[0] = 1;
+        int[] finalMarking = new int[places.size()];
+        finalMarking[1] = 1;
+        return new RelaxedSoundnessChecker(places.size(), consumed, consumedWeights, produced, producedWeights,
+                initialMarking, new int[][] {finalMarking}, maxStates, threads);
+    }
+
+    private static int[] getPlaces(Map<String, Integer> places, String labels) {
+        IntArrayList indexes = new IntArrayList();
+        for(String label : labels.trim().split(" ")) {
+            Integer index;
+            if((index = places.get(label)) == null) {
+                index = places.size();
+                places.put(label, index);
+            }
+            indexes.add(index);
+        }
+        return indexes.toArray();
+    }
+
+    private static int[] ones(int length) {
+        int[] ones = new int[length];
+        for(int i = 0; i < length; i++) {
+            ones[i] = 1;
+        }
+        return ones;
+    }
+
+}
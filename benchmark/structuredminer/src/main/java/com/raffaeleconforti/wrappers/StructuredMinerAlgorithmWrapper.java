@@ -5,6 +5,7 @@ import com.raffaeleconforti.context.FakePluginContext;
 import com.raffaeleconforti.conversion.bpmn.BPMNToPetriNetConverter;
 import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.structuredminer.miner.StructuredMiner;
 import com.raffaeleconforti.structuredminer.ui.SettingsStructuredMiner;
 import com.raffaeleconforti.structuredminer.ui.SettingsStructuredMinerUI;
@@ -21,11 +22,6 @@ import org.processmining.models.graphbased.directed.petrinet.Petrinet;
 import org.processmining.models.semantics.petrinet.Marking;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by conforti on 20/02/15.
  */
@@ -55,38 +51,33 @@ public class StructuredMinerAlgorithmWrapper implements MiningAlgorithm {
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
-        SettingsStructuredMinerUI settingsStructuredMinerUI = new SettingsStructuredMinerUI();
-        SettingsStructuredMiner settings;
-        if(context instanceof FakePluginContext) {
-            settings = new SettingsStructuredMiner(SettingsStructuredMiner.HMPOS);
-        }else {
-            settings = settingsStructuredMinerUI.showGUI(context);
+        try (QuietScope ignored = QuietScope.mute()) {
+            SettingsStructuredMinerUI settingsStructuredMinerUI = new SettingsStructuredMinerUI();
+            SettingsStructuredMiner settings;
+            if(context instanceof FakePluginContext) {
+                settings = new SettingsStructuredMiner(SettingsStructuredMiner.HMPOS);
+            }else {
+                settings = settingsStructuredMinerUI.showGUI(context);
+            }
+            StructuredMiner miner = new StructuredMiner(context, log, settings);
+            BPMNDiagram diagram = miner.mine();
+            DiagramHandler handler = new DiagramHandler();
+            handler.collapseSplitGateways(diagram);
+            handler.collapseJoinGateways(diagram);
+
+            Object[] result = BPMNToPetriNetConverter.convert(diagram);
+
+            if(result[1] == null) result[1] = PetriNetToBPMNConverter.guessInitialMarking((Petrinet) result[0]);
+            if(result[2] == null) result[2] = PetriNetToBPMNConverter.guessFinalMarking((Petrinet) result[0]);
+
+            if(result[1] == null) result[1] = MarkingDiscoverer.constructInitialMarking(context, (Petrinet) result[0]);
+            else MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
+
+            if(result[2] == null) result[2] = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
+            else MarkingDiscoverer.createFinalMarkingConnection(context, (Petrinet) result[0], (Marking) result[2]);
+
+            return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
         }
-        StructuredMiner miner = new StructuredMiner(context, log, settings);
-        BPMNDiagram diagram = miner.mine();
-        DiagramHandler handler = new DiagramHandler();
-        handler.collapseSplitGateways(diagram);
-        handler.collapseJoinGateways(diagram);
-
-        Object[] result = BPMNToPetriNetConverter.convert(diagram);
-
-        if(result[1] == null) result[1] = PetriNetToBPMNConverter.guessInitialMarking((Petrinet) result[0]);
-        if(result[2] == null) result[2] = PetriNetToBPMNConverter.guessFinalMarking((Petrinet) result[0]);
-
-        if(result[1] == null) result[1] = MarkingDiscoverer.constructInitialMarking(context, (Petrinet) result[0]);
-        else MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
-
-        if(result[2] == null) result[2] = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
-        else MarkingDiscoverer.createFinalMarkingConnection(context, (Petrinet) result[0], (Marking) result[2]);
-
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-
-        return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
     }
 
     @Override
@@ -1,21 +1,25 @@
 package com.raffaeleconforti.wrappers;
 
+import com.raffaeleconforti.context.FakePluginContext;
+import com.raffaeleconforti.output.QuietScope;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
+import com.raffaeleconforti.wrappers.cancellation.MiningWatchdog;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.model.XLog;
 import org.processmining.contexts.uitopia.UIPluginContext;
 import org.processmining.models.graphbased.directed.bpmn.BPMNDiagram;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
+import java.util.concurrent.*;
 
 /**
  * Created by Raffaele Conforti (conforti.raffaele@gmail.com) on 9/11/16.
  */
 public class InterruptingMiningAlgorithm {
 
+    // Time a cancelled run is given to stop before the caller stops waiting for it
+    private static final long GRACE_PERIOD = 1000;
+
     private MiningAlgorithm miningAlgorithm;
     private long timeout;
 
@@ -24,60 +28,91 @@ public class InterruptingMiningAlgorithm {
         this.timeout = timeout;
     }
 
-    public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        final PetrinetWithMarking[] petrinetWithMarking = new PetrinetWithMarking[1];
+    public PetrinetWithMarking minePetrinet(final UIPluginContext context, final XLog log, final boolean structure, final MiningSettings params, final XEventClassifier xEventClassifier) {
+        return mine(context, params, new Mining<PetrinetWithMarking>() {
+            @Override
+            public PetrinetWithMarking mine(UIPluginContext runContext, MiningSettings settings) {
+                return miningAlgorithm.minePetrinet(runContext, log, structure, settings, xEventClassifier);
+            }
+        });
+    }
 
-        Runnable runnable = new Runnable() {
+    public BPMNDiagram mineBPMNDiagram(final UIPluginContext context, final XLog log, final boolean structure, final MiningSettings params, final XEventClassifier xEventClassifier) {
+        return mine(context, params, new Mining<BPMNDiagram>() {
             @Override
-            public void run() {
-                System.setOut(new PrintStream(new OutputStream() {
-                    @Override
-                    public void write(int b) {}
-                }));
+            public BPMNDiagram mine(UIPluginContext runContext, MiningSettings settings) {
+                return miningAlgorithm.mineBPMNDiagram(runContext, log, structure, settings, xEventClassifier);
+            }
+        });
+    }
 
-                try {
-                    petrinetWithMarking[0] = miningAlgorithm.minePetrinet(context, log, structure, null, xEventClassifier);
-                } catch (Exception e) {
+    private interface Mining<T> {
+        T mine(UIPluginContext runContext, MiningSettings settings);
+    }
 
-                }
+    /**
+     * Runs the mining on a thread of the watchdog with a token cancelled at the timeout, or when the token of the
+     * settings is, and returns null if the run fails, is cancelled or cannot be started.
+     */
+    private <T> T mine(UIPluginContext context, MiningSettings params, final Mining<T> mining) {
+        final CancellationToken token = CancellationToken.withTimeout(timeout, TimeUnit.MILLISECONDS);
+        token.listenTo(context.getProgress());
 
-                System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-            }
-        };
-        Thread t = new Thread(runnable);
-        t.start();
+        // The run gets a progress of its own, which can be cancelled without affecting the runs which follow
+        final UIPluginContext runContext;
+        if(context instanceof FakePluginContext) {
+            runContext = new FakePluginContext(context, getAlgorithmName());
+            token.propagateTo(runContext.getProgress());
+        }else {
+            runContext = context;
+        }
 
-        long time = 0;
-        boolean reached = false;
+        // The settings of the caller are forwarded, with the token of the run in place of theirs
+        final MiningSettings settings;
+        if(params != null) {
+            settings = new MiningSettings(params);
+            token.listenTo(params.getCancellationToken());
+        }else {
+            settings = new MiningSettings();
+        }
+        settings.setCancellationToken(token);
+
+        Future<T> future;
         try {
-            while(time < timeout && t.isAlive()) {
-                Thread.currentThread().sleep(100);
-                if(time % 300000 == 0) {
-                    System.out.println("DEBUG - sleeping: " + getAlgorithmName());
+            future = MiningWatchdog.getInstance().submit(token, new Callable<T>() {
+                @Override
+                public T call() {
+                    try (QuietScope ignored = QuietScope.mute()) {
+                        return mining.mine(runContext, settings);
+                    } catch (Exception e) {
+                        return null;
+                    }
                 }
-                time += 100;
-            }
-            if (t.isAlive()) {
-                t.interrupt();
-                reached = true;
-            }
-            Thread.currentThread().sleep(1000);
-            if (t.isAlive()) {
-                t.stop();
-            }
-        } catch (Exception e) {
+            });
+        } catch (RejectedExecutionException e) {
+            MiningWatchdog.getInstance().complete(token);
+            System.out.println("ERROR - " + getAlgorithmName() + " not run: " + e.getMessage());
+            return null;
+        }
+
+        T result = null;
+        try {
+            result = future.get(timeout + GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            token.cancel();
+            MiningWatchdog.getInstance().abandon(token);
+        } catch (InterruptedException e) {
+            token.cancel();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
 
         }
-        if(reached) {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+        if(token.isCancelled()) {
             System.out.println(getAlgorithmName() + " - Timeout Reached!");
+            return null;
         }
 
-        return petrinetWithMarking[0];
-    }
-
-    public BPMNDiagram mineBPMNDiagram(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        return miningAlgorithm.mineBPMNDiagram(context, log, structure, params, xEventClassifier);
+        return result;
     }
 
     public String getAlgorithmName() {
@@ -1,5 +1,6 @@
 package com.raffaeleconforti.wrappers;
 
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.extension.std.XLifecycleExtension;
@@ -39,6 +40,18 @@ public class LogPreprocessing {
     private final XLifecycleExtension xle = XLifecycleExtension.instance();
     private final String startLabel = "###$$$%%%$$$###START###$$$%%%$$$###";
     private final String endLabel = "###$$$%%%$$$###END###$$$%%%$$$###";
+    private final CancellationToken cancellationToken;
+
+    public LogPreprocessing() {
+        this(null);
+    }
+
+    /**
+     * @param cancellationToken checked on every trace edited, null to only follow the progress of the context.
+     */
+    public LogPreprocessing(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
 
     public XLog preprocessLog(UIPluginContext context, XLog log) {
         ArrayList<String> classifiers = new ArrayList<String>();
@@ -105,6 +118,10 @@ public class LogPreprocessing {
         }
     }
 
+    private CancellationToken getCancellationToken(UIPluginContext context) {
+        return cancellationToken != null ? cancellationToken : CancellationToken.of(context, null);
+    }
+
     private XEvent createStartEvent(ArrayList<String> classifiers) {
         XEvent start = factory.createEvent();
         for(String s : classifiers) {
@@ -130,11 +147,13 @@ public class LogPreprocessing {
     }
 
     private XLog addArtificialStartAndEndEvents(UIPluginContext context, XLog log) {
+        final CancellationToken token = getCancellationToken(context);
         try {
             log = LogFilter.filter(context.getProgress(), 100, log, XLogInfoFactory.createLogInfo(log),
                     new XTraceEditor() {
 
                         public XTrace editTrace(XTrace trace) {
+                            token.throwIfCancelled();
                             // Add the new final event
                             trace.add(0, start);
                             return trace;
@@ -145,6 +164,7 @@ public class LogPreprocessing {
                     new XTraceEditor() {
 
                         public XTrace editTrace(XTrace trace) {
+                            token.throwIfCancelled();
                             // Add the new final event
                             trace.add(end);
                             return trace;
@@ -158,11 +178,13 @@ public class LogPreprocessing {
     }
 
     private XLog addArtificialStartAndEndEvents(UIPluginContext context, XLog log, XEventClassifier xEventClassifier) {
+        final CancellationToken token = getCancellationToken(context);
         try {
             log = LogFilter.filter(context.getProgress(), 100, log, XLogInfoFactory.createLogInfo(log, xEventClassifier),
                     new XTraceEditor() {
 
                         public XTrace editTrace(XTrace trace) {
+                            token.throwIfCancelled();
                             // Add the new final event
                             trace.add(0, start);
                             return trace;
@@ -173,6 +195,7 @@ public class LogPreprocessing {
                     new XTraceEditor() {
 
                         public XTrace editTrace(XTrace trace) {
+                            token.throwIfCancelled();
                             // Add the new final event
                             trace.add(end);
                             return trace;
@@ -186,11 +209,13 @@ public class LogPreprocessing {
     }
 
     private XLog removeArtificialStartAndEndEvents(UIPluginContext context, XLog log) {
+        final CancellationToken token = getCancellationToken(context);
         try {
             log = LogFilter.filter(context.getProgress(), 100, log, XLogInfoFactory.createLogInfo(log),
                     new XTraceEditor() {
 
                         public XTrace editTrace(XTrace trace) {
+                            token.throwIfCancelled();
                             // Add the new final event
                             trace.remove(start);
                             return trace;
@@ -201,6 +226,7 @@ public class LogPreprocessing {
                     new XTraceEditor() {
 
                         public XTrace editTrace(XTrace trace) {
+                            token.throwIfCancelled();
                             // Add the new final event
                             trace.remove(end);
                             return trace;
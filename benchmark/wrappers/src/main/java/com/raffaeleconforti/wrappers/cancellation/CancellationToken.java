@@ -0,0 +1,209 @@
+package com.raffaeleconforti.wrappers.cancellation;
+
+import com.raffaeleconforti.wrappers.settings.MiningSettings;
+import org.processmining.contexts.uitopia.UIPluginContext;
+import org.processmining.framework.plugin.Progress;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation of a mining run, optionally with a deadline.
+ *
+ * The token is handed to the algorithms through {@link MiningSettings#setCancellationToken}, and checked by them
+ * with {@link #isCancelled()} or {@link #throwIfCancelled()} inside their loops. A token can listen to the progress
+ * of a plugin context, and is then cancelled when the progress is, e.g. from the ProM user interface, or to another
+ * token. It can also be
+ * propagated to the progress of a context created for the run, so that plugins which only poll their progress stop
+ * as well. A token with a deadline is cancelled by the {@link MiningWatchdog} once the deadline is reached, even if
+ * nobody checks it, and the threads running for it are then interrupted.
+ */
+public class CancellationToken {
+
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private volatile boolean cancelled = false;
+    private long cancelledAt;
+    private volatile boolean completed = false;
+
+    private final List<Progress> listenedProgresses = new CopyOnWriteArrayList<>();
+    private final List<CancellationToken> listenedTokens = new CopyOnWriteArrayList<>();
+    private final List<Progress> propagatedProgresses = new CopyOnWriteArrayList<>();
+    private final Set<Thread> threads = new CopyOnWriteArraySet<>();
+
+    volatile ScheduledFuture<?> deadlineTask;
+
+    /**
+     * A token without deadline, only cancelled explicitly.
+     */
+    public CancellationToken() {
+        this.deadline = 0;
+        this.hasDeadline = false;
+    }
+
+    private CancellationToken(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * @return a token cancelled by the shared watchdog after the given time.
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        CancellationToken token = new CancellationToken(System.nanoTime() + unit.toNanos(timeout));
+        MiningWatchdog.getInstance().watch(token);
+        return token;
+    }
+
+    /**
+     * @return the token of the settings, or a new token if there is none, listening to the progress of the context.
+     */
+    public static CancellationToken of(UIPluginContext context, MiningSettings params) {
+        CancellationToken token = params != null ? params.getCancellationToken() : null;
+        if (token == null) {
+            token = new CancellationToken();
+        }
+        if (context != null) {
+            token.listenTo(context.getProgress());
+        }
+        return token;
+    }
+
+    /**
+     * Cancels the token when the progress is cancelled.
+     */
+    public CancellationToken listenTo(Progress progress) {
+        if (progress != null && !listenedProgresses.contains(progress)) {
+            listenedProgresses.add(progress);
+        }
+        return this;
+    }
+
+    /**
+     * Cancels the token when the other token is cancelled, e.g. the token of the caller of a run given a deadline.
+     */
+    public CancellationToken listenTo(CancellationToken token) {
+        if (token != null && token != this && !listenedTokens.contains(token)) {
+            listenedTokens.add(token);
+        }
+        return this;
+    }
+
+    /**
+     * Cancels the progress when the token is cancelled; the progress must belong to this run only.
+     */
+    public CancellationToken propagateTo(Progress progress) {
+        if (progress != null && !propagatedProgresses.contains(progress)) {
+            propagatedProgresses.add(progress);
+            if (cancelled) {
+                progress.cancel();
+            }
+        }
+        return this;
+    }
+
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) return;
+            cancelledAt = System.nanoTime();
+            cancelled = true;
+        }
+        for (Progress progress : propagatedProgresses) {
+            if (!progress.isCancelled()) {
+                progress.cancel();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * @return true if the token has been cancelled; once its run is completed, the deadline and the progresses are
+     * no longer taken into account.
+     */
+    public boolean isCancelled() {
+        if (cancelled) return true;
+        if (completed) return false;
+
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            cancel();
+            return true;
+        }
+        for (Progress progress : listenedProgresses) {
+            if (progress.isCancelled()) {
+                cancel();
+                return true;
+            }
+        }
+        for (CancellationToken token : listenedTokens) {
+            if (token.isCancelled()) {
+                cancel();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new MiningCancelledException();
+        }
+    }
+
+    /**
+     * @return the time left before the deadline in the given unit, Long.MAX_VALUE without deadline.
+     */
+    public long getRemaining(TimeUnit unit) {
+        if (!hasDeadline) return Long.MAX_VALUE;
+        return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return the System.nanoTime() at which the token was cancelled; only meaningful once cancelled.
+     */
+    synchronized long getCancelledAt() {
+        return cancelledAt;
+    }
+
+    boolean isCancellationRequested() {
+        return cancelled;
+    }
+
+    /**
+     * @return true the first time only.
+     */
+    synchronized boolean markCompleted() {
+        if (completed) return false;
+        completed = true;
+        return true;
+    }
+
+    boolean isCompleted() {
+        return completed;
+    }
+
+    void attach(Thread thread) {
+        threads.add(thread);
+        if (cancelled) {
+            thread.interrupt();
+        }
+    }
+
+    void detach(Thread thread) {
+        threads.remove(thread);
+    }
+}
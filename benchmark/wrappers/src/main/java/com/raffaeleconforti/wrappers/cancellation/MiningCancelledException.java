@@ -0,0 +1,12 @@
+package com.raffaeleconforti.wrappers.cancellation;
+
+/**
+ * Thrown from within a mining run once its {@link CancellationToken} is cancelled. It is unchecked, so that it can
+ * leave the methods of {@link com.raffaeleconforti.wrappers.MiningAlgorithm} and the callbacks of the plugins they call.
+ */
+public class MiningCancelledException extends RuntimeException {
+
+    public MiningCancelledException() {
+        super("Mining cancelled");
+    }
+}
@@ -0,0 +1,168 @@
+package com.raffaeleconforti.wrappers.cancellation;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Shared watchdog of the mining runs: a single scheduler thread cancels the {@link CancellationToken}s whose deadline
+ * is reached, and a pool of daemon threads runs the tasks submitted with a token, interrupting them when the token is
+ * cancelled. No thread polls the runs.
+ *
+ * The pool is bounded: it has at most {@link #MAX_RUNS} threads, and the runs submitted while all of them are busy wait
+ * in a bounded queue. A run abandoned by the caller keeps its thread until it notices the cancellation, hence the
+ * watchdog refuses new runs while {@link #MAX_ABANDONED_RUNS} abandoned runs are still running, rather than letting
+ * them take the whole pool. A run whose token is cancelled before it starts is not started.
+ *
+ * The watchdog also keeps statistics of the time runs take to stop once their token is cancelled, and of the runs
+ * abandoned by the caller because they did not stop in time.
+ */
+public final class MiningWatchdog {
+
+    public static final int MAX_RUNS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    public static final int MAX_ABANDONED_RUNS = MAX_RUNS / 2;
+    private static final int MAX_QUEUED_RUNS = 64;
+
+    private static final MiningWatchdog instance = new MiningWatchdog();
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService workers;
+
+    private long cancelledRuns = 0;
+    private long abandonedRuns = 0;
+    private final Set<CancellationToken> abandonedRunning = new HashSet<>();
+    private long totalTimeToCancel = 0;
+    private long maxTimeToCancel = 0;
+
+    private MiningWatchdog() {
+        scheduler = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("mining-watchdog"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_RUNS, MAX_RUNS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_RUNS), daemonThreadFactory("mining-run"));
+        pool.allowCoreThreadTimeOut(true);
+        workers = pool;
+    }
+
+    public static MiningWatchdog getInstance() {
+        return instance;
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Schedules the cancellation of the token at its deadline.
+     */
+    void watch(final CancellationToken token) {
+        if (!token.hasDeadline()) return;
+
+        token.deadlineTask = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                token.cancel();
+            }
+        }, token.getDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs the task on a thread of the watchdog, which is interrupted if the token is cancelled. The run is
+     * completed when the task returns.
+     *
+     * @throws RejectedExecutionException if too many abandoned runs are still running, or too many runs are queued.
+     */
+    public <T> Future<T> submit(final CancellationToken token, final Callable<T> task) {
+        synchronized (this) {
+            if (abandonedRunning.size() >= MAX_ABANDONED_RUNS) {
+                throw new RejectedExecutionException(abandonedRunning.size() + " abandoned runs still running");
+            }
+        }
+        return workers.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Thread thread = Thread.currentThread();
+                token.attach(thread);
+                try {
+                    token.throwIfCancelled();
+                    return task.call();
+                } finally {
+                    token.detach(thread);
+                    complete(token);
+                }
+            }
+        });
+    }
+
+    /**
+     * Marks the end of the run of the token: its deadline is no longer watched and, if it was cancelled, the time
+     * the run took to stop is recorded.
+     */
+    public void complete(CancellationToken token) {
+        if (!token.markCompleted()) return;
+
+        ScheduledFuture<?> deadlineTask;
+        if ((deadlineTask = token.deadlineTask) != null) {
+            deadlineTask.cancel(false);
+        }
+        if (token.isCancellationRequested()) {
+            long timeToCancel = System.nanoTime() - token.getCancelledAt();
+            synchronized (this) {
+                abandonedRunning.remove(token);
+                cancelledRuns++;
+                totalTimeToCancel += timeToCancel;
+                maxTimeToCancel = Math.max(maxTimeToCancel, timeToCancel);
+            }
+        }
+    }
+
+    /**
+     * Records that the caller stopped waiting for a cancelled run, which keeps running until it notices.
+     */
+    public synchronized void abandon(CancellationToken token) {
+        abandonedRuns++;
+        if (!token.isCompleted()) {
+            abandonedRunning.add(token);
+        }
+    }
+
+    public synchronized long getCancelledRuns() {
+        return cancelledRuns;
+    }
+
+    public synchronized long getAbandonedRuns() {
+        return abandonedRuns;
+    }
+
+    /**
+     * @return the number of abandoned runs which have not stopped yet.
+     */
+    public synchronized int getAbandonedRunning() {
+        return abandonedRunning.size();
+    }
+
+    /**
+     * @return the mean time between the cancellation of a run and its end, over the cancelled runs which ended.
+     */
+    public synchronized long getMeanTimeToCancel(TimeUnit unit) {
+        return cancelledRuns == 0 ? 0 : unit.convert(totalTimeToCancel / cancelledRuns, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getMaxTimeToCancel(TimeUnit unit) {
+        return unit.convert(maxTimeToCancel, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "cancelled runs: " + cancelledRuns +
+                ", abandoned runs: " + abandonedRuns + " (" + abandonedRunning.size() + " still running)" +
+                ", mean time to cancel: " + getMeanTimeToCancel(TimeUnit.MILLISECONDS) + " ms" +
+                ", max time to cancel: " + getMaxTimeToCancel(TimeUnit.MILLISECONDS) + " ms";
+    }
+}
@@ -5,6 +5,9 @@ import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
+import com.raffaeleconforti.wrappers.impl.etm.CachedFitnessEvaluator;
+import com.raffaeleconforti.wrappers.impl.etm.ETMFitnessCache;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import nl.tue.astar.AStarThread.Canceller;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -32,16 +35,13 @@ import org.processmining.plugins.etm.mutation.mutators.maikelvaneck.MutateSingle
 import org.processmining.plugins.etm.mutation.mutators.maikelvaneck.ReplaceTreeBySequenceMutation;
 import org.processmining.plugins.etm.parameters.ETMParam;
 import org.processmining.plugins.etm.termination.ExternalTerminationCondition;
-import org.processmining.plugins.etm.termination.ProMCancelTerminationCondition;
 import org.processmining.processtree.ProcessTree;
 import org.processmining.processtree.conversion.ProcessTree2Petrinet;
 import org.uncommons.maths.random.Probability;
+import org.uncommonseditedbyjoosbuijs.watchmaker.framework.PopulationData;
 import org.uncommonseditedbyjoosbuijs.watchmaker.framework.TerminationCondition;
 import org.uncommonseditedbyjoosbuijs.watchmaker.framework.selection.SigmaScaling;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
 import java.util.*;
 
 /**
@@ -68,23 +68,47 @@ public class EvolutionaryTreeMinerWrapper implements MiningAlgorithm {
 
     @Override
     public ProcessTree mineProcessTree(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        final CancellationToken cancellationToken = CancellationToken.of(context, params);
+        LogPreprocessing logPreprocessing = new LogPreprocessing(cancellationToken);
         log = logPreprocessing.preprocessLog(context, log);
 
-//            System.setOut(new PrintStream(new OutputStream() {
-//                @Override
-//                public void write(int b) throws IOException {}
-//            }));
+        ProcessTree processTree = discoverProcessTree(context, log, xEventClassifier, cancellationToken);
+        logPreprocessing.removedAddedElements(processTree);
+
+        return processTree;
+    }
 
-        ProcessTree processTree;
-//            if(context instanceof FakePluginContext) {
-//                UIContext uiContext = new UIContext();
-//                PluginManagerImpl.initialize(UIPluginContext.class);
-//                uiContext.initialize();
-//                PluginContext pluginContext = uiContext.getMainPluginContext();
+    @Override
+    public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
+        try {
+            final CancellationToken cancellationToken = CancellationToken.of(context, params);
+            LogPreprocessing logPreprocessing = new LogPreprocessing(cancellationToken);
+            log = logPreprocessing.preprocessLog(context, log);
 
-        XEventClassifier classifier = xEventClassifier;
+            ProcessTree processTree = discoverProcessTree(context, log, xEventClassifier, cancellationToken);
 
+//            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+            ProcessTree2Petrinet.PetrinetWithMarkings petrinetWithMarkings = ProcessTree2Petrinet.convert(processTree, true);
+
+            logPreprocessing.removedAddedElements(petrinetWithMarkings.petrinet);
+
+            MarkingDiscoverer.createInitialMarkingConnection(context, petrinetWithMarkings.petrinet, petrinetWithMarkings.initialMarking);
+            MarkingDiscoverer.createFinalMarkingConnection(context, petrinetWithMarkings.petrinet, petrinetWithMarkings.finalMarking);
+            return new PetrinetWithMarking(petrinetWithMarkings.petrinet, petrinetWithMarkings.initialMarking, petrinetWithMarkings.finalMarking);
+        } catch (ProcessTree2Petrinet.InvalidProcessTreeException e) {
+            e.printStackTrace();
+        } catch (ProcessTree2Petrinet.NotYetImplementedException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Runs the ETM on the preprocessed log. Trees whose canonical form has already been evaluated on the same log, in
+     * this run or in an earlier one, are answered by the {@link ETMFitnessCache} instead of being replayed again.
+     */
+    private ProcessTree discoverProcessTree(UIPluginContext context, XLog log, XEventClassifier classifier, CancellationToken cancellationToken) {
         Random rng = new Random(123456);
         CentralRegistry registry = new CentralRegistry(context, log, classifier, rng);
 
@@ -100,7 +124,8 @@ public class EvolutionaryTreeMinerWrapper implements MiningAlgorithm {
         evolutionObservers.add(new EvolutionLogger(context,registry, false));
         iParams.setEvolutionObservers(evolutionObservers);
 
-        Canceller canceller = ProMCancelTerminationCondition.buildDummyCanceller();
+        iParams.addTerminationCondition(buildTerminationCondition(cancellationToken));
+        Canceller canceller = buildCanceller(cancellationToken);
 
         FitnessReplay fr = new FitnessReplay(registry, canceller, 1D, -1.0D);
         PrecisionEscEdges pe = new PrecisionEscEdges(registry);
@@ -115,7 +140,8 @@ public class EvolutionaryTreeMinerWrapper implements MiningAlgorithm {
 
         OverallFitness of = new OverallFitness(registry, weightedFitnessAlg);
         iParams.setMaxThreads(Runtime.getRuntime().availableProcessors());
-        iParams.setFitnessEvaluator(new MultiThreadedFitnessEvaluator(registry, of, iParams.getMaxThreads()));
+        MultiThreadedFitnessEvaluator evaluator = new MultiThreadedFitnessEvaluator(registry, of, iParams.getMaxThreads());
+        iParams.setFitnessEvaluator(new CachedFitnessEvaluator(registry, evaluator, of, cancellationToken));
 
         ArrayList evolutionaryOperators = new ArrayList();
         evolutionaryOperators.add(new TreeCrossover(1, new Probability(0.25D)));
@@ -148,6 +174,7 @@ public class EvolutionaryTreeMinerWrapper implements MiningAlgorithm {
 
         ETM etm = new ETM(iParams);
         etm.run();
+        cancellationToken.throwIfCancelled();
         List stopped = etm.getSatisfiedTerminationConditions();
         Iterator tree = stopped.iterator();
 
@@ -157,128 +184,36 @@ public class EvolutionaryTreeMinerWrapper implements MiningAlgorithm {
         }
 
         NAryTree tree1 = etm.getResult();
-        processTree = NAryTreeToProcessTree.convert(iParams.getCentralRegistry().getEventClasses(), tree1, "Process tree discovered by the ETM algorithm");
-
-        logPreprocessing.removedAddedElements(processTree);
-
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-
-        return processTree;
+        return NAryTreeToProcessTree.convert(iParams.getCentralRegistry().getEventClasses(), tree1, "Process tree discovered by the ETM algorithm");
     }
 
-    @Override
-    public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        try {
-            LogPreprocessing logPreprocessing = new LogPreprocessing();
-            log = logPreprocessing.preprocessLog(context, log);
-
-//            System.setOut(new PrintStream(new OutputStream() {
-//                @Override
-//                public void write(int b) throws IOException {}
-//            }));
-
-            ProcessTree processTree;
-//            if(context instanceof FakePluginContext) {
-//                UIContext uiContext = new UIContext();
-//                PluginManagerImpl.initialize(UIPluginContext.class);
-//                uiContext.initialize();
-//                PluginContext pluginContext = uiContext.getMainPluginContext();
-
-                XEventClassifier classifier = xEventClassifier;
-
-                Random rng = new Random(123456);
-                CentralRegistry registry = new CentralRegistry(context, log, classifier, rng);
-
-                ETMParam iParams = new ETMParam(registry, null, null, 20, 5);
-                iParams.addTerminationCondition(new ExternalTerminationCondition());
-
-//                params.setFactory(new SequenceFactory(registry));
-                Map<TreeFactoryAbstract, Double> otherFactories = new HashMap<TreeFactoryAbstract, Double>();
-                otherFactories.put(new IntelligentTreeFactory(registry), 0.05);
-                iParams.setFactory(new TreeFactoryCoordinator(registry, 0.95, otherFactories));
-
-                ArrayList evolutionObservers = new ArrayList();
-                evolutionObservers.add(new EvolutionLogger(context,registry, false));
-                iParams.setEvolutionObservers(evolutionObservers);
-
-                Canceller canceller = ProMCancelTerminationCondition.buildDummyCanceller();
-
-                FitnessReplay fr = new FitnessReplay(registry, canceller, 1D, -1.0D);
-                PrecisionEscEdges pe = new PrecisionEscEdges(registry);
-                Generalization ge = new Generalization(registry);
-                SimplicityUselessNodes su = new SimplicityUselessNodes();
-                LinkedHashMap weightedFitnessAlg = new LinkedHashMap();
-
-                weightedFitnessAlg.put(fr, Double.valueOf(10));
-                weightedFitnessAlg.put(pe, Double.valueOf(5));
-                weightedFitnessAlg.put(ge, Double.valueOf(1));
-                weightedFitnessAlg.put(su, Double.valueOf(1));
-
-                OverallFitness of = new OverallFitness(registry, weightedFitnessAlg);
-                iParams.setMaxThreads(Runtime.getRuntime().availableProcessors());
-                iParams.setFitnessEvaluator(new MultiThreadedFitnessEvaluator(registry, of, iParams.getMaxThreads()));
-
-                ArrayList evolutionaryOperators = new ArrayList();
-                evolutionaryOperators.add(new TreeCrossover(1, new Probability(0.25D)));
-
-                LinkedHashMap smartMutators = new LinkedHashMap();
-                smartMutators.put(new MutateSingleNodeGuided(registry), Double.valueOf(0.25D));
-                smartMutators.put(new InsertActivityGuided(registry), 1.);
-                smartMutators.put(new MutateLeafClassGuided(registry), 1.);
-                smartMutators.put(new MutateOperatorTypeGuided(registry), 1.);
-                smartMutators.put(new RemoveActivityGuided(registry), 1.);
-
-                LinkedHashMap dumbMutators = new LinkedHashMap();
-                dumbMutators.put(new ReplaceTreeBySequenceMutation(registry), Double.valueOf(0.25)); //random tree creation
-                dumbMutators.put(new AddNodeRandom(registry), Double.valueOf(1.0D)); //random node addition
-                dumbMutators.put(new RemoveSubtreeRandom(registry), Double.valueOf(1.0D)); //random node removal
-                dumbMutators.put(new MutateSingleNodeRandom(registry), Double.valueOf(1.0D)); //random node mutation
-                dumbMutators.put(new NormalizationMutation(registry), Double.valueOf(0.1D)); //normalization
-                dumbMutators.put(new RemoveUselessNode(registry), Double.valueOf(0.1D)); //useless node removal
-
-                TreeMutationCoordinator dumbCoordinator = new TreeMutationCoordinator(dumbMutators, false);
-                GuidedTreeMutationCoordinator smartCoordinator = new GuidedTreeMutationCoordinator(registry, 0.25D, true, smartMutators, dumbCoordinator);
-                evolutionaryOperators.add(smartCoordinator);
-                iParams.setEvolutionaryOperators(evolutionaryOperators);
-
-                iParams.setSelectionStrategy(new SigmaScaling());
-                iParams.addTerminationConditionMaxGen(1000);
-                iParams.addTerminationConditionTargetFitness(1, iParams.getFitnessEvaluator().isNatural());
-
-                iParams.addTerminationConditionMaxDuration(3600000); //1 hour
-
-                ETM etm = new ETM(iParams);
-                etm.run();
-                List stopped = etm.getSatisfiedTerminationConditions();
-                Iterator tree = stopped.iterator();
-
-                while(tree.hasNext()) {
-                    TerminationCondition cond = (TerminationCondition)tree.next();
-                    System.out.println(cond.toString());
-                }
-
-                NAryTree tree1 = etm.getResult();
-                processTree = NAryTreeToProcessTree.convert(iParams.getCentralRegistry().getEventClasses(), tree1, "Process tree discovered by the ETM algorithm");
-//            }else {;
-//                ETMPlugin etmPlugin = new ETMPlugin();
-//                processTree = etmPlugin.withoutSeed(context, log);
-//            }
-
-//            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-            ProcessTree2Petrinet.PetrinetWithMarkings petrinetWithMarkings = ProcessTree2Petrinet.convert(processTree, true);
-
-            logPreprocessing.removedAddedElements(petrinetWithMarkings.petrinet);
-
-            MarkingDiscoverer.createInitialMarkingConnection(context, petrinetWithMarkings.petrinet, petrinetWithMarkings.initialMarking);
-            MarkingDiscoverer.createFinalMarkingConnection(context, petrinetWithMarkings.petrinet, petrinetWithMarkings.finalMarking);
-            return new PetrinetWithMarking(petrinetWithMarkings.petrinet, petrinetWithMarkings.initialMarking, petrinetWithMarkings.finalMarking);
-        } catch (ProcessTree2Petrinet.InvalidProcessTreeException e) {
-            e.printStackTrace();
-        } catch (ProcessTree2Petrinet.NotYetImplementedException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Stops the evolution between two generations once the token is cancelled.
+     */
+    private TerminationCondition buildTerminationCondition(final CancellationToken cancellationToken) {
+        return new TerminationCondition() {
+            @Override
+            public boolean shouldTerminate(PopulationData<?> populationData) {
+                return cancellationToken.isCancelled();
+            }
+
+            @Override
+            public String toString() {
+                return "Mining cancelled";
+            }
+        };
+    }
 
-        return null;
+    /**
+     * Stops the alignments of the fitness replay once the token is cancelled.
+     */
+    private Canceller buildCanceller(final CancellationToken cancellationToken) {
+        return new Canceller() {
+            @Override
+            public boolean isCancelled() {
+                return cancellationToken.isCancelled();
+            }
+        };
     }
 
     @Override
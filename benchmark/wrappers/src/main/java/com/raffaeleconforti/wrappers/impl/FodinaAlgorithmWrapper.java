@@ -2,9 +2,11 @@ package com.raffaeleconforti.wrappers.impl;
 
 import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -23,11 +25,6 @@ import org.processmining.plugins.bpmnminer.types.MinerSettings;
 import org.processmining.plugins.bpmnminer.ui.FullParameterPanel;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by conforti on 20/02/15.
  */
@@ -59,49 +56,43 @@ public class FodinaAlgorithmWrapper implements MiningAlgorithm {
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
         log = logPreprocessing.preprocessLog(context, log);
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
-        if(minerSettings == null) {
-            minerSettings = new MinerSettings();
-            minerSettings.classifier = xEventClassifier;
-            double nom = (double) log.size() / ((double) log.size() + (double) minerSettings.dependencyDivisor);
-            if (nom <= 0.0D) {
-                nom = 0.0D;
-            }
-
-            if (nom >= 0.9D) {
-                nom = 0.9D;
+        try (QuietScope ignored = QuietScope.mute()) {
+            if(minerSettings == null) {
+                minerSettings = new MinerSettings();
+                minerSettings.classifier = xEventClassifier;
+                double nom = (double) log.size() / ((double) log.size() + (double) minerSettings.dependencyDivisor);
+                if (nom <= 0.0D) {
+                    nom = 0.0D;
+                }
+
+                if (nom >= 0.9D) {
+                    nom = 0.9D;
+                }
+
+                minerSettings.dependencyThreshold = nom;
+                minerSettings.l1lThreshold = nom;
+                minerSettings.l2lThreshold = nom;
+                FullParameterPanel parameters = new FullParameterPanel(minerSettings);
+                context.showConfiguration("Miner Parameters", parameters);
+                minerSettings = parameters.getSettings();
             }
+            Object[] bpmnResults = FodinaMinerPlugin.runMiner(context, log, minerSettings);
+            CausalNet net = (CausalNet) bpmnResults[0];
 
-            minerSettings.dependencyThreshold = nom;
-            minerSettings.l1lThreshold = nom;
-            minerSettings.l2lThreshold = nom;
-            FullParameterPanel parameters = new FullParameterPanel(minerSettings);
-            context.showConfiguration("Miner Parameters", parameters);
-            minerSettings = parameters.getSettings();
-        }
-        Object[] bpmnResults = FodinaMinerPlugin.runMiner(context, log, minerSettings);
-        CausalNet net = (CausalNet) bpmnResults[0];
-
-        Object[] result = CausalNetToPetrinet.convert(context, net);
-        logPreprocessing.removedAddedElements((Petrinet) result[0]);
-
-        boolean includeLifeCycle = true;
-        if(xEventClassifier instanceof XEventNameClassifier) includeLifeCycle = false;
-        if(!includeLifeCycle) logPreprocessing.removedLifecycleFromName((Petrinet) result[0]);
+            Object[] result = CausalNetToPetrinet.convert(context, net);
+            logPreprocessing.removedAddedElements((Petrinet) result[0]);
 
-        MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
+            boolean includeLifeCycle = true;
+            if(xEventClassifier instanceof XEventNameClassifier) includeLifeCycle = false;
+            if(!includeLifeCycle) logPreprocessing.removedLifecycleFromName((Petrinet) result[0]);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-
-        return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]));
+            MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
 
+            return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]));
+        }
     }
 
     @Override
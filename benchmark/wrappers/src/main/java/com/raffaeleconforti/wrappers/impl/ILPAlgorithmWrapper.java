@@ -7,6 +7,7 @@ import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.uitopia.api.event.TaskListener;
 import org.deckfour.xes.classification.XEventClassifier;
@@ -57,7 +58,7 @@ public class ILPAlgorithmWrapper implements MiningAlgorithm {
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
         log = logPreprocessing.preprocessLog(context, log);
 
         try {
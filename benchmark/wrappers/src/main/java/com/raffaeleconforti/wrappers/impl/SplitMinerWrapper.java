@@ -10,6 +10,7 @@ import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -26,9 +27,6 @@ import org.processmining.plugins.bpmn.plugins.BpmnExportPlugin;
 import org.processmining.processtree.ProcessTree;
 
 import java.io.File;
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
 
 /**
  * Created by Adriano on 17/01/2017.
@@ -61,6 +59,7 @@ public class SplitMinerWrapper implements MiningAlgorithm {
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
         BPMNDiagram diagram = this.mineBPMNDiagram(context, log, structure, params, xEventClassifier);
+        CancellationToken.of(context, params).throwIfCancelled();
 
         Object[] result = BPMNToPetriNetConverter.convert(diagram);
 
@@ -72,7 +71,6 @@ public class SplitMinerWrapper implements MiningAlgorithm {
 
         if(result[2] == null) result[2] = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
         else MarkingDiscoverer.createFinalMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
 
         return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
     }
@@ -96,6 +94,7 @@ public class SplitMinerWrapper implements MiningAlgorithm {
                 removeSelfLoops = (Boolean) params.getParam("removeSelfLoops");
         }
 
+        CancellationToken.of(context, params).throwIfCancelled();
         if(context instanceof FakePluginContext) {
             SplitMiner yam = new SplitMiner();
             output = yam.mineBPMNModel(log, xEventClassifier, eta, epsilon, DFGPUIResult.FilterType.WTH, percentileOnBest, replaceORs, removeSelfLoops, SplitMinerUIResult.StructuringTime.NONE);
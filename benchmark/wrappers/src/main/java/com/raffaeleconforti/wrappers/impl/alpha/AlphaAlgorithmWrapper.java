@@ -5,6 +5,7 @@ import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -53,7 +54,7 @@ public class AlphaAlgorithmWrapper implements MiningAlgorithm {
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
         try {
-            LogPreprocessing logPreprocessing = new LogPreprocessing();
+            LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
             log = logPreprocessing.preprocessLog(context, log);
 
             // The following gathers information required by the Alpha miner
@@ -5,9 +5,11 @@ import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.log.util.LogImporter;
 import com.raffaeleconforti.log.util.LogReaderClassic;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -60,33 +62,27 @@ public class AlphaDollarAlgorithmWrapper implements MiningAlgorithm {
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        CancellationToken cancellationToken = CancellationToken.of(context, params);
+        LogPreprocessing logPreprocessing = new LogPreprocessing(cancellationToken);
         log = logPreprocessing.preprocessLog(context, log);
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {
-            }
-        }));
-
         String logName = "tmpLog_ADollar_" +
                 new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) +
                 ".mxml.gz";
 
-        try {
-            LogImporter.exportToFile("", logName, log);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
         Petrinet petrinet;
-        try {
+        try (QuietScope ignored = QuietScope.mute()) {
+            try {
+                LogImporter.exportToFile("", logName, log);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
             LogFile lf = LogFile.getInstance(logName);
             PetriNet result = new AlphaMixMiner().mine((LogReaderClassic) LogReaderClassic.createInstance(null, lf));
-            petrinet = getPetrinet(result);
+            petrinet = getPetrinet(result, cancellationToken);
             logPreprocessing.removedAddedElements(petrinet);
         } finally {
-            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
             File lf = new File(logName);
             if (lf.exists() && !lf.delete()) {
                 System.out.println("Could not remove A$ log");
@@ -109,7 +105,7 @@ public class AlphaDollarAlgorithmWrapper implements MiningAlgorithm {
         return "Alpha Dollar";
     }
 
-    private Petrinet getPetrinet(PetriNet result) {
+    private Petrinet getPetrinet(PetriNet result, CancellationToken cancellationToken) {
         Petrinet petrinet = new PetrinetImpl("Alpha Dollar");
         Map<org.processmining.framework.models.petrinet.Transition, Transition> transitionUnifiedMap = new HashMap<>();
         Map<org.processmining.framework.models.petrinet.Place, Place> placeUnifiedMap = new HashMap<>();
@@ -126,6 +122,7 @@ public class AlphaDollarAlgorithmWrapper implements MiningAlgorithm {
         }
 
         for (org.processmining.framework.models.petrinet.Transition t : result.getTransitions()) {
+            cancellationToken.throwIfCancelled();
             for (org.processmining.framework.models.petrinet.Place p : result.getPlaces()) {
                 Transition transition = transitionUnifiedMap.get(t);
                 Place place = placeUnifiedMap.get(p);
@@ -0,0 +1,109 @@
+package com.raffaeleconforti.wrappers.impl.etm;
+
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
+import org.processmining.plugins.etm.CentralRegistry;
+import org.processmining.plugins.etm.fitness.TreeFitness;
+import org.processmining.plugins.etm.fitness.TreeFitnessAbstract;
+import org.processmining.plugins.etm.fitness.TreeFitnessInfo;
+import org.processmining.plugins.etm.fitness.metrics.FitnessReplay;
+import org.processmining.plugins.etm.fitness.metrics.OverallFitness;
+import org.processmining.plugins.etm.model.narytree.NAryTree;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluator of the Evolutionary Tree Miner answering from an {@link ETMFitnessCache} the trees whose canonical form
+ * has already been evaluated, in this run or in an earlier one.
+ *
+ * A cached tree gets the values of the dimensions of the overall fitness and the overall fitness itself in the
+ * registry, as if it had been evaluated. Other trees are evaluated by the wrapped evaluator, and their values are
+ * cached if the evaluation is reliable, complete and not interrupted by a cancellation.
+ *
+ * The guided mutators also read the behaviour counters of the trees, i.e. the moves of the alignments per node, which
+ * cannot be stored in the cache and only hold for the tree they were counted on. A cached tree therefore gets a
+ * {@link LazyBehaviorCounter}, which replays the tree with the {@link FitnessReplay} of the overall fitness only if
+ * its counters are read; the other dimensions, e.g. precision and generalization, are never recomputed.
+ */
+public class CachedFitnessEvaluator extends TreeFitnessAbstract {
+
+    private final CentralRegistry registry;
+    private final TreeFitnessAbstract evaluator;
+    private final TreeFitnessInfo[] dimensions;
+    private final TreeFitnessInfo overall;
+    private final ETMFitnessCache cache;
+    private final CancellationToken cancellationToken;
+    private final FitnessReplay fitnessReplay;
+
+    /**
+     * @param evaluator      the evaluator of the trees, e.g. a multi-threaded evaluator of the overall fitness.
+     * @param overallFitness the overall fitness computed by the evaluator, whose dimensions are cached.
+     */
+    public CachedFitnessEvaluator(CentralRegistry registry, TreeFitnessAbstract evaluator, OverallFitness overallFitness,
+                                  CancellationToken cancellationToken) {
+        this.registry = registry;
+        this.evaluator = evaluator;
+        this.cancellationToken = cancellationToken;
+
+        Map<TreeFitnessAbstract, Double> evaluators = overallFitness.getEvaluators();
+        this.dimensions = new TreeFitnessInfo[evaluators.size()];
+        StringBuilder configuration = new StringBuilder(overallFitness.getInfo().getCode())
+                .append(overallFitness.fitnessMultiplication ? "*" : "+");
+        FitnessReplay fitnessReplay = null;
+        int i = 0;
+        for (Map.Entry<TreeFitnessAbstract, Double> entry : evaluators.entrySet()) {
+            dimensions[i++] = entry.getKey().getInfo();
+            configuration.append(' ').append(entry.getKey().getInfo().getCode()).append('=').append(entry.getValue());
+            if (entry.getKey() instanceof FitnessReplay) {
+                fitnessReplay = (FitnessReplay) entry.getKey();
+            }
+        }
+        this.fitnessReplay = fitnessReplay;
+        this.overall = overallFitness.getInfo();
+        this.cache = ETMFitnessCache.getInstance(registry.getLog(), registry.getEventClasses().getClassifier(),
+                configuration.toString(), dimensions.length + 1);
+    }
+
+    @Override
+    public double getFitness(NAryTree candidate, List<? extends NAryTree> population) {
+        if (registry.isFitnessKnown(candidate) || candidate.getNumberOfConfigurations() > 0) {
+            return evaluator.getFitness(candidate, population);
+        }
+
+        ETMFitnessCache.Key key = ETMFitnessCache.getKey(CanonicalTree.toCanonicalString(candidate, registry));
+        double[] values;
+        if ((values = cache.get(key)) != null) {
+            TreeFitness fitness = registry.getFitness(candidate);
+            if (fitnessReplay != null) {
+                fitness.behaviorCounter = new LazyBehaviorCounter(registry, fitnessReplay, candidate);
+            }
+            for (int i = 0; i < dimensions.length; i++) {
+                fitness.fitnessValues.put(dimensions[i], values[i]);
+            }
+            fitness.setOverallFitness(overall, values[dimensions.length]);
+            fitness.setInGeneration(registry.getCurrentGeneration());
+            return values[dimensions.length];
+        }
+
+        double value = evaluator.getFitness(candidate, population);
+        if (!cancellationToken.isCancelled()) {
+            TreeFitness fitness = registry.getFitness(candidate);
+            if (fitness.isReliable() && !Double.isNaN(value) && value != TreeFitness.NOVALUE) {
+                values = new double[dimensions.length + 1];
+                for (int i = 0; i < dimensions.length; i++) {
+                    // Dimensions are missing when the evaluation stopped early on an unreliable replay
+                    if (!fitness.fitnessValues.containsKey(dimensions[i])) return value;
+                    values[i] = fitness.fitnessValues.get(dimensions[i]);
+                }
+                values[dimensions.length] = value;
+                cache.put(key, values);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public TreeFitnessInfo getInfo() {
+        return evaluator.getInfo();
+    }
+}
@@ -0,0 +1,82 @@
+package com.raffaeleconforti.wrappers.impl.etm;
+
+import org.processmining.plugins.etm.CentralRegistry;
+import org.processmining.plugins.etm.model.narytree.NAryTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Canonical form of a process tree of the Evolutionary Tree Miner, identical for the trees which only differ in the
+ * order of the children of commutative operators.
+ *
+ * The children of the exclusive choice, parallel, inclusive choice and interleaving operators are sorted, and a
+ * reversed sequence is written as the sequence of its children in reverse order. Sequences and loops keep the order
+ * of their children, and nested operators of the same type are not merged, as the simplicity of the tree depends on
+ * them. Activities are written with the identity of their event class rather than with their index in the registry.
+ */
+public final class CanonicalTree {
+
+    private CanonicalTree() {
+    }
+
+    public static String toCanonicalString(NAryTree tree, CentralRegistry registry) {
+        return encode(tree, 0, registry);
+    }
+
+    private static String encode(NAryTree tree, int node, CentralRegistry registry) {
+        short type = tree.getType(node);
+        if (tree.isLeaf(node)) {
+            if (type == NAryTree.TAU) return "t";
+            String name = registry.getEventClassByID(type).getId();
+            // The length keeps names containing separators unambiguous
+            return "e" + name.length() + ":" + name;
+        }
+
+        int size = tree.nChildren(node);
+        List<String> children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            children.add(encode(tree, tree.getChildAtIndex(node, i), registry));
+        }
+
+        String operator;
+        switch (type) {
+            case NAryTree.XOR:
+                operator = "x";
+                Collections.sort(children);
+                break;
+            case NAryTree.AND:
+                operator = "a";
+                Collections.sort(children);
+                break;
+            case NAryTree.OR:
+                operator = "o";
+                Collections.sort(children);
+                break;
+            case NAryTree.ILV:
+                operator = "i";
+                Collections.sort(children);
+                break;
+            case NAryTree.REVSEQ:
+                operator = "s";
+                Collections.reverse(children);
+                break;
+            case NAryTree.SEQ:
+                operator = "s";
+                break;
+            case NAryTree.LOOP:
+                operator = "l";
+                break;
+            default:
+                operator = "n" + type;
+        }
+
+        StringBuilder sb = new StringBuilder(operator).append('(');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(children.get(i));
+        }
+        return sb.append(')').toString();
+    }
+}
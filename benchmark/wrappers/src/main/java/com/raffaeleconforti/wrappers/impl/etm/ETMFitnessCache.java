@@ -0,0 +1,305 @@
+package com.raffaeleconforti.wrappers.impl.etm;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Quality dimensions of the process trees evaluated by the Evolutionary Tree Miner on one log, keyed by a hash of the
+ * canonical form of the trees (see {@link CanonicalTree}).
+ *
+ * There is one cache per fingerprint of the log, which covers the traces as seen through the classifier and the
+ * configuration of the evaluators, shared by the runs of the JVM; the JVM keeps the {@value #MAX_CACHES} caches used
+ * last. Each cache is backed by an append-only file in the directory given by the system property
+ * {@value #CACHE_DIRECTORY_PROPERTY}, by default in the temporary directory, so that later runs on the same log start
+ * with the trees already evaluated. The file may be shared by several processes: each record is appended under an
+ * exclusive lock of the file and has a checksum, and the records which fail it are skipped when loading. A file which
+ * cannot be read or written is ignored and the cache is then kept in memory only.
+ */
+public class ETMFitnessCache {
+
+    public static final String CACHE_DIRECTORY_PROPERTY = "etm.fitness.cache";
+
+    private static final int MAGIC = 0x45544d43;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_CACHES = 8;
+
+    private static final Map<String, ETMFitnessCache> caches = new LinkedHashMap<String, ETMFitnessCache>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ETMFitnessCache> eldest) {
+            return size() > MAX_CACHES;
+        }
+    };
+
+    // Caches of the same file may coexist in the JVM once evicted, and the file locks are held by the whole JVM
+    private static final Object fileLock = new Object();
+
+    private final int dimensions;
+    private final int recordSize;
+    private final Map<Key, double[]> values = new ConcurrentHashMap<>();
+    private File file;
+
+    private ETMFitnessCache(File file, int dimensions) {
+        this.dimensions = dimensions;
+        this.recordSize = 16 + 8 * dimensions + 4;
+        if (file != null) {
+            this.file = file;
+            load();
+        }
+    }
+
+    /**
+     * @param configuration the evaluators and their weights, which the values depend on as well as the log.
+     * @param dimensions    the number of values stored for each tree.
+     */
+    public static ETMFitnessCache getInstance(XLog log, XEventClassifier classifier, String configuration, int dimensions) {
+        String fingerprint = fingerprint(log, classifier, configuration, dimensions);
+        synchronized (caches) {
+            ETMFitnessCache cache;
+            if ((cache = caches.get(fingerprint)) == null) {
+                cache = new ETMFitnessCache(getFile(fingerprint), dimensions);
+                caches.put(fingerprint, cache);
+            }
+            return cache;
+        }
+    }
+
+    private static File getFile(String fingerprint) {
+        File directory = new File(System.getProperty(CACHE_DIRECTORY_PROPERTY, new File(System.getProperty("java.io.tmpdir"), "etm-fitness-cache").getPath()));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("WARNING - cannot create the ETM fitness cache directory " + directory);
+            return null;
+        }
+        return new File(directory, fingerprint + "-" + VERSION + ".cache");
+    }
+
+    /**
+     * @return a hash of the sequences of event classes of the traces, of the configuration and of the dimensions.
+     */
+    static String fingerprint(XLog log, XEventClassifier classifier, String configuration, int dimensions) {
+        MessageDigest digest = newDigest();
+        update(digest, classifier.name());
+        update(digest, configuration);
+        update(digest, Integer.toString(dimensions));
+        for (XTrace trace : log) {
+            update(digest, Integer.toString(trace.size()));
+            for (XEvent event : trace) {
+                update(digest, classifier.getClassIdentity(event));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the 128 bits hash of the canonical form of a tree.
+     */
+    public static Key getKey(String canonicalTree) {
+        byte[] hash = newDigest().digest(canonicalTree.getBytes(StandardCharsets.UTF_8));
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (hash[i] & 0xff);
+            low = (low << 8) | (hash[i + 8] & 0xff);
+        }
+        return new Key(high, low);
+    }
+
+    /**
+     * @return the values of the tree, null if unknown; the array must not be modified.
+     */
+    public double[] get(Key key) {
+        return values.get(key);
+    }
+
+    public void put(Key key, double[] treeValues) {
+        if (treeValues.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " values, found " + treeValues.length);
+        }
+        if (values.putIfAbsent(key, treeValues.clone()) == null) {
+            write(key, treeValues);
+        }
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Reads the records of the file, creating it if needed, and drops an incomplete record at its end, left by an
+     * interrupted run.
+     */
+    private void load() {
+        synchronized (fileLock) {
+            try (RandomAccessFile access = new RandomAccessFile(file, "rw");
+                 FileLock ignored = access.getChannel().lock()) {
+                FileChannel channel = access.getChannel();
+                if (!checkHeader(channel)) {
+                    System.out.println("WARNING - ignoring the incompatible ETM fitness cache " + file);
+                    file = null;
+                    return;
+                }
+
+                long records = (channel.size() - HEADER_SIZE) / recordSize;
+                ByteBuffer buffer = ByteBuffer.allocate(recordSize * 1024);
+                channel.position(HEADER_SIZE);
+                long skipped = 0;
+                for (long read = 0; read < records; ) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), (records - read) * recordSize));
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+                    buffer.flip();
+                    if (buffer.remaining() < recordSize) break;
+                    while (buffer.remaining() >= recordSize) {
+                        if (!readRecord(buffer)) skipped++;
+                        read++;
+                    }
+                }
+                if (skipped > 0) {
+                    System.out.println("WARNING - skipped " + skipped + " corrupted records of the ETM fitness cache " + file);
+                }
+                channel.truncate(HEADER_SIZE + records * recordSize);
+            } catch (IOException e) {
+                System.out.println("WARNING - cannot read the ETM fitness cache " + file + ": " + e.getMessage());
+                file = null;
+            }
+        }
+    }
+
+    /**
+     * Writes the header of an empty file.
+     *
+     * @return false if the file has the header of another version or number of dimensions.
+     */
+    private boolean checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE) {
+            header.putInt(MAGIC).putInt(VERSION).putInt(dimensions).flip();
+            channel.truncate(0);
+            channel.position(0);
+            while (header.hasRemaining()) channel.write(header);
+            return true;
+        }
+        channel.position(0);
+        while (header.hasRemaining() && channel.read(header) >= 0) ;
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == dimensions;
+    }
+
+    /**
+     * @return false if the checksum of the record does not match.
+     */
+    private boolean readRecord(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        int start = buffer.position();
+        for (int i = start; i < start + recordSize - 4; i++) {
+            crc.update(buffer.get(i));
+        }
+        Key key = new Key(buffer.getLong(), buffer.getLong());
+        double[] treeValues = new double[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            treeValues[i] = buffer.getDouble();
+        }
+        if (buffer.getInt() != (int) crc.getValue()) return false;
+        values.put(key, treeValues);
+        return true;
+    }
+
+    /**
+     * Appends the record under an exclusive lock of the file, after dropping an incomplete record at its end.
+     */
+    private void write(Key key, double[] treeValues) {
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.putLong(key.high).putLong(key.low);
+        for (double value : treeValues) {
+            buffer.putDouble(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, recordSize - 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        synchronized (fileLock) {
+            if (file == null) return;
+            try (RandomAccessFile access = new RandomAccessFile(file, "rw");
+                 FileLock ignored = access.getChannel().lock()) {
+                FileChannel channel = access.getChannel();
+                long size = channel.size();
+                long end = size < HEADER_SIZE ? size : HEADER_SIZE + (size - HEADER_SIZE) / recordSize * recordSize;
+                if (end < HEADER_SIZE) {
+                    // Removed or emptied by another process
+                    checkHeader(channel);
+                    end = HEADER_SIZE;
+                } else if (end < size) {
+                    channel.truncate(end);
+                }
+                channel.position(end);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            } catch (IOException e) {
+                System.out.println("WARNING - cannot write the ETM fitness cache " + file + ": " + e.getMessage());
+                file = null;
+            }
+        }
+    }
+
+    public static final class Key {
+
+        private final long high;
+        private final long low;
+
+        private Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return high == key.high && low == key.low;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.raffaeleconforti.wrappers.impl.etm;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.set.TIntSet;
+import nl.tue.astar.Trace;
+import org.processmining.plugins.boudewijn.treebasedreplay.astar.ModelPrefix;
+import org.processmining.plugins.boudewijn.treebasedreplay.astar.TreeMarkingVisit;
+import org.processmining.plugins.etm.CentralRegistry;
+import org.processmining.plugins.etm.fitness.BehaviorCounter;
+import org.processmining.plugins.etm.fitness.TreeFitness;
+import org.processmining.plugins.etm.fitness.metrics.FitnessReplay;
+import org.processmining.plugins.etm.model.narytree.NAryTree;
+import org.processmining.plugins.etm.model.narytree.replayer.TreeRecord;
+
+import java.util.Map;
+
+/**
+ * Behaviour counter of a tree answered from the {@link ETMFitnessCache}, which replays the tree on the log the first
+ * time its counters are read, e.g. by a guided mutator.
+ *
+ * The replay is the one of the {@link FitnessReplay} of the overall fitness, which fills the counter registered for
+ * the tree; only the counters are kept, the fitness values are the cached ones. A replay which is not reliable, e.g.
+ * because the run is cancelled, leaves the counters empty but the tree reliable, as its values are.
+ */
+class LazyBehaviorCounter extends BehaviorCounter {
+
+    private final CentralRegistry registry;
+    private final FitnessReplay fitnessReplay;
+    private final NAryTree tree;
+    private boolean replayed = false;
+
+    LazyBehaviorCounter(CentralRegistry registry, FitnessReplay fitnessReplay, NAryTree tree) {
+        super(tree.size());
+        this.registry = registry;
+        this.fitnessReplay = fitnessReplay;
+        this.tree = tree;
+    }
+
+    private synchronized void replay() {
+        if (replayed) return;
+        // Set first, the replay reads the maps of this counter while filling it
+        replayed = true;
+        TreeFitness fitness = registry.getFitness(tree);
+        boolean reliable = fitness.isReliable();
+        fitness.behaviorCounter = this;
+        new FitnessReplay(fitnessReplay).getFitness(tree, null);
+        // An unreliable replay resets the counter and marks the tree, whose cached values are still reliable
+        fitness.behaviorCounter = this;
+        fitness.setReliable(reliable);
+    }
+
+    @Override
+    public String toString() {
+        replay();
+        return super.toString();
+    }
+
+    @Override
+    public boolean isSet() {
+        replay();
+        return super.isSet();
+    }
+
+    @Override
+    public int[] getSyncMoveCount() {
+        replay();
+        return super.getSyncMoveCount();
+    }
+
+    @Override
+    public int[] getASyncMoveCount() {
+        replay();
+        return super.getASyncMoveCount();
+    }
+
+    @Override
+    public int[] getMoveCount() {
+        replay();
+        return super.getMoveCount();
+    }
+
+    @Override
+    public synchronized Map<TreeMarkingVisit<ModelPrefix>, TIntSet> getMarking2ModelMove() {
+        replay();
+        return super.getMarking2ModelMove();
+    }
+
+    @Override
+    public synchronized TObjectIntMap<TreeMarkingVisit<ModelPrefix>> getMarking2VisitCount() {
+        replay();
+        return super.getMarking2VisitCount();
+    }
+
+    @Override
+    public Map<Trace, TreeRecord> getAlignments() {
+        replay();
+        return super.getAlignments();
+    }
+
+    @Override
+    public TreeRecord getAlignment(Trace trace) {
+        replay();
+        return super.getAlignment(trace);
+    }
+
+    @Override
+    public boolean isAlignmentSet() {
+        replay();
+        return super.isAlignmentSet();
+    }
+
+    @Override
+    public int getMinModelCost() {
+        replay();
+        return super.getMinModelCost();
+    }
+}
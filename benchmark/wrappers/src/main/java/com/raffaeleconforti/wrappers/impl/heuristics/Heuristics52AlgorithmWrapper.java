@@ -7,9 +7,11 @@ import com.raffaeleconforti.heuristicsminer.HeuristicsMiner;
 import com.raffaeleconforti.log.util.LogImporter;
 import com.raffaeleconforti.log.util.LogReaderClassic;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -27,11 +29,6 @@ import org.processmining.models.graphbased.directed.petrinet.Petrinet;
 import org.processmining.models.semantics.petrinet.Marking;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by conforti on 20/02/15.
  */
@@ -61,50 +58,45 @@ public class Heuristics52AlgorithmWrapper implements MiningAlgorithm {
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
         log = logPreprocessing.preprocessLog(context, log);
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
-        HeuristicsMiner miner = new HeuristicsMiner();
+        try (QuietScope ignored = QuietScope.mute()) {
+            HeuristicsMiner miner = new HeuristicsMiner();
 
-        try {
-            LogImporter.exportToFile("", "tmpLog.mxml.gz", log);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            try {
+                LogImporter.exportToFile("", "tmpLog.mxml.gz", log);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
 
-        LogFile lf = LogFile.getInstance("tmpLog.mxml.gz");
+            LogFile lf = LogFile.getInstance("tmpLog.mxml.gz");
 
-        HeuristicsNetResult hNet = null;
-        try {
-            hNet = (HeuristicsNetResult) miner.mine(LogReaderClassic.createInstance(null, lf), false);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        BPMNDiagram diagram = HNNetToBPMNConverter.convert(hNet.getHeuriticsNet());
-        for(Activity activity : diagram.getActivities()) {
-            if(activity.getLabel().contains("+unknown:")) {
-                activity.getAttributeMap().put(AttributeMap.LABEL, activity.getLabel().replace("+unknown:", "+"));
+            HeuristicsNetResult hNet = null;
+            try {
+                hNet = (HeuristicsNetResult) miner.mine(LogReaderClassic.createInstance(null, lf), false);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-        }
 
-        Object[] result = BPMNToPetriNetConverter.convert(diagram);
-        logPreprocessing.removedAddedElements((Petrinet) result[0]);
+            BPMNDiagram diagram = HNNetToBPMNConverter.convert(hNet.getHeuriticsNet());
+            for(Activity activity : diagram.getActivities()) {
+                if(activity.getLabel().contains("+unknown:")) {
+                    activity.getAttributeMap().put(AttributeMap.LABEL, activity.getLabel().replace("+unknown:", "+"));
+                }
+            }
 
-        if(result[1] == null) result[1] = MarkingDiscoverer.constructInitialMarking(context, (Petrinet) result[0]);
-        else MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
+            Object[] result = BPMNToPetriNetConverter.convert(diagram);
+            logPreprocessing.removedAddedElements((Petrinet) result[0]);
 
-        if(result[2] == null) result[2] = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
-        else MarkingDiscoverer.createFinalMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
+            if(result[1] == null) result[1] = MarkingDiscoverer.constructInitialMarking(context, (Petrinet) result[0]);
+            else MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+            if(result[2] == null) result[2] = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
+            else MarkingDiscoverer.createFinalMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
 
-        return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
+            return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking) result[2]);
+        }
     }
 
     @Override
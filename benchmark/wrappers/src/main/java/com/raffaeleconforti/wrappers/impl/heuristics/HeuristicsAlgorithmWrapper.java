@@ -3,9 +3,11 @@ package com.raffaeleconforti.wrappers.impl.heuristics;
 import com.raffaeleconforti.context.FakePluginContext;
 import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
 import com.raffaeleconforti.marking.MarkingDiscoverer;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -24,10 +26,6 @@ import org.processmining.plugins.heuristicsnet.miner.heuristics.miner.gui.Parame
 import org.processmining.plugins.heuristicsnet.miner.heuristics.miner.settings.HeuristicsMinerSettings;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -63,68 +61,63 @@ public class HeuristicsAlgorithmWrapper implements MiningAlgorithm {
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
         log = logPreprocessing.preprocessLog(context, log);
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
-
-        if(context instanceof FakePluginContext) {
-            Collection<XEventClassifier> classifiers = new HashSet();
-            classifiers.add(xEventClassifier);
-            ParametersPanel parameters = new ParametersPanel(classifiers);
-            settings = parameters.getSettings();
-        }else {
-            Collection<XEventClassifier> classifiers = new HashSet();
-            classifiers.add(xEventClassifier);
-            ParametersPanel parameters = new ParametersPanel(classifiers);
-            parameters.removeAndThreshold();
-
-            context.showConfiguration("Heuristics Miner Parameters", parameters);
-            settings = parameters.getSettings();
-        }
+        try (QuietScope ignored = QuietScope.mute()) {
+            if(context instanceof FakePluginContext) {
+                Collection<XEventClassifier> classifiers = new HashSet();
+                classifiers.add(xEventClassifier);
+                ParametersPanel parameters = new ParametersPanel(classifiers);
+                settings = parameters.getSettings();
+            }else {
+                Collection<XEventClassifier> classifiers = new HashSet();
+                classifiers.add(xEventClassifier);
+                ParametersPanel parameters = new ParametersPanel(classifiers);
+                parameters.removeAndThreshold();
 
-        if( params != null ) {
-            if( params.containsParam("dependencyThresholdHM6") && params.getParam("dependencyThresholdHM6") instanceof Double )
-            settings.setDependencyThreshold((Double) params.getParam("dependencyThresholdHM6"));
+                context.showConfiguration("Heuristics Miner Parameters", parameters);
+                settings = parameters.getSettings();
+            }
 
-            if( params.containsParam("L1lThresholdHM6") && params.getParam("L1lThresholdHM6") instanceof Double )
-            settings.setL1lThreshold((Double) params.getParam("L1lThresholdHM6"));
+            if( params != null ) {
+                if( params.containsParam("dependencyThresholdHM6") && params.getParam("dependencyThresholdHM6") instanceof Double )
+                settings.setDependencyThreshold((Double) params.getParam("dependencyThresholdHM6"));
 
-            if( params.containsParam("L2lThresholdHM6") && params.getParam("L2lThresholdHM6") instanceof Double )
-            settings.setL2lThreshold((Double) params.getParam("L2lThresholdHM6"));
+                if( params.containsParam("L1lThresholdHM6") && params.getParam("L1lThresholdHM6") instanceof Double )
+                settings.setL1lThreshold((Double) params.getParam("L1lThresholdHM6"));
 
-            if( params.containsParam("longDepThresholdHM6") && params.getParam("longDepThresholdHM6") instanceof Double )
-            settings.setLongDistanceThreshold((Double) params.getParam("longDepThresholdHM6"));
+                if( params.containsParam("L2lThresholdHM6") && params.getParam("L2lThresholdHM6") instanceof Double )
+                settings.setL2lThreshold((Double) params.getParam("L2lThresholdHM6"));
 
-            if( params.containsParam("relativeToBestThresholdHM6") && params.getParam("relativeToBestThresholdHM6") instanceof Double )
-            settings.setRelativeToBestThreshold((Double) params.getParam("relativeToBestThresholdHM6"));
+                if( params.containsParam("longDepThresholdHM6") && params.getParam("longDepThresholdHM6") instanceof Double )
+                settings.setLongDistanceThreshold((Double) params.getParam("longDepThresholdHM6"));
 
-            if( params.containsParam("allConnectedHM6") && params.getParam("allConnectedHM6") instanceof Boolean )
-            settings.setUseAllConnectedHeuristics((Boolean) params.getParam("allConnectedHM6"));
+                if( params.containsParam("relativeToBestThresholdHM6") && params.getParam("relativeToBestThresholdHM6") instanceof Double )
+                settings.setRelativeToBestThreshold((Double) params.getParam("relativeToBestThresholdHM6"));
 
-            if( params.containsParam("longDependencyHM6") && params.getParam("longDependencyHM6") instanceof Boolean )
-            settings.setUseLongDistanceDependency((Boolean) params.getParam("longDependencyHM6"));
-        }
+                if( params.containsParam("allConnectedHM6") && params.getParam("allConnectedHM6") instanceof Boolean )
+                settings.setUseAllConnectedHeuristics((Boolean) params.getParam("allConnectedHM6"));
 
-        HeuristicsNet heuristicsNet = FlexibleHeuristicsMinerPlugin.run(context, log, settings);
-        Object[] result = HeuristicsNetToPetriNetConverter.converter(context, heuristicsNet);
-        logPreprocessing.removedAddedElements((Petrinet) result[0]);
+                if( params.containsParam("longDependencyHM6") && params.getParam("longDependencyHM6") instanceof Boolean )
+                settings.setUseLongDistanceDependency((Boolean) params.getParam("longDependencyHM6"));
+            }
 
-        if(result[1] == null) result[1] = MarkingDiscoverer.constructInitialMarking(context, (Petrinet) result[0]);
-        else MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
+            HeuristicsNet heuristicsNet = FlexibleHeuristicsMinerPlugin.run(context, log, settings);
+            Object[] result = HeuristicsNetToPetriNetConverter.converter(context, heuristicsNet);
+            logPreprocessing.removedAddedElements((Petrinet) result[0]);
 
-        Marking finalMarking = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
-        Set<Marking> finalMarkings = MarkingDiscoverer.constructFinalMarkings(context, (Petrinet) result[0]);
+            if(result[1] == null) result[1] = MarkingDiscoverer.constructInitialMarking(context, (Petrinet) result[0]);
+            else MarkingDiscoverer.createInitialMarkingConnection(context, (Petrinet) result[0], (Marking) result[1]);
 
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+            Marking finalMarking = MarkingDiscoverer.constructFinalMarking(context, (Petrinet) result[0]);
+            Set<Marking> finalMarkings = MarkingDiscoverer.constructFinalMarkings(context, (Petrinet) result[0]);
 
-        if(finalMarkings.size() > 1) {
-            return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], finalMarkings);
-        }else {
-            return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], finalMarking);
+            if(finalMarkings.size() > 1) {
+                return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], finalMarkings);
+            }else {
+                return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], finalMarking);
+            }
         }
     }
 
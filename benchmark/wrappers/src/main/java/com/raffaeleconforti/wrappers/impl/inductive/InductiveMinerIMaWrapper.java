@@ -1,9 +1,11 @@
 package com.raffaeleconforti.wrappers.impl.inductive;
 
 import com.raffaeleconforti.conversion.petrinet.PetriNetToBPMNConverter;
+import com.raffaeleconforti.output.QuietScope;
 import com.raffaeleconforti.wrappers.LogPreprocessing;
 import com.raffaeleconforti.wrappers.MiningAlgorithm;
 import com.raffaeleconforti.wrappers.PetrinetWithMarking;
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
 import com.raffaeleconforti.wrappers.settings.MiningSettings;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
@@ -21,11 +23,6 @@ import org.processmining.plugins.InductiveMiner.plugins.IMPetriNet;
 import org.processmining.plugins.InductiveMiner.plugins.IMProcessTree;
 import org.processmining.processtree.ProcessTree;
 
-import java.io.FileDescriptor;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
-
 /**
  * Created by conforti on 20/02/15.
  */
@@ -52,48 +49,38 @@ public class InductiveMinerIMaWrapper implements MiningAlgorithm {
 
     @Override
     public ProcessTree mineProcessTree(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
         log = logPreprocessing.preprocessLog(context, log);
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
+        try (QuietScope ignored = QuietScope.mute()) {
+            IMProcessTree miner = new IMProcessTree();
+            if(miningParameters == null) {
+                miningParameters = new MiningParametersIMa();
+                miningParameters.setClassifier(xEventClassifier);
+            }
+            ProcessTree result = IMProcessTree.mineProcessTree(log, miningParameters);
+            logPreprocessing.removedAddedElements(result);
 
-        IMProcessTree miner = new IMProcessTree();
-        if(miningParameters == null) {
-            miningParameters = new MiningParametersIMa();
-            miningParameters.setClassifier(xEventClassifier);
+            return result;
         }
-        ProcessTree result = IMProcessTree.mineProcessTree(log, miningParameters);
-        logPreprocessing.removedAddedElements(result);
-
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-
-        return result;
     }
 
     @Override
     public PetrinetWithMarking minePetrinet(UIPluginContext context, XLog log, boolean structure, MiningSettings params, XEventClassifier xEventClassifier) {
-        LogPreprocessing logPreprocessing = new LogPreprocessing();
+        LogPreprocessing logPreprocessing = new LogPreprocessing(CancellationToken.of(context, params));
         log = logPreprocessing.preprocessLog(context, log);
 
-        System.setOut(new PrintStream(new OutputStream() {
-            @Override
-            public void write(int b) {}
-        }));
+        try (QuietScope ignored = QuietScope.mute()) {
+            IMPetriNet miner = new IMPetriNet();
+            if(miningParameters == null) {
+                miningParameters = new MiningParametersIMa();
+                miningParameters.setClassifier(xEventClassifier);
+            }
+            Object[] result = miner.minePetriNetParameters(context, log, miningParameters);
+            logPreprocessing.removedAddedElements((Petrinet) result[0]);
 
-        IMPetriNet miner = new IMPetriNet();
-        if(miningParameters == null) {
-            miningParameters = new MiningParametersIMa();
-            miningParameters.setClassifier(xEventClassifier);
+            return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking)result[2]);
         }
-        Object[] result = miner.minePetriNetParameters(context, log, miningParameters);
-        logPreprocessing.removedAddedElements((Petrinet) result[0]);
-
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-
-        return new PetrinetWithMarking((Petrinet) result[0], (Marking) result[1], (Marking)result[2]);
     }
 
     @Override
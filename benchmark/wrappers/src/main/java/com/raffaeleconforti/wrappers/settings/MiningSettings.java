@@ -1,5 +1,7 @@
 package com.raffaeleconforti.wrappers.settings;
 
+import com.raffaeleconforti.wrappers.cancellation.CancellationToken;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,10 +10,22 @@ import java.util.Map;
  */
 public class MiningSettings {
     private Map<String, Object> params;
+    private CancellationToken cancellationToken;
 
     public MiningSettings() { params = new HashMap<>(); }
 
+    /**
+     * A copy of the settings, e.g. to give a run a cancellation token of its own without altering the caller's.
+     */
+    public MiningSettings(MiningSettings settings) {
+        params = new HashMap<>(settings.params);
+        cancellationToken = settings.cancellationToken;
+    }
+
     public void setParam(String param, Object value) { params.put(param, value); }
     public Object getParam(String param) { return params.get(param); }
     public boolean containsParam(String param) { return params.containsKey(param); }
+
+    public void setCancellationToken(CancellationToken cancellationToken) { this.cancellationToken = cancellationToken; }
+    public CancellationToken getCancellationToken() { return cancellationToken; }
 }